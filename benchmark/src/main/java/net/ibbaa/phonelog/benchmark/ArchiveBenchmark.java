@@ -0,0 +1,67 @@
+package net.ibbaa.phonelog.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.ibbaa.phonelog.Housekeeper;
+import net.ibbaa.phonelog.LogFileManager;
+
+/**
+ * Archiving of rotated log files with
+ * {@link net.ibbaa.phonelog.LogFileManager#zipFiles(List, File)} and
+ * {@link net.ibbaa.phonelog.Housekeeper}. The files are created again before
+ * each invocation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+@State(Scope.Benchmark)
+public class ArchiveBenchmark {
+
+    private final static int FILE_SIZE = 64 * 1024;
+
+    @Param({ "50", "200" })
+    private int fileCount;
+
+    private File logDir;
+    private List<File> files;
+
+    @Setup(Level.Invocation)
+    public void setup() throws IOException {
+	logDir = BenchmarkSupport.createDirectory("archive");
+	files = BenchmarkSupport.createLogFiles(logDir, fileCount, FILE_SIZE);
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() {
+	BenchmarkSupport.deleteDirectory(logDir);
+    }
+
+    @Benchmark
+    public void zipFiles() {
+	new LogFileManager().zipFiles(files, new File(logDir, "app.zip"));
+    }
+
+    @Benchmark
+    public void housekeeper() {
+	new Housekeeper(logDir.getAbsolutePath(), "app.log", fileCount, -1, (dir, name) -> name.endsWith(".log")).doHousekeepingNow();
+    }
+}
@@ -0,0 +1,115 @@
+package net.ibbaa.phonelog.benchmark;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import net.ibbaa.phonelog.DefaultLogFormatter;
+import net.ibbaa.phonelog.LogFileEntry;
+import net.ibbaa.phonelog.LogFileManager;
+import net.ibbaa.phonelog.LogLevel;
+import net.ibbaa.phonelog.LogMetrics;
+
+/**
+ * Helpers shared by the benchmarks. Generated data uses fixed seeds so each
+ * run works on the same input.
+ */
+public class BenchmarkSupport {
+
+    private final static long SEED = 4711;
+
+    private BenchmarkSupport() {
+
+    }
+
+    /**
+     * Creates an empty directory in the temp directory
+     * 
+     * @param name the directory name
+     * @return the directory
+     */
+    public static File createDirectory(String name) {
+	File dir = new File(new File(System.getProperty("java.io.tmpdir"), "phonelogbenchmark"), name);
+	new LogFileManager().delete(dir);
+	dir.mkdirs();
+	return dir;
+    }
+
+    /**
+     * Deletes a directory
+     * 
+     * @param dir the directory
+     */
+    public static void deleteDirectory(File dir) {
+	new LogFileManager().delete(dir);
+    }
+
+    /**
+     * Waits until all entries queued by file loggers have been written
+     */
+    public static void waitForQueue() {
+	while (LogMetrics.getInstance().getCounter(LogMetrics.QUEUE_DEPTH) > 0) {
+	    Thread.yield();
+	}
+    }
+
+    /**
+     * Creates log entries with messages of varying length
+     * 
+     * @param count the number of entries
+     * @return the entries
+     */
+    public static List<LogFileEntry> createEntries(int count) {
+	Random random = new Random(SEED);
+	List<LogFileEntry> entries = new ArrayList<>();
+	for (int ii = 0; ii < count; ii++) {
+	    entries.add(new LogFileEntry(1000000L + ii, "thread" + (ii % 8), LogLevel.values()[random.nextInt(LogLevel.values().length)], "tag" + (ii % 16), createMessage(random), ii % 100 == 0 ? new IllegalStateException("error" + ii) : null));
+	}
+	return entries;
+    }
+
+    /**
+     * Creates log files filled with formatted entries
+     * 
+     * @param dir      the directory
+     * @param count    the number of files
+     * @param fileSize the approximate size of each file
+     * @return the files
+     * @throws IOException if writing fails
+     */
+    public static List<File> createLogFiles(File dir, int count, int fileSize) throws IOException {
+	DefaultLogFormatter formatter = new DefaultLogFormatter();
+	List<LogFileEntry> entries = createEntries(1000);
+	List<File> files = new ArrayList<>();
+	for (int ii = 0; ii < count; ii++) {
+	    File file = new File(dir, "app_" + ii + ".log");
+	    try (OutputStream outputStream = new FileOutputStream(file)) {
+		int size = 0;
+		for (int jj = 0; size < fileSize; jj++) {
+		    byte[] data = formatter.formatLogFileEntry(entries.get(jj % entries.size()), StandardCharsets.UTF_8);
+		    outputStream.write(data);
+		    size += data.length;
+		}
+	    }
+	    files.add(file);
+	}
+	return files;
+    }
+
+    private static String createMessage(Random random) {
+	StringBuilder message = new StringBuilder();
+	int words = 3 + random.nextInt(20);
+	for (int ii = 0; ii < words; ii++) {
+	    if (ii > 0) {
+		message.append(' ');
+	    }
+	    message.append("word").append(random.nextInt(1000));
+	}
+	return message.toString();
+    }
+}
@@ -0,0 +1,63 @@
+package net.ibbaa.phonelog.benchmark;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.ibbaa.phonelog.LogFileEntry;
+import net.ibbaa.phonelog.LogFileManager;
+
+/**
+ * Writing of large lists as done by {@link net.ibbaa.phonelog.FileDump}. The
+ * dump thread of {@link net.ibbaa.phonelog.FileDump} runs asynchronously, so
+ * the write is measured with
+ * {@link net.ibbaa.phonelog.LogFileManager#writeListToFile(String, String, List, File)}
+ * it delegates to.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+@State(Scope.Benchmark)
+public class FileDumpBenchmark {
+
+    @Param({ "10000", "100000", "1000000" })
+    private int listSize;
+
+    private File dumpDir;
+    private List<String> objects;
+
+    @Setup
+    public void setup() {
+	dumpDir = BenchmarkSupport.createDirectory("filedump");
+	objects = new ArrayList<>();
+	for (LogFileEntry entry : BenchmarkSupport.createEntries(listSize)) {
+	    objects.add(entry.getMessage());
+	}
+    }
+
+    @TearDown
+    public void tearDown() {
+	BenchmarkSupport.deleteDirectory(dumpDir);
+    }
+
+    @Benchmark
+    public void writeList() {
+	new LogFileManager().writeListToFile("header", "empty", objects, new File(dumpDir, "dump.txt"));
+    }
+}
@@ -0,0 +1,88 @@
+package net.ibbaa.phonelog.benchmark;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.ibbaa.phonelog.FileLogger;
+import net.ibbaa.phonelog.LogLevel;
+
+/**
+ * End-to-end throughput of {@link net.ibbaa.phonelog.FileLogger} with 1 to 64
+ * producer threads. Each invocation logs a batch of entries and waits until the
+ * queue has been written.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+@State(Scope.Benchmark)
+public class FileLoggerBenchmark {
+
+    private final static int BATCH_SIZE = 1000;
+
+    private File logDir;
+    private FileLogger logger;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+	logDir = BenchmarkSupport.createDirectory("filelogger");
+	logger = new FileLogger(LogLevel.DEBUG, 1024 * 1024 * 10, 0, -1, logDir.getAbsolutePath());
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+	BenchmarkSupport.waitForQueue();
+	BenchmarkSupport.deleteDirectory(logDir);
+    }
+
+    @Benchmark
+    @Threads(1)
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void producers1() {
+	logBatch();
+    }
+
+    @Benchmark
+    @Threads(4)
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void producers4() {
+	logBatch();
+    }
+
+    @Benchmark
+    @Threads(16)
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void producers16() {
+	logBatch();
+    }
+
+    @Benchmark
+    @Threads(64)
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void producers64() {
+	logBatch();
+    }
+
+    private void logBatch() {
+	for (int ii = 0; ii < BATCH_SIZE; ii++) {
+	    logger.log("tag", "message", null, LogLevel.DEBUG);
+	}
+	BenchmarkSupport.waitForQueue();
+    }
+}
@@ -0,0 +1,64 @@
+package net.ibbaa.phonelog.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.ibbaa.phonelog.DefaultLogFormatter;
+import net.ibbaa.phonelog.LogFileEntry;
+import net.ibbaa.phonelog.PassthroughMessageLogFormatter;
+
+/**
+ * Formatting of entries by {@link net.ibbaa.phonelog.DefaultLogFormatter} and
+ * {@link net.ibbaa.phonelog.PassthroughMessageLogFormatter}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class FormatterBenchmark {
+
+    private final static int ENTRY_COUNT = 1000;
+
+    private List<LogFileEntry> entries;
+    private DefaultLogFormatter defaultFormatter;
+    private PassthroughMessageLogFormatter passthroughFormatter;
+
+    @Setup
+    public void setup() {
+	entries = BenchmarkSupport.createEntries(ENTRY_COUNT);
+	defaultFormatter = new DefaultLogFormatter();
+	passthroughFormatter = new PassthroughMessageLogFormatter();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ENTRY_COUNT)
+    public void defaultFormatter(Blackhole blackhole) {
+	for (LogFileEntry entry : entries) {
+	    blackhole.consume(defaultFormatter.formatLogFileEntry(entry, StandardCharsets.UTF_8));
+	}
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ENTRY_COUNT)
+    public void passthroughFormatter(Blackhole blackhole) {
+	for (LogFileEntry entry : entries) {
+	    blackhole.consume(passthroughFormatter.formatLogFileEntry(entry, StandardCharsets.UTF_8));
+	}
+    }
+}
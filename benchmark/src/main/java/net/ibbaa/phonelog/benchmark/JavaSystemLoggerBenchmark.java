@@ -0,0 +1,72 @@
+package net.ibbaa.phonelog.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.ibbaa.phonelog.JavaSystemLogger;
+import net.ibbaa.phonelog.LogLevel;
+
+/**
+ * Sustained throughput of {@link net.ibbaa.phonelog.JavaSystemLogger} with a
+ * handler discarding the records and 8 alternating tags.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 2)
+@Fork(2)
+@State(Scope.Benchmark)
+public class JavaSystemLoggerBenchmark {
+
+    private final static int TAG_COUNT = 8;
+
+    private JavaSystemLogger systemLogger;
+    private String[] tags;
+    private int index;
+
+    @Setup
+    public void setup() {
+	systemLogger = new JavaSystemLogger(new DiscardingHandler(), null, LogLevel.VERBOSE);
+	systemLogger.removeSystemHandler();
+	tags = new String[TAG_COUNT];
+	for (int ii = 0; ii < TAG_COUNT; ii++) {
+	    tags[ii] = "soak" + ii;
+	}
+	index = 0;
+    }
+
+    @Benchmark
+    public void log() {
+	systemLogger.log(tags[index++ & (TAG_COUNT - 1)], "message", null, LogLevel.DEBUG);
+    }
+
+    private static class DiscardingHandler extends Handler {
+
+	@Override
+	public void publish(LogRecord record) {
+
+	}
+
+	@Override
+	public void flush() {
+
+	}
+
+	@Override
+	public void close() throws SecurityException {
+
+	}
+    }
+}
@@ -0,0 +1,52 @@
+package net.ibbaa.phonelog.benchmark;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.ibbaa.phonelog.FileLogger;
+import net.ibbaa.phonelog.Log;
+import net.ibbaa.phonelog.LogLevel;
+
+/**
+ * Cost of {@link net.ibbaa.phonelog.Log#d(String, String)} if the level is
+ * disabled.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class LogDispatchBenchmark {
+
+    private File logDir;
+
+    @Setup
+    public void setup() {
+	logDir = BenchmarkSupport.createDirectory("dispatch");
+	Log.initialize(new FileLogger(LogLevel.ERROR, logDir.getAbsolutePath()));
+    }
+
+    @TearDown
+    public void tearDown() {
+	Log.initialize(null);
+	BenchmarkSupport.deleteDirectory(logDir);
+    }
+
+    @Benchmark
+    public void disabledLevel() {
+	Log.d("tag", "message");
+    }
+}
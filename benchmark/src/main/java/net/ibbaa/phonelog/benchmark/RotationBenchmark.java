@@ -0,0 +1,64 @@
+package net.ibbaa.phonelog.benchmark;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.ibbaa.phonelog.FileLogger;
+import net.ibbaa.phonelog.LogLevel;
+
+/**
+ * Throughput of {@link net.ibbaa.phonelog.FileLogger} depending on the max file
+ * size, i.e. on the number of rotations. Housekeeping is disabled.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+@State(Scope.Benchmark)
+public class RotationBenchmark {
+
+    private final static int BATCH_SIZE = 1000;
+
+    @Param({ "16384", "262144", "4194304" })
+    private int maxFileSize;
+
+    private File logDir;
+    private FileLogger logger;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+	logDir = BenchmarkSupport.createDirectory("rotation");
+	logger = new FileLogger(LogLevel.DEBUG, maxFileSize, 0, -1, logDir.getAbsolutePath());
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+	BenchmarkSupport.waitForQueue();
+	BenchmarkSupport.deleteDirectory(logDir);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void logWithRotation() {
+	for (int ii = 0; ii < BATCH_SIZE; ii++) {
+	    logger.log("tag", "message", null, LogLevel.DEBUG);
+	}
+	BenchmarkSupport.waitForQueue();
+    }
+}
@@ -0,0 +1,74 @@
+package net.ibbaa.phonelog;
+
+/**
+ * {@link net.ibbaa.phonelog.ILogger} decorator that passes the entries to
+ * another logger on a background thread, e.g. a
+ * {@link net.ibbaa.phonelog.JavaSystemLogger} or
+ * {@link net.ibbaa.phonelog.android.AndroidSystemLogger}. The caller only
+ * creates the entry with its timestamp and thread and queues it. The entries
+ * are passed in batches in the order they were logged. Like the file loggers,
+ * the caller waits up to 500 milliseconds if the queue is full and the entry is
+ * discarded afterwards.
+ */
+public class AsyncLogger implements ILogger {
+
+    private final static int DEFAULT_CAPACITY = 10000;
+    private final static LogOverflowPolicy DEFAULT_OVERFLOW_POLICY = LogOverflowPolicy.BLOCK;
+
+    private final LogSink sink;
+
+    /**
+     * Constructor
+     * 
+     * @param logger the {@link net.ibbaa.phonelog.ILogger} the entries are passed
+     *               to
+     */
+    public AsyncLogger(ILogger logger) {
+	this(logger, DEFAULT_CAPACITY, DEFAULT_OVERFLOW_POLICY);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param logger         the {@link net.ibbaa.phonelog.ILogger} the entries
+     *                       are passed to
+     * @param capacity       the max number of queued entries. Default is 10000.
+     * @param overflowPolicy the behaviour if the queue is full. Default is BLOCK.
+     */
+    public AsyncLogger(ILogger logger, int capacity, LogOverflowPolicy overflowPolicy) {
+	this.sink = new LogSink(logger, capacity, overflowPolicy);
+    }
+
+    /**
+     * Returns the sink with the queue and the counters
+     * 
+     * @return the sink
+     */
+    public LogSink getSink() {
+	return sink;
+    }
+
+    /**
+     * log method
+     * 
+     * @param tag       the tag
+     * @param message   the message
+     * @param throwable the Throwable (can be null)
+     * @param level     the log level
+     */
+    @Override
+    public void log(String tag, String message, Throwable throwable, LogLevel level) {
+	sink.enqueue(new LogFileEntry(LogThread.current(), LogClock.getInstance().currentTimeMillis(), level, tag, message, throwable, null));
+    }
+
+    /**
+     * log method for an existing entry. The timestamp and the thread of the entry
+     * are kept.
+     * 
+     * @param entry the entry
+     */
+    @Override
+    public void log(LogFileEntry entry) {
+	sink.enqueue(entry);
+    }
+}
@@ -0,0 +1,252 @@
+package net.ibbaa.phonelog;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming decoder for log files written with
+ * {@link net.ibbaa.phonelog.BinaryLogFormatter}. Entries are decoded one by
+ * one, a stack trace is appended to the message of the entry as it is rendered
+ * by {@link net.ibbaa.phonelog.DefaultLogFormatter}. A truncated record at the
+ * end of the stream, e.g. after a crash, is ignored.
+ */
+public class BinaryLogDecoder implements ILogDecoder {
+
+    private final InputStream inputStream;
+    private final List<String> tags;
+    private final List<String> threads;
+    private long lastTimestamp;
+    private long position;
+    private long entryOffset;
+    private long sequence;
+    private long sequenceOffset;
+
+    /**
+     * Constructor
+     * 
+     * @param inputStream the stream to decode
+     */
+    public BinaryLogDecoder(InputStream inputStream) {
+	this.inputStream = inputStream instanceof BufferedInputStream ? inputStream : new BufferedInputStream(inputStream);
+	this.tags = new ArrayList<>();
+	this.threads = new ArrayList<>();
+	this.lastTimestamp = 0;
+	this.position = 0;
+	this.entryOffset = 0;
+	this.sequence = -1;
+	this.sequenceOffset = -1;
+    }
+
+    /**
+     * Returns if the data starts with the segment header of
+     * {@link net.ibbaa.phonelog.BinaryLogFormatter}
+     * 
+     * @param data   the data
+     * @param length the number of valid bytes in data
+     * @return <code>true</code> if the data is a binary log
+     */
+    public static boolean isBinaryLog(byte[] data, int length) {
+	byte[] header = BinaryLogFormatter.SEGMENT_HEADER;
+	if (length < header.length - 1) {
+	    return false;
+	}
+	for (int ii = 0; ii < header.length - 1; ii++) {
+	    if (data[ii] != header[ii]) {
+		return false;
+	    }
+	}
+	return true;
+    }
+
+    /**
+     * Reads the next entry
+     * 
+     * @return the entry or <code>null</code> at the end of the stream
+     * @throws IOException if the stream is not a valid binary log
+     */
+    @Override
+    public LogFileEntry readEntry() throws IOException {
+	try {
+	    int recordType;
+	    while ((recordType = inputStream.read()) >= 0) {
+		long recordOffset = position;
+		position++;
+		switch (recordType) {
+		case BinaryLogFormatter.RECORD_SEGMENT:
+		    readSegmentHeader();
+		    break;
+		case BinaryLogFormatter.RECORD_TAG:
+		    readDefinition(tags);
+		    break;
+		case BinaryLogFormatter.RECORD_THREAD:
+		    readDefinition(threads);
+		    break;
+		case BinaryLogFormatter.RECORD_SEQUENCE:
+		    sequence = readVarLong();
+		    sequenceOffset = recordOffset;
+		    break;
+		case BinaryLogFormatter.RECORD_ENTRY:
+		    entryOffset = sequenceOffset >= 0 ? sequenceOffset : recordOffset;
+		    return readEntryRecord();
+		default:
+		    throw new IOException("Invalid record type " + recordType);
+		}
+	    }
+	} catch (EOFException exc) {
+	    // Truncated last record
+	}
+	return null;
+    }
+
+    /**
+     * Returns the offset of the last entry returned by {@link #readEntry()}
+     * 
+     * @return the offset
+     */
+    @Override
+    public long getEntryOffset() {
+	return entryOffset;
+    }
+
+    /**
+     * Decodes all remaining entries and writes them as text using
+     * {@link net.ibbaa.phonelog.DefaultLogFormatter}
+     * 
+     * @param outputStream the stream to write to
+     * @param encoding     the encoding
+     * @throws IOException if reading or writing fails
+     */
+    public void decodeToText(OutputStream outputStream, Charset encoding) throws IOException {
+	DefaultLogFormatter formatter = new DefaultLogFormatter();
+	LogFileEntry entry;
+	while ((entry = readEntry()) != null) {
+	    outputStream.write(formatter.formatLogFileEntry(entry, encoding));
+	}
+    }
+
+    /**
+     * Closes the underlying stream
+     * 
+     * @throws IOException if closing fails
+     */
+    @Override
+    public void close() throws IOException {
+	inputStream.close();
+    }
+
+    private void readSegmentHeader() throws IOException {
+	byte[] header = BinaryLogFormatter.SEGMENT_HEADER;
+	for (int ii = 1; ii < header.length - 1; ii++) {
+	    if (readByte() != header[ii]) {
+		throw new IOException("Invalid segment header");
+	    }
+	}
+	int version = readByte();
+	if (version != header[header.length - 1]) {
+	    throw new IOException("Unsupported version " + version);
+	}
+	tags.clear();
+	threads.clear();
+	lastTimestamp = 0;
+	sequence = -1;
+	sequenceOffset = -1;
+    }
+
+    private void readDefinition(List<String> dictionary) throws IOException {
+	int id = (int) readVarLong();
+	String value = readString();
+	while (dictionary.size() <= id) {
+	    dictionary.add(null);
+	}
+	dictionary.set(id, value);
+    }
+
+    private LogFileEntry readEntryRecord() throws IOException {
+	LogLevel level = getLevel(readByte());
+	long timestamp = lastTimestamp + BinaryLogFormatter.decodeZigZag(readVarLong());
+	lastTimestamp = timestamp;
+	String tag = readReference(tags);
+	String thread = readReference(threads);
+	String message = readString();
+	String stackTrace = readString();
+	if (stackTrace != null) {
+	    message = message + System.lineSeparator() + stackTrace;
+	}
+	LogFileEntry entry = new LogFileEntry(timestamp, sequence, thread, level, tag, message, null, null);
+	sequence = -1;
+	sequenceOffset = -1;
+	return entry;
+    }
+
+    private String readReference(List<String> dictionary) throws IOException {
+	int reference = (int) readVarLong();
+	if (reference == BinaryLogFormatter.REFERENCE_NULL) {
+	    return null;
+	}
+	if (reference == BinaryLogFormatter.REFERENCE_INLINE) {
+	    return readString();
+	}
+	int id = reference - BinaryLogFormatter.REFERENCE_OFFSET;
+	if (id >= dictionary.size()) {
+	    throw new IOException("Undefined reference " + id);
+	}
+	return dictionary.get(id);
+    }
+
+    private String readString() throws IOException {
+	long length = readVarLong();
+	if (length == 0) {
+	    return null;
+	}
+	if (length - 1 > Integer.MAX_VALUE) {
+	    throw new IOException("Invalid string length " + length);
+	}
+	byte[] data = new byte[(int) (length - 1)];
+	int offset = 0;
+	while (offset < data.length) {
+	    int read = inputStream.read(data, offset, data.length - offset);
+	    if (read < 0) {
+		throw new EOFException();
+	    }
+	    offset += read;
+	    position += read;
+	}
+	return new String(data, Charsets.UTF8_CHARSET);
+    }
+
+    private long readVarLong() throws IOException {
+	long value = 0;
+	for (int shift = 0; shift < 64; shift += 7) {
+	    int data = readByte();
+	    value |= (long) (data & 0x7F) << shift;
+	    if ((data & 0x80) == 0) {
+		return value;
+	    }
+	}
+	throw new IOException("Invalid variable length integer");
+    }
+
+    private int readByte() throws IOException {
+	int data = inputStream.read();
+	if (data < 0) {
+	    throw new EOFException();
+	}
+	position++;
+	return data;
+    }
+
+    private LogLevel getLevel(int level) throws IOException {
+	for (LogLevel logLevel : LogLevel.values()) {
+	    if (logLevel.getLevel() == level) {
+		return logLevel;
+	    }
+	}
+	throw new IOException("Invalid log level " + level);
+    }
+}
@@ -0,0 +1,162 @@
+package net.ibbaa.phonelog;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compact binary implementation for {@link net.ibbaa.phonelog.ILogFormatter}.
+ * Timestamps are delta encoded as variable length integers, the level is a
+ * single byte, tags and thread names are coded by a dictionary per segment and
+ * messages are written as length prefixed UTF-8. Strings are always encoded as
+ * UTF-8, the provided encoding is ignored. The files can be read with
+ * {@link net.ibbaa.phonelog.BinaryLogDecoder}.
+ */
+public class BinaryLogFormatter implements ISegmentLogFormatter {
+
+    final static byte[] SEGMENT_HEADER = new byte[] { 'P', 'L', 'O', 'G', 1 };
+
+    final static int RECORD_SEGMENT = 'P';
+    final static int RECORD_ENTRY = 1;
+    final static int RECORD_TAG = 2;
+    final static int RECORD_THREAD = 3;
+    final static int RECORD_SEQUENCE = 4;
+
+    final static int REFERENCE_NULL = 0;
+    final static int REFERENCE_INLINE = 1;
+    final static int REFERENCE_OFFSET = 2;
+
+    private final static int MAX_DICTIONARY_SIZE = 1024;
+    private final static int INITIAL_BUFFER_SIZE = 64;
+
+    private final DefaultLogFormatter textFormatter;
+    private final Map<String, Integer> tagDictionary;
+    private final Map<String, Integer> threadDictionary;
+    private long lastTimestamp;
+    private Object logger;
+
+    /**
+     * Constructor
+     */
+    public BinaryLogFormatter() {
+	this.textFormatter = new DefaultLogFormatter();
+	this.tagDictionary = new HashMap<>();
+	this.threadDictionary = new HashMap<>();
+	this.lastTimestamp = 0;
+    }
+
+    /**
+     * Resets the dictionaries and the timestamp base
+     * 
+     * @return the segment header
+     */
+    @Override
+    public synchronized byte[] startSegment() {
+	tagDictionary.clear();
+	threadDictionary.clear();
+	lastTimestamp = 0;
+	return SEGMENT_HEADER.clone();
+    }
+
+    /**
+     * Format the log entry as text using
+     * {@link net.ibbaa.phonelog.DefaultLogFormatter}
+     * 
+     * @param entry the log entry
+     * @return the formatted log entry as string
+     */
+    @Override
+    public String formatLogFileEntry(LogFileEntry entry) {
+	return textFormatter.formatLogFileEntry(entry);
+    }
+
+    /**
+     * Format the log entry
+     * 
+     * @param entry    the log entry
+     * @param encoding ignored, strings are always UTF-8
+     * @return the encoded log entry as byte array
+     */
+    @Override
+    public synchronized byte[] formatLogFileEntry(LogFileEntry entry, Charset encoding) {
+	String message = entry.getMessage();
+	ByteArrayOutputStream outputStream = new ByteArrayOutputStream(INITIAL_BUFFER_SIZE + (message != null ? message.length() : 0));
+	int tagReference = getReference(outputStream, tagDictionary, RECORD_TAG, entry.getTag());
+	int threadReference = getReference(outputStream, threadDictionary, RECORD_THREAD, entry.getThread());
+	outputStream.write(RECORD_ENTRY);
+	outputStream.write(entry.getLevel().getLevel());
+	writeVarLong(outputStream, encodeZigZag(entry.getTimestamp() - lastTimestamp));
+	lastTimestamp = entry.getTimestamp();
+	writeReference(outputStream, tagReference, entry.getTag());
+	writeReference(outputStream, threadReference, entry.getThread());
+	writeString(outputStream, message);
+	Throwable throwable = entry.getThrowable();
+	writeString(outputStream, throwable != null ? textFormatter.exceptionToString(throwable) : null);
+	return outputStream.toByteArray();
+    }
+
+    private int getReference(ByteArrayOutputStream outputStream, Map<String, Integer> dictionary, int recordType, String value) {
+	if (value == null) {
+	    return REFERENCE_NULL;
+	}
+	Integer id = dictionary.get(value);
+	if (id == null) {
+	    if (dictionary.size() >= MAX_DICTIONARY_SIZE) {
+		return REFERENCE_INLINE;
+	    }
+	    id = dictionary.size();
+	    dictionary.put(value, id);
+	    outputStream.write(recordType);
+	    writeVarLong(outputStream, id);
+	    writeString(outputStream, value);
+	}
+	return id + REFERENCE_OFFSET;
+    }
+
+    private void writeReference(ByteArrayOutputStream outputStream, int reference, String value) {
+	writeVarLong(outputStream, reference);
+	if (reference == REFERENCE_INLINE) {
+	    writeString(outputStream, value);
+	}
+    }
+
+    private void writeString(ByteArrayOutputStream outputStream, String value) {
+	if (value == null) {
+	    writeVarLong(outputStream, 0);
+	    return;
+	}
+	byte[] data = value.getBytes(Charsets.UTF8_CHARSET);
+	writeVarLong(outputStream, data.length + 1);
+	outputStream.write(data, 0, data.length);
+    }
+
+    static void writeVarLong(ByteArrayOutputStream outputStream, long value) {
+	while ((value & ~0x7FL) != 0) {
+	    outputStream.write((int) ((value & 0x7F) | 0x80));
+	    value >>>= 7;
+	}
+	outputStream.write((int) value);
+    }
+
+    static long encodeZigZag(long value) {
+	return (value << 1) ^ (value >> 63);
+    }
+
+    static long decodeZigZag(long value) {
+	return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Binds the formatter to the logger
+     * 
+     * @param logger the logger
+     */
+    @Override
+    public synchronized void attach(Object logger) {
+	if (this.logger != null && this.logger != logger) {
+	    throw new IllegalArgumentException("Formatter is used by another logger");
+	}
+	this.logger = logger;
+    }
+}
@@ -0,0 +1,87 @@
+package net.ibbaa.phonelog;
+
+import java.io.Closeable;
+
+/**
+ * {@link net.ibbaa.phonelog.ILogClock} returning a cached time, which is
+ * updated by a daemon ticker thread. Reading the time is a volatile read, the
+ * precision is the resolution of the ticker. The returned time never
+ * decreases. A finer resolution gives more precise timestamps, but the ticker
+ * wakes up more often, which costs CPU time and battery on idle devices. The
+ * default of 10 milliseconds is close to the granularity of
+ * <code>System.currentTimeMillis()</code> on many platforms. Entries within
+ * one tick share a timestamp and are ordered by their sequence number.
+ */
+public class CoarseLogClock implements ILogClock, Closeable {
+
+    private final static long DEFAULT_RESOLUTION = 10;
+
+    private final long resolution;
+    private final Thread ticker;
+    private volatile long time;
+    private volatile boolean closed;
+
+    /**
+     * Constructor. The resolution is 10 milliseconds.
+     */
+    public CoarseLogClock() {
+	this(DEFAULT_RESOLUTION);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param resolution the update interval of the time in milliseconds. Default
+     *                   is 10.
+     */
+    public CoarseLogClock(long resolution) {
+	this.resolution = Math.max(1, resolution);
+	this.time = System.currentTimeMillis();
+	this.closed = false;
+	this.ticker = new Thread(this::tick, "phonelog-clock");
+	this.ticker.setDaemon(true);
+	this.ticker.start();
+    }
+
+    /**
+     * Returns the cached time
+     * 
+     * @return the cached time in milliseconds since the epoch
+     */
+    @Override
+    public long currentTimeMillis() {
+	return time;
+    }
+
+    /**
+     * Returns the update interval
+     * 
+     * @return the update interval in milliseconds
+     */
+    public long getResolution() {
+	return resolution;
+    }
+
+    /**
+     * Stops the ticker thread. The time is not updated anymore.
+     */
+    @Override
+    public void close() {
+	closed = true;
+	ticker.interrupt();
+    }
+
+    private void tick() {
+	while (!closed) {
+	    try {
+		Thread.sleep(resolution);
+	    } catch (InterruptedException exc) {
+		return;
+	    }
+	    long now = System.currentTimeMillis();
+	    if (now > time) {
+		time = now;
+	    }
+	}
+    }
+}
@@ -0,0 +1,77 @@
+package net.ibbaa.phonelog;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link net.ibbaa.phonelog.ILogger} implementation that passes each entry to
+ * several sinks. Unlike chaining loggers with a delegate logger, each
+ * {@link net.ibbaa.phonelog.LogSink} has its own bounded queue and thread, so a
+ * slow sink does not slow down the caller or the other sinks. The entries are
+ * passed with the timestamp and thread of the caller.
+ */
+public class CompositeLogger implements ILogger {
+
+    private final List<LogSink> sinks;
+
+    /**
+     * Constructor. Each logger gets a sink with the default capacity and overflow
+     * policy.
+     * 
+     * @param loggers the {@link net.ibbaa.phonelog.ILogger} implementations the
+     *                entries are passed to
+     */
+    public CompositeLogger(ILogger... loggers) {
+	List<LogSink> sinkList = new ArrayList<>();
+	for (ILogger logger : loggers) {
+	    sinkList.add(new LogSink(logger));
+	}
+	this.sinks = Collections.unmodifiableList(sinkList);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param sinks the sinks the entries are passed to
+     */
+    public CompositeLogger(LogSink... sinks) {
+	this.sinks = Collections.unmodifiableList(new ArrayList<>(Arrays.asList(sinks)));
+    }
+
+    /**
+     * Returns the sinks, e.g. to check which sink falls behind
+     * 
+     * @return the sinks
+     */
+    public List<LogSink> getSinks() {
+	return sinks;
+    }
+
+    /**
+     * log method
+     * 
+     * @param tag       the tag
+     * @param message   the message
+     * @param throwable the Throwable (can be null)
+     * @param level     the log level
+     */
+    @Override
+    public void log(String tag, String message, Throwable throwable, LogLevel level) {
+	log(new LogFileEntry(LogThread.current(), LogClock.getInstance().currentTimeMillis(), level, tag, message, throwable, null));
+    }
+
+    /**
+     * log method for an existing entry. The timestamp and the thread of the entry
+     * are kept.
+     * 
+     * @param entry the entry
+     */
+    @Override
+    public void log(LogFileEntry entry) {
+	for (LogSink sink : sinks) {
+	    sink.enqueue(entry);
+	}
+    }
+}
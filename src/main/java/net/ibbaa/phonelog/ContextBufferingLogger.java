@@ -0,0 +1,188 @@
+package net.ibbaa.phonelog;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link net.ibbaa.phonelog.ILogger} decorator that holds entries at or below
+ * the buffer level in bounded buffers per thread or per tag. When an entry at
+ * or above the trigger level arrives on the same thread or tag, the buffer is
+ * passed to the target logger with the original timestamps and threads before
+ * the entry itself. Buffered entries older than the time window are discarded.
+ * Entries between the buffer level and the trigger level are passed to the
+ * target immediately.
+ */
+public class ContextBufferingLogger implements ILogger {
+
+    private final static int DEFAULT_BUFFER_SIZE = 200;
+    private final static long DEFAULT_WINDOW = 60000;
+    private final static LogLevel DEFAULT_BUFFER_LEVEL = LogLevel.DEBUG;
+    private final static LogLevel DEFAULT_TRIGGER_LEVEL = LogLevel.ERROR;
+    private final static boolean DEFAULT_BUFFER_BY_TAG = false;
+
+    private final ILogger target;
+    private final int bufferSize;
+    private final long window;
+    private final LogLevel bufferLevel;
+    private final LogLevel triggerLevel;
+    private final boolean bufferByTag;
+    private final Map<String, Deque<LogFileEntry>> buffers;
+    private long lastExpiry;
+
+    /**
+     * Constructor
+     * 
+     * @param target the {@link net.ibbaa.phonelog.ILogger} the entries are passed
+     *               to
+     */
+    public ContextBufferingLogger(ILogger target) {
+	this(target, DEFAULT_BUFFER_SIZE, DEFAULT_WINDOW);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param target     the {@link net.ibbaa.phonelog.ILogger} the entries are
+     *                   passed to
+     * @param bufferSize the max number of entries per buffer. Default is 200.
+     * @param window     the time in milliseconds buffered entries are kept.
+     *                   Default is 60000.
+     */
+    public ContextBufferingLogger(ILogger target, int bufferSize, long window) {
+	this(target, bufferSize, window, DEFAULT_BUFFER_LEVEL, DEFAULT_TRIGGER_LEVEL, DEFAULT_BUFFER_BY_TAG);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param target       the {@link net.ibbaa.phonelog.ILogger} the entries are
+     *                     passed to
+     * @param bufferSize   the max number of entries per buffer. Default is 200.
+     * @param window       the time in milliseconds buffered entries are kept.
+     *                     Default is 60000.
+     * @param bufferLevel  entries at or below this level are buffered. Default is
+     *                     DEBUG.
+     * @param triggerLevel entries at or above this level pass the buffer to the
+     *                     target. Default is ERROR.
+     * @param bufferByTag  <code>true</code> to buffer per tag,
+     *                     <code>false</code> to buffer per thread. Default is
+     *                     <code>false</code>.
+     */
+    public ContextBufferingLogger(ILogger target, int bufferSize, long window, LogLevel bufferLevel, LogLevel triggerLevel, boolean bufferByTag) {
+	this.target = target;
+	this.bufferSize = Math.max(1, bufferSize);
+	this.window = window;
+	this.bufferLevel = bufferLevel;
+	this.triggerLevel = triggerLevel;
+	this.bufferByTag = bufferByTag;
+	this.buffers = new HashMap<>();
+	this.lastExpiry = LogClock.getInstance().currentTimeMillis();
+    }
+
+    /**
+     * log method
+     * 
+     * @param tag       the tag
+     * @param message   the message
+     * @param throwable the Throwable (can be null)
+     * @param level     the log level
+     */
+    @Override
+    public void log(String tag, String message, Throwable throwable, LogLevel level) {
+	log(new LogFileEntry(LogThread.current(), LogClock.getInstance().currentTimeMillis(), level, tag, message, throwable, null));
+    }
+
+    /**
+     * log method for an existing entry. The timestamp and the thread of the entry
+     * are kept.
+     * 
+     * @param entry the entry
+     */
+    @Override
+    public void log(LogFileEntry entry) {
+	if (entry.getLevel() == null) {
+	    return;
+	}
+	String key = bufferByTag ? entry.getTag() : entry.getThread();
+	int level = entry.getLevel().getLevel();
+	if (level <= bufferLevel.getLevel()) {
+	    buffer(key, entry);
+	    return;
+	}
+	if (level >= triggerLevel.getLevel()) {
+	    for (LogFileEntry bufferedEntry : removeBuffer(key, entry.getTimestamp())) {
+		target.log(bufferedEntry);
+	    }
+	}
+	target.log(entry);
+    }
+
+    /**
+     * Returns the number of buffered entries of all threads or tags
+     * 
+     * @return the number of buffered entries
+     */
+    public int getBufferedEntryCount() {
+	synchronized (buffers) {
+	    expire(LogClock.getInstance().currentTimeMillis());
+	    int count = 0;
+	    for (Deque<LogFileEntry> buffer : buffers.values()) {
+		count += buffer.size();
+	    }
+	    return count;
+	}
+    }
+
+    private void buffer(String key, LogFileEntry entry) {
+	synchronized (buffers) {
+	    long now = LogClock.getInstance().currentTimeMillis();
+	    if (now - lastExpiry >= window) {
+		expire(now);
+	    }
+	    Deque<LogFileEntry> buffer = buffers.get(key);
+	    if (buffer == null) {
+		buffer = new ArrayDeque<>();
+		buffers.put(key, buffer);
+	    }
+	    if (buffer.size() >= bufferSize) {
+		buffer.poll();
+	    }
+	    buffer.add(entry);
+	}
+    }
+
+    private List<LogFileEntry> removeBuffer(String key, long timestamp) {
+	Deque<LogFileEntry> buffer;
+	synchronized (buffers) {
+	    buffer = buffers.remove(key);
+	}
+	List<LogFileEntry> entries = new ArrayList<>();
+	if (buffer != null) {
+	    for (LogFileEntry entry : buffer) {
+		if (timestamp - entry.getTimestamp() < window) {
+		    entries.add(entry);
+		}
+	    }
+	}
+	return entries;
+    }
+
+    private void expire(long now) {
+	Iterator<Deque<LogFileEntry>> iterator = buffers.values().iterator();
+	while (iterator.hasNext()) {
+	    Deque<LogFileEntry> buffer = iterator.next();
+	    while (!buffer.isEmpty() && now - buffer.peek().getTimestamp() >= window) {
+		buffer.poll();
+	    }
+	    if (buffer.isEmpty()) {
+		iterator.remove();
+	    }
+	}
+	lastExpiry = now;
+    }
+}
@@ -0,0 +1,165 @@
+package net.ibbaa.phonelog;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@link net.ibbaa.phonelog.DefaultLogFormatter} that writes each distinct
+ * stack trace only once per log file segment. Throwables are fingerprinted by
+ * class and a hash of the stack frames including the causes. The first
+ * occurrence is written in full after a line <code>#stacktrace</code> with the
+ * fingerprint, later occurrences as a line <code>#stacktrace-ref</code> with
+ * the fingerprint followed by the first line of the stack trace, i.e. the class
+ * and the message of the Throwable. The number of remembered fingerprints is
+ * bounded, the least recently used are evicted and written in full again.
+ * {@link net.ibbaa.phonelog.LogStackTraceExpander} restores the full stack
+ * traces.
+ */
+public class DeduplicatingLogFormatter extends DefaultLogFormatter implements ISegmentLogFormatter {
+
+    /**
+     * The marker of a full stack trace
+     */
+    public final static String STACK_TRACE_MARKER = "#stacktrace ";
+
+    /**
+     * The marker of a reference to a stack trace
+     */
+    public final static String STACK_TRACE_REFERENCE_MARKER = "#stacktrace-ref ";
+
+    private final static int DEFAULT_CACHE_SIZE = 256;
+
+    private final Map<String, Boolean> fingerprints;
+    private Object logger;
+
+    /**
+     * Constructor
+     */
+    public DeduplicatingLogFormatter() {
+	this(DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param cacheSize the max number of remembered fingerprints. Default is 256.
+     */
+    public DeduplicatingLogFormatter(int cacheSize) {
+	this(cacheSize, null);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param cacheSize         the max number of remembered fingerprints. Default
+     *                          is 256.
+     * @param throwableRenderer the renderer for the first occurrence of a stack
+     *                          trace, see
+     *                          {@link net.ibbaa.phonelog.DefaultLogFormatter}
+     */
+    public DeduplicatingLogFormatter(int cacheSize, ThrowableRenderer throwableRenderer) {
+	super(throwableRenderer);
+	int maxSize = Math.max(1, cacheSize);
+	this.fingerprints = new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+
+	    private static final long serialVersionUID = 1L;
+
+	    @Override
+	    protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+		return size() > maxSize;
+	    }
+	};
+    }
+
+    /**
+     * Forgets all fingerprints, so each stack trace is written in full again
+     * 
+     * @return an empty array, there is no segment header
+     */
+    @Override
+    public synchronized byte[] startSegment() {
+	fingerprints.clear();
+	return new byte[0];
+    }
+
+    /**
+     * Returns the fingerprint of the Throwable, i.e. the class name and a hash of
+     * the class names and stack frames of the Throwable and its causes
+     * 
+     * @param exc the Throwable
+     * @return the fingerprint
+     */
+    public static String getFingerprint(Throwable exc) {
+	long hash = 0xcbf29ce484222325L;
+	Set<Throwable> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+	Throwable current = exc;
+	while (current != null && visited.add(current)) {
+	    hash = hash(hash, current.getClass().getName());
+	    for (StackTraceElement element : current.getStackTrace()) {
+		hash = hash(hash, element.getClassName());
+		hash = hash(hash, element.getMethodName());
+		hash = hash(hash, element.getFileName());
+		hash = hash(hash, element.getLineNumber());
+	    }
+	    current = current.getCause();
+	}
+	StringBuilder hex = new StringBuilder(Long.toHexString(hash));
+	while (hex.length() < 16) {
+	    hex.insert(0, '0');
+	}
+	return exc.getClass().getName() + "@" + hex;
+    }
+
+    /**
+     * Returns the full stack trace for the first occurrence of a fingerprint and
+     * a reference for later occurrences
+     * 
+     * @param exc     the exception
+     * @param builder the builder to append to
+     */
+    @Override
+    protected synchronized void formatThrowable(Throwable exc, StringBuilder builder) {
+	String fingerprint = getFingerprint(exc);
+	if (fingerprints.get(fingerprint) != null) {
+	    builder.append(STACK_TRACE_REFERENCE_MARKER).append(fingerprint).append(System.lineSeparator());
+	    builder.append(exc).append(System.lineSeparator());
+	    return;
+	}
+	fingerprints.put(fingerprint, Boolean.TRUE);
+	builder.append(STACK_TRACE_MARKER).append(fingerprint).append(System.lineSeparator());
+	super.formatThrowable(exc, builder);
+    }
+
+    private static long hash(long hash, String value) {
+	if (value == null) {
+	    return hash(hash, -1);
+	}
+	for (int ii = 0; ii < value.length(); ii++) {
+	    hash ^= value.charAt(ii);
+	    hash *= 0x100000001b3L;
+	}
+	return hash(hash, value.length());
+    }
+
+    private static long hash(long hash, int value) {
+	hash ^= value;
+	hash *= 0x100000001b3L;
+	return hash;
+    }
+
+    /**
+     * Binds the formatter to the logger
+     * 
+     * @param logger the logger
+     */
+    @Override
+    public synchronized void attach(Object logger) {
+	if (this.logger != null && this.logger != logger) {
+	    throw new IllegalArgumentException("Formatter is used by another logger");
+	}
+	this.logger = logger;
+    }
+}
@@ -1,7 +1,5 @@
 package net.ibbaa.phonelog;
 
-import java.io.PrintWriter;
-import java.io.StringWriter;
 import java.nio.charset.Charset;
 import java.text.SimpleDateFormat;
 import java.util.Date;
@@ -14,11 +12,24 @@ public class DefaultLogFormatter implements ILogFormatter {
 
     private final static String LOG_TIMESTAMP_PATTERN = "yyyy-MM-dd HH:mm:ss.SSS";
 
+    private final ThrowableRenderer throwableRenderer;
+
     /**
      * Constructor
      */
     public DefaultLogFormatter() {
+	this(null);
+    }
 
+    /**
+     * Constructor
+     * 
+     * @param throwableRenderer the renderer for exceptions, default renders the
+     *                          same output as
+     *                          {@link java.lang.Throwable#printStackTrace()}
+     */
+    public DefaultLogFormatter(ThrowableRenderer throwableRenderer) {
+	this.throwableRenderer = throwableRenderer == null ? new ThrowableRenderer() : throwableRenderer;
     }
     
     /**
@@ -49,7 +60,7 @@ public class DefaultLogFormatter implements ILogFormatter {
 	Throwable exception = entry.getThrowable();
 	if (exception != null) {
 	    messageBuilder.append(System.lineSeparator());
-	    messageBuilder.append(exceptionToString(exception));
+	    formatThrowable(exception, messageBuilder);
 	}
 	messageBuilder.append(System.lineSeparator());
 	return messageBuilder.toString();
@@ -62,10 +73,18 @@ public class DefaultLogFormatter implements ILogFormatter {
      * @return th exception as string
      */
     public String exceptionToString(Throwable exc) {
-	StringWriter stringWriter = new StringWriter();
-	PrintWriter printWriter = new PrintWriter(stringWriter);
-	exc.printStackTrace(printWriter);
-	return stringWriter.toString();
+	return throwableRenderer.render(exc);
+    }
+
+    /**
+     * Appends the representation of the exception written to the log file.
+     * Default is the output of the {@link net.ibbaa.phonelog.ThrowableRenderer}.
+     * 
+     * @param exc     the exception
+     * @param builder the builder to append to
+     */
+    protected void formatThrowable(Throwable exc, StringBuilder builder) {
+	throwableRenderer.render(exc, builder);
     }
 
     /**
@@ -0,0 +1,117 @@
+package net.ibbaa.phonelog;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Writes objects as UTF-8 text lines to a dump file or stream (the
+ * toString-method() will be used). The characters are encoded through one
+ * encoder and written from one byte buffer, which are reused for all lines, so
+ * no byte array is created per line.
+ */
+public class DumpFileWriter implements Closeable {
+
+    private final static int BUFFER_SIZE = 8192;
+
+    private final OutputStream outputStream;
+    private final CharsetEncoder encoder;
+    private final CharBuffer charBuffer;
+    private final ByteBuffer byteBuffer;
+
+    /**
+     * Constructor
+     * 
+     * @param file the file
+     * @throws IOException if the file cannot be opened
+     */
+    public DumpFileWriter(File file) throws IOException {
+	this(new FileOutputStream(file));
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param outputStream the stream to write to, closed by {@link #close()}
+     */
+    public DumpFileWriter(OutputStream outputStream) {
+	this.outputStream = outputStream;
+	this.encoder = Charsets.UTF8_CHARSET.newEncoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+	this.charBuffer = CharBuffer.allocate(BUFFER_SIZE);
+	this.byteBuffer = ByteBuffer.allocate(BUFFER_SIZE * 4);
+    }
+
+    /**
+     * Writes the object followed by a line separator
+     * 
+     * @param object the object
+     * @throws IOException if writing fails
+     */
+    public void writeLine(Object object) throws IOException {
+	write(String.valueOf(object));
+	write(System.lineSeparator());
+    }
+
+    /**
+     * Writes the string
+     * 
+     * @param value the string
+     * @throws IOException if writing fails
+     */
+    public void write(String value) throws IOException {
+	int position = 0;
+	while (position < value.length()) {
+	    int count = Math.min(charBuffer.remaining(), value.length() - position);
+	    value.getChars(position, position + count, charBuffer.array(), charBuffer.arrayOffset() + charBuffer.position());
+	    ((Buffer) charBuffer).position(charBuffer.position() + count);
+	    position += count;
+	    ((Buffer) charBuffer).flip();
+	    encode(false);
+	    charBuffer.compact();
+	}
+    }
+
+    /**
+     * Writes the remaining characters and closes the file
+     * 
+     * @throws IOException if writing fails
+     */
+    @Override
+    public void close() throws IOException {
+	try {
+	    ((Buffer) charBuffer).flip();
+	    encode(true);
+	    while (encoder.flush(byteBuffer).isOverflow()) {
+		flushBytes();
+	    }
+	    flushBytes();
+	} finally {
+	    outputStream.close();
+	}
+    }
+
+    private void encode(boolean endOfInput) throws IOException {
+	while (true) {
+	    CoderResult result = encoder.encode(charBuffer, byteBuffer, endOfInput);
+	    if (!result.isOverflow()) {
+		return;
+	    }
+	    flushBytes();
+	}
+    }
+
+    private void flushBytes() throws IOException {
+	if (byteBuffer.position() > 0) {
+	    outputStream.write(byteBuffer.array(), byteBuffer.arrayOffset(), byteBuffer.position());
+	    ((Buffer) byteBuffer).clear();
+	}
+    }
+}
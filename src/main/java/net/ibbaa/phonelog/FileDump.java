@@ -2,11 +2,24 @@ package net.ibbaa.phonelog;
 
 import java.io.File;
 import java.io.FilenameFilter;
+import java.io.IOException;
+import java.util.HashMap;
 import java.util.List;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * {@link net.ibbaa.phonelog.IDump} implemenation that writes dumps to a file.
+ * The dumps of all instances are written one after another by a single dump
+ * thread, which terminates when idle. A dump requested while a dump for the
+ * same directory and <code>baseFileName</code> is still pending replaces the
+ * pending request, so only the latest one is written. At most 100 dumps are
+ * pending, further requests are dropped. The objects of an
+ * {@link net.ibbaa.phonelog.IStreamingDumpSource} are written as they are
+ * passed without collecting them in a list.
  */
 public class FileDump implements IDump {
 
@@ -14,6 +27,8 @@ public class FileDump implements IDump {
     private final static int DEFAULT_DELETE_FILE_COUNT = -1;
     private final static String DEFAULT_DUMP_FILE_EXTENSION = "txt";
     private final static String DEFAULT_EMPTY_MESSAGE = "No entries.";
+    private final static int MAX_PENDING_DUMPS = 100;
+    private final static long DUMP_THREAD_KEEP_ALIVE = 1000;
 
     private final int archiveFileCount;
     private final int deleteFileCount;
@@ -21,7 +36,9 @@ public class FileDump implements IDump {
     private final String emptyMessage;
     private final String dumpDirectory;
 
-    private final static ReentrantLock dumpLock = new ReentrantLock();
+    private final static ThreadPoolExecutor dumpExecutor = createDumpExecutor();
+    private final static Map<String, DumpTask> pendingDumps = new HashMap<>();
+    private static int pendingDumpCount = 0;
 
     /**
      * Constructor
@@ -76,56 +93,197 @@ public class FileDump implements IDump {
 	}
 	LogFileEntry logEntry = null;
 	if (tag != null && message != null) {
-	    logEntry = new LogFileEntry(System.currentTimeMillis(), Thread.currentThread().getName(), LogLevel.DEBUG, tag, message, null);
+	    logEntry = new LogFileEntry(LogThread.current(), LogClock.getInstance().currentTimeMillis(), LogLevel.DEBUG, tag, message, null, null);
+	}
+	DumpRequest request = new DumpRequest(this, logEntry, baseFileName, source);
+	String key = baseFileName != null ? new File(dumpDirectory, baseFileName + "." + dumpFileExtension).getAbsolutePath() : null;
+	LogMetrics metrics = LogMetrics.getInstance();
+	synchronized (pendingDumps) {
+	    DumpTask pendingTask = key != null ? pendingDumps.get(key) : null;
+	    if (pendingTask != null) {
+		pendingTask.request = request;
+		metrics.increment(LogMetrics.DUMPS_COALESCED);
+		return;
+	    }
+	    if (pendingDumpCount >= MAX_PENDING_DUMPS) {
+		metrics.increment(LogMetrics.DUMPS_DROPPED);
+		return;
+	    }
+	    DumpTask task = new DumpTask(key, request);
+	    if (key != null) {
+		pendingDumps.put(key, task);
+	    }
+	    pendingDumpCount++;
+	    dumpExecutor.execute(task);
 	}
-	Thread dumpThread = new Thread(new DumpThread(logEntry, baseFileName, source));
-	dumpThread.start();
     }
 
-    private class DumpThread implements Runnable {
+    private static ThreadPoolExecutor createDumpExecutor() {
+	ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, DUMP_THREAD_KEEP_ALIVE, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+	executor.allowCoreThreadTimeOut(true);
+	return executor;
+    }
+
+    private static class DumpRequest {
 
+	private final FileDump owner;
 	private final LogFileEntry logEntry;
 	private final String baseFileName;
 	private final IDumpSource source;
 
-	public DumpThread(LogFileEntry logEntry, String baseFileName, IDumpSource source) {
+	public DumpRequest(FileDump owner, LogFileEntry logEntry, String baseFileName, IDumpSource source) {
+	    this.owner = owner;
 	    this.logEntry = logEntry;
 	    this.baseFileName = baseFileName;
 	    this.source = source;
 	}
+    }
+
+    private static class DumpTask implements Runnable {
+
+	private final String key;
+	private final long enqueueTime;
+	private DumpRequest request;
+
+	public DumpTask(String key, DumpRequest request) {
+	    this.key = key;
+	    this.enqueueTime = System.nanoTime();
+	    this.request = request;
+	}
 
 	@Override
 	public void run() {
-	    try {
-		dumpLock.lock();
-		List<?> objectsToDump = source.objectsToDump();
-		File dumpFolder = new File(dumpDirectory);
-		if (!dumpFolder.exists()) {
-		    dumpFolder.mkdirs();
+	    DumpRequest currentRequest;
+	    synchronized (pendingDumps) {
+		if (key != null) {
+		    pendingDumps.remove(key);
 		}
-		LogFileManager fileManager = new LogFileManager();
-		DefaultLogFormatter formatter = new DefaultLogFormatter();
-		String baseDumpFileName = baseFileName;
-		if (baseDumpFileName == null) {
-		    if (objectsToDump == null || objectsToDump.isEmpty()) {
-			return;
-		    }
-		    baseDumpFileName = objectsToDump.get(0).getClass().getSimpleName().toLowerCase();
+		pendingDumpCount--;
+		currentRequest = request;
+	    }
+	    LogMetrics metrics = LogMetrics.getInstance();
+	    long start = System.nanoTime();
+	    metrics.record(LogMetrics.DUMP_QUEUE_TIME, start - enqueueTime);
+	    currentRequest.owner.writeDump(currentRequest.logEntry, currentRequest.baseFileName, currentRequest.source);
+	    metrics.record(LogMetrics.DUMP_TIME, System.nanoTime() - start);
+	}
+    }
+
+    private void writeDump(LogFileEntry logEntry, String baseFileName, IDumpSource source) {
+	try {
+	    File dumpFolder = new File(dumpDirectory);
+	    if (!dumpFolder.exists()) {
+		dumpFolder.mkdirs();
+	    }
+	    String baseDumpFileName;
+	    if (source instanceof IStreamingDumpSource) {
+		baseDumpFileName = writeStreamingDump(dumpFolder, logEntry, baseFileName, (IStreamingDumpSource) source);
+	    } else {
+		baseDumpFileName = writeListDump(dumpFolder, logEntry, baseFileName, source.objectsToDump());
+	    }
+	    if (baseDumpFileName != null && archiveFileCount > 0) {
+		Housekeeper housekeeper = new Housekeeper(dumpDirectory, baseDumpFileName, archiveFileCount, deleteFileCount, new DumpFilenameFilter(baseDumpFileName));
+		housekeeper.doHousekeepingNow();
+	    }
+	} catch (Exception exc) {
+	    LogMetrics.getInstance().increment(LogMetrics.IO_ERRORS);
+	}
+    }
+
+    private String writeListDump(File dumpFolder, LogFileEntry logEntry, String baseFileName, List<?> objectsToDump) {
+	if (baseFileName == null && (objectsToDump == null || objectsToDump.isEmpty())) {
+	    return null;
+	}
+	String baseDumpFileName = getBaseDumpFileName(baseFileName, baseFileName == null ? objectsToDump.get(0) : null);
+	LogFileManager fileManager = new LogFileManager();
+	fileManager.writeListToFile(getHeader(logEntry), emptyMessage, objectsToDump, getDumpFile(dumpFolder, baseDumpFileName, logEntry));
+	return baseDumpFileName;
+    }
+
+    private String writeStreamingDump(File dumpFolder, LogFileEntry logEntry, String baseFileName, IStreamingDumpSource source) throws IOException {
+	StreamingDumpConsumer consumer = new StreamingDumpConsumer(dumpFolder, logEntry, baseFileName);
+	try {
+	    source.dumpObjects(consumer);
+	    consumer.finish();
+	} finally {
+	    consumer.close();
+	}
+	return consumer.baseDumpFileName;
+    }
+
+    private String getBaseDumpFileName(String baseFileName, Object firstObject) {
+	String baseDumpFileName = baseFileName != null ? baseFileName : firstObject.getClass().getSimpleName().toLowerCase();
+	return baseDumpFileName + "." + dumpFileExtension;
+    }
+
+    private File getDumpFile(File dumpFolder, String baseDumpFileName, LogFileEntry logEntry) {
+	LogFileManager fileManager = new LogFileManager();
+	long timestamp = logEntry != null ? logEntry.getTimestamp() : LogClock.getInstance().currentTimeMillis();
+	String dumpFileName = fileManager.suffixFileName(baseDumpFileName, fileManager.getTimestampSuffix(timestamp));
+	return new File(dumpFolder, fileManager.getValidFileName(dumpFolder, dumpFileName, null));
+    }
+
+    private String getHeader(LogFileEntry logEntry) {
+	return logEntry != null ? new DefaultLogFormatter().formatLogFileEntry(logEntry) : null;
+    }
+
+    private class StreamingDumpConsumer implements Consumer<Object> {
+
+	private final File dumpFolder;
+	private final LogFileEntry logEntry;
+	private final String baseFileName;
+	private String baseDumpFileName;
+	private DumpFileWriter writer;
+	private IOException error;
+
+	public StreamingDumpConsumer(File dumpFolder, LogFileEntry logEntry, String baseFileName) {
+	    this.dumpFolder = dumpFolder;
+	    this.logEntry = logEntry;
+	    this.baseFileName = baseFileName;
+	    this.baseDumpFileName = null;
+	    this.writer = null;
+	    this.error = null;
+	}
+
+	@Override
+	public void accept(Object object) {
+	    if (object == null || error != null) {
+		return;
+	    }
+	    try {
+		if (writer == null) {
+		    open(object);
 		}
-		baseDumpFileName += "." + dumpFileExtension;
-		long timestamp = logEntry != null ? logEntry.getTimestamp() : System.currentTimeMillis();
-		String header = logEntry != null ? formatter.formatLogFileEntry(logEntry) : null;
-		String dumpFileName = fileManager.suffixFileName(baseDumpFileName, fileManager.getTimestampSuffix(timestamp));
-		dumpFileName = fileManager.getValidFileName(dumpFolder, dumpFileName, null);
-		fileManager.writeListToFile(header, emptyMessage, objectsToDump, new File(dumpFolder, dumpFileName));
-		if (archiveFileCount > 0) {
-		    Housekeeper housekeeper = new Housekeeper(dumpDirectory, baseDumpFileName, archiveFileCount, deleteFileCount, new DumpFilenameFilter(baseDumpFileName));
-		    housekeeper.doHousekeepingNow();
+		writer.writeLine(object);
+	    } catch (IOException exc) {
+		error = exc;
+	    }
+	}
+
+	public void finish() throws IOException {
+	    if (error != null) {
+		throw error;
+	    }
+	    if (writer == null && baseFileName != null) {
+		open(null);
+		if (emptyMessage != null) {
+		    writer.writeLine(emptyMessage);
 		}
-	    } catch (Exception exc) {
-		// Do nothing
-	    } finally {
-		dumpLock.unlock();
+	    }
+	}
+
+	public void close() throws IOException {
+	    if (writer != null) {
+		writer.close();
+	    }
+	}
+
+	private void open(Object firstObject) throws IOException {
+	    baseDumpFileName = getBaseDumpFileName(baseFileName, firstObject);
+	    writer = new DumpFileWriter(getDumpFile(dumpFolder, baseDumpFileName, logEntry));
+	    String header = getHeader(logEntry);
+	    if (header != null) {
+		writer.writeLine(header);
 	    }
 	}
     }
@@ -3,13 +3,18 @@ package net.ibbaa.phonelog;
 import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * {@link net.ibbaa.phonelog.ILogger} implemenation that writes logs to a file.
@@ -20,24 +25,56 @@ public class FileLogger implements ILogger {
     private final static int DEFAULT_MAX_FILE_SIZE = 1024 * 1024 * 10;
     private final static int DEFAULT_ARCHIVE_FILE_COUNT = 50;
     private final static int DEFAULT_DELETE_FILE_COUNT = -1;
+    private final static int DEFAULT_MAX_ARCHIVE_FILE_SIZE = -1;
+    private final static int DEFAULT_INDEX_INTERVAL = -1;
+    private final static int DEFAULT_TERM_INDEX_MEMORY = -1;
+    private final static int DEFAULT_BLOOM_FILTER_SIZE = -1;
     private final static String DEFAULT_LOG_FILE_BASE_NAME = "app.log";
 
     private final static int LOG_QUEUE_PUT_TIMEOUT = 500;
 
+    private final static String COMPRESSED_LOG_FILE_EXTENSION = "gz";
+    private final static int COMPRESSED_BUFFER_SIZE = 8192;
+    private final static int COMPRESSED_FLUSH_SIZE = 64 * 1024;
+    private final static byte[] SYNC_FLUSH_MARKER = new byte[] { 0, 0, (byte) 0xff, (byte) 0xff };
+
     private final static ReentrantLock loggerLock = new ReentrantLock();
+    private final static AtomicLong entriesAccepted = LogMetrics.getInstance().getCounterValue(LogMetrics.ENTRIES_ACCEPTED);
+    private final static AtomicLong entriesFiltered = LogMetrics.getInstance().getCounterValue(LogMetrics.ENTRIES_FILTERED);
+    private final static AtomicLong entriesDropped = LogMetrics.getInstance().getCounterValue(LogMetrics.ENTRIES_DROPPED);
+    private final static AtomicLong queueDepth = LogMetrics.getInstance().getCounterValue(LogMetrics.QUEUE_DEPTH);
+    private final static AtomicLong bytesWritten = LogMetrics.getInstance().getCounterValue(LogMetrics.BYTES_WRITTEN);
 
     private final LogLevel maxLevel;
     private final int maxFileSize;
     private final int archiveFileCount;
     private final int deleteFileCount;
+    private final int maxArchiveFileSize;
+    private final boolean compressLogFile;
+    private final int indexInterval;
+    private final int termIndexMemory;
+    private final int bloomFilterSize;
     private final String logDirectory;
     private final String logFileName;
     private final ILogFormatter logFormatter;
     private final ILogger delegateLog;
 
-    private final LinkedBlockingQueue<LogFileEntry> logQueue;
+    private final LinkedBlockingQueue<QueuedEntry> logQueue;
     private final ExecutorService logExecutor;
 
+    private boolean segmentStarted;
+    private long unindexedSize;
+    private long indexTimestamp;
+    private long indexFileSize;
+    private LogBloomFilter bloomFilter;
+    private boolean bloomFilterComplete;
+    private long bloomFilterFileSize;
+    private CountingOutputStream openCountingStream;
+    private OutputStream openLogStream;
+    private long openFileSize;
+    private long memberOffset;
+    private boolean memberEmpty;
+
     /**
      * Constructor
      * 
@@ -252,16 +289,216 @@ public class FileLogger implements ILogger {
      *                         used as delegate. Default is <code>null</code>.
      */
     public FileLogger(LogLevel maxLevel, int maxFileSize, int archiveFileCount, int deleteFileCount, String logDirectory, String logFileName, ILogFormatter logFormatter, ILogger delegateLog) {
+	this(maxLevel, maxFileSize, archiveFileCount, deleteFileCount, DEFAULT_MAX_ARCHIVE_FILE_SIZE, logDirectory, logFileName, logFormatter, delegateLog);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param maxLevel           the max log level. Default is DEBUG.
+     * @param maxFileSize        the max file size for rotating. Default is 10
+     *                           MByte.
+     * @param archiveFileCount   limit of log files, when exceeded an archive will
+     *                           be created. Default is 50.
+     * @param deleteFileCount    limit of archive files, when exceeded oldest one
+     *                           will be deleted. Default is -1 (no deleting).
+     * @param maxArchiveFileSize size limit of archive files. Log files are appended
+     *                           to the most recent archive until it reaches this
+     *                           size. Default is -1 (new archive each time).
+     * @param logDirectory       directory to write log files to
+     * @param logFileName        base name for log files. Default is 'app.log'.
+     * @param logFormatter       the {@link net.ibbaa.phonelog.ILogFormatter}
+     *                           implementation. Default is
+     *                           {@link net.ibbaa.phonelog.DefaultLogFormatter}.
+     * @param delegateLog        an {@link net.ibbaa.phonelog.ILogger}
+     *                           implementation used as delegate. Default is
+     *                           <code>null</code>.
+     */
+    public FileLogger(LogLevel maxLevel, int maxFileSize, int archiveFileCount, int deleteFileCount, int maxArchiveFileSize, String logDirectory, String logFileName, ILogFormatter logFormatter, ILogger delegateLog) {
+	this(maxLevel, maxFileSize, archiveFileCount, deleteFileCount, maxArchiveFileSize, false, logDirectory, logFileName, logFormatter, delegateLog);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param maxLevel           the max log level. Default is DEBUG.
+     * @param maxFileSize        the max file size for rotating. Default is 10
+     *                           MByte. For compressed log files, the compressed
+     *                           size is used.
+     * @param archiveFileCount   limit of log files, when exceeded an archive will
+     *                           be created. Default is 50.
+     * @param deleteFileCount    limit of archive files, when exceeded oldest one
+     *                           will be deleted. Default is -1 (no deleting).
+     * @param maxArchiveFileSize size limit of archive files. Log files are appended
+     *                           to the most recent archive until it reaches this
+     *                           size. Default is -1 (new archive each time).
+     * @param compressLogFile    write the log file as gzip stream with the
+     *                           extension 'gz' appended. Default is
+     *                           <code>false</code>.
+     * @param logDirectory       directory to write log files to
+     * @param logFileName        base name for log files. Default is 'app.log'.
+     * @param logFormatter       the {@link net.ibbaa.phonelog.ILogFormatter}
+     *                           implementation. Default is
+     *                           {@link net.ibbaa.phonelog.DefaultLogFormatter}.
+     * @param delegateLog        an {@link net.ibbaa.phonelog.ILogger}
+     *                           implementation used as delegate. Default is
+     *                           <code>null</code>.
+     */
+    public FileLogger(LogLevel maxLevel, int maxFileSize, int archiveFileCount, int deleteFileCount, int maxArchiveFileSize, boolean compressLogFile, String logDirectory, String logFileName, ILogFormatter logFormatter, ILogger delegateLog) {
+	this(maxLevel, maxFileSize, archiveFileCount, deleteFileCount, maxArchiveFileSize, compressLogFile, DEFAULT_INDEX_INTERVAL, logDirectory, logFileName, logFormatter, delegateLog);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param maxLevel           the max log level. Default is DEBUG.
+     * @param maxFileSize        the max file size for rotating. Default is 10
+     *                           MByte. For compressed log files, the compressed
+     *                           size is used.
+     * @param archiveFileCount   limit of log files, when exceeded an archive will
+     *                           be created. Default is 50.
+     * @param deleteFileCount    limit of archive files, when exceeded oldest one
+     *                           will be deleted. Default is -1 (no deleting).
+     * @param maxArchiveFileSize size limit of archive files. Log files are appended
+     *                           to the most recent archive until it reaches this
+     *                           size. Default is -1 (new archive each time).
+     * @param compressLogFile    write the log file as gzip stream with the
+     *                           extension 'gz' appended. Default is
+     *                           <code>false</code>.
+     * @param indexInterval      number of written bytes between two points of the
+     *                           timestamp index written next to the log file with
+     *                           the extension 'idx' appended. For compressed log
+     *                           files, each index point starts a new gzip member,
+     *                           so the interval should not be too small. Default is
+     *                           -1 (no index).
+     * @param logDirectory       directory to write log files to
+     * @param logFileName        base name for log files. Default is 'app.log'.
+     * @param logFormatter       the {@link net.ibbaa.phonelog.ILogFormatter}
+     *                           implementation. Default is
+     *                           {@link net.ibbaa.phonelog.DefaultLogFormatter}.
+     * @param delegateLog        an {@link net.ibbaa.phonelog.ILogger}
+     *                           implementation used as delegate. Default is
+     *                           <code>null</code>.
+     */
+    public FileLogger(LogLevel maxLevel, int maxFileSize, int archiveFileCount, int deleteFileCount, int maxArchiveFileSize, boolean compressLogFile, int indexInterval, String logDirectory, String logFileName, ILogFormatter logFormatter, ILogger delegateLog) {
+	this(maxLevel, maxFileSize, archiveFileCount, deleteFileCount, maxArchiveFileSize, compressLogFile, indexInterval, DEFAULT_TERM_INDEX_MEMORY, logDirectory, logFileName, logFormatter, delegateLog);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param maxLevel           the max log level. Default is DEBUG.
+     * @param maxFileSize        the max file size for rotating. Default is 10
+     *                           MByte. For compressed log files, the compressed
+     *                           size is used.
+     * @param archiveFileCount   limit of log files, when exceeded an archive will
+     *                           be created. Default is 50.
+     * @param deleteFileCount    limit of archive files, when exceeded oldest one
+     *                           will be deleted. Default is -1 (no deleting).
+     * @param maxArchiveFileSize size limit of archive files. Log files are appended
+     *                           to the most recent archive until it reaches this
+     *                           size. Default is -1 (new archive each time).
+     * @param compressLogFile    write the log file as gzip stream with the
+     *                           extension 'gz' appended. Default is
+     *                           <code>false</code>.
+     * @param indexInterval      number of written bytes between two points of the
+     *                           timestamp index written next to the log file with
+     *                           the extension 'idx' appended. For compressed log
+     *                           files, each index point starts a new gzip member,
+     *                           so the interval should not be too small. Default is
+     *                           -1 (no index).
+     * @param termIndexMemory    memory budget in bytes for building the
+     *                           {@link net.ibbaa.phonelog.LogTermIndex} of an
+     *                           archive during housekeeping. Default is -1 (no
+     *                           term index).
+     * @param logDirectory       directory to write log files to
+     * @param logFileName        base name for log files. Default is 'app.log'.
+     * @param logFormatter       the {@link net.ibbaa.phonelog.ILogFormatter}
+     *                           implementation. Default is
+     *                           {@link net.ibbaa.phonelog.DefaultLogFormatter}.
+     * @param delegateLog        an {@link net.ibbaa.phonelog.ILogger}
+     *                           implementation used as delegate. Default is
+     *                           <code>null</code>.
+     */
+    public FileLogger(LogLevel maxLevel, int maxFileSize, int archiveFileCount, int deleteFileCount, int maxArchiveFileSize, boolean compressLogFile, int indexInterval, int termIndexMemory, String logDirectory, String logFileName, ILogFormatter logFormatter, ILogger delegateLog) {
+	this(maxLevel, maxFileSize, archiveFileCount, deleteFileCount, maxArchiveFileSize, compressLogFile, indexInterval, termIndexMemory, DEFAULT_BLOOM_FILTER_SIZE, logDirectory, logFileName, logFormatter, delegateLog);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param maxLevel           the max log level. Default is DEBUG.
+     * @param maxFileSize        the max file size for rotating. Default is 10
+     *                           MByte. For compressed log files, the compressed
+     *                           size is used.
+     * @param archiveFileCount   limit of log files, when exceeded an archive will
+     *                           be created. Default is 50.
+     * @param deleteFileCount    limit of archive files, when exceeded oldest one
+     *                           will be deleted. Default is -1 (no deleting).
+     * @param maxArchiveFileSize size limit of archive files. Log files are appended
+     *                           to the most recent archive until it reaches this
+     *                           size. Default is -1 (new archive each time).
+     * @param compressLogFile    write the log file as gzip stream with the
+     *                           extension 'gz' appended. Default is
+     *                           <code>false</code>.
+     * @param indexInterval      number of written bytes between two points of the
+     *                           timestamp index written next to the log file with
+     *                           the extension 'idx' appended. For compressed log
+     *                           files, each index point starts a new gzip member,
+     *                           so the interval should not be too small. Default is
+     *                           -1 (no index).
+     * @param termIndexMemory    memory budget in bytes for building the
+     *                           {@link net.ibbaa.phonelog.LogTermIndex} of an
+     *                           archive during housekeeping. Default is -1 (no
+     *                           term index).
+     * @param bloomFilterSize    size in bytes of the
+     *                           {@link net.ibbaa.phonelog.LogBloomFilter} of the
+     *                           tokens of a log file, written next to the log file
+     *                           with the extension 'bloom' appended when it is
+     *                           rotated. During housekeeping, a
+     *                           {@link net.ibbaa.phonelog.LogArchiveBloomFilter} is
+     *                           built for the archive. Default is -1 (no bloom
+     *                           filter).
+     * @param logDirectory       directory to write log files to
+     * @param logFileName        base name for log files. Default is 'app.log'.
+     * @param logFormatter       the {@link net.ibbaa.phonelog.ILogFormatter}
+     *                           implementation. Default is
+     *                           {@link net.ibbaa.phonelog.DefaultLogFormatter}.
+     * @param delegateLog        an {@link net.ibbaa.phonelog.ILogger}
+     *                           implementation used as delegate. Default is
+     *                           <code>null</code>.
+     */
+    public FileLogger(LogLevel maxLevel, int maxFileSize, int archiveFileCount, int deleteFileCount, int maxArchiveFileSize, boolean compressLogFile, int indexInterval, int termIndexMemory, int bloomFilterSize, String logDirectory, String logFileName, ILogFormatter logFormatter, ILogger delegateLog) {
 	this.maxLevel = maxLevel;
 	this.maxFileSize = maxFileSize;
 	this.archiveFileCount = archiveFileCount;
 	this.deleteFileCount = deleteFileCount;
+	this.maxArchiveFileSize = maxArchiveFileSize;
+	this.compressLogFile = compressLogFile;
+	this.indexInterval = indexInterval;
+	this.termIndexMemory = termIndexMemory;
+	this.bloomFilterSize = bloomFilterSize;
 	this.logDirectory = logDirectory;
 	this.logFileName = logFileName;
 	this.logFormatter = logFormatter;
+	if (logFormatter instanceof ISegmentLogFormatter) {
+	    ((ISegmentLogFormatter) logFormatter).attach(this);
+	}
 	this.delegateLog = delegateLog;
 	this.logQueue = new LinkedBlockingQueue<>();
 	this.logExecutor = Executors.newSingleThreadExecutor();
+	this.segmentStarted = false;
+	this.unindexedSize = 0;
+	this.indexTimestamp = Long.MIN_VALUE;
+	this.indexFileSize = 0;
+	this.bloomFilter = null;
+	this.bloomFilterComplete = false;
+	this.bloomFilterFileSize = 0;
+	this.openCountingStream = null;
+	this.openLogStream = null;
+	this.openFileSize = 0;
+	this.memberOffset = 0;
+	this.memberEmpty = true;
     }
 
     /**
@@ -277,54 +514,155 @@ public class FileLogger implements ILogger {
 	if (delegateLog != null) {
 	    delegateLog.log(tag, message, throwable, level);
 	}
-	if (level == null || level.getLevel() < maxLevel.getLevel()) {
+	if (level == null || level.getLevel() < maxLevel.getLevel() || message == null) {
+	    entriesFiltered.incrementAndGet();
 	    return;
 	}
-	if (message == null) {
+	enqueue(new LogFileEntry(LogThread.current(), LogClock.getInstance().currentTimeMillis(), level, tag, message, throwable, null));
+    }
+
+    /**
+     * log method for an existing entry. The timestamp and the thread of the entry
+     * are kept.
+     * 
+     * @param entry the entry
+     */
+    @Override
+    public void log(LogFileEntry entry) {
+	if (delegateLog != null) {
+	    delegateLog.log(entry);
+	}
+	if (entry.getLevel() == null || entry.getLevel().getLevel() < maxLevel.getLevel() || entry.getMessage() == null) {
+	    entriesFiltered.incrementAndGet();
 	    return;
 	}
+	enqueue(entry);
+    }
+
+    private void enqueue(LogFileEntry logEntry) {
 	try {
-	    LogFileEntry logEntry = new LogFileEntry(System.currentTimeMillis(), Thread.currentThread().getName(), level, tag, message, throwable);
-	    boolean putSuccess = logQueue.offer(logEntry, LOG_QUEUE_PUT_TIMEOUT, TimeUnit.MILLISECONDS);
+	    boolean putSuccess = logQueue.offer(new QueuedEntry(logEntry, System.nanoTime()), LOG_QUEUE_PUT_TIMEOUT, TimeUnit.MILLISECONDS);
 	    if (putSuccess) {
+		entriesAccepted.incrementAndGet();
+		queueDepth.incrementAndGet();
 		logExecutor.execute(this::doLog);
+	    } else {
+		entriesDropped.incrementAndGet();
 	    }
 	} catch (InterruptedException exc) {
+	    entriesDropped.incrementAndGet();
 	    Thread.currentThread().interrupt();
 	}
     }
 
     private void doLog() {
+	CountingOutputStream countingStream = null;
 	OutputStream logStream = null;
+	OutputStream indexStream = null;
+	File logFile = null;
+	boolean keepOpen = false;
+	LogMetrics metrics = LogMetrics.getInstance();
+	long batchStart = System.nanoTime();
+	boolean batchStarted = false;
 	try {
 	    loggerLock.lock();
-	    String normalizedLogFileName = normalizeFileName(this.logFileName);
+	    if (logQueue.isEmpty()) {
+		return;
+	    }
+	    batchStart = System.nanoTime();
+	    batchStarted = true;
+	    String activeLogFileName = getActiveLogFileName();
 	    File logFolder = new File(logDirectory);
 	    if (!logFolder.exists()) {
 		logFolder.mkdirs();
 	    }
-	    File logFile = new File(logFolder, normalizedLogFileName);
-	    long fileSize = 0;
-	    if (logFile.exists()) {
-		fileSize = logFile.length();
-	    }
-	    logStream = initializeLogStream(logFile);
+	    logFile = new File(logFolder, activeLogFileName);
 	    LogFileManager fileManager = new LogFileManager();
-	    LogFileEntry entry;
-	    while ((entry = logQueue.poll()) != null) {
+	    long initialFileSize;
+	    if (isOpenLogStreamValid(logFile)) {
+		countingStream = openCountingStream;
+		logStream = openLogStream;
+		initialFileSize = openFileSize;
+	    } else {
+		closeLogStream(openLogStream);
+		if (compressLogFile) {
+		    rotateUnfinishedLogFile(logFile, fileManager, activeLogFileName);
+		}
+		initialFileSize = logFile.exists() ? logFile.length() : 0;
+		initializeIndexTimestamp(initialFileSize);
+		countingStream = initializeCountingStream(logFile);
+		logStream = initializeLogStream(countingStream);
+		memberOffset = initialFileSize;
+		memberEmpty = true;
+	    }
+	    openCountingStream = null;
+	    openLogStream = null;
+	    initializeBloomFilter(initialFileSize + countingStream.getCount());
+	    indexStream = initializeIndexStream(logFile);
+	    long unflushedSize = 0;
+	    QueuedEntry queuedEntry;
+	    while ((queuedEntry = logQueue.poll()) != null) {
+		LogFileEntry entry = queuedEntry.entry;
+		queueDepth.decrementAndGet();
+		indexTimestamp = Math.max(indexTimestamp, entry.getTimestamp());
+		if (indexStream != null && (!segmentStarted || unindexedSize >= indexInterval)) {
+		    if (compressLogFile && !memberEmpty) {
+			((MemberOutputStream) logStream).finishMember();
+			memberOffset = initialFileSize + countingStream.getCount();
+			memberEmpty = true;
+			unflushedSize = 0;
+			logStream = initializeLogStream(countingStream);
+		    }
+		    long offset = compressLogFile ? memberOffset : initialFileSize + countingStream.getCount();
+		    indexStream.write(LogFileIndex.createRecord(indexTimestamp, offset));
+		    unindexedSize = 0;
+		    if (logFormatter instanceof ISegmentLogFormatter) {
+			segmentStarted = false;
+		    }
+		}
+		startSegment(logStream);
 		byte[] message = logFormatter.formatLogFileEntry(entry, Charsets.UTF8_CHARSET);
 		logStream.write(message);
-		fileSize += message.length;
-		if (fileSize >= maxFileSize) {
+		bytesWritten.addAndGet(message.length);
+		metrics.record(LogMetrics.ENQUEUE_TO_DISK_TIME, System.nanoTime() - queuedEntry.enqueueTime);
+		memberEmpty = false;
+		unindexedSize += message.length;
+		if (bloomFilter != null && bloomFilterComplete) {
+		    LogTokenizer.tokenize(entry, bloomFilter::add);
+		}
+		if (compressLogFile) {
+		    unflushedSize += message.length;
+		    if (unflushedSize >= COMPRESSED_FLUSH_SIZE) {
+			logStream.flush();
+			unflushedSize = 0;
+		    }
+		}
+		if (initialFileSize + countingStream.getCount() >= maxFileSize) {
+		    long rotationStart = System.nanoTime();
 		    closeLogStream(logStream);
-		    String newFileName = fileManager.getValidFileName(new File(logDirectory), normalizedLogFileName, System.currentTimeMillis());
+		    closeLogStream(indexStream);
+		    String newFileName = fileManager.getValidFileName(new File(logDirectory), activeLogFileName, LogClock.getInstance().currentTimeMillis());
 		    if (newFileName != null) {
 			if (logFile.renameTo(new File(new File(logDirectory), newFileName))) {
-			    logFile = new File(logDirectory, normalizedLogFileName);
-			    fileSize = 0;
-			    logStream = initializeLogStream(logFile);
+			    renameIndexFile(logFile, newFileName);
+			    writeBloomFilter(logFile, newFileName);
+			    logFile = new File(logDirectory, activeLogFileName);
+			    initialFileSize = 0;
+			    unflushedSize = 0;
+			    memberOffset = 0;
+			    memberEmpty = true;
+			    countingStream = initializeCountingStream(logFile);
+			    logStream = initializeLogStream(countingStream);
+			    indexStream = initializeIndexStream(logFile);
+			    indexTimestamp = Long.MIN_VALUE;
+			    indexFileSize = 0;
+			    segmentStarted = false;
+			    initializeBloomFilter(0);
+			    startSegment(logStream);
+			    metrics.increment(LogMetrics.ROTATIONS);
+			    metrics.record(LogMetrics.ROTATION_TIME, System.nanoTime() - rotationStart);
 			    if (archiveFileCount > 0) {
-				Housekeeper housekeeper = new Housekeeper(logDirectory, normalizedLogFileName, archiveFileCount, deleteFileCount, this::shouldBeArchived);
+				Housekeeper housekeeper = new Housekeeper(logDirectory, activeLogFileName, archiveFileCount, deleteFileCount, maxArchiveFileSize, termIndexMemory, bloomFilterSize, this::shouldBeArchived);
 				Thread housekeeperThread = new Thread(housekeeper);
 				housekeeperThread.start();
 			    }
@@ -334,26 +672,144 @@ public class FileLogger implements ILogger {
 		    }
 		}
 	    }
+	    if (compressLogFile) {
+		logStream.flush();
+		openCountingStream = countingStream;
+		openLogStream = logStream;
+		openFileSize = initialFileSize;
+		keepOpen = true;
+	    }
 	} catch (Exception exc) {
-	    // Do nothing
+	    segmentStarted = false;
+	    metrics.increment(LogMetrics.IO_ERRORS);
 	} finally {
-	    closeLogStream(logStream);
+	    if (!keepOpen) {
+		closeLogStream(logStream != null ? logStream : countingStream);
+	    }
+	    closeLogStream(indexStream);
+	    if (logFile != null) {
+		bloomFilterFileSize = logFile.length();
+		indexFileSize = logFile.length();
+	    }
+	    if (batchStarted) {
+		metrics.record(LogMetrics.BATCH_WRITE_TIME, System.nanoTime() - batchStart);
+	    }
 	    loggerLock.unlock();
 	}
     }
 
+    private boolean isOpenLogStreamValid(File logFile) {
+	return openLogStream != null && logFile.exists() && logFile.length() == openFileSize + openCountingStream.getCount();
+    }
+
+    private void rotateUnfinishedLogFile(File logFile, LogFileManager fileManager, String activeLogFileName) {
+	if (!isUnfinishedMember(logFile)) {
+	    return;
+	}
+	String newFileName = fileManager.getValidFileName(new File(logDirectory), activeLogFileName, LogClock.getInstance().currentTimeMillis());
+	if (newFileName != null && logFile.renameTo(new File(new File(logDirectory), newFileName))) {
+	    renameIndexFile(logFile, newFileName);
+	    segmentStarted = false;
+	    unindexedSize = 0;
+	}
+    }
+
+    private boolean isUnfinishedMember(File logFile) {
+	if (!logFile.exists() || logFile.length() < SYNC_FLUSH_MARKER.length) {
+	    return false;
+	}
+	try (RandomAccessFile file = new RandomAccessFile(logFile, "r")) {
+	    byte[] tail = new byte[SYNC_FLUSH_MARKER.length];
+	    file.seek(file.length() - tail.length);
+	    file.readFully(tail);
+	    return Arrays.equals(tail, SYNC_FLUSH_MARKER);
+	} catch (IOException exc) {
+	    return false;
+	}
+    }
+
+    private void startSegment(OutputStream logStream) throws IOException {
+	if (segmentStarted) {
+	    return;
+	}
+	if (logFormatter instanceof ISegmentLogFormatter) {
+	    logStream.write(((ISegmentLogFormatter) logFormatter).startSegment());
+	}
+	segmentStarted = true;
+    }
+
     private boolean shouldBeArchived(File dir, String name) {
-	if (logFileName.equals(name)) {
+	String activeLogFileName = getActiveLogFileName();
+	if (activeLogFileName.equals(name)) {
 	    return false;
 	}
 	LogFileManager fileManager = new LogFileManager();
-	String logFileBaseName = fileManager.getFileNameWithoutExtension(logFileName);
-	String logFileSuffix = fileManager.getFileNameExtension(logFileName);
+	String logFileBaseName = fileManager.getFileNameWithoutExtension(activeLogFileName);
+	String logFileSuffix = fileManager.getFileNameExtension(activeLogFileName);
 	return name.startsWith(logFileBaseName) && name.endsWith(logFileSuffix);
     }
 
-    private OutputStream initializeLogStream(File logFile) throws IOException {
-	return new BufferedOutputStream(new FileOutputStream(logFile, true));
+    private CountingOutputStream initializeCountingStream(File logFile) throws IOException {
+	return new CountingOutputStream(new BufferedOutputStream(new FileOutputStream(logFile, true)));
+    }
+
+    private OutputStream initializeIndexStream(File logFile) throws IOException {
+	if (indexInterval <= 0) {
+	    return null;
+	}
+	File indexFile = new File(logFile.getParentFile(), LogFileIndex.getIndexFileName(logFile.getName()));
+	return new BufferedOutputStream(new FileOutputStream(indexFile, true));
+    }
+
+    private void initializeIndexTimestamp(long fileSize) {
+	if (fileSize == indexFileSize) {
+	    return;
+	}
+	indexTimestamp = fileSize == 0 ? Long.MIN_VALUE : Long.MAX_VALUE;
+	indexFileSize = fileSize;
+    }
+
+    private void renameIndexFile(File logFile, String newFileName) {
+	File indexFile = new File(logFile.getParentFile(), LogFileIndex.getIndexFileName(logFile.getName()));
+	if (indexFile.exists()) {
+	    indexFile.renameTo(new File(logFile.getParentFile(), LogFileIndex.getIndexFileName(newFileName)));
+	}
+    }
+
+    private void initializeBloomFilter(long fileSize) {
+	if (bloomFilterSize <= 0 || (bloomFilter != null && fileSize == bloomFilterFileSize)) {
+	    return;
+	}
+	bloomFilter = new LogBloomFilter(bloomFilterSize);
+	bloomFilterComplete = fileSize == 0;
+	bloomFilterFileSize = fileSize;
+    }
+
+    private void writeBloomFilter(File logFile, String newFileName) {
+	if (bloomFilter == null || !bloomFilterComplete) {
+	    return;
+	}
+	File filterFile = new File(logFile.getParentFile(), LogBloomFilter.getFilterFileName(newFileName));
+	try (OutputStream filterStream = new BufferedOutputStream(new FileOutputStream(filterFile))) {
+	    bloomFilter.write(filterStream);
+	} catch (Exception exc) {
+	    filterFile.delete();
+	}
+    }
+
+    private OutputStream initializeLogStream(CountingOutputStream countingStream) throws IOException {
+	if (compressLogFile) {
+	    return new MemberOutputStream(countingStream, COMPRESSED_BUFFER_SIZE);
+	}
+	return countingStream;
+    }
+
+    private String getActiveLogFileName() {
+	String normalizedLogFileName = normalizeFileName(logFileName);
+	if (compressLogFile) {
+	    return normalizedLogFileName + "." + COMPRESSED_LOG_FILE_EXTENSION;
+	}
+	return normalizedLogFileName;
     }
 
     private String normalizeFileName(String fileName) {
@@ -373,4 +829,52 @@ public class FileLogger implements ILogger {
 	    // Do nothing
 	}
     }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+
+	private long count;
+
+	public CountingOutputStream(OutputStream outputStream) {
+	    super(outputStream);
+	}
+
+	@Override
+	public void write(int data) throws IOException {
+	    out.write(data);
+	    count++;
+	}
+
+	@Override
+	public void write(byte[] data, int offset, int length) throws IOException {
+	    out.write(data, offset, length);
+	    count += length;
+	}
+
+	public long getCount() {
+	    return count;
+	}
+    }
+
+    private static class MemberOutputStream extends GZIPOutputStream {
+
+	public MemberOutputStream(OutputStream outputStream, int size) throws IOException {
+	    super(outputStream, size, true);
+	}
+
+	public void finishMember() throws IOException {
+	    finish();
+	    def.end();
+	}
+    }
+
+    private static class QueuedEntry {
+
+	private final LogFileEntry entry;
+	private final long enqueueTime;
+
+	private QueuedEntry(LogFileEntry entry, long enqueueTime) {
+	    this.entry = entry;
+	    this.enqueueTime = enqueueTime;
+	}
+    }
 }
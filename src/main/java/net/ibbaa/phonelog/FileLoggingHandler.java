@@ -0,0 +1,77 @@
+package net.ibbaa.phonelog;
+
+import java.util.logging.Formatter;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.SimpleFormatter;
+
+/**
+ * Handler that passes the records of Java system logging to an
+ * {@link net.ibbaa.phonelog.ILogger}, usually a
+ * {@link net.ibbaa.phonelog.FileLogger}. The levels are mapped in reverse to
+ * {@link net.ibbaa.phonelog.JavaSystemLogger}, the logger name is used as tag.
+ * The timestamp of the record is kept.
+ */
+public class FileLoggingHandler extends Handler {
+
+    private final ILogger logger;
+    private final Formatter messageFormatter;
+
+    /**
+     * Constructor
+     * 
+     * @param logger the {@link net.ibbaa.phonelog.ILogger} the records are passed
+     *               to
+     */
+    public FileLoggingHandler(ILogger logger) {
+	this.logger = logger;
+	this.messageFormatter = new SimpleFormatter();
+    }
+
+    /**
+     * Publish a {@code LogRecord}.
+     * 
+     * @param record the log record
+     */
+    @Override
+    public void publish(LogRecord record) {
+	if (!super.isLoggable(record)) {
+	    return;
+	}
+	String message = messageFormatter.formatMessage(record);
+	if (message == null) {
+	    return;
+	}
+	logger.log(new LogFileEntry(LogThread.current(), record.getMillis(), getLogLevel(record.getLevel()), record.getLoggerName(), message, record.getThrown(), null));
+    }
+
+    private LogLevel getLogLevel(Level level) {
+	int value = level.intValue();
+	if (value >= Level.SEVERE.intValue()) {
+	    return LogLevel.ERROR;
+	} else if (value >= Level.WARNING.intValue()) {
+	    return LogLevel.WARN;
+	} else if (value >= Level.INFO.intValue()) {
+	    return LogLevel.INFO;
+	} else if (value >= Level.FINE.intValue()) {
+	    return LogLevel.DEBUG;
+	} else {
+	    return LogLevel.VERBOSE;
+	}
+    }
+
+    /**
+     * Does noting here.
+     */
+    @Override
+    public void close() {
+    }
+
+    /**
+     * Does noting here.
+     */
+    @Override
+    public void flush() {
+    }
+}
@@ -0,0 +1,415 @@
+package net.ibbaa.phonelog;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * {@link net.ibbaa.phonelog.ILogger} implementation that records the latest
+ * entries of all levels in a preallocated ring buffer outside of the heap and
+ * writes nothing unless it is triggered. The entries are stored in the format
+ * of {@link net.ibbaa.phonelog.BinaryLogFormatter}, each entry as its own
+ * segment, so the oldest entries can be overwritten. An entry at or above the
+ * trigger level or a call of {@link #persist()} replays the recorded entries
+ * to the target logger (e.g. a {@link net.ibbaa.phonelog.FileLogger}) with
+ * their original timestamps and threads. As
+ * {@link net.ibbaa.phonelog.IDumpSource} the recorded entries can be written
+ * with {@link net.ibbaa.phonelog.Dump}. Persisted entries are removed from the
+ * ring.
+ */
+public class FlightRecorderLogger implements ILogger, IDumpSource {
+
+    private final static int DEFAULT_CAPACITY = 1024 * 1024 * 4;
+    private final static LogLevel DEFAULT_TRIGGER_LEVEL = LogLevel.ERROR;
+
+    private final static int LENGTH_SIZE = 4;
+    private final static int INITIAL_RECORD_SIZE = 256;
+
+    private final ByteBuffer ring;
+    private final LogLevel triggerLevel;
+    private final ILogger target;
+    private final ILogger delegateLog;
+    private final DefaultLogFormatter textFormatter;
+    private final ReentrantLock ringLock;
+    private final ExecutorService persistExecutor;
+    private final byte[] lengthBuffer;
+    private byte[] record;
+    private int recordLength;
+    private int head;
+    private int tail;
+    private int used;
+
+    /**
+     * Constructor
+     * 
+     * @param target the {@link net.ibbaa.phonelog.ILogger} the recorded entries
+     *               are replayed to
+     */
+    public FlightRecorderLogger(ILogger target) {
+	this(DEFAULT_CAPACITY, DEFAULT_TRIGGER_LEVEL, target, null);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param capacity the size of the ring buffer in bytes. Default is 4 MByte.
+     * @param target   the {@link net.ibbaa.phonelog.ILogger} the recorded entries
+     *                 are replayed to
+     */
+    public FlightRecorderLogger(int capacity, ILogger target) {
+	this(capacity, DEFAULT_TRIGGER_LEVEL, target, null);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param capacity     the size of the ring buffer in bytes. Default is 4
+     *                     MByte.
+     * @param triggerLevel entries at or above this level replay the recorded
+     *                     entries to the target. Default is ERROR,
+     *                     <code>null</code> replays only on explicit calls.
+     * @param target       the {@link net.ibbaa.phonelog.ILogger} the recorded
+     *                     entries are replayed to. It should accept all levels,
+     *                     e.g. a {@link net.ibbaa.phonelog.FileLogger} with max
+     *                     level VERBOSE writing to a dedicated file.
+     * @param delegateLog  an {@link net.ibbaa.phonelog.ILogger} implementation
+     *                     every entry is passed to immediately. Default is
+     *                     <code>null</code>.
+     */
+    public FlightRecorderLogger(int capacity, LogLevel triggerLevel, ILogger target, ILogger delegateLog) {
+	this.ring = ByteBuffer.allocateDirect(capacity);
+	this.triggerLevel = triggerLevel;
+	this.target = target;
+	this.delegateLog = delegateLog;
+	this.textFormatter = new DefaultLogFormatter();
+	this.ringLock = new ReentrantLock();
+	this.persistExecutor = Executors.newSingleThreadExecutor();
+	this.lengthBuffer = new byte[LENGTH_SIZE];
+	this.record = new byte[INITIAL_RECORD_SIZE];
+	this.recordLength = 0;
+	this.head = 0;
+	this.tail = 0;
+	this.used = 0;
+    }
+
+    /**
+     * log method
+     * 
+     * @param tag       the tag
+     * @param message   the message
+     * @param throwable the Throwable (can be null)
+     * @param level     the log level
+     */
+    @Override
+    public void log(String tag, String message, Throwable throwable, LogLevel level) {
+	if (delegateLog != null) {
+	    delegateLog.log(tag, message, throwable, level);
+	}
+	record(LogClock.getInstance().currentTimeMillis(), LogClock.getInstance().nextSequence(), LogThread.current().getName(), level, tag, message, throwable);
+    }
+
+    /**
+     * log method for an existing entry. The timestamp and the thread of the entry
+     * are kept.
+     * 
+     * @param entry the entry
+     */
+    @Override
+    public void log(LogFileEntry entry) {
+	if (delegateLog != null) {
+	    delegateLog.log(entry);
+	}
+	record(entry.getTimestamp(), entry.getSequence(), entry.getThread(), entry.getLevel(), entry.getTag(), entry.getMessage(), entry.getThrowable());
+    }
+
+    /**
+     * Replays the recorded entries to the target in the background and removes
+     * them from the ring
+     */
+    public void persist() {
+	if (target == null) {
+	    return;
+	}
+	byte[] snapshot = takeSnapshot(true);
+	if (snapshot.length == 0) {
+	    return;
+	}
+	persistExecutor.execute(() -> {
+	    try {
+		for (LogFileEntry entry : decode(snapshot)) {
+		    target.log(entry);
+		}
+	    } catch (Exception exc) {
+		// Do nothing
+	    }
+	});
+    }
+
+    /**
+     * Writes the recorded entries to a dedicated file in the format of
+     * {@link net.ibbaa.phonelog.BinaryLogFormatter} and removes them from the
+     * ring. The file can be read with {@link net.ibbaa.phonelog.LogFileReader}.
+     * 
+     * @param file the file
+     * @return <code>true</code> if the file was written successfully
+     */
+    public boolean persist(File file) {
+	byte[] snapshot = takeSnapshot(true);
+	try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(file))) {
+	    outputStream.write(snapshot);
+	    return true;
+	} catch (Exception exc) {
+	    return false;
+	}
+    }
+
+    /**
+     * Returns the recorded entries without removing them
+     * 
+     * @return the recorded entries, the oldest first
+     */
+    public List<LogFileEntry> getEntries() {
+	try {
+	    return decode(takeSnapshot(false));
+	} catch (IOException exc) {
+	    return new ArrayList<>();
+	}
+    }
+
+    /**
+     * Returns the recorded entries formatted by
+     * {@link net.ibbaa.phonelog.DefaultLogFormatter} and removes them from the
+     * ring
+     * 
+     * @return the list of formatted entries
+     */
+    @Override
+    public List<?> objectsToDump() {
+	List<String> lines = new ArrayList<>();
+	try {
+	    for (LogFileEntry entry : decode(takeSnapshot(true))) {
+		String line = textFormatter.formatLogFileEntry(entry);
+		lines.add(line.substring(0, line.length() - System.lineSeparator().length()));
+	    }
+	} catch (IOException exc) {
+	    // Do nothing
+	}
+	return lines;
+    }
+
+    private void record(long timestamp, long sequence, String thread, LogLevel level, String tag, String message, Throwable throwable) {
+	if (level == null || message == null) {
+	    return;
+	}
+	String stackTrace = throwable != null ? textFormatter.exceptionToString(throwable) : null;
+	ringLock.lock();
+	try {
+	    encode(timestamp, sequence, thread, level, tag, message, stackTrace);
+	    write();
+	} finally {
+	    ringLock.unlock();
+	}
+	if (triggerLevel != null && level.getLevel() >= triggerLevel.getLevel()) {
+	    persist();
+	}
+    }
+
+    private void encode(long timestamp, long sequence, String thread, LogLevel level, String tag, String message, String stackTrace) {
+	recordLength = 0;
+	for (byte headerByte : BinaryLogFormatter.SEGMENT_HEADER) {
+	    writeByte(headerByte);
+	}
+	if (sequence >= 0) {
+	    writeByte(BinaryLogFormatter.RECORD_SEQUENCE);
+	    writeVarLong(sequence);
+	}
+	writeByte(BinaryLogFormatter.RECORD_ENTRY);
+	writeByte(level.getLevel());
+	writeVarLong(BinaryLogFormatter.encodeZigZag(timestamp));
+	writeReference(tag);
+	writeReference(thread);
+	writeString(message);
+	writeString(stackTrace);
+    }
+
+    private void write() {
+	int size = LENGTH_SIZE + recordLength;
+	int capacity = ring.capacity();
+	if (size > capacity) {
+	    return;
+	}
+	while (capacity - used < size) {
+	    get(head, lengthBuffer, 0, LENGTH_SIZE);
+	    int length = getInt(lengthBuffer);
+	    head = (head + LENGTH_SIZE + length) % capacity;
+	    used -= LENGTH_SIZE + length;
+	}
+	putInt(lengthBuffer, recordLength);
+	put(lengthBuffer, LENGTH_SIZE);
+	put(record, recordLength);
+    }
+
+    private byte[] takeSnapshot(boolean remove) {
+	ringLock.lock();
+	try {
+	    byte[] data = new byte[used];
+	    int capacity = ring.capacity();
+	    int position = head;
+	    int length = 0;
+	    int remaining = used;
+	    while (remaining > 0) {
+		get(position, lengthBuffer, 0, LENGTH_SIZE);
+		int recordSize = getInt(lengthBuffer);
+		get((position + LENGTH_SIZE) % capacity, data, length, recordSize);
+		length += recordSize;
+		position = (position + LENGTH_SIZE + recordSize) % capacity;
+		remaining -= LENGTH_SIZE + recordSize;
+	    }
+	    if (remove) {
+		head = 0;
+		tail = 0;
+		used = 0;
+	    }
+	    return Arrays.copyOf(data, length);
+	} finally {
+	    ringLock.unlock();
+	}
+    }
+
+    private List<LogFileEntry> decode(byte[] snapshot) throws IOException {
+	List<LogFileEntry> entries = new ArrayList<>();
+	try (BinaryLogDecoder decoder = new BinaryLogDecoder(new ByteArrayInputStream(snapshot))) {
+	    LogFileEntry entry;
+	    while ((entry = decoder.readEntry()) != null) {
+		entries.add(entry);
+	    }
+	}
+	return entries;
+    }
+
+    private void put(byte[] data, int length) {
+	int capacity = ring.capacity();
+	int first = Math.min(length, capacity - tail);
+	((Buffer) ring).position(tail);
+	ring.put(data, 0, first);
+	if (first < length) {
+	    ((Buffer) ring).position(0);
+	    ring.put(data, first, length - first);
+	}
+	tail = (tail + length) % capacity;
+	used += length;
+    }
+
+    private void get(int position, byte[] data, int offset, int length) {
+	int capacity = ring.capacity();
+	int first = Math.min(length, capacity - position);
+	((Buffer) ring).position(position);
+	ring.get(data, offset, first);
+	if (first < length) {
+	    ((Buffer) ring).position(0);
+	    ring.get(data, offset + first, length - first);
+	}
+    }
+
+    private void putInt(byte[] data, int value) {
+	data[0] = (byte) (value >>> 24);
+	data[1] = (byte) (value >>> 16);
+	data[2] = (byte) (value >>> 8);
+	data[3] = (byte) value;
+    }
+
+    private int getInt(byte[] data) {
+	return ((data[0] & 0xFF) << 24) | ((data[1] & 0xFF) << 16) | ((data[2] & 0xFF) << 8) | (data[3] & 0xFF);
+    }
+
+    private void writeReference(String value) {
+	if (value == null) {
+	    writeVarLong(BinaryLogFormatter.REFERENCE_NULL);
+	    return;
+	}
+	writeVarLong(BinaryLogFormatter.REFERENCE_INLINE);
+	writeString(value);
+    }
+
+    private void writeString(String value) {
+	if (value == null) {
+	    writeVarLong(0);
+	    return;
+	}
+	int length = getUtf8Length(value);
+	writeVarLong(length + 1);
+	ensureCapacity(length);
+	for (int ii = 0; ii < value.length(); ii++) {
+	    char character = value.charAt(ii);
+	    if (character < 0x80) {
+		record[recordLength++] = (byte) character;
+	    } else if (character < 0x800) {
+		record[recordLength++] = (byte) (0xC0 | (character >> 6));
+		record[recordLength++] = (byte) (0x80 | (character & 0x3F));
+	    } else if (Character.isHighSurrogate(character) && ii + 1 < value.length() && Character.isLowSurrogate(value.charAt(ii + 1))) {
+		int codePoint = Character.toCodePoint(character, value.charAt(++ii));
+		record[recordLength++] = (byte) (0xF0 | (codePoint >> 18));
+		record[recordLength++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+		record[recordLength++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+		record[recordLength++] = (byte) (0x80 | (codePoint & 0x3F));
+	    } else if (Character.isSurrogate(character)) {
+		record[recordLength++] = '?';
+	    } else {
+		record[recordLength++] = (byte) (0xE0 | (character >> 12));
+		record[recordLength++] = (byte) (0x80 | ((character >> 6) & 0x3F));
+		record[recordLength++] = (byte) (0x80 | (character & 0x3F));
+	    }
+	}
+    }
+
+    private int getUtf8Length(String value) {
+	int length = 0;
+	for (int ii = 0; ii < value.length(); ii++) {
+	    char character = value.charAt(ii);
+	    if (character < 0x80) {
+		length++;
+	    } else if (character < 0x800) {
+		length += 2;
+	    } else if (Character.isHighSurrogate(character) && ii + 1 < value.length() && Character.isLowSurrogate(value.charAt(ii + 1))) {
+		length += 4;
+		ii++;
+	    } else if (Character.isSurrogate(character)) {
+		length++;
+	    } else {
+		length += 3;
+	    }
+	}
+	return length;
+    }
+
+    private void writeVarLong(long value) {
+	ensureCapacity(10);
+	while ((value & ~0x7FL) != 0) {
+	    record[recordLength++] = (byte) ((value & 0x7F) | 0x80);
+	    value >>>= 7;
+	}
+	record[recordLength++] = (byte) value;
+    }
+
+    private void writeByte(int value) {
+	ensureCapacity(1);
+	record[recordLength++] = (byte) value;
+    }
+
+    private void ensureCapacity(int length) {
+	if (recordLength + length > record.length) {
+	    record = Arrays.copyOf(record, Math.max(record.length * 2, recordLength + length));
+	}
+    }
+}
@@ -2,11 +2,19 @@ package net.ibbaa.phonelog;
 
 import java.io.File;
 import java.io.FilenameFilter;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
- * Utility class for housekeeping.
+ * Utility class for housekeeping. Sidecar files named like an archived file
+ * with an additional extension (e.g. the index written by
+ * {@link net.ibbaa.phonelog.FileLogger}) are archived together with it.
+ * Optionally a {@link net.ibbaa.phonelog.LogTermIndex} and a
+ * {@link net.ibbaa.phonelog.LogArchiveBloomFilter} are built for the archive.
  */
 public class Housekeeper implements Runnable {
 
@@ -18,6 +26,9 @@ public class Housekeeper implements Runnable {
     private final String baseFileName;
     private final int archiveFileCount;
     private final int deleteFileCount;
+    private final int maxArchiveFileSize;
+    private final int termIndexMemory;
+    private final int bloomFilterSize;
     private final FilenameFilter filter;
 
     /**
@@ -32,10 +43,76 @@ public class Housekeeper implements Runnable {
      * @param filter           filter which files should be recognized
      */
     public Housekeeper(String directory, String baseFileName, int archiveFileCount, int deleteFileCount, FilenameFilter filter) {
+	this(directory, baseFileName, archiveFileCount, deleteFileCount, -1, filter);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param directory          the directory to clean
+     * @param baseFileName       the base file name
+     * @param archiveFileCount   limit of log files, when exceeded an archive will
+     *                           be created
+     * @param deleteFileCount    limit of archive files, when exceeded oldest one
+     *                           will be deleted
+     * @param maxArchiveFileSize size limit of archive files. Files are appended to
+     *                           the most recent archive until it reaches this size.
+     *                           -1 creates a new archive on each run.
+     * @param filter             filter which files should be recognized
+     */
+    public Housekeeper(String directory, String baseFileName, int archiveFileCount, int deleteFileCount, int maxArchiveFileSize, FilenameFilter filter) {
+	this(directory, baseFileName, archiveFileCount, deleteFileCount, maxArchiveFileSize, -1, filter);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param directory          the directory to clean
+     * @param baseFileName       the base file name
+     * @param archiveFileCount   limit of log files, when exceeded an archive will
+     *                           be created
+     * @param deleteFileCount    limit of archive files, when exceeded oldest one
+     *                           will be deleted
+     * @param maxArchiveFileSize size limit of archive files. Files are appended to
+     *                           the most recent archive until it reaches this size.
+     *                           -1 creates a new archive on each run.
+     * @param termIndexMemory    memory budget in bytes for building the
+     *                           {@link net.ibbaa.phonelog.LogTermIndex} of the
+     *                           archive. -1 builds no term index.
+     * @param filter             filter which files should be recognized
+     */
+    public Housekeeper(String directory, String baseFileName, int archiveFileCount, int deleteFileCount, int maxArchiveFileSize, int termIndexMemory, FilenameFilter filter) {
+	this(directory, baseFileName, archiveFileCount, deleteFileCount, maxArchiveFileSize, termIndexMemory, -1, filter);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param directory          the directory to clean
+     * @param baseFileName       the base file name
+     * @param archiveFileCount   limit of log files, when exceeded an archive will
+     *                           be created
+     * @param deleteFileCount    limit of archive files, when exceeded oldest one
+     *                           will be deleted
+     * @param maxArchiveFileSize size limit of archive files. Files are appended to
+     *                           the most recent archive until it reaches this size.
+     *                           -1 creates a new archive on each run.
+     * @param termIndexMemory    memory budget in bytes for building the
+     *                           {@link net.ibbaa.phonelog.LogTermIndex} of the
+     *                           archive. -1 builds no term index.
+     * @param bloomFilterSize    size in bytes of the bloom filters created for
+     *                           archived files without a sidecar filter. -1 builds
+     *                           no {@link net.ibbaa.phonelog.LogArchiveBloomFilter}.
+     * @param filter             filter which files should be recognized
+     */
+    public Housekeeper(String directory, String baseFileName, int archiveFileCount, int deleteFileCount, int maxArchiveFileSize, int termIndexMemory, int bloomFilterSize, FilenameFilter filter) {
 	this.directory = directory;
 	this.baseFileName = baseFileName;
 	this.archiveFileCount = archiveFileCount;
 	this.deleteFileCount = deleteFileCount;
+	this.maxArchiveFileSize = maxArchiveFileSize;
+	this.termIndexMemory = termIndexMemory;
+	this.bloomFilterSize = bloomFilterSize;
 	this.filter = filter;
     }
 
@@ -60,25 +137,87 @@ public class Housekeeper implements Runnable {
 		filesToArchive = new File(directory).listFiles(filter);
 	    }
 	    if (filesToArchive != null && filesToArchive.length >= archiveFileCount) {
+		LogMetrics.getInstance().increment(LogMetrics.ARCHIVE_RUNS);
 		LogFileManager fileManager = new LogFileManager();
-		String zipFileName = fileManager.getFileNameWithoutExtension(baseFileName) + "." + ZIP_FILE_EXTENSION;
-		zipFileName = fileManager.suffixFileName(zipFileName, fileManager.getTimestampSuffix(System.currentTimeMillis()));
-		zipFileName = fileManager.getValidFileName(new File(directory), zipFileName, null);
-		fileManager.zipFiles(Arrays.asList(filesToArchive), new File(directory, zipFileName));
+		List<File> files = addSidecarFiles(filesToArchive);
+		File currentArchive = getCurrentArchive();
+		if (currentArchive == null || !fileManager.appendFilesToZip(files, currentArchive)) {
+		    String zipFileName = fileManager.getFileNameWithoutExtension(baseFileName) + "." + ZIP_FILE_EXTENSION;
+		    zipFileName = fileManager.suffixFileName(zipFileName, fileManager.getTimestampSuffix(System.currentTimeMillis()));
+		    zipFileName = fileManager.getValidFileName(new File(directory), zipFileName, null);
+		    currentArchive = new File(directory, zipFileName);
+		    fileManager.zipFiles(files, currentArchive);
+		}
+		if (termIndexMemory > 0 && currentArchive.exists()) {
+		    LogTermIndexBuilder termIndexBuilder = new LogTermIndexBuilder(termIndexMemory);
+		    termIndexBuilder.build(currentArchive, new File(directory, LogTermIndex.getIndexFileName(currentArchive.getName())));
+		}
+		if (bloomFilterSize > 0 && currentArchive.exists()) {
+		    LogBloomFilterBuilder bloomFilterBuilder = new LogBloomFilterBuilder(bloomFilterSize);
+		    bloomFilterBuilder.build(currentArchive, new File(directory, LogBloomFilter.getFilterFileName(currentArchive.getName())));
+		}
 		if (deleteFileCount > 0) {
 		    File[] deleteableFiles = new File(directory).listFiles(this::isDeletableArchive);
 		    if (deleteableFiles != null && deleteableFiles.length >= deleteFileCount) {
-			fileManager.deleteOldest(deleteableFiles);
+			File deletedArchive = fileManager.deleteOldest(deleteableFiles);
+			if (deletedArchive != null) {
+			    deleteSidecarFiles(deletedArchive);
+			}
 		    }
 		}
 	    }
 	} catch (Exception exc) {
-	    // Do nothing
+	    LogMetrics.getInstance().increment(LogMetrics.IO_ERRORS);
 	} finally {
 	    housekeepingLock.unlock();
 	}
     }
 
+    private List<File> addSidecarFiles(File[] filesToArchive) {
+	List<File> files = new ArrayList<>(Arrays.asList(filesToArchive));
+	Set<String> fileNames = new HashSet<>();
+	for (File file : filesToArchive) {
+	    fileNames.add(file.getName());
+	}
+	File[] allFiles = new File(directory).listFiles();
+	if (allFiles == null) {
+	    return files;
+	}
+	LogFileManager fileManager = new LogFileManager();
+	for (File file : allFiles) {
+	    String name = file.getName();
+	    if (!fileNames.contains(name) && fileNames.contains(fileManager.getFileNameWithoutExtension(name))) {
+		files.add(file);
+	    }
+	}
+	return files;
+    }
+
+    private void deleteSidecarFiles(File archive) {
+	new File(directory, LogTermIndex.getIndexFileName(archive.getName())).delete();
+	new File(directory, LogBloomFilter.getFilterFileName(archive.getName())).delete();
+    }
+
+    private File getCurrentArchive() {
+	if (maxArchiveFileSize <= 0) {
+	    return null;
+	}
+	File[] archives = new File(directory).listFiles(this::isDeletableArchive);
+	if (archives == null) {
+	    return null;
+	}
+	File current = null;
+	for (File archive : archives) {
+	    if (current == null || archive.lastModified() > current.lastModified()) {
+		current = archive;
+	    }
+	}
+	if (current == null || current.length() >= maxArchiveFileSize) {
+	    return null;
+	}
+	return current;
+    }
+
     private boolean isDeletableArchive(File dir, String name) {
 	LogFileManager fileManager = new LogFileManager();
 	String zipFileName = fileManager.getFileNameWithoutExtension(baseFileName);
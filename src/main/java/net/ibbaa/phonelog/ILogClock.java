@@ -0,0 +1,15 @@
+package net.ibbaa.phonelog;
+
+/**
+ * Source of the timestamps of log entries, see
+ * {@link net.ibbaa.phonelog.LogClock}.
+ */
+public interface ILogClock {
+
+    /**
+     * Returns the current time
+     * 
+     * @return the current time in milliseconds since the epoch
+     */
+    long currentTimeMillis();
+}
@@ -0,0 +1,26 @@
+package net.ibbaa.phonelog;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Interface for decoders reading log entries back from a log file.
+ */
+public interface ILogDecoder extends Closeable {
+
+    /**
+     * Reads the next entry
+     * 
+     * @return the entry or <code>null</code> at the end of the stream
+     * @throws IOException if reading fails
+     */
+    LogFileEntry readEntry() throws IOException;
+
+    /**
+     * Returns the offset of the last entry returned by {@link #readEntry()} in
+     * the decoded stream
+     * 
+     * @return the offset
+     */
+    long getEntryOffset();
+}
@@ -14,4 +14,15 @@ public interface ILogger {
      * @param level     the log level
      */
     void log(String tag, String message, Throwable throwable, LogLevel level);
+
+    /**
+     * log method for an existing entry, e.g. an entry recorded earlier. The
+     * default implementation logs the tag, message, throwable and level of the
+     * entry, implementations may keep the timestamp and the thread.
+     * 
+     * @param entry the entry
+     */
+    default void log(LogFileEntry entry) {
+	log(entry.getTag(), entry.getMessage(), entry.getThrowable(), entry.getLevel());
+    }
 }
@@ -0,0 +1,27 @@
+package net.ibbaa.phonelog;
+
+/**
+ * Interface for log formatters keeping state across the entries of a log file
+ * segment, e.g. dictionaries or previous values for delta encoding.
+ */
+public interface ISegmentLogFormatter extends ILogFormatter {
+
+    /**
+     * Called before the first entry is written to a log file segment. Resets the
+     * state of the formatter, so the following entries can be decoded without the
+     * preceding ones.
+     * 
+     * @return the bytes to write before the first entry, can be empty
+     */
+    byte[] startSegment();
+
+    /**
+     * Called by a logger taking the formatter into use. The state of the formatter
+     * belongs to the segment of one log file, so the formatter cannot be shared
+     * between loggers.
+     * 
+     * @param logger the logger
+     * @throws IllegalArgumentException if the formatter is used by another logger
+     */
+    void attach(Object logger);
+}
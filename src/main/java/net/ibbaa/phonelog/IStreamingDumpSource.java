@@ -0,0 +1,36 @@
+package net.ibbaa.phonelog;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Interface for supplying objects to dump one by one. Unlike
+ * {@link net.ibbaa.phonelog.IDumpSource} the objects are not collected in a
+ * list, {@link net.ibbaa.phonelog.FileDump} writes each object when it is
+ * passed to the consumer, so the memory needed does not depend on the number
+ * of objects.
+ */
+@FunctionalInterface
+public interface IStreamingDumpSource extends IDumpSource {
+
+    /**
+     * Passes the objects to dump to the consumer
+     * 
+     * @param consumer the consumer
+     */
+    void dumpObjects(Consumer<Object> consumer);
+
+    /**
+     * Returns the objects to dump collected in a list, for dump implementations
+     * that do not support streaming
+     * 
+     * @return the list of objects to dump
+     */
+    @Override
+    default List<?> objectsToDump() {
+	List<Object> objects = new ArrayList<>();
+	dumpObjects(objects::add);
+	return objects;
+    }
+}
@@ -1,19 +1,23 @@
 package net.ibbaa.phonelog;
 
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Handler;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * {@link net.ibbaa.phonelog.ILogger} implementation delegating to Java system
- * logger.
+ * logger. The Java loggers are configured once per tag and cached.
  */
 public class JavaSystemLogger implements ILogger {
 
     private final static LogLevel DEFAULT_LOG_LEVEL = LogLevel.ERROR;
+    private final static int MAX_CACHED_LOGGERS = 1000;
+
     private final Handler handler;
     private final ILogger delegateLog;
     private final LogLevel maxLevel;
+    private final ConcurrentHashMap<String, Logger> loggers;
 
     /**
      * Constructor
@@ -86,6 +90,7 @@ public class JavaSystemLogger implements ILogger {
 	this.handler = handler;
 	this.delegateLog = delegateLog;
 	this.maxLevel = maxLevel;
+	this.loggers = new ConcurrentHashMap<>();
     }
 
     /**
@@ -122,11 +127,7 @@ public class JavaSystemLogger implements ILogger {
 	    tag = Logger.GLOBAL_LOGGER_NAME;
 	}
 	Level javaLevel = mapToJavaSystemLevel(level);
-	Logger logger = Logger.getLogger(tag);
-	logger.setLevel(Level.ALL);
-	if (handler != null) {
-	    logger.addHandler(handler);
-	}
+	Logger logger = getLogger(tag);
 	if (throwable != null) {
 	    logger.log(javaLevel, message, throwable);
 	} else {
@@ -134,6 +135,33 @@ public class JavaSystemLogger implements ILogger {
 	}
     }
 
+    private Logger getLogger(String tag) {
+	Logger logger = loggers.get(tag);
+	if (logger != null) {
+	    return logger;
+	}
+	logger = Logger.getLogger(tag);
+	synchronized (logger) {
+	    logger.setLevel(Level.ALL);
+	    if (handler != null && !containsHandler(logger)) {
+		logger.addHandler(handler);
+	    }
+	}
+	if (loggers.size() < MAX_CACHED_LOGGERS) {
+	    loggers.putIfAbsent(tag, logger);
+	}
+	return logger;
+    }
+
+    private boolean containsHandler(Logger logger) {
+	for (Handler currentHandler : logger.getHandlers()) {
+	    if (currentHandler == handler) {
+		return true;
+	    }
+	}
+	return false;
+    }
+
     private Level mapToJavaSystemLevel(LogLevel level) {
 	switch (level) {
 	case VERBOSE:
@@ -0,0 +1,248 @@
+package net.ibbaa.phonelog;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * {@link net.ibbaa.phonelog.ILogFormatter} implementation writing each entry as
+ * a JSON object on a single line (JSON Lines). The object contains the
+ * timestamp in milliseconds, the thread, the level, the tag, the message, the
+ * stack trace of the Throwable as exception and the key/value fields of the
+ * entry as fields. Strings are escaped and encoded as UTF-8 directly to bytes.
+ * Other encodings are converted from UTF-8.
+ */
+public class JsonLinesLogFormatter implements ILogFormatter {
+
+    private final static int INITIAL_BUFFER_SIZE = 256;
+    private final static byte[] HEX_DIGITS = new byte[] { '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f' };
+
+    /**
+     * Constructor
+     */
+    public JsonLinesLogFormatter() {
+
+    }
+
+    /**
+     * Format the log entry
+     * 
+     * @param entry the log entry
+     * @return the formatted log entry as string
+     */
+    @Override
+    public String formatLogFileEntry(LogFileEntry entry) {
+	return new String(formatLogFileEntry(entry, Charsets.UTF8_CHARSET), Charsets.UTF8_CHARSET);
+    }
+
+    /**
+     * Format the log entry
+     * 
+     * @param entry    the log entry
+     * @param encoding the encoding
+     * @return the formatted log entry as byte array
+     */
+    @Override
+    public byte[] formatLogFileEntry(LogFileEntry entry, Charset encoding) {
+	JsonBuffer buffer = new JsonBuffer();
+	buffer.writeAscii("{\"timestamp\":");
+	buffer.writeLong(entry.getTimestamp());
+	if (entry.getSequence() >= 0) {
+	    buffer.writeAscii(",\"sequence\":");
+	    buffer.writeLong(entry.getSequence());
+	}
+	buffer.writeAscii(",\"thread\":");
+	buffer.writeThread(entry.getLogThread());
+	buffer.writeAscii(",\"level\":");
+	buffer.writeString(entry.getLevel() != null ? entry.getLevel().name() : null);
+	buffer.writeAscii(",\"tag\":");
+	buffer.writeString(entry.getTag());
+	buffer.writeAscii(",\"message\":");
+	buffer.writeString(entry.getMessage());
+	if (entry.getThrowable() != null) {
+	    buffer.writeAscii(",\"exception\":");
+	    buffer.writeString(new DefaultLogFormatter().exceptionToString(entry.getThrowable()));
+	}
+	LogFields fields = entry.getFields();
+	if (fields != null && fields.size() > 0) {
+	    buffer.writeAscii(",\"fields\":{");
+	    for (int ii = 0; ii < fields.size(); ii++) {
+		if (ii > 0) {
+		    buffer.writeByte(',');
+		}
+		buffer.writeString(fields.getName(ii));
+		buffer.writeByte(':');
+		writeValue(buffer, fields, ii);
+	    }
+	    buffer.writeByte('}');
+	}
+	buffer.writeAscii("}\n");
+	byte[] data = buffer.toByteArray();
+	if (encoding == null || Charsets.UTF8_CHARSET.equals(encoding)) {
+	    return data;
+	}
+	return new String(data, Charsets.UTF8_CHARSET).getBytes(encoding);
+    }
+
+    private void writeValue(JsonBuffer buffer, LogFields fields, int index) {
+	switch (fields.getType(index)) {
+	case LogFields.TYPE_LONG:
+	    buffer.writeLong(fields.getLong(index));
+	    break;
+	case LogFields.TYPE_DOUBLE:
+	    double value = fields.getDouble(index);
+	    if (Double.isNaN(value) || Double.isInfinite(value)) {
+		buffer.writeAscii("null");
+	    } else {
+		buffer.writeAscii(Double.toString(value));
+	    }
+	    break;
+	case LogFields.TYPE_BOOLEAN:
+	    buffer.writeAscii(fields.getBoolean(index) ? "true" : "false");
+	    break;
+	default:
+	    buffer.writeString(fields.getString(index));
+	    break;
+	}
+    }
+
+    private static class JsonBuffer {
+
+	private byte[] data;
+	private int length;
+
+	public JsonBuffer() {
+	    this.data = new byte[INITIAL_BUFFER_SIZE];
+	    this.length = 0;
+	}
+
+	public void writeByte(int value) {
+	    ensureCapacity(1);
+	    data[length++] = (byte) value;
+	}
+
+	public void writeAscii(String value) {
+	    ensureCapacity(value.length());
+	    for (int ii = 0; ii < value.length(); ii++) {
+		data[length++] = (byte) value.charAt(ii);
+	    }
+	}
+
+	public void writeLong(long value) {
+	    if (value == Long.MIN_VALUE) {
+		writeAscii(Long.toString(value));
+		return;
+	    }
+	    ensureCapacity(20);
+	    if (value < 0) {
+		data[length++] = '-';
+		value = -value;
+	    }
+	    int start = length;
+	    do {
+		data[length++] = (byte) ('0' + value % 10);
+		value /= 10;
+	    } while (value > 0);
+	    for (int ii = start, jj = length - 1; ii < jj; ii++, jj--) {
+		byte swap = data[ii];
+		data[ii] = data[jj];
+		data[jj] = swap;
+	    }
+	}
+
+	public void writeString(String value) {
+	    if (value == null) {
+		writeAscii("null");
+		return;
+	    }
+	    ensureCapacity(value.length() * 6 + 2);
+	    data[length++] = '"';
+	    for (int ii = 0; ii < value.length(); ii++) {
+		char current = value.charAt(ii);
+		if (current == '"' || current == '\\') {
+		    ensureCapacity(2);
+		    data[length++] = '\\';
+		    data[length++] = (byte) current;
+		} else if (current < 0x20) {
+		    writeControl(current);
+		} else if (current < 0x80) {
+		    data[length++] = (byte) current;
+		} else if (current < 0x800) {
+		    data[length++] = (byte) (0xc0 | (current >> 6));
+		    data[length++] = (byte) (0x80 | (current & 0x3f));
+		} else if (Character.isHighSurrogate(current) && ii + 1 < value.length() && Character.isLowSurrogate(value.charAt(ii + 1))) {
+		    int codePoint = Character.toCodePoint(current, value.charAt(++ii));
+		    data[length++] = (byte) (0xf0 | (codePoint >> 18));
+		    data[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+		    data[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+		    data[length++] = (byte) (0x80 | (codePoint & 0x3f));
+		} else if (Character.isSurrogate(current)) {
+		    data[length++] = '?';
+		} else {
+		    data[length++] = (byte) (0xe0 | (current >> 12));
+		    data[length++] = (byte) (0x80 | ((current >> 6) & 0x3f));
+		    data[length++] = (byte) (0x80 | (current & 0x3f));
+		}
+	    }
+	    ensureCapacity(1);
+	    data[length++] = '"';
+	}
+
+	public void writeThread(LogThread thread) {
+	    byte[] nameBytes = thread != null ? thread.getNameBytes() : null;
+	    if (nameBytes == null) {
+		writeAscii("null");
+		return;
+	    }
+	    for (byte current : nameBytes) {
+		if (current == '"' || current == '\\' || (current >= 0 && current < 0x20)) {
+		    writeString(thread.getName());
+		    return;
+		}
+	    }
+	    ensureCapacity(nameBytes.length + 2);
+	    data[length++] = '"';
+	    System.arraycopy(nameBytes, 0, data, length, nameBytes.length);
+	    length += nameBytes.length;
+	    data[length++] = '"';
+	}
+
+	public byte[] toByteArray() {
+	    return Arrays.copyOf(data, length);
+	}
+
+	private void writeControl(char current) {
+	    ensureCapacity(6);
+	    data[length++] = '\\';
+	    switch (current) {
+	    case '\n':
+		data[length++] = 'n';
+		break;
+	    case '\r':
+		data[length++] = 'r';
+		break;
+	    case '\t':
+		data[length++] = 't';
+		break;
+	    case '\b':
+		data[length++] = 'b';
+		break;
+	    case '\f':
+		data[length++] = 'f';
+		break;
+	    default:
+		data[length++] = 'u';
+		data[length++] = '0';
+		data[length++] = '0';
+		data[length++] = HEX_DIGITS[current >> 4];
+		data[length++] = HEX_DIGITS[current & 0xf];
+		break;
+	    }
+	}
+
+	private void ensureCapacity(int additional) {
+	    if (length + additional > data.length) {
+		data = Arrays.copyOf(data, Math.max(data.length * 2, length + additional));
+	    }
+	}
+    }
+}
@@ -178,4 +178,20 @@ public class Log {
 	    logger.log(tag, message, Throwable, LogLevel.ERROR);
 	}
     }
+
+    /**
+     * Writes a log entry with key/value fields
+     * 
+     * @param level     the log level
+     * @param tag       the tag
+     * @param message   the message
+     * @param throwable the Throwable (can be null)
+     * @param fields    the key/value fields
+     */
+    public static void log(LogLevel level, String tag, String message, Throwable throwable, LogFields fields) {
+	ILogger logger = getLogger();
+	if (logger != null) {
+	    logger.log(new LogFileEntry(LogThread.current(), LogClock.getInstance().currentTimeMillis(), level, tag, message, throwable, fields));
+	}
+    }
 }
@@ -0,0 +1,102 @@
+package net.ibbaa.phonelog;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@link net.ibbaa.phonelog.LogBloomFilter} of each log file in an archive,
+ * written next to the archive by {@link net.ibbaa.phonelog.Housekeeper} with
+ * the extension 'bloom' appended. The filters can be checked without opening
+ * the archive.
+ */
+public class LogArchiveBloomFilter {
+
+    final static byte[] HEADER = new byte[] { 'P', 'B', 'L', 'A', 1 };
+
+    private final static int BUFFER_SIZE = 8192;
+
+    private final List<String> entryNames;
+    private final Map<String, LogBloomFilter> filters;
+
+    /**
+     * Constructor
+     * 
+     * @param filterFile the filter file
+     * @throws IOException if the file is not a valid archive filter
+     */
+    public LogArchiveBloomFilter(File filterFile) throws IOException {
+	List<String> names = new ArrayList<>();
+	this.filters = new HashMap<>();
+	try (InputStream inputStream = new BufferedInputStream(new FileInputStream(filterFile), BUFFER_SIZE)) {
+	    for (byte headerByte : HEADER) {
+		if (inputStream.read() != headerByte) {
+		    throw new IOException("Invalid archive bloom filter");
+		}
+	    }
+	    int entryCount = (int) LogTermIndex.readVarLong(inputStream);
+	    for (int ii = 0; ii < entryCount; ii++) {
+		String name = LogTermIndex.readString(inputStream);
+		names.add(name);
+		filters.put(name, new LogBloomFilter(inputStream));
+	    }
+	}
+	this.entryNames = Collections.unmodifiableList(names);
+    }
+
+    /**
+     * Returns the names of the archive entries with a filter
+     * 
+     * @return the entry names
+     */
+    public List<String> getEntryNames() {
+	return entryNames;
+    }
+
+    /**
+     * Returns the filter of the archive entry
+     * 
+     * @param entryName the entry name
+     * @return the filter, <code>null</code> if there is no filter for the entry
+     */
+    public LogBloomFilter getFilter(String entryName) {
+	return filters.get(entryName);
+    }
+
+    /**
+     * Returns if the archive entry may contain all tokens
+     * 
+     * @param entryName the entry name
+     * @param tokens    the tokens
+     * @return <code>false</code> if one of the tokens is definitely not
+     *         contained, <code>true</code> if there is no filter for the entry
+     */
+    public boolean mightContainAll(String entryName, Collection<String> tokens) {
+	LogBloomFilter filter = filters.get(entryName);
+	return filter == null || filter.mightContainAll(tokens);
+    }
+
+    /**
+     * Returns if any archive entry with a filter may contain all tokens
+     * 
+     * @param tokens the tokens
+     * @return <code>false</code> if each filtered entry definitely does not
+     *         contain one of the tokens
+     */
+    public boolean mightContainAll(Collection<String> tokens) {
+	for (LogBloomFilter filter : filters.values()) {
+	    if (filter.mightContainAll(tokens)) {
+		return true;
+	    }
+	}
+	return false;
+    }
+}
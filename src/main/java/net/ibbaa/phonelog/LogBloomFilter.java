@@ -0,0 +1,167 @@
+package net.ibbaa.phonelog;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
+
+/**
+ * Bloom filter of the tokens of the log entries in a log file, see
+ * {@link net.ibbaa.phonelog.LogTokenizer}. The filter is written next to a
+ * rotated log file by {@link net.ibbaa.phonelog.FileLogger} with the extension
+ * 'bloom' appended. If the filter does not contain a token, the log file does
+ * not contain it. A contained token may be a false positive.
+ */
+public class LogBloomFilter {
+
+    /**
+     * The extension of bloom filter files
+     */
+    public final static String BLOOM_FILTER_FILE_EXTENSION = "bloom";
+
+    private final static byte[] HEADER = new byte[] { 'P', 'B', 'L', 'M', 1 };
+
+    private final static int HASH_COUNT = 5;
+
+    private final int hashCount;
+    private final long[] bits;
+
+    /**
+     * Constructor
+     * 
+     * @param size the size of the filter in bytes, rounded up to a multiple of 8
+     */
+    public LogBloomFilter(int size) {
+	this.hashCount = HASH_COUNT;
+	this.bits = new long[Math.max(1, (size + 7) / 8)];
+    }
+
+    /**
+     * Constructor. Reads a filter written with {@link #write(OutputStream)}.
+     * 
+     * @param inputStream the stream to read the filter from
+     * @throws IOException if reading fails or the data is not a valid filter
+     */
+    public LogBloomFilter(InputStream inputStream) throws IOException {
+	DataInputStream dataStream = new DataInputStream(inputStream);
+	for (byte headerByte : HEADER) {
+	    if (dataStream.readByte() != headerByte) {
+		throw new IOException("Invalid bloom filter");
+	    }
+	}
+	this.hashCount = dataStream.readUnsignedByte();
+	int length = dataStream.readInt();
+	if (hashCount <= 0 || length <= 0) {
+	    throw new IOException("Invalid bloom filter");
+	}
+	this.bits = new long[length];
+	for (int ii = 0; ii < length; ii++) {
+	    bits[ii] = dataStream.readLong();
+	}
+    }
+
+    /**
+     * Returns the name of the bloom filter file for the log file or archive
+     * 
+     * @param fileName the log file or archive name
+     * @return the bloom filter file name
+     */
+    public static String getFilterFileName(String fileName) {
+	return fileName + "." + BLOOM_FILTER_FILE_EXTENSION;
+    }
+
+    /**
+     * Returns the size of the filter in bytes
+     * 
+     * @return the size
+     */
+    public int getSize() {
+	return bits.length * 8;
+    }
+
+    /**
+     * Adds a token
+     * 
+     * @param token the token
+     */
+    public void add(String token) {
+	long hash = hash(token);
+	long bitCount = bits.length * 64L;
+	for (int ii = 0; ii < hashCount; ii++) {
+	    long index = getIndex(hash, ii, bitCount);
+	    bits[(int) (index >>> 6)] |= 1L << index;
+	}
+    }
+
+    /**
+     * Returns if the filter may contain the token
+     * 
+     * @param token the token
+     * @return <code>false</code> if the token is definitely not contained
+     */
+    public boolean mightContain(String token) {
+	long hash = hash(token);
+	long bitCount = bits.length * 64L;
+	for (int ii = 0; ii < hashCount; ii++) {
+	    long index = getIndex(hash, ii, bitCount);
+	    if ((bits[(int) (index >>> 6)] & (1L << index)) == 0) {
+		return false;
+	    }
+	}
+	return true;
+    }
+
+    /**
+     * Returns if the filter may contain all tokens
+     * 
+     * @param tokens the tokens
+     * @return <code>false</code> if one of the tokens is definitely not
+     *         contained
+     */
+    public boolean mightContainAll(Collection<String> tokens) {
+	for (String token : tokens) {
+	    if (!mightContain(token)) {
+		return false;
+	    }
+	}
+	return true;
+    }
+
+    /**
+     * Writes the filter
+     * 
+     * @param outputStream the stream to write the filter to
+     * @throws IOException if writing fails
+     */
+    public void write(OutputStream outputStream) throws IOException {
+	DataOutputStream dataStream = new DataOutputStream(outputStream);
+	dataStream.write(HEADER);
+	dataStream.writeByte(hashCount);
+	dataStream.writeInt(bits.length);
+	for (long value : bits) {
+	    dataStream.writeLong(value);
+	}
+	dataStream.flush();
+    }
+
+    private long getIndex(long hash, int round, long bitCount) {
+	long combined = (int) hash + (long) round * (int) (hash >>> 32);
+	return (combined & Long.MAX_VALUE) % bitCount;
+    }
+
+    private long hash(String token) {
+	long hash = 0xcbf29ce484222325L;
+	for (int ii = 0; ii < token.length(); ii++) {
+	    hash ^= token.charAt(ii);
+	    hash *= 0x100000001b3L;
+	}
+	hash ^= hash >>> 33;
+	hash *= 0xff51afd7ed558ccdL;
+	hash ^= hash >>> 33;
+	hash *= 0xc4ceb9fe1a85ec53L;
+	hash ^= hash >>> 33;
+	return hash;
+    }
+}
@@ -0,0 +1,114 @@
+package net.ibbaa.phonelog;
+
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Builds the {@link net.ibbaa.phonelog.LogArchiveBloomFilter} of an archive.
+ * The filter of an archived log file is taken from the archived sidecar filter
+ * written by {@link net.ibbaa.phonelog.FileLogger}. If there is none, it is
+ * created from the entries of the log file. If a filter for the archive already
+ * exists, only the archive entries not contained in it are added.
+ */
+public class LogBloomFilterBuilder {
+
+    private final static int BUFFER_SIZE = 8192;
+    private final static String TEMPORARY_FILE_EXTENSION = "tmp";
+
+    private final int size;
+
+    /**
+     * Constructor
+     * 
+     * @param size the size in bytes of filters created from the log files
+     */
+    public LogBloomFilterBuilder(int size) {
+	this.size = size;
+    }
+
+    /**
+     * Builds or updates the filter of the archive. Archive entries with a name
+     * consisting of another entry name and an additional extension are sidecar
+     * files and get no filter.
+     * 
+     * @param zipFile    the archive
+     * @param filterFile the filter file
+     * @return <code>true</code> if the filter was written successfully
+     */
+    public boolean build(File zipFile, File filterFile) {
+	File temporaryFile = new File(filterFile.getParentFile(), filterFile.getName() + "." + TEMPORARY_FILE_EXTENSION);
+	try {
+	    LogArchiveBloomFilter existingFilter = null;
+	    if (filterFile.exists()) {
+		try {
+		    existingFilter = new LogArchiveBloomFilter(filterFile);
+		} catch (IOException exc) {
+		    existingFilter = null;
+		}
+	    }
+	    List<String> entryNames = existingFilter == null ? new ArrayList<>() : existingFilter.getEntryNames();
+	    try (ZipFile zip = new ZipFile(zipFile)) {
+		List<String> newEntryNames = LogTermIndexBuilder.getLogEntryNames(zip, entryNames);
+		if (newEntryNames.isEmpty() && existingFilter != null) {
+		    return true;
+		}
+		try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(temporaryFile), BUFFER_SIZE)) {
+		    outputStream.write(LogArchiveBloomFilter.HEADER);
+		    LogTermIndex.writeVarLong(outputStream, entryNames.size() + newEntryNames.size());
+		    for (String name : entryNames) {
+			LogTermIndex.writeString(outputStream, name);
+			existingFilter.getFilter(name).write(outputStream);
+		    }
+		    for (String name : newEntryNames) {
+			LogTermIndex.writeString(outputStream, name);
+			createFilter(zip, name).write(outputStream);
+		    }
+		}
+	    }
+	    if (filterFile.exists() && !filterFile.delete()) {
+		return false;
+	    }
+	    return temporaryFile.renameTo(filterFile);
+	} catch (Exception exc) {
+	    return false;
+	} finally {
+	    temporaryFile.delete();
+	}
+    }
+
+    private LogBloomFilter createFilter(ZipFile zip, String name) throws IOException {
+	ZipEntry filterEntry = zip.getEntry(LogBloomFilter.getFilterFileName(name));
+	if (filterEntry != null) {
+	    try (InputStream inputStream = zip.getInputStream(filterEntry)) {
+		return new LogBloomFilter(inputStream);
+	    } catch (IOException exc) {
+		// Do nothing
+	    }
+	}
+	LogBloomFilter filter = new LogBloomFilter(size);
+	try (ILogDecoder decoder = LogFileReader.createDecoder(zip.getInputStream(zip.getEntry(name)), name)) {
+	    while (true) {
+		LogFileEntry entry;
+		try {
+		    entry = decoder.readEntry();
+		} catch (EOFException exc) {
+		    entry = null;
+		}
+		if (entry == null) {
+		    break;
+		}
+		LogTokenizer.tokenize(entry, filter::add);
+	    }
+	}
+	return filter;
+    }
+}
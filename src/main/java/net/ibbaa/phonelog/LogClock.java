@@ -0,0 +1,73 @@
+package net.ibbaa.phonelog;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The clock used by the loggers and dumps of the process for the timestamps of
+ * log entries, rotated log files and dumps. By default this is
+ * {@link java.lang.System#currentTimeMillis()}. A
+ * {@link net.ibbaa.phonelog.CoarseLogClock} reduces the cost for very high call
+ * rates, tests can set a controllable clock. The clock also provides the global
+ * monotonic sequence number each {@link net.ibbaa.phonelog.LogFileEntry} is
+ * stamped with, so entries with the same timestamp keep a deterministic order.
+ */
+public class LogClock {
+
+    private final static LogClock instance = new LogClock();
+
+    private final AtomicLong sequence;
+    private volatile ILogClock clock;
+
+    private LogClock() {
+	this.sequence = new AtomicLong();
+	this.clock = null;
+    }
+
+    /**
+     * Returns the clock of the process
+     * 
+     * @return the clock
+     */
+    public static LogClock getInstance() {
+	return instance;
+    }
+
+    /**
+     * Sets the source of the current time
+     * 
+     * @param clock the source, <code>null</code> for
+     *              {@link java.lang.System#currentTimeMillis()}
+     */
+    public void setClock(ILogClock clock) {
+	this.clock = clock;
+    }
+
+    /**
+     * Returns the source of the current time
+     * 
+     * @return the source, <code>null</code> if
+     *         {@link java.lang.System#currentTimeMillis()} is used
+     */
+    public ILogClock getClock() {
+	return clock;
+    }
+
+    /**
+     * Returns the current time
+     * 
+     * @return the current time in milliseconds since the epoch
+     */
+    public long currentTimeMillis() {
+	ILogClock currentClock = clock;
+	return currentClock != null ? currentClock.currentTimeMillis() : System.currentTimeMillis();
+    }
+
+    /**
+     * Returns the next sequence number
+     * 
+     * @return the sequence number, increasing with each call
+     */
+    public long nextSequence() {
+	return sequence.incrementAndGet();
+    }
+}
@@ -0,0 +1,245 @@
+package net.ibbaa.phonelog;
+
+import java.util.Arrays;
+
+/**
+ * Typed key/value fields of a {@link net.ibbaa.phonelog.LogFileEntry}. The
+ * fields are stored in parallel arrays in the order they were added. Numbers
+ * and booleans are stored without boxing.
+ */
+public class LogFields {
+
+    /**
+     * Type of string fields
+     */
+    public final static byte TYPE_STRING = 0;
+
+    /**
+     * Type of long fields
+     */
+    public final static byte TYPE_LONG = 1;
+
+    /**
+     * Type of double fields
+     */
+    public final static byte TYPE_DOUBLE = 2;
+
+    /**
+     * Type of boolean fields
+     */
+    public final static byte TYPE_BOOLEAN = 3;
+
+    private final static int DEFAULT_CAPACITY = 4;
+
+    private String[] names;
+    private byte[] types;
+    private long[] values;
+    private String[] strings;
+    private int size;
+
+    /**
+     * Constructor
+     */
+    public LogFields() {
+	this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param capacity the initial number of fields. Default is 4.
+     */
+    public LogFields(int capacity) {
+	int initialCapacity = Math.max(1, capacity);
+	this.names = new String[initialCapacity];
+	this.types = new byte[initialCapacity];
+	this.values = new long[initialCapacity];
+	this.strings = null;
+	this.size = 0;
+    }
+
+    /**
+     * Adds a string field
+     * 
+     * @param name  the name
+     * @param value the value (can be null)
+     * @return this instance
+     */
+    public LogFields add(String name, String value) {
+	int index = addField(name, TYPE_STRING, 0);
+	if (strings == null) {
+	    strings = new String[names.length];
+	}
+	strings[index] = value;
+	return this;
+    }
+
+    /**
+     * Adds a long field
+     * 
+     * @param name  the name
+     * @param value the value
+     * @return this instance
+     */
+    public LogFields add(String name, long value) {
+	addField(name, TYPE_LONG, value);
+	return this;
+    }
+
+    /**
+     * Adds a double field
+     * 
+     * @param name  the name
+     * @param value the value
+     * @return this instance
+     */
+    public LogFields add(String name, double value) {
+	addField(name, TYPE_DOUBLE, Double.doubleToRawLongBits(value));
+	return this;
+    }
+
+    /**
+     * Adds a boolean field
+     * 
+     * @param name  the name
+     * @param value the value
+     * @return this instance
+     */
+    public LogFields add(String name, boolean value) {
+	addField(name, TYPE_BOOLEAN, value ? 1 : 0);
+	return this;
+    }
+
+    /**
+     * Returns the number of fields
+     * 
+     * @return the number of fields
+     */
+    public int size() {
+	return size;
+    }
+
+    /**
+     * Returns the name of a field
+     * 
+     * @param index the index
+     * @return the name
+     */
+    public String getName(int index) {
+	checkIndex(index);
+	return names[index];
+    }
+
+    /**
+     * Returns the type of a field
+     * 
+     * @param index the index
+     * @return the type, one of the TYPE constants
+     */
+    public byte getType(int index) {
+	checkIndex(index);
+	return types[index];
+    }
+
+    /**
+     * Returns the value of a string field
+     * 
+     * @param index the index
+     * @return the value, <code>null</code> if the field is not a string
+     */
+    public String getString(int index) {
+	checkIndex(index);
+	return types[index] == TYPE_STRING ? strings[index] : null;
+    }
+
+    /**
+     * Returns the value of a long field
+     * 
+     * @param index the index
+     * @return the value
+     */
+    public long getLong(int index) {
+	checkIndex(index);
+	return values[index];
+    }
+
+    /**
+     * Returns the value of a double field
+     * 
+     * @param index the index
+     * @return the value
+     */
+    public double getDouble(int index) {
+	checkIndex(index);
+	return Double.longBitsToDouble(values[index]);
+    }
+
+    /**
+     * Returns the value of a boolean field
+     * 
+     * @param index the index
+     * @return the value
+     */
+    public boolean getBoolean(int index) {
+	checkIndex(index);
+	return values[index] != 0;
+    }
+
+    /**
+     * Returns the value of a field, numbers and booleans are boxed
+     * 
+     * @param index the index
+     * @return the value
+     */
+    public Object getValue(int index) {
+	switch (getType(index)) {
+	case TYPE_LONG:
+	    return getLong(index);
+	case TYPE_DOUBLE:
+	    return getDouble(index);
+	case TYPE_BOOLEAN:
+	    return getBoolean(index);
+	default:
+	    return getString(index);
+	}
+    }
+
+    /**
+     * toString() implementation
+     * 
+     * @return formatted string
+     */
+    @Override
+    public String toString() {
+	StringBuilder builder = new StringBuilder("LogFields{");
+	for (int ii = 0; ii < size; ii++) {
+	    if (ii > 0) {
+		builder.append(", ");
+	    }
+	    builder.append(names[ii]).append('=').append(getValue(ii));
+	}
+	return builder.append('}').toString();
+    }
+
+    private int addField(String name, byte type, long value) {
+	if (size == names.length) {
+	    int capacity = names.length * 2;
+	    names = Arrays.copyOf(names, capacity);
+	    types = Arrays.copyOf(types, capacity);
+	    values = Arrays.copyOf(values, capacity);
+	    if (strings != null) {
+		strings = Arrays.copyOf(strings, capacity);
+	    }
+	}
+	names[size] = name;
+	types[size] = type;
+	values[size] = value;
+	return size++;
+    }
+
+    private void checkIndex(int index) {
+	if (index < 0 || index >= size) {
+	    throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+	}
+    }
+}
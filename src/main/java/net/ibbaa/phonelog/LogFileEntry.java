@@ -1,16 +1,20 @@
 package net.ibbaa.phonelog;
 
 /**
- * Representation of a log entry.
+ * Representation of a log entry. Entries captured by the loggers are stamped
+ * with the next sequence number of {@link net.ibbaa.phonelog.LogClock}, entries
+ * read back from a log file keep the stored sequence number or have none.
  */
 public class LogFileEntry {
 
     private final long timestamp;
-    private final String thread;
+    private final long sequence;
+    private final LogThread thread;
     private final LogLevel level;
     private final String tag;
     private final String message;
     private final Throwable throwable;
+    private final LogFields fields;
 
     /**
      * Constructor
@@ -23,12 +27,78 @@ public class LogFileEntry {
      * @param throwable the Throwable
      */
     public LogFileEntry(long timestamp, String thread, LogLevel level, String tag, String message, Throwable throwable) {
+	this(timestamp, thread, level, tag, message, throwable, null);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param timestamp the timestam
+     * @param thread    the thread id
+     * @param level     the log level
+     * @param tag       the tag
+     * @param message   the message
+     * @param throwable the Throwable
+     * @param fields    the key/value fields (can be null)
+     */
+    public LogFileEntry(long timestamp, String thread, LogLevel level, String tag, String message, Throwable throwable, LogFields fields) {
+	this(timestamp, -1, thread, level, tag, message, throwable, fields);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param timestamp the timestam
+     * @param sequence  the sequence number, -1 if unknown
+     * @param thread    the thread id
+     * @param level     the log level
+     * @param tag       the tag
+     * @param message   the message
+     * @param throwable the Throwable
+     * @param fields    the key/value fields (can be null)
+     */
+    public LogFileEntry(long timestamp, long sequence, String thread, LogLevel level, String tag, String message, Throwable throwable, LogFields fields) {
+	this(thread != null ? new LogThread(-1, thread) : null, timestamp, sequence, level, tag, message, throwable, fields);
+    }
+
+    /**
+     * Constructor for capturing an entry. The entry is stamped with the next
+     * sequence number of {@link net.ibbaa.phonelog.LogClock}.
+     * 
+     * @param thread    the thread token, usually
+     *                  {@link net.ibbaa.phonelog.LogThread#current()}
+     * @param timestamp the timestam
+     * @param level     the log level
+     * @param tag       the tag
+     * @param message   the message
+     * @param throwable the Throwable
+     * @param fields    the key/value fields (can be null)
+     */
+    public LogFileEntry(LogThread thread, long timestamp, LogLevel level, String tag, String message, Throwable throwable, LogFields fields) {
+	this(thread, timestamp, LogClock.getInstance().nextSequence(), level, tag, message, throwable, fields);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param thread    the thread token
+     * @param timestamp the timestam
+     * @param sequence  the sequence number, -1 if unknown
+     * @param level     the log level
+     * @param tag       the tag
+     * @param message   the message
+     * @param throwable the Throwable
+     * @param fields    the key/value fields (can be null)
+     */
+    public LogFileEntry(LogThread thread, long timestamp, long sequence, LogLevel level, String tag, String message, Throwable throwable, LogFields fields) {
 	this.timestamp = timestamp;
+	this.sequence = sequence;
 	this.thread = thread;
 	this.level = level;
 	this.tag = tag;
 	this.message = message;
 	this.throwable = throwable;
+	this.fields = fields;
     }
 
     /**
@@ -40,12 +110,31 @@ public class LogFileEntry {
 	return timestamp;
     }
 
+    /**
+     * Returns the sequence number. Entries captured later have a higher sequence
+     * number.
+     * 
+     * @return the sequence number, -1 if unknown
+     */
+    public long getSequence() {
+	return sequence;
+    }
+
     /**
      * Returns the thread id
      * 
      * @return the thread id
      */
     public String getThread() {
+	return thread != null ? thread.getName() : null;
+    }
+
+    /**
+     * Returns the thread token
+     * 
+     * @return the thread token, <code>null</code> if the thread is unknown
+     */
+    public LogThread getLogThread() {
 	return thread;
     }
 
@@ -85,6 +174,15 @@ public class LogFileEntry {
 	return throwable;
     }
 
+    /**
+     * Returns the key/value fields
+     * 
+     * @return the fields, <code>null</code> if there are none
+     */
+    public LogFields getFields() {
+	return fields;
+    }
+
     /**
      * toString() implementation
      * 
@@ -92,6 +190,6 @@ public class LogFileEntry {
      */
     @Override
     public String toString() {
-	return "LogFileEntry{" + "timestamp=" + timestamp + ", thread='" + thread + '\'' + ", level=" + level + ", tag='" + tag + '\'' + ", message='" + message + '\'' + ", throwable=" + throwable + '}';
+	return "LogFileEntry{" + "timestamp=" + timestamp + ", sequence=" + sequence + ", thread='" + getThread() + '\'' + ", level=" + level + ", tag='" + tag + '\'' + ", message='" + message + '\'' + ", throwable=" + throwable + ", fields=" + fields + '}';
     }
 }
@@ -0,0 +1,119 @@
+package net.ibbaa.phonelog;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parses lines written by {@link net.ibbaa.phonelog.DefaultLogFormatter} back
+ * into log entries. Lines are passed one by one. Lines not starting a new entry
+ * (e.g. stack traces) are appended to the message of the current entry, so an
+ * entry is complete when the next one starts or when {@link #flush()} is
+ * called. Lines before the first entry are ignored.
+ */
+public class LogFileEntryParser {
+
+    private final static Pattern ENTRY_PATTERN = Pattern.compile("^(\\d{4})-(\\d{2})-(\\d{2}) (\\d{2}):(\\d{2}):(\\d{2})\\.(\\d{3})(?: \\[(.*?)\\])? (VERBOSE|DEBUG|INFO|WARN|ERROR)(?: (.*?))?: (.*)$");
+
+    private final Calendar calendar;
+    private LogFileEntry pendingEntry;
+    private StringBuilder pendingMessage;
+    private long pendingOffset;
+    private long entryOffset;
+
+    /**
+     * Constructor
+     */
+    public LogFileEntryParser() {
+	this.calendar = new GregorianCalendar();
+	this.pendingOffset = 0;
+	this.entryOffset = 0;
+    }
+
+    /**
+     * Returns if the line starts a new log entry
+     * 
+     * @param line the line
+     * @return <code>true</code> if the line starts a new log entry
+     */
+    public static boolean isEntryStart(String line) {
+	if (line.length() < 24 || line.charAt(4) != '-' || line.charAt(7) != '-' || line.charAt(10) != ' ' || line.charAt(13) != ':' || line.charAt(16) != ':' || line.charAt(19) != '.') {
+	    return false;
+	}
+	return ENTRY_PATTERN.matcher(line).matches();
+    }
+
+    /**
+     * Parses the line
+     * 
+     * @param line the line without line separator
+     * @return the previous entry, if the line starts a new entry, otherwise
+     *         <code>null</code>
+     */
+    public LogFileEntry parseLine(String line) {
+	return parseLine(line, 0);
+    }
+
+    /**
+     * Parses the line
+     * 
+     * @param line   the line without line separator
+     * @param offset the offset of the line, returned by
+     *               {@link #getEntryOffset()} if the line starts an entry
+     * @return the previous entry, if the line starts a new entry, otherwise
+     *         <code>null</code>
+     */
+    public LogFileEntry parseLine(String line, long offset) {
+	Matcher matcher = isEntryStart(line) ? ENTRY_PATTERN.matcher(line) : null;
+	if (matcher == null || !matcher.matches()) {
+	    if (pendingEntry != null) {
+		pendingMessage.append(System.lineSeparator());
+		pendingMessage.append(line);
+	    }
+	    return null;
+	}
+	LogFileEntry entry = flush();
+	calendar.clear();
+	calendar.set(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)) - 1, Integer.parseInt(matcher.group(3)), Integer.parseInt(matcher.group(4)), Integer.parseInt(matcher.group(5)), Integer.parseInt(matcher.group(6)));
+	calendar.set(Calendar.MILLISECOND, Integer.parseInt(matcher.group(7)));
+	pendingEntry = new LogFileEntry(calendar.getTimeInMillis(), matcher.group(8), LogLevel.valueOf(matcher.group(9)), matcher.group(10), null, null);
+	pendingMessage = new StringBuilder(matcher.group(11));
+	pendingOffset = offset;
+	return entry;
+    }
+
+    /**
+     * Returns the offset of the line starting the last returned entry
+     * 
+     * @return the offset
+     */
+    public long getEntryOffset() {
+	return entryOffset;
+    }
+
+    /**
+     * Returns the pending entry
+     * 
+     * @return the pending entry or <code>null</code> if there is none
+     */
+    public LogFileEntry flush() {
+	if (pendingEntry == null) {
+	    return null;
+	}
+	LogFileEntry entry = new LogFileEntry(pendingEntry.getTimestamp(), pendingEntry.getThread(), pendingEntry.getLevel(), pendingEntry.getTag(), pendingMessage.toString(), null);
+	entryOffset = pendingOffset;
+	pendingEntry = null;
+	pendingMessage = null;
+	return entry;
+    }
+
+    long getPendingOffset() {
+	return pendingEntry == null ? -1 : pendingOffset;
+    }
+
+    void discard() {
+	pendingEntry = null;
+	pendingMessage = null;
+    }
+}
@@ -0,0 +1,264 @@
+package net.ibbaa.phonelog;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.function.Consumer;
+
+/**
+ * Follows the active log file written by {@link net.ibbaa.phonelog.FileLogger}
+ * with {@link net.ibbaa.phonelog.DefaultLogFormatter} and returns new entries
+ * as they are written. The file is kept open and polled, the poll interval is
+ * doubled up to a maximum while no data is written and reset when data is
+ * read. When the log file is rotated, the rest of the renamed file is read and
+ * the new file is followed from the start. A trailing line without line
+ * separator is kept until it is complete. An entry is returned when the next
+ * entry starts or when the file contains no more data. Compressed log files are
+ * not supported.
+ */
+public class LogFileFollower implements Closeable {
+
+    private final static String DEFAULT_LOG_FILE_BASE_NAME = "app.log";
+    private final static long DEFAULT_MIN_POLL_INTERVAL = 10;
+    private final static long DEFAULT_MAX_POLL_INTERVAL = 1000;
+    private final static int BUFFER_SIZE = 8192;
+
+    private final File logFile;
+    private final boolean fromStart;
+    private final long minPollInterval;
+    private final long maxPollInterval;
+    private final Object pollLock;
+    private final Queue<LogFileEntry> entries;
+    private final LogFileEntryParser parser;
+    private final byte[] buffer;
+    private byte[] line;
+    private int lineLength;
+    private RandomAccessFile file;
+    private boolean started;
+    private long pollInterval;
+    private volatile boolean closed;
+
+    /**
+     * Constructor. The log file name is app.log. Following starts at the end of
+     * the file.
+     * 
+     * @param logDirectory the log directory
+     */
+    public LogFileFollower(String logDirectory) {
+	this(logDirectory, DEFAULT_LOG_FILE_BASE_NAME, false);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param logDirectory the log directory
+     * @param logFileName  the log file name as provided to
+     *                     {@link net.ibbaa.phonelog.FileLogger}, default is
+     *                     app.log
+     * @param fromStart    <code>true</code> to return the entries already
+     *                     contained in the file, <code>false</code> to start at
+     *                     the end of the file
+     */
+    public LogFileFollower(String logDirectory, String logFileName, boolean fromStart) {
+	this(logDirectory, logFileName, fromStart, DEFAULT_MIN_POLL_INTERVAL, DEFAULT_MAX_POLL_INTERVAL);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param logDirectory    the log directory
+     * @param logFileName     the log file name as provided to
+     *                        {@link net.ibbaa.phonelog.FileLogger}, default is
+     *                        app.log
+     * @param fromStart       <code>true</code> to return the entries already
+     *                        contained in the file, <code>false</code> to start
+     *                        at the end of the file
+     * @param minPollInterval the poll interval in milliseconds after data has been
+     *                        read. Default is 10.
+     * @param maxPollInterval the max poll interval in milliseconds. Default is
+     *                        1000.
+     */
+    public LogFileFollower(String logDirectory, String logFileName, boolean fromStart, long minPollInterval, long maxPollInterval) {
+	String fileName = logFileName == null ? DEFAULT_LOG_FILE_BASE_NAME : logFileName.replaceAll("/", "");
+	this.logFile = new File(logDirectory, fileName);
+	this.fromStart = fromStart;
+	this.minPollInterval = Math.max(1, minPollInterval);
+	this.maxPollInterval = Math.max(this.minPollInterval, maxPollInterval);
+	this.pollLock = new Object();
+	this.entries = new ArrayDeque<>();
+	this.parser = new LogFileEntryParser();
+	this.buffer = new byte[BUFFER_SIZE];
+	this.line = new byte[BUFFER_SIZE];
+	this.lineLength = 0;
+	this.file = null;
+	this.started = false;
+	this.pollInterval = this.minPollInterval;
+	this.closed = false;
+    }
+
+    /**
+     * Returns the next entry, waits for new entries up to the timeout
+     * 
+     * @param timeout the timeout in milliseconds
+     * @return the entry or <code>null</code> if there is no new entry within the
+     *         timeout or the follower has been closed
+     * @throws IOException          if reading fails
+     * @throws InterruptedException if the thread has been interrupted
+     */
+    public LogFileEntry readEntry(long timeout) throws IOException, InterruptedException {
+	long deadline = System.currentTimeMillis() + timeout;
+	while (!closed) {
+	    if (entries.isEmpty()) {
+		synchronized (this) {
+		    if (!closed) {
+			poll();
+		    }
+		}
+	    }
+	    if (!entries.isEmpty()) {
+		pollInterval = minPollInterval;
+		return entries.poll();
+	    }
+	    long remaining = deadline - System.currentTimeMillis();
+	    if (remaining <= 0) {
+		return null;
+	    }
+	    synchronized (pollLock) {
+		if (!closed) {
+		    pollLock.wait(Math.min(pollInterval, remaining));
+		}
+	    }
+	    pollInterval = Math.min(pollInterval * 2, maxPollInterval);
+	}
+	return null;
+    }
+
+    /**
+     * Passes new entries to the consumer until the follower is closed
+     * 
+     * @param consumer the consumer
+     * @throws IOException          if reading fails
+     * @throws InterruptedException if the thread has been interrupted
+     */
+    public void follow(Consumer<LogFileEntry> consumer) throws IOException, InterruptedException {
+	while (!closed) {
+	    LogFileEntry entry = readEntry(maxPollInterval);
+	    if (entry != null) {
+		consumer.accept(entry);
+	    }
+	}
+    }
+
+    /**
+     * Stops following. A waiting {@link #readEntry(long)} returns
+     * <code>null</code>.
+     */
+    @Override
+    public void close() {
+	synchronized (pollLock) {
+	    closed = true;
+	    pollLock.notifyAll();
+	}
+	synchronized (this) {
+	    closeFile();
+	}
+    }
+
+    private void poll() throws IOException {
+	if (file == null && !openFile()) {
+	    return;
+	}
+	if (!readAvailable() && isRotated()) {
+	    readAvailable();
+	    if (lineLength > 0) {
+		parseLine();
+	    }
+	    addEntry(parser.flush());
+	    closeFile();
+	    if (openFile()) {
+		readAvailable();
+	    }
+	}
+	if (lineLength == 0) {
+	    addEntry(parser.flush());
+	}
+    }
+
+    private boolean openFile() throws IOException {
+	if (!logFile.exists()) {
+	    started = true;
+	    return false;
+	}
+	file = new RandomAccessFile(logFile, "r");
+	if (!started && !fromStart) {
+	    file.seek(file.length());
+	}
+	started = true;
+	return true;
+    }
+
+    private boolean isRotated() throws IOException {
+	// The path is read first, it cannot be longer than the open file if it is the same file
+	if (!logFile.exists()) {
+	    return true;
+	}
+	long currentLength = logFile.length();
+	return currentLength < file.getFilePointer() || currentLength > file.length();
+    }
+
+    private boolean readAvailable() throws IOException {
+	boolean dataRead = false;
+	int read;
+	while ((read = file.read(buffer)) > 0) {
+	    dataRead = true;
+	    int start = 0;
+	    for (int ii = 0; ii < read; ii++) {
+		if (buffer[ii] == '\n') {
+		    appendToLine(start, ii - start);
+		    parseLine();
+		    start = ii + 1;
+		}
+	    }
+	    appendToLine(start, read - start);
+	}
+	return dataRead;
+    }
+
+    private void appendToLine(int start, int length) {
+	if (lineLength + length > line.length) {
+	    line = Arrays.copyOf(line, Math.max(line.length * 2, lineLength + length));
+	}
+	System.arraycopy(buffer, start, line, lineLength, length);
+	lineLength += length;
+    }
+
+    private void parseLine() {
+	int length = lineLength;
+	if (length > 0 && line[length - 1] == '\r') {
+	    length--;
+	}
+	addEntry(parser.parseLine(new String(line, 0, length, Charsets.UTF8_CHARSET)));
+	lineLength = 0;
+    }
+
+    private void addEntry(LogFileEntry entry) {
+	if (entry != null) {
+	    entries.add(entry);
+	}
+    }
+
+    private void closeFile() {
+	try {
+	    if (file != null) {
+		file.close();
+	    }
+	} catch (Exception exc) {
+	    // Do nothing
+	}
+	file = null;
+    }
+}
@@ -0,0 +1,110 @@
+package net.ibbaa.phonelog;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Sparse timestamp index of a log file written by
+ * {@link net.ibbaa.phonelog.FileLogger}. The index is written next to the log
+ * file with the extension 'idx' appended. It consists of records of a
+ * timestamp and the offset of the entry at an index point. The timestamp is the
+ * highest timestamp of the entries up to and including the entry at the index
+ * point, so it never decreases, even if entries are not written in timestamp
+ * order. Decoding of the log file can start at each offset. For compressed log
+ * files the offset is the start of a gzip member.
+ */
+public class LogFileIndex {
+
+    /**
+     * The extension of index files
+     */
+    public final static String INDEX_FILE_EXTENSION = "idx";
+
+    private final static int RECORD_SIZE = 16;
+    private final static int BUFFER_SIZE = 8192;
+
+    private final long[] timestamps;
+    private final long[] offsets;
+
+    /**
+     * Constructor. A truncated record at the end of the stream is ignored.
+     * 
+     * @param inputStream the stream to read the index from
+     * @throws IOException if reading fails
+     */
+    public LogFileIndex(InputStream inputStream) throws IOException {
+	ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+	byte[] buffer = new byte[BUFFER_SIZE];
+	int read;
+	while ((read = inputStream.read(buffer)) >= 0) {
+	    outputStream.write(buffer, 0, read);
+	}
+	ByteBuffer data = ByteBuffer.wrap(outputStream.toByteArray());
+	int size = data.remaining() / RECORD_SIZE;
+	this.timestamps = new long[size];
+	this.offsets = new long[size];
+	for (int ii = 0; ii < size; ii++) {
+	    timestamps[ii] = data.getLong();
+	    offsets[ii] = data.getLong();
+	}
+    }
+
+    /**
+     * Returns the name of the index file for the log file
+     * 
+     * @param logFileName the log file name
+     * @return the index file name
+     */
+    public static String getIndexFileName(String logFileName) {
+	return logFileName + "." + INDEX_FILE_EXTENSION;
+    }
+
+    /**
+     * Creates an index record
+     * 
+     * @param timestamp the highest timestamp of the entries up to and including
+     *                  the entry at the index point
+     * @param offset    the offset of the entry
+     * @return the record
+     */
+    public static byte[] createRecord(long timestamp, long offset) {
+	ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+	record.putLong(timestamp);
+	record.putLong(offset);
+	return record.array();
+    }
+
+    /**
+     * Returns the number of index points
+     * 
+     * @return the number of index points
+     */
+    public int size() {
+	return timestamps.length;
+    }
+
+    /**
+     * Returns the offset of the last index point before the timestamp. All
+     * entries with this timestamp or later are at or after the returned offset.
+     * 
+     * @param timestamp the timestamp
+     * @return the offset, 0 if there is no index point before the timestamp
+     */
+    public long findOffset(long timestamp) {
+	int low = 0;
+	int high = timestamps.length - 1;
+	int result = -1;
+	while (low <= high) {
+	    int middle = (low + high) >>> 1;
+	    if (timestamps[middle] < timestamp) {
+		result = middle;
+		low = middle + 1;
+	    } else {
+		high = middle - 1;
+	    }
+	}
+	return result < 0 ? 0 : offsets[result];
+    }
+}
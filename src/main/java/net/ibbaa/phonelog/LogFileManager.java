@@ -1,17 +1,33 @@
 package net.ibbaa.phonelog;
 
-import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Calendar;
 import java.util.Date;
+import java.util.Deque;
 import java.util.List;
 import java.util.Locale;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.zip.ZipOutputStream;
 
 /**
@@ -22,6 +38,26 @@ public class LogFileManager {
     private final static int BUFFER_SIZE_1024 = 1024;
     private final static int MAX_DUPLICATE_FILES = 99;
     private final static String SUFFIX_FILE_PATTERN = "yyyy.MM.dd_HH_mm_ss.SSS";
+    private final static Pattern SUFFIX_FILE_REGEX = Pattern.compile("\\d{4}\\.\\d{2}\\.\\d{2}_\\d{2}_\\d{2}_\\d{2}\\.\\d{3}");
+    private final static String COMPRESSED_FILE_EXTENSION = "gz";
+
+    private final static int ZIP_LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private final static int ZIP_CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private final static int ZIP_END_HEADER_SIGNATURE = 0x06054b50;
+    private final static int ZIP_LOCAL_HEADER_SIZE = 30;
+    private final static int ZIP_CENTRAL_HEADER_SIZE = 46;
+    private final static int ZIP_END_HEADER_SIZE = 22;
+    private final static int ZIP_MAX_COMMENT_SIZE = 0xFFFF;
+    private final static int ZIP_MAX_ENTRIES = 0xFFFF;
+    private final static long ZIP_MAX_SIZE = 0xFFFFFFFFL;
+    private final static int ZIP_VERSION = 20;
+    private final static int ZIP_FLAG_UTF8 = 0x800;
+
+    private final static int PARALLEL_DUMP_THRESHOLD = 10000;
+    private final static int DUMP_CHUNK_SIZE = 2048;
+    private final static int DUMP_GATHER_SIZE = 16;
+
+    private static ForkJoinPool dumpPool;
 
     /**
      * Constructor
@@ -103,10 +139,11 @@ public class LogFileManager {
      * Delete the oldest file
      * 
      * @param files the files
+     * @return the deleted file, null if no file was deleted
      */
-    public void deleteOldest(File[] files) {
+    public File deleteOldest(File[] files) {
 	if (files == null) {
-	    return;
+	    return null;
 	}
 	try {
 	    File min = null;
@@ -115,12 +152,13 @@ public class LogFileManager {
 		    min = file;
 		}
 	    }
-	    if (min != null) {
-		min.delete();
+	    if (min != null && min.delete()) {
+		return min;
 	    }
 	} catch (Exception exc) {
 	    // do nothing
 	}
+	return null;
     }
 
     /**
@@ -174,12 +212,38 @@ public class LogFileManager {
 	return fileNameDateFormat.format(new Date(timestamp));
     }
 
+    /**
+     * Returns the timestamp of a suffix created by
+     * {@link #getTimestampSuffix(long)} contained in the file name
+     * 
+     * @param fileName the file name
+     * @return the timestamp or <code>null</code> if the file name does not
+     *         contain a timestamp suffix
+     */
+    public Long getTimestampFromFileName(String fileName) {
+	if (fileName == null) {
+	    return null;
+	}
+	Matcher matcher = SUFFIX_FILE_REGEX.matcher(fileName);
+	Long timestamp = null;
+	while (matcher.find()) {
+	    try {
+		SimpleDateFormat fileNameDateFormat = new SimpleDateFormat(SUFFIX_FILE_PATTERN, Locale.US);
+		timestamp = fileNameDateFormat.parse(matcher.group()).getTime();
+	    } catch (ParseException exc) {
+		// Do nothing
+	    }
+	}
+	return timestamp;
+    }
+
     private String getNumberSuffix(int number) {
 	return "(" + number + ")";
     }
 
     /**
-     * Zip the provided files
+     * Zip the provided files. Files with the extension 'gz' are already
+     * compressed and stored without compressing them again.
      * 
      * @param files   the files
      * @param zipFile the zip file
@@ -221,6 +285,12 @@ public class LogFileManager {
 	ZipEntry zipEntry = null;
 	try (FileInputStream fileInputStream = new FileInputStream(file)) {
 	    zipEntry = new ZipEntry(file.getName());
+	    if (isCompressedFile(file)) {
+		zipEntry.setMethod(ZipEntry.STORED);
+		zipEntry.setSize(file.length());
+		zipEntry.setCompressedSize(file.length());
+		zipEntry.setCrc(getCrc(file));
+	    }
 	    zipOutputStream.putNextEntry(zipEntry);
 	    byte[] buffer = new byte[BUFFER_SIZE_1024];
 	    int read;
@@ -241,7 +311,224 @@ public class LogFileManager {
     }
 
     /**
-     * Write the objects to a file as text (the toString-method() will be used)
+     * Appends the provided files to an existing zip file. The entries already
+     * contained in the zip file are not touched, only the central directory is
+     * rewritten behind the new entries. The appended files are deleted on
+     * success. If the zip file cannot be appended (e.g. because it does not exist,
+     * is not a valid zip file or would require zip64 extensions), it is left
+     * unchanged and <code>false</code> is returned.
+     * 
+     * @param files   the files
+     * @param zipFile the zip file
+     * @return if the files were appended
+     */
+    public boolean appendFilesToZip(List<File> files, File zipFile) {
+	if (!zipFile.exists() || !zipFile.isFile()) {
+	    return false;
+	}
+	boolean success = false;
+	try (RandomAccessFile zipAccessFile = new RandomAccessFile(zipFile, "rw")) {
+	    long originalLength = zipAccessFile.length();
+	    long endOffset = findZipEndHeader(zipAccessFile);
+	    if (endOffset < 0) {
+		return false;
+	    }
+	    ByteBuffer endHeader = readZipBlock(zipAccessFile, endOffset, ZIP_END_HEADER_SIZE);
+	    int entryCount = endHeader.getShort(10) & 0xFFFF;
+	    long centralSize = endHeader.getInt(12) & ZIP_MAX_SIZE;
+	    long centralOffset = endHeader.getInt(16) & ZIP_MAX_SIZE;
+	    if (centralOffset + centralSize != endOffset) {
+		return false;
+	    }
+	    byte[] originalTail = new byte[(int) (originalLength - centralOffset)];
+	    zipAccessFile.seek(centralOffset);
+	    zipAccessFile.readFully(originalTail);
+	    try {
+		ByteArrayOutputStream centralDirectory = new ByteArrayOutputStream();
+		centralDirectory.write(originalTail, 0, (int) centralSize);
+		zipAccessFile.seek(centralOffset);
+		for (File currentFile : files) {
+		    if (currentFile.exists() && currentFile.isFile()) {
+			if (++entryCount > ZIP_MAX_ENTRIES) {
+			    throw new IOException("Too many zip entries");
+			}
+			appendFileToZip(currentFile, zipAccessFile, centralDirectory);
+		    }
+		}
+		long newCentralOffset = zipAccessFile.getFilePointer();
+		if (newCentralOffset + centralDirectory.size() > ZIP_MAX_SIZE) {
+		    throw new IOException("Zip file too large");
+		}
+		zipAccessFile.write(centralDirectory.toByteArray());
+		ByteBuffer newEndHeader = newZipBlock(ZIP_END_HEADER_SIZE);
+		newEndHeader.putInt(ZIP_END_HEADER_SIGNATURE);
+		newEndHeader.putShort((short) 0);
+		newEndHeader.putShort((short) 0);
+		newEndHeader.putShort((short) entryCount);
+		newEndHeader.putShort((short) entryCount);
+		newEndHeader.putInt(centralDirectory.size());
+		newEndHeader.putInt((int) newCentralOffset);
+		newEndHeader.putShort((short) 0);
+		zipAccessFile.write(newEndHeader.array());
+		zipAccessFile.setLength(zipAccessFile.getFilePointer());
+		success = true;
+	    } catch (Exception exc) {
+		zipAccessFile.seek(centralOffset);
+		zipAccessFile.write(originalTail);
+		zipAccessFile.setLength(originalLength);
+	    }
+	} catch (Exception exc) {
+	    // do nothing
+	}
+	if (success) {
+	    for (File currentFile : files) {
+		if (currentFile.exists() && currentFile.isFile()) {
+		    currentFile.delete();
+		}
+	    }
+	}
+	return success;
+    }
+
+    private void appendFileToZip(File file, RandomAccessFile zipAccessFile, ByteArrayOutputStream centralDirectory) throws IOException {
+	long headerOffset = zipAccessFile.getFilePointer();
+	byte[] name = file.getName().getBytes(Charsets.UTF8_CHARSET);
+	int dosTime = getDosTime(System.currentTimeMillis());
+	int method = isCompressedFile(file) ? ZipEntry.STORED : ZipEntry.DEFLATED;
+	ByteBuffer localHeader = newZipBlock(ZIP_LOCAL_HEADER_SIZE);
+	localHeader.putInt(ZIP_LOCAL_HEADER_SIGNATURE);
+	localHeader.putShort((short) ZIP_VERSION);
+	localHeader.putShort((short) ZIP_FLAG_UTF8);
+	localHeader.putShort((short) method);
+	localHeader.putInt(dosTime);
+	localHeader.putInt(0);
+	localHeader.putInt(0);
+	localHeader.putInt(0);
+	localHeader.putShort((short) name.length);
+	localHeader.putShort((short) 0);
+	zipAccessFile.write(localHeader.array());
+	zipAccessFile.write(name);
+	CRC32 crc = new CRC32();
+	Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+	long size = 0;
+	long compressedSize = 0;
+	try (FileInputStream fileInputStream = new FileInputStream(file)) {
+	    byte[] buffer = new byte[BUFFER_SIZE_1024];
+	    byte[] deflateBuffer = new byte[BUFFER_SIZE_1024];
+	    int read;
+	    while ((read = fileInputStream.read(buffer, 0, BUFFER_SIZE_1024)) >= 0) {
+		crc.update(buffer, 0, read);
+		size += read;
+		if (method == ZipEntry.STORED) {
+		    zipAccessFile.write(buffer, 0, read);
+		    compressedSize += read;
+		} else {
+		    deflater.setInput(buffer, 0, read);
+		    while (!deflater.needsInput()) {
+			int deflated = deflater.deflate(deflateBuffer);
+			zipAccessFile.write(deflateBuffer, 0, deflated);
+			compressedSize += deflated;
+		    }
+		}
+	    }
+	    deflater.finish();
+	    while (method == ZipEntry.DEFLATED && !deflater.finished()) {
+		int deflated = deflater.deflate(deflateBuffer);
+		zipAccessFile.write(deflateBuffer, 0, deflated);
+		compressedSize += deflated;
+	    }
+	} finally {
+	    deflater.end();
+	}
+	if (size > ZIP_MAX_SIZE || compressedSize > ZIP_MAX_SIZE) {
+	    throw new IOException("Zip entry too large");
+	}
+	long dataEnd = zipAccessFile.getFilePointer();
+	ByteBuffer sizes = newZipBlock(12);
+	sizes.putInt((int) crc.getValue());
+	sizes.putInt((int) compressedSize);
+	sizes.putInt((int) size);
+	zipAccessFile.seek(headerOffset + 14);
+	zipAccessFile.write(sizes.array());
+	zipAccessFile.seek(dataEnd);
+	ByteBuffer centralHeader = newZipBlock(ZIP_CENTRAL_HEADER_SIZE);
+	centralHeader.putInt(ZIP_CENTRAL_HEADER_SIGNATURE);
+	centralHeader.putShort((short) ZIP_VERSION);
+	centralHeader.putShort((short) ZIP_VERSION);
+	centralHeader.putShort((short) ZIP_FLAG_UTF8);
+	centralHeader.putShort((short) method);
+	centralHeader.putInt(dosTime);
+	centralHeader.put(sizes.array());
+	centralHeader.putShort((short) name.length);
+	centralHeader.putShort((short) 0);
+	centralHeader.putShort((short) 0);
+	centralHeader.putShort((short) 0);
+	centralHeader.putShort((short) 0);
+	centralHeader.putInt(0);
+	centralHeader.putInt((int) headerOffset);
+	centralDirectory.write(centralHeader.array());
+	centralDirectory.write(name);
+    }
+
+    private boolean isCompressedFile(File file) {
+	return COMPRESSED_FILE_EXTENSION.equals(getFileNameExtension(file.getName()));
+    }
+
+    private long getCrc(File file) throws IOException {
+	CRC32 crc = new CRC32();
+	try (FileInputStream fileInputStream = new FileInputStream(file)) {
+	    byte[] buffer = new byte[BUFFER_SIZE_1024];
+	    int read;
+	    while ((read = fileInputStream.read(buffer, 0, BUFFER_SIZE_1024)) >= 0) {
+		crc.update(buffer, 0, read);
+	    }
+	}
+	return crc.getValue();
+    }
+
+    private long findZipEndHeader(RandomAccessFile zipAccessFile) throws IOException {
+	long length = zipAccessFile.length();
+	if (length < ZIP_END_HEADER_SIZE) {
+	    return -1;
+	}
+	int tailSize = (int) Math.min(length, ZIP_END_HEADER_SIZE + ZIP_MAX_COMMENT_SIZE);
+	ByteBuffer tail = readZipBlock(zipAccessFile, length - tailSize, tailSize);
+	for (int ii = tailSize - ZIP_END_HEADER_SIZE; ii >= 0; ii--) {
+	    if (tail.getInt(ii) == ZIP_END_HEADER_SIGNATURE) {
+		int commentLength = tail.getShort(ii + 20) & 0xFFFF;
+		if (ii + ZIP_END_HEADER_SIZE + commentLength == tailSize) {
+		    return length - tailSize + ii;
+		}
+	    }
+	}
+	return -1;
+    }
+
+    private ByteBuffer readZipBlock(RandomAccessFile zipAccessFile, long offset, int size) throws IOException {
+	byte[] block = new byte[size];
+	zipAccessFile.seek(offset);
+	zipAccessFile.readFully(block);
+	return ByteBuffer.wrap(block).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private ByteBuffer newZipBlock(int size) {
+	return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private int getDosTime(long timestamp) {
+	Calendar calendar = Calendar.getInstance();
+	calendar.setTimeInMillis(timestamp);
+	int year = calendar.get(Calendar.YEAR);
+	if (year < 1980) {
+	    return (1 << 21) | (1 << 16);
+	}
+	return (year - 1980) << 25 | (calendar.get(Calendar.MONTH) + 1) << 21 | calendar.get(Calendar.DAY_OF_MONTH) << 16 | calendar.get(Calendar.HOUR_OF_DAY) << 11 | calendar.get(Calendar.MINUTE) << 5 | calendar.get(Calendar.SECOND) >> 1;
+    }
+
+    /**
+     * Write the objects to a file as text (the toString-method() will be used).
+     * Lists with random access and at least 10000 objects are split into chunks,
+     * which are rendered in parallel and written in order.
      * 
      * @param header       the header
      * @param emptyMessage message if nothing to write
@@ -254,37 +541,100 @@ public class LogFileManager {
 		return;
 	    }
 	}
-	OutputStream outputStream = null;
-	try {
-	    outputStream = new BufferedOutputStream(new FileOutputStream(file));
+	if (objects instanceof RandomAccess && objects.size() >= PARALLEL_DUMP_THRESHOLD && Runtime.getRuntime().availableProcessors() > 1) {
+	    writeListToFileParallel(header, objects, file);
+	    return;
+	}
+	try (DumpFileWriter writer = new DumpFileWriter(file)) {
 	    if (header != null) {
-		header = header + System.lineSeparator();
-		outputStream.write(header.getBytes(Charsets.UTF8_CHARSET));
+		writer.writeLine(header);
 	    }
 	    if (objects == null || objects.isEmpty()) {
 		if (emptyMessage != null) {
-		    emptyMessage = emptyMessage + System.lineSeparator();
-		    outputStream.write(emptyMessage.getBytes(Charsets.UTF8_CHARSET));
+		    writer.writeLine(emptyMessage);
 		}
 	    } else {
 		for (Object object : objects) {
 		    if (object != null) {
-			String data = object + System.lineSeparator();
-			outputStream.write(data.getBytes(Charsets.UTF8_CHARSET));
+			writer.writeLine(object);
 		    }
 		}
 	    }
 	} catch (Exception exc) {
 	    // do nothing
-	} finally {
-	    if (outputStream != null) {
-		try {
-		    outputStream.flush();
-		    outputStream.close();
-		} catch (IOException e) {
-		    // do nothing
+	}
+    }
+
+    private void writeListToFileParallel(String header, List<?> objects, File file) {
+	ForkJoinPool pool = getDumpPool();
+	int chunkCount = (objects.size() + DUMP_CHUNK_SIZE - 1) / DUMP_CHUNK_SIZE;
+	int maxPendingChunks = pool.getParallelism() * 2;
+	Deque<ForkJoinTask<ByteBuffer>> pendingChunks = new ArrayDeque<>();
+	ByteBuffer[] buffers = new ByteBuffer[DUMP_GATHER_SIZE];
+	try (FileOutputStream outputStream = new FileOutputStream(file); FileChannel channel = outputStream.getChannel()) {
+	    if (header != null) {
+		buffers[0] = ByteBuffer.wrap((header + System.lineSeparator()).getBytes(Charsets.UTF8_CHARSET));
+		writeFully(channel, buffers, 1);
+	    }
+	    int nextChunk = 0;
+	    int bufferCount = 0;
+	    while (nextChunk < chunkCount || !pendingChunks.isEmpty()) {
+		while (nextChunk < chunkCount && pendingChunks.size() < maxPendingChunks) {
+		    List<?> chunk = objects.subList(nextChunk * DUMP_CHUNK_SIZE, Math.min(objects.size(), (nextChunk + 1) * DUMP_CHUNK_SIZE));
+		    pendingChunks.add(pool.submit(() -> renderChunk(chunk)));
+		    nextChunk++;
+		}
+		buffers[bufferCount++] = pendingChunks.poll().get();
+		if (bufferCount == buffers.length || pendingChunks.isEmpty()) {
+		    writeFully(channel, buffers, bufferCount);
+		    bufferCount = 0;
+		}
+	    }
+	} catch (Exception exc) {
+	    for (ForkJoinTask<ByteBuffer> pendingChunk : pendingChunks) {
+		pendingChunk.cancel(true);
+	    }
+	}
+    }
+
+    private ByteBuffer renderChunk(List<?> chunk) throws IOException {
+	ChunkOutputStream outputStream = new ChunkOutputStream(chunk.size() * 32);
+	try (DumpFileWriter writer = new DumpFileWriter(outputStream)) {
+	    for (Object object : chunk) {
+		if (object != null) {
+		    writer.writeLine(object);
 		}
 	    }
 	}
+	return outputStream.toByteBuffer();
+    }
+
+    private void writeFully(FileChannel channel, ByteBuffer[] buffers, int count) throws IOException {
+	long remaining = 0;
+	for (int ii = 0; ii < count; ii++) {
+	    remaining += buffers[ii].remaining();
+	}
+	while (remaining > 0) {
+	    remaining -= channel.write(buffers, 0, count);
+	}
+	Arrays.fill(buffers, 0, count, null);
+    }
+
+    private static synchronized ForkJoinPool getDumpPool() {
+	if (dumpPool == null) {
+	    dumpPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+	}
+	return dumpPool;
+    }
+
+    private static class ChunkOutputStream extends ByteArrayOutputStream {
+
+	public ChunkOutputStream(int size) {
+	    super(size);
+	}
+
+	public ByteBuffer toByteBuffer() {
+	    return ByteBuffer.wrap(buf, 0, count);
+	}
     }
 }
@@ -0,0 +1,150 @@
+package net.ibbaa.phonelog;
+
+/**
+ * Filter for log entries read by {@link net.ibbaa.phonelog.LogFileReader}.
+ */
+public class LogFileQuery {
+
+    private final LogLevel minLevel;
+    private final String tag;
+    private final long fromTimestamp;
+    private final long toTimestamp;
+    private final String messageContains;
+    private final String term;
+
+    /**
+     * Constructor for a query matching all entries
+     */
+    public LogFileQuery() {
+	this(null, null, Long.MIN_VALUE, Long.MAX_VALUE, null);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param fromTimestamp the first timestamp (inclusive)
+     * @param toTimestamp   the last timestamp (inclusive)
+     */
+    public LogFileQuery(long fromTimestamp, long toTimestamp) {
+	this(null, null, fromTimestamp, toTimestamp, null);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param minLevel        the min log level, <code>null</code> for all levels
+     * @param tag             the tag, <code>null</code> for all tags
+     * @param fromTimestamp   the first timestamp (inclusive)
+     * @param toTimestamp     the last timestamp (inclusive)
+     * @param messageContains text the message must contain, <code>null</code> for
+     *                        all messages
+     */
+    public LogFileQuery(LogLevel minLevel, String tag, long fromTimestamp, long toTimestamp, String messageContains) {
+	this(minLevel, tag, fromTimestamp, toTimestamp, messageContains, null);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param minLevel        the min log level, <code>null</code> for all levels
+     * @param tag             the tag, <code>null</code> for all tags
+     * @param fromTimestamp   the first timestamp (inclusive)
+     * @param toTimestamp     the last timestamp (inclusive)
+     * @param messageContains text the message must contain, <code>null</code> for
+     *                        all messages
+     * @param term            a token the entry must contain as a whole (e.g. an
+     *                        error id), case insensitive, <code>null</code> for
+     *                        all entries. Archives are searched using the
+     *                        {@link net.ibbaa.phonelog.LogTermIndex}.
+     */
+    public LogFileQuery(LogLevel minLevel, String tag, long fromTimestamp, long toTimestamp, String messageContains, String term) {
+	this.minLevel = minLevel;
+	this.tag = tag;
+	this.fromTimestamp = fromTimestamp;
+	this.toTimestamp = toTimestamp;
+	this.messageContains = messageContains;
+	this.term = LogTokenizer.normalize(term);
+    }
+
+    /**
+     * Returns the min log level
+     * 
+     * @return the min log level
+     */
+    public LogLevel getMinLevel() {
+	return minLevel;
+    }
+
+    /**
+     * Returns the tag
+     * 
+     * @return the tag
+     */
+    public String getTag() {
+	return tag;
+    }
+
+    /**
+     * Returns the first timestamp
+     * 
+     * @return the first timestamp
+     */
+    public long getFromTimestamp() {
+	return fromTimestamp;
+    }
+
+    /**
+     * Returns the last timestamp
+     * 
+     * @return the last timestamp
+     */
+    public long getToTimestamp() {
+	return toTimestamp;
+    }
+
+    /**
+     * Returns the text the message must contain
+     * 
+     * @return the text the message must contain
+     */
+    public String getMessageContains() {
+	return messageContains;
+    }
+
+    /**
+     * Returns the normalized term
+     * 
+     * @return the term
+     */
+    public String getTerm() {
+	return term;
+    }
+
+    /**
+     * Returns if the entry matches the query
+     * 
+     * @param entry the entry
+     * @return <code>true</code> if the entry matches
+     */
+    public boolean matches(LogFileEntry entry) {
+	if (entry.getTimestamp() < fromTimestamp || entry.getTimestamp() > toTimestamp) {
+	    return false;
+	}
+	if (minLevel != null && entry.getLevel().getLevel() < minLevel.getLevel()) {
+	    return false;
+	}
+	if (tag != null && !tag.equals(entry.getTag())) {
+	    return false;
+	}
+	if (messageContains != null && (entry.getMessage() == null || !entry.getMessage().contains(messageContains))) {
+	    return false;
+	}
+	return term == null || containsTerm(entry);
+    }
+
+    private boolean containsTerm(LogFileEntry entry) {
+	boolean[] found = new boolean[1];
+	LogTokenizer.tokenize(entry, token -> found[0] |= token.equals(term));
+	return found[0];
+    }
+}
@@ -0,0 +1,603 @@
+package net.ibbaa.phonelog;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Reads the entries of the active log file, the rotated log files and the
+ * archives created by {@link net.ibbaa.phonelog.Housekeeper} in time order.
+ * The files are ordered by the timestamp suffix of their names, the active log
+ * file is read last. Entries are streamed one by one, plain files are memory
+ * mapped, compressed files and archive entries are inflated while reading.
+ * Files written with {@link net.ibbaa.phonelog.DefaultLogFormatter} and
+ * {@link net.ibbaa.phonelog.BinaryLogFormatter} are supported. If a query
+ * starts at a timestamp and a {@link net.ibbaa.phonelog.LogFileIndex} exists
+ * for a file, reading starts at the indexed offset. If a query contains a term
+ * and a {@link net.ibbaa.phonelog.LogTermIndex} exists for an archive, archive
+ * entries not containing the term are skipped. In the other entries, reading
+ * jumps to the indexed offsets and ends after the last one. If a query
+ * contains a term or a tag, rotated files and archives are skipped if their
+ * {@link net.ibbaa.phonelog.LogBloomFilter} does not contain it.
+ */
+public class LogFileReader implements Closeable {
+
+    private final static String DEFAULT_LOG_FILE_BASE_NAME = "app.log";
+    private final static String COMPRESSED_FILE_EXTENSION = "gz";
+    private final static String ZIP_FILE_EXTENSION = "zip";
+    private final static int BUFFER_SIZE = 8192;
+    private final static int MAPPED_WINDOW_SIZE = 16 * 1024 * 1024;
+
+    private final String logDirectory;
+    private final String logFileName;
+    private final LogFileQuery query;
+    private final Map<File, TermLookup> termLookups;
+    private final List<String> filterTokens;
+    private final Map<File, LogArchiveBloomFilter> archiveBloomFilters;
+    private List<LogSource> sources;
+    private int sourceIndex;
+    private ZipFile currentZipFile;
+    private ILogDecoder currentDecoder;
+
+    /**
+     * Constructor for a reader returning all entries. The log file name is
+     * app.log.
+     * 
+     * @param logDirectory the log directory
+     */
+    public LogFileReader(String logDirectory) {
+	this(logDirectory, DEFAULT_LOG_FILE_BASE_NAME, new LogFileQuery());
+    }
+
+    /**
+     * Constructor. The log file name is app.log.
+     * 
+     * @param logDirectory the log directory
+     * @param query        the query, <code>null</code> for all entries
+     */
+    public LogFileReader(String logDirectory, LogFileQuery query) {
+	this(logDirectory, DEFAULT_LOG_FILE_BASE_NAME, query);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param logDirectory the log directory
+     * @param logFileName  the log file name as provided to
+     *                     {@link net.ibbaa.phonelog.FileLogger}, default is
+     *                     app.log
+     * @param query        the query, <code>null</code> for all entries
+     */
+    public LogFileReader(String logDirectory, String logFileName, LogFileQuery query) {
+	this.logDirectory = logDirectory;
+	this.logFileName = logFileName == null ? DEFAULT_LOG_FILE_BASE_NAME : logFileName.replaceAll("/", "");
+	this.query = query == null ? new LogFileQuery() : query;
+	this.sources = null;
+	this.sourceIndex = 0;
+	this.currentZipFile = null;
+	this.currentDecoder = null;
+	this.termLookups = new HashMap<>();
+	this.filterTokens = getFilterTokens(this.query);
+	this.archiveBloomFilters = new HashMap<>();
+    }
+
+    /**
+     * Reads the next entry matching the query
+     * 
+     * @return the entry or <code>null</code> if there are no more entries
+     * @throws IOException if reading fails
+     */
+    public LogFileEntry readEntry() throws IOException {
+	if (sources == null) {
+	    sources = collectSources();
+	}
+	while (true) {
+	    if (currentDecoder == null && !openNextSource()) {
+		return null;
+	    }
+	    LogFileEntry entry;
+	    try {
+		entry = currentDecoder.readEntry();
+	    } catch (EOFException exc) {
+		entry = null;
+	    }
+	    if (entry == null) {
+		closeCurrentSource();
+	    } else if (query.matches(entry)) {
+		return entry;
+	    }
+	}
+    }
+
+    /**
+     * Closes the currently read file
+     * 
+     * @throws IOException if closing fails
+     */
+    @Override
+    public void close() throws IOException {
+	closeCurrentSource();
+	sourceIndex = sources == null ? 0 : sources.size();
+    }
+
+    /**
+     * Creates a decoder for the log file. The format is detected by the segment
+     * header of {@link net.ibbaa.phonelog.BinaryLogFormatter}, files with the
+     * extension 'gz' are inflated. The unfinished last gzip member of a file
+     * still written by {@link net.ibbaa.phonelog.FileLogger} ends the data.
+     * 
+     * @param inputStream the stream of the log file
+     * @param fileName    the name of the log file
+     * @return the decoder
+     * @throws IOException if reading fails
+     */
+    public static ILogDecoder createDecoder(InputStream inputStream, String fileName) throws IOException {
+	InputStream decodedStream = inputStream;
+	if (fileName.endsWith("." + COMPRESSED_FILE_EXTENSION)) {
+	    decodedStream = new UnfinishedGZIPInputStream(inputStream, BUFFER_SIZE);
+	}
+	BufferedInputStream bufferedStream = new BufferedInputStream(decodedStream, BUFFER_SIZE);
+	byte[] header = new byte[BinaryLogFormatter.SEGMENT_HEADER.length];
+	bufferedStream.mark(header.length);
+	int length = 0;
+	int read;
+	while (length < header.length && (read = bufferedStream.read(header, length, header.length - length)) > 0) {
+	    length += read;
+	}
+	bufferedStream.reset();
+	if (BinaryLogDecoder.isBinaryLog(header, length)) {
+	    return new BinaryLogDecoder(bufferedStream);
+	}
+	return new TextLogDecoder(bufferedStream);
+    }
+
+    private boolean openNextSource() throws IOException {
+	while (sourceIndex < sources.size()) {
+	    LogSource source = sources.get(sourceIndex++);
+	    if (source.endTimestamp < query.getFromTimestamp()) {
+		continue;
+	    }
+	    if (source.startTimestamp > query.getToTimestamp()) {
+		sourceIndex = sources.size();
+		return false;
+	    }
+	    if (!mightContainFilterTokens(source)) {
+		continue;
+	    }
+	    long[] termOffsets = getTermOffsets(source);
+	    if (termOffsets != null && termOffsets.length == 0) {
+		continue;
+	    }
+	    InputStream inputStream = openSource(source);
+	    if (inputStream == null) {
+		continue;
+	    }
+	    try {
+		currentDecoder = createDecoder(inputStream, getName(source));
+		long decodedOffset = getDecodedOffset(source);
+		if (termOffsets != null && decodedOffset >= 0) {
+		    currentDecoder = new TermLogDecoder(currentDecoder, termOffsets, decodedOffset);
+		}
+		return true;
+	    } catch (EOFException exc) {
+		inputStream.close();
+		closeCurrentSource();
+	    }
+	}
+	return false;
+    }
+
+    private InputStream openSource(LogSource source) throws IOException {
+	if (source.zipEntryName == null) {
+	    if (!source.file.exists()) {
+		return null;
+	    }
+	    source.indexedOffset = getIndexedOffset(source);
+	    return new MappedFileInputStream(source.file, source.indexedOffset);
+	}
+	currentZipFile = new ZipFile(source.file);
+	ZipEntry entry = currentZipFile.getEntry(source.zipEntryName);
+	if (entry == null) {
+	    closeCurrentSource();
+	    return null;
+	}
+	source.indexedOffset = getIndexedOffset(source);
+	InputStream inputStream = currentZipFile.getInputStream(entry);
+	skip(inputStream, source.indexedOffset);
+	return inputStream;
+    }
+
+    private long getDecodedOffset(LogSource source) {
+	if (getName(source).endsWith("." + COMPRESSED_FILE_EXTENSION)) {
+	    return source.indexedOffset > 0 ? -1 : 0;
+	}
+	return source.indexedOffset;
+    }
+
+    private long[] getTermOffsets(LogSource source) {
+	if (query.getTerm() == null || source.zipEntryName == null) {
+	    return null;
+	}
+	TermLookup lookup = termLookups.get(source.file);
+	if (lookup == null) {
+	    lookup = new TermLookup();
+	    File indexFile = new File(source.file.getParentFile(), LogTermIndex.getIndexFileName(source.file.getName()));
+	    if (indexFile.exists()) {
+		try {
+		    LogTermIndex index = new LogTermIndex(indexFile);
+		    lookup.postings = index.findPostings(query.getTerm());
+		    lookup.indexedEntries.addAll(index.getEntryNames());
+		} catch (Exception exc) {
+		    lookup.indexedEntries.clear();
+		}
+	    }
+	    termLookups.put(source.file, lookup);
+	}
+	if (!lookup.indexedEntries.contains(source.zipEntryName)) {
+	    return null;
+	}
+	long[] offsets = lookup.postings.get(source.zipEntryName);
+	return offsets == null ? new long[0] : offsets;
+    }
+
+    private boolean mightContainFilterTokens(LogSource source) {
+	if (filterTokens.isEmpty()) {
+	    return true;
+	}
+	if (source.zipEntryName != null) {
+	    LogArchiveBloomFilter archiveFilter = getArchiveBloomFilter(source.file);
+	    return archiveFilter == null || archiveFilter.mightContainAll(source.zipEntryName, filterTokens);
+	}
+	File filterFile = new File(source.file.getParentFile(), LogBloomFilter.getFilterFileName(source.file.getName()));
+	if (!filterFile.exists()) {
+	    return true;
+	}
+	try (InputStream filterStream = new BufferedInputStream(new FileInputStream(filterFile), BUFFER_SIZE)) {
+	    return new LogBloomFilter(filterStream).mightContainAll(filterTokens);
+	} catch (Exception exc) {
+	    return true;
+	}
+    }
+
+    private LogArchiveBloomFilter getArchiveBloomFilter(File zipFile) {
+	if (archiveBloomFilters.containsKey(zipFile)) {
+	    return archiveBloomFilters.get(zipFile);
+	}
+	LogArchiveBloomFilter archiveFilter = null;
+	File filterFile = new File(zipFile.getParentFile(), LogBloomFilter.getFilterFileName(zipFile.getName()));
+	if (filterFile.exists() && filterFile.lastModified() >= zipFile.lastModified()) {
+	    try {
+		archiveFilter = new LogArchiveBloomFilter(filterFile);
+	    } catch (Exception exc) {
+		archiveFilter = null;
+	    }
+	}
+	archiveBloomFilters.put(zipFile, archiveFilter);
+	return archiveFilter;
+    }
+
+    private static List<String> getFilterTokens(LogFileQuery query) {
+	List<String> tokens = new ArrayList<>();
+	if (query.getTerm() != null) {
+	    tokens.add(query.getTerm());
+	}
+	LogTokenizer.tokenize(query.getTag(), tokens::add);
+	return tokens;
+    }
+
+    private long getIndexedOffset(LogSource source) {
+	if (query.getFromTimestamp() == Long.MIN_VALUE) {
+	    return 0;
+	}
+	try {
+	    if (source.zipEntryName == null) {
+		File indexFile = new File(source.file.getParentFile(), LogFileIndex.getIndexFileName(source.file.getName()));
+		if (!indexFile.exists()) {
+		    return 0;
+		}
+		try (InputStream indexStream = new BufferedInputStream(new FileInputStream(indexFile), BUFFER_SIZE)) {
+		    return new LogFileIndex(indexStream).findOffset(query.getFromTimestamp());
+		}
+	    }
+	    ZipEntry indexEntry = currentZipFile.getEntry(LogFileIndex.getIndexFileName(source.zipEntryName));
+	    if (indexEntry == null) {
+		return 0;
+	    }
+	    try (InputStream indexStream = currentZipFile.getInputStream(indexEntry)) {
+		return new LogFileIndex(indexStream).findOffset(query.getFromTimestamp());
+	    }
+	} catch (Exception exc) {
+	    return 0;
+	}
+    }
+
+    private String getName(LogSource source) {
+	return source.zipEntryName == null ? source.file.getName() : source.zipEntryName;
+    }
+
+    private static void skip(InputStream inputStream, long offset) throws IOException {
+	while (offset > 0) {
+	    long skipped = inputStream.skip(offset);
+	    if (skipped <= 0) {
+		break;
+	    }
+	    offset -= skipped;
+	}
+    }
+
+    private void closeCurrentSource() {
+	try {
+	    if (currentDecoder != null) {
+		currentDecoder.close();
+	    }
+	} catch (Exception exc) {
+	    // Do nothing
+	}
+	try {
+	    if (currentZipFile != null) {
+		currentZipFile.close();
+	    }
+	} catch (Exception exc) {
+	    // Do nothing
+	}
+	currentDecoder = null;
+	currentZipFile = null;
+    }
+
+    private List<LogSource> collectSources() {
+	List<LogSource> collectedSources = new ArrayList<>();
+	File[] files = new File(logDirectory).listFiles();
+	if (files == null) {
+	    return collectedSources;
+	}
+	LogFileManager fileManager = new LogFileManager();
+	String logFileBaseName = fileManager.getFileNameWithoutExtension(logFileName);
+	String compressedLogFileName = logFileName + "." + COMPRESSED_FILE_EXTENSION;
+	List<LogSource> activeSources = new ArrayList<>();
+	for (File file : files) {
+	    String name = file.getName();
+	    if (!file.isFile() || !name.startsWith(logFileBaseName)) {
+		continue;
+	    }
+	    if (name.equals(logFileName) || name.equals(compressedLogFileName)) {
+		activeSources.add(new LogSource(file, null, file.lastModified()));
+	    } else if (name.endsWith("." + ZIP_FILE_EXTENSION)) {
+		if (file.lastModified() >= query.getFromTimestamp() && mightContainFilterTokens(file)) {
+		    collectZipSources(file, fileManager, collectedSources);
+		}
+	    } else if (isLogFile(name)) {
+		collectedSources.add(new LogSource(file, null, getEndTimestamp(name, file.lastModified(), fileManager)));
+	    }
+	}
+	Collections.sort(collectedSources);
+	Collections.sort(activeSources);
+	for (LogSource activeSource : activeSources) {
+	    activeSource.endTimestamp = Long.MAX_VALUE;
+	    collectedSources.add(activeSource);
+	}
+	long startTimestamp = Long.MIN_VALUE;
+	for (LogSource source : collectedSources) {
+	    source.startTimestamp = startTimestamp;
+	    startTimestamp = source.endTimestamp;
+	}
+	return collectedSources;
+    }
+
+    private boolean mightContainFilterTokens(File zipFile) {
+	if (filterTokens.isEmpty()) {
+	    return true;
+	}
+	LogArchiveBloomFilter archiveFilter = getArchiveBloomFilter(zipFile);
+	return archiveFilter == null || archiveFilter.mightContainAll(filterTokens);
+    }
+
+    private void collectZipSources(File file, LogFileManager fileManager, List<LogSource> collectedSources) {
+	try (ZipFile zipFile = new ZipFile(file)) {
+	    Enumeration<? extends ZipEntry> entries = zipFile.entries();
+	    while (entries.hasMoreElements()) {
+		ZipEntry entry = entries.nextElement();
+		if (!entry.isDirectory() && isLogFile(entry.getName())) {
+		    collectedSources.add(new LogSource(file, entry.getName(), getEndTimestamp(entry.getName(), entry.getTime(), fileManager)));
+		}
+	    }
+	} catch (Exception exc) {
+	    // Do nothing
+	}
+    }
+
+    private boolean isLogFile(String name) {
+	LogFileManager fileManager = new LogFileManager();
+	String logFileBaseName = fileManager.getFileNameWithoutExtension(logFileName);
+	String logFileSuffix = fileManager.getFileNameExtension(logFileName);
+	if (name.startsWith(logFileName) && name.endsWith("." + COMPRESSED_FILE_EXTENSION)) {
+	    return true;
+	}
+	return name.startsWith(logFileBaseName) && name.endsWith(logFileSuffix);
+    }
+
+    private long getEndTimestamp(String name, long lastModified, LogFileManager fileManager) {
+	Long timestamp = fileManager.getTimestampFromFileName(name);
+	return timestamp != null ? timestamp : lastModified;
+    }
+
+    private static class LogSource implements Comparable<LogSource> {
+
+	private final File file;
+	private final String zipEntryName;
+	private long startTimestamp;
+	private long endTimestamp;
+	private long indexedOffset;
+
+	private LogSource(File file, String zipEntryName, long endTimestamp) {
+	    this.file = file;
+	    this.zipEntryName = zipEntryName;
+	    this.startTimestamp = Long.MIN_VALUE;
+	    this.endTimestamp = endTimestamp;
+	    this.indexedOffset = 0;
+	}
+
+	@Override
+	public int compareTo(LogSource other) {
+	    int result = Long.compare(endTimestamp, other.endTimestamp);
+	    if (result != 0) {
+		return result;
+	    }
+	    String name = zipEntryName == null ? file.getName() : zipEntryName;
+	    String otherName = other.zipEntryName == null ? other.file.getName() : other.zipEntryName;
+	    return name.compareTo(otherName);
+	}
+    }
+
+    private static class TermLookup {
+
+	private final Set<String> indexedEntries;
+	private Map<String, long[]> postings;
+
+	private TermLookup() {
+	    this.indexedEntries = new HashSet<>();
+	    this.postings = new HashMap<>();
+	}
+    }
+
+    private static class TermLogDecoder implements ILogDecoder {
+
+	private final ILogDecoder decoder;
+	private final long[] offsets;
+	private final long decodedOffset;
+	private int index;
+
+	private TermLogDecoder(ILogDecoder decoder, long[] offsets, long decodedOffset) {
+	    this.decoder = decoder;
+	    this.offsets = offsets;
+	    this.decodedOffset = decodedOffset;
+	    this.index = 0;
+	}
+
+	@Override
+	public LogFileEntry readEntry() throws IOException {
+	    while (index < offsets.length && offsets[index] < decodedOffset) {
+		index++;
+	    }
+	    if (index >= offsets.length) {
+		return null;
+	    }
+	    long offset = offsets[index] - decodedOffset;
+	    if (decoder instanceof TextLogDecoder) {
+		((TextLogDecoder) decoder).skipTo(offset);
+	    }
+	    LogFileEntry entry = decoder.readEntry();
+	    while (entry != null && decoder.getEntryOffset() < offset) {
+		entry = decoder.readEntry();
+	    }
+	    if (entry == null) {
+		index = offsets.length;
+		return null;
+	    }
+	    while (index < offsets.length && offsets[index] - decodedOffset <= decoder.getEntryOffset()) {
+		index++;
+	    }
+	    return entry;
+	}
+
+	@Override
+	public long getEntryOffset() {
+	    return decoder.getEntryOffset();
+	}
+
+	@Override
+	public void close() throws IOException {
+	    decoder.close();
+	}
+    }
+
+    private static class MappedFileInputStream extends InputStream {
+
+	private final RandomAccessFile file;
+	private final FileChannel channel;
+	private final long size;
+	private long position;
+	private MappedByteBuffer buffer;
+
+	private MappedFileInputStream(File file, long position) throws IOException {
+	    this.file = new RandomAccessFile(file, "r");
+	    this.channel = this.file.getChannel();
+	    this.size = channel.size();
+	    this.position = position;
+	    this.buffer = null;
+	}
+
+	@Override
+	public int read() throws IOException {
+	    if (!ensureMapped()) {
+		return -1;
+	    }
+	    return buffer.get() & 0xFF;
+	}
+
+	@Override
+	public int read(byte[] data, int offset, int length) throws IOException {
+	    if (length == 0) {
+		return 0;
+	    }
+	    if (!ensureMapped()) {
+		return -1;
+	    }
+	    int count = Math.min(length, buffer.remaining());
+	    buffer.get(data, offset, count);
+	    return count;
+	}
+
+	@Override
+	public void close() throws IOException {
+	    buffer = null;
+	    file.close();
+	}
+
+	private boolean ensureMapped() throws IOException {
+	    if (buffer != null && buffer.hasRemaining()) {
+		return true;
+	    }
+	    if (position >= size) {
+		return false;
+	    }
+	    long windowSize = Math.min(MAPPED_WINDOW_SIZE, size - position);
+	    buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, windowSize);
+	    position += windowSize;
+	    return true;
+	}
+    }
+
+    private static class UnfinishedGZIPInputStream extends GZIPInputStream {
+
+	public UnfinishedGZIPInputStream(InputStream inputStream, int size) throws IOException {
+	    super(inputStream, size);
+	}
+
+	@Override
+	public int read(byte[] buffer, int offset, int length) throws IOException {
+	    try {
+		return super.read(buffer, offset, length);
+	    } catch (EOFException exc) {
+		return -1;
+	    }
+	}
+    }
+}
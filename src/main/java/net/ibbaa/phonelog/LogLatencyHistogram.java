@@ -0,0 +1,122 @@
+package net.ibbaa.phonelog;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of latencies in nanoseconds with buckets of powers of two.
+ * Percentiles are returned as the upper bound of the bucket, so they are
+ * accurate within a factor of two.
+ */
+public class LogLatencyHistogram {
+
+    private final static int BUCKET_COUNT = 64;
+
+    private final AtomicLongArray buckets;
+    private final AtomicLong count;
+    private final AtomicLong sum;
+    private final AtomicLong max;
+
+    /**
+     * Constructor
+     */
+    public LogLatencyHistogram() {
+	this.buckets = new AtomicLongArray(BUCKET_COUNT);
+	this.count = new AtomicLong();
+	this.sum = new AtomicLong();
+	this.max = new AtomicLong();
+    }
+
+    /**
+     * Records a latency
+     * 
+     * @param nanos the latency in nanoseconds, negative values are recorded as 0
+     */
+    public void record(long nanos) {
+	long value = Math.max(0, nanos);
+	buckets.incrementAndGet(value == 0 ? 0 : BUCKET_COUNT - 1 - Long.numberOfLeadingZeros(value));
+	count.incrementAndGet();
+	sum.addAndGet(value);
+	long currentMax;
+	while (value > (currentMax = max.get()) && !max.compareAndSet(currentMax, value)) {
+	    // Retry
+	}
+    }
+
+    /**
+     * Returns the number of recorded latencies
+     * 
+     * @return the count
+     */
+    public long getCount() {
+	return count.get();
+    }
+
+    /**
+     * Returns the sum of the recorded latencies
+     * 
+     * @return the sum in nanoseconds
+     */
+    public long getSum() {
+	return sum.get();
+    }
+
+    /**
+     * Returns the max recorded latency
+     * 
+     * @return the max in nanoseconds
+     */
+    public long getMax() {
+	return max.get();
+    }
+
+    /**
+     * Returns the mean of the recorded latencies
+     * 
+     * @return the mean in nanoseconds, 0 if nothing has been recorded
+     */
+    public long getMean() {
+	long currentCount = count.get();
+	return currentCount == 0 ? 0 : sum.get() / currentCount;
+    }
+
+    /**
+     * Returns the percentile
+     * 
+     * @param percentile the percentile between 0 and 100
+     * @return the upper bound of the bucket containing the percentile in
+     *         nanoseconds, 0 if nothing has been recorded
+     */
+    public long getPercentile(double percentile) {
+	long total = 0;
+	long[] counts = new long[BUCKET_COUNT];
+	for (int ii = 0; ii < BUCKET_COUNT; ii++) {
+	    counts[ii] = buckets.get(ii);
+	    total += counts[ii];
+	}
+	if (total == 0) {
+	    return 0;
+	}
+	long rank = (long) Math.ceil(total * Math.min(100, Math.max(0, percentile)) / 100);
+	long current = 0;
+	for (int ii = 0; ii < BUCKET_COUNT; ii++) {
+	    current += counts[ii];
+	    if (current >= rank && counts[ii] > 0) {
+		return Math.min(getMax(), ii >= BUCKET_COUNT - 1 ? Long.MAX_VALUE : (1L << (ii + 1)) - 1);
+	    }
+	}
+	return getMax();
+    }
+
+    /**
+     * Resets the histogram
+     */
+    public void reset() {
+	for (int ii = 0; ii < BUCKET_COUNT; ii++) {
+	    buckets.set(ii, 0);
+	}
+	count.set(0);
+	sum.set(0);
+	max.set(0);
+    }
+}
@@ -0,0 +1,221 @@
+package net.ibbaa.phonelog;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Registry of the metrics of the logging pipeline, i.e. the file loggers, the
+ * housekeepers and the file dumps. The metrics are collected for all instances
+ * of the process and can be read with the methods of this class or with JMX
+ * after {@link net.ibbaa.phonelog.LogMetricsJmx#register()} has been called.
+ */
+public class LogMetrics {
+
+    /**
+     * Entries accepted by a file logger
+     */
+    public final static String ENTRIES_ACCEPTED = "EntriesAccepted";
+
+    /**
+     * Entries filtered by a file logger because of the level
+     */
+    public final static String ENTRIES_FILTERED = "EntriesFiltered";
+
+    /**
+     * Entries dropped by a file logger because the queue was full
+     */
+    public final static String ENTRIES_DROPPED = "EntriesDropped";
+
+    /**
+     * Bytes written to log files before compression
+     */
+    public final static String BYTES_WRITTEN = "BytesWritten";
+
+    /**
+     * Rotations of log files
+     */
+    public final static String ROTATIONS = "Rotations";
+
+    /**
+     * Housekeeping runs creating or extending an archive
+     */
+    public final static String ARCHIVE_RUNS = "ArchiveRuns";
+
+    /**
+     * Failed writes of log files, archives and dumps
+     */
+    public final static String IO_ERRORS = "IOErrors";
+
+    /**
+     * Entries queued by file loggers and not yet written
+     */
+    public final static String QUEUE_DEPTH = "QueueDepth";
+
+    /**
+     * Dump requests replacing a pending dump to the same file
+     */
+    public final static String DUMPS_COALESCED = "DumpsCoalesced";
+
+    /**
+     * Dump requests dropped because too many dumps were pending
+     */
+    public final static String DUMPS_DROPPED = "DumpsDropped";
+
+    /**
+     * Time from queuing an entry until it is written
+     */
+    public final static String ENQUEUE_TO_DISK_TIME = "EnqueueToDiskTime";
+
+    /**
+     * Time to write a batch of queued entries
+     */
+    public final static String BATCH_WRITE_TIME = "BatchWriteTime";
+
+    /**
+     * Time to rotate a log file
+     */
+    public final static String ROTATION_TIME = "RotationTime";
+
+    /**
+     * Time a dump waits for the dump thread
+     */
+    public final static String DUMP_QUEUE_TIME = "DumpQueueTime";
+
+    /**
+     * Time to write a dump including housekeeping
+     */
+    public final static String DUMP_TIME = "DumpTime";
+
+    private final static LogMetrics instance = new LogMetrics();
+
+    private final Map<String, AtomicLong> counters;
+    private final Map<String, LogLatencyHistogram> histograms;
+
+    private LogMetrics() {
+	Map<String, AtomicLong> counterMap = new LinkedHashMap<>();
+	for (String name : new String[] { ENTRIES_ACCEPTED, ENTRIES_FILTERED, ENTRIES_DROPPED, BYTES_WRITTEN, ROTATIONS, ARCHIVE_RUNS, IO_ERRORS, QUEUE_DEPTH, DUMPS_COALESCED, DUMPS_DROPPED }) {
+	    counterMap.put(name, new AtomicLong());
+	}
+	this.counters = Collections.unmodifiableMap(counterMap);
+	Map<String, LogLatencyHistogram> histogramMap = new LinkedHashMap<>();
+	for (String name : new String[] { ENQUEUE_TO_DISK_TIME, BATCH_WRITE_TIME, ROTATION_TIME, DUMP_QUEUE_TIME, DUMP_TIME }) {
+	    histogramMap.put(name, new LogLatencyHistogram());
+	}
+	this.histograms = Collections.unmodifiableMap(histogramMap);
+    }
+
+    /**
+     * Returns the registry
+     * 
+     * @return the registry
+     */
+    public static LogMetrics getInstance() {
+	return instance;
+    }
+
+    /**
+     * Increments a counter
+     * 
+     * @param name the counter name
+     */
+    public void increment(String name) {
+	add(name, 1);
+    }
+
+    /**
+     * Adds to a counter, negative values decrement a gauge
+     * 
+     * @param name  the counter name
+     * @param value the value to add
+     */
+    public void add(String name, long value) {
+	AtomicLong counter = counters.get(name);
+	if (counter != null) {
+	    counter.addAndGet(value);
+	}
+    }
+
+    /**
+     * Returns the value holder of a counter or gauge. File loggers keep the
+     * holders, so the name is not looked up for every entry. The holder stays
+     * the same on {@link #reset()}.
+     * 
+     * @param name the counter name
+     * @return the value holder, <code>null</code> for unknown names
+     */
+    public AtomicLong getCounterValue(String name) {
+	return counters.get(name);
+    }
+
+    /**
+     * Records a latency
+     * 
+     * @param name  the histogram name
+     * @param nanos the latency in nanoseconds
+     */
+    public void record(String name, long nanos) {
+	LogLatencyHistogram histogram = histograms.get(name);
+	if (histogram != null) {
+	    histogram.record(nanos);
+	}
+    }
+
+    /**
+     * Returns the value of a counter or gauge
+     * 
+     * @param name the counter name
+     * @return the value, 0 for unknown names
+     */
+    public long getCounter(String name) {
+	AtomicLong counter = counters.get(name);
+	return counter == null ? 0 : counter.get();
+    }
+
+    /**
+     * Returns the values of all counters and gauges
+     * 
+     * @return the values by name
+     */
+    public Map<String, Long> getCounters() {
+	Map<String, Long> values = new LinkedHashMap<>();
+	for (Map.Entry<String, AtomicLong> counter : counters.entrySet()) {
+	    values.put(counter.getKey(), counter.getValue().get());
+	}
+	return values;
+    }
+
+    /**
+     * Returns a histogram
+     * 
+     * @param name the histogram name
+     * @return the histogram, <code>null</code> for unknown names
+     */
+    public LogLatencyHistogram getHistogram(String name) {
+	return histograms.get(name);
+    }
+
+    /**
+     * Returns all histograms
+     * 
+     * @return the histograms by name
+     */
+    public Map<String, LogLatencyHistogram> getHistograms() {
+	return histograms;
+    }
+
+    /**
+     * Resets the counters and histograms. Gauges are kept.
+     */
+    public void reset() {
+	for (Map.Entry<String, AtomicLong> counter : counters.entrySet()) {
+	    if (!QUEUE_DEPTH.equals(counter.getKey())) {
+		counter.getValue().set(0);
+	    }
+	}
+	for (LogLatencyHistogram histogram : histograms.values()) {
+	    histogram.reset();
+	}
+    }
+}
@@ -0,0 +1,160 @@
+package net.ibbaa.phonelog;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+/**
+ * Exposes {@link net.ibbaa.phonelog.LogMetrics} as MBean with the name
+ * net.ibbaa.phonelog:type=LogMetrics. Each counter is an attribute. Each
+ * histogram provides the attributes Count, Mean, P50, P99 and Max appended to
+ * its name, the latencies are in nanoseconds. The operation reset resets the
+ * metrics. JMX is not available on Android, use the methods of
+ * {@link net.ibbaa.phonelog.LogMetrics} there.
+ */
+public class LogMetricsJmx implements DynamicMBean {
+
+    /**
+     * The name of the MBean
+     */
+    public final static String OBJECT_NAME = "net.ibbaa.phonelog:type=LogMetrics";
+
+    private final static String COUNT_SUFFIX = "Count";
+    private final static String MEAN_SUFFIX = "Mean";
+    private final static String P50_SUFFIX = "P50";
+    private final static String P99_SUFFIX = "P99";
+    private final static String MAX_SUFFIX = "Max";
+    private final static String RESET_OPERATION = "reset";
+
+    private final LogMetrics metrics;
+
+    /**
+     * Constructor
+     * 
+     * @param metrics the metrics
+     */
+    public LogMetricsJmx(LogMetrics metrics) {
+	this.metrics = metrics;
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server, if not already
+     * registered
+     * 
+     * @return <code>true</code> if the MBean is registered
+     */
+    public static boolean register() {
+	try {
+	    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+	    ObjectName name = new ObjectName(OBJECT_NAME);
+	    if (!server.isRegistered(name)) {
+		server.registerMBean(new LogMetricsJmx(LogMetrics.getInstance()), name);
+	    }
+	    return true;
+	} catch (Exception exc) {
+	    return false;
+	}
+    }
+
+    /**
+     * Unregisters the metrics from the platform MBean server
+     */
+    public static void unregister() {
+	try {
+	    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+	    ObjectName name = new ObjectName(OBJECT_NAME);
+	    if (server.isRegistered(name)) {
+		server.unregisterMBean(name);
+	    }
+	} catch (Exception exc) {
+	    // Do nothing
+	}
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+	if (metrics.getCounters().containsKey(attribute)) {
+	    return metrics.getCounter(attribute);
+	}
+	for (Map.Entry<String, LogLatencyHistogram> histogram : metrics.getHistograms().entrySet()) {
+	    if (attribute.startsWith(histogram.getKey())) {
+		String suffix = attribute.substring(histogram.getKey().length());
+		LogLatencyHistogram value = histogram.getValue();
+		switch (suffix) {
+		case COUNT_SUFFIX:
+		    return value.getCount();
+		case MEAN_SUFFIX:
+		    return value.getMean();
+		case P50_SUFFIX:
+		    return value.getPercentile(50);
+		case P99_SUFFIX:
+		    return value.getPercentile(99);
+		case MAX_SUFFIX:
+		    return value.getMax();
+		default:
+		    break;
+		}
+	    }
+	}
+	throw new AttributeNotFoundException(attribute);
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+	throw new AttributeNotFoundException(attribute.getName() + " is read only");
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+	AttributeList list = new AttributeList();
+	for (String attribute : attributes) {
+	    try {
+		list.add(new Attribute(attribute, getAttribute(attribute)));
+	    } catch (AttributeNotFoundException exc) {
+		// Do nothing
+	    }
+	}
+	return list;
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+	return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+	if (RESET_OPERATION.equals(actionName)) {
+	    metrics.reset();
+	    return null;
+	}
+	throw new ReflectionException(new NoSuchMethodException(actionName));
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+	List<MBeanAttributeInfo> attributes = new ArrayList<>();
+	for (String name : metrics.getCounters().keySet()) {
+	    attributes.add(new MBeanAttributeInfo(name, Long.class.getName(), name, true, false, false));
+	}
+	for (String name : metrics.getHistograms().keySet()) {
+	    for (String suffix : new String[] { COUNT_SUFFIX, MEAN_SUFFIX, P50_SUFFIX, P99_SUFFIX, MAX_SUFFIX }) {
+		attributes.add(new MBeanAttributeInfo(name + suffix, Long.class.getName(), name + " " + suffix + (COUNT_SUFFIX.equals(suffix) ? "" : " in nanoseconds"), true, false, false));
+	    }
+	}
+	MBeanOperationInfo reset = new MBeanOperationInfo(RESET_OPERATION, "Resets the counters and histograms", null, "void", MBeanOperationInfo.ACTION);
+	return new MBeanInfo(getClass().getName(), "Metrics of the logging pipeline", attributes.toArray(new MBeanAttributeInfo[0]), null, new MBeanOperationInfo[] { reset }, null);
+    }
+}
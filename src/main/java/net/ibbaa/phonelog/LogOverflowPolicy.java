@@ -0,0 +1,20 @@
+package net.ibbaa.phonelog;
+
+/**
+ * Behaviour of a bounded log queue that is full.
+ */
+public enum LogOverflowPolicy {
+    /**
+     * The new entry is discarded
+     */
+    DROP_NEWEST,
+    /**
+     * The oldest queued entry is discarded
+     */
+    DROP_OLDEST,
+    /**
+     * The caller waits up to 500 milliseconds for free space, the new entry is
+     * discarded afterwards
+     */
+    BLOCK
+}
@@ -0,0 +1,183 @@
+package net.ibbaa.phonelog;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A sink of a {@link net.ibbaa.phonelog.CompositeLogger} or
+ * {@link net.ibbaa.phonelog.AsyncLogger}. The entries are queued in a bounded
+ * queue and passed to the logger in batches by a dedicated thread in the order
+ * they were queued, so a slow logger does not slow down the caller or other
+ * sinks. A drain of the queue is only scheduled if none is pending. The counters can be used to find a sink that falls behind.
+ */
+public class LogSink {
+
+    private final static int DEFAULT_CAPACITY = 10000;
+    private final static LogOverflowPolicy DEFAULT_OVERFLOW_POLICY = LogOverflowPolicy.DROP_NEWEST;
+
+    private final static int LOG_QUEUE_PUT_TIMEOUT = 500;
+    private final static int BATCH_SIZE = 100;
+
+    private final ILogger logger;
+    private final LogOverflowPolicy overflowPolicy;
+    private final LinkedBlockingQueue<LogFileEntry> logQueue;
+    private final ExecutorService logExecutor;
+    private final List<LogFileEntry> batch;
+    private final AtomicBoolean drainScheduled;
+    private final AtomicLong deliveredCount;
+    private final AtomicLong droppedCount;
+    private volatile long lastDeliveredTimestamp;
+    private volatile long pendingTimestamp;
+
+    /**
+     * Constructor
+     * 
+     * @param logger the {@link net.ibbaa.phonelog.ILogger} the entries are passed
+     *               to
+     */
+    public LogSink(ILogger logger) {
+	this(logger, DEFAULT_CAPACITY, DEFAULT_OVERFLOW_POLICY);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param logger         the {@link net.ibbaa.phonelog.ILogger} the entries
+     *                       are passed to
+     * @param capacity       the max number of queued entries. Default is 10000.
+     * @param overflowPolicy the behaviour if the queue is full. Default is
+     *                       DROP_NEWEST.
+     */
+    public LogSink(ILogger logger, int capacity, LogOverflowPolicy overflowPolicy) {
+	this.logger = logger;
+	this.overflowPolicy = overflowPolicy == null ? DEFAULT_OVERFLOW_POLICY : overflowPolicy;
+	this.logQueue = new LinkedBlockingQueue<>(Math.max(1, capacity));
+	this.logExecutor = Executors.newSingleThreadExecutor();
+	this.batch = new ArrayList<>(BATCH_SIZE);
+	this.drainScheduled = new AtomicBoolean(false);
+	this.deliveredCount = new AtomicLong();
+	this.droppedCount = new AtomicLong();
+	this.lastDeliveredTimestamp = -1;
+	this.pendingTimestamp = -1;
+    }
+
+    /**
+     * Returns the logger
+     * 
+     * @return the logger
+     */
+    public ILogger getLogger() {
+	return logger;
+    }
+
+    /**
+     * Returns the number of queued entries not yet passed to the logger
+     * 
+     * @return the number of queued entries
+     */
+    public int getQueuedCount() {
+	return logQueue.size();
+    }
+
+    /**
+     * Returns the number of entries passed to the logger
+     * 
+     * @return the number of passed entries
+     */
+    public long getDeliveredCount() {
+	return deliveredCount.get();
+    }
+
+    /**
+     * Returns the number of entries discarded because the queue was full
+     * 
+     * @return the number of discarded entries
+     */
+    public long getDroppedCount() {
+	return droppedCount.get();
+    }
+
+    /**
+     * Returns how far the sink falls behind, i.e. the age in milliseconds of the
+     * oldest entry not yet passed to the logger
+     * 
+     * @return the lag in milliseconds, 0 if all entries have been passed
+     */
+    public long getLag() {
+	long timestamp = pendingTimestamp;
+	if (timestamp < 0) {
+	    LogFileEntry entry = logQueue.peek();
+	    if (entry == null) {
+		return 0;
+	    }
+	    timestamp = entry.getTimestamp();
+	}
+	return Math.max(0, LogClock.getInstance().currentTimeMillis() - timestamp);
+    }
+
+    /**
+     * Returns the timestamp of the entry last passed to the logger
+     * 
+     * @return the timestamp, -1 if no entry has been passed
+     */
+    public long getLastDeliveredTimestamp() {
+	return lastDeliveredTimestamp;
+    }
+
+    void enqueue(LogFileEntry entry) {
+	try {
+	    boolean putSuccess;
+	    if (overflowPolicy == LogOverflowPolicy.BLOCK) {
+		putSuccess = logQueue.offer(entry, LOG_QUEUE_PUT_TIMEOUT, TimeUnit.MILLISECONDS);
+	    } else {
+		putSuccess = logQueue.offer(entry);
+		while (!putSuccess && overflowPolicy == LogOverflowPolicy.DROP_OLDEST) {
+		    if (logQueue.poll() != null) {
+			droppedCount.incrementAndGet();
+		    }
+		    putSuccess = logQueue.offer(entry);
+		}
+	    }
+	    if (putSuccess) {
+		if (drainScheduled.compareAndSet(false, true)) {
+		    logExecutor.execute(this::doLog);
+		}
+	    } else {
+		droppedCount.incrementAndGet();
+	    }
+	} catch (InterruptedException exc) {
+	    droppedCount.incrementAndGet();
+	    Thread.currentThread().interrupt();
+	}
+    }
+
+    private void doLog() {
+	do {
+	    drain();
+	    drainScheduled.set(false);
+	} while (!logQueue.isEmpty() && drainScheduled.compareAndSet(false, true));
+    }
+
+    private void drain() {
+	while (logQueue.drainTo(batch, BATCH_SIZE) > 0) {
+	    for (LogFileEntry entry : batch) {
+		pendingTimestamp = entry.getTimestamp();
+		try {
+		    logger.log(entry);
+		} catch (Exception exc) {
+		    // Do nothing
+		}
+		lastDeliveredTimestamp = entry.getTimestamp();
+		deliveredCount.incrementAndGet();
+	    }
+	    batch.clear();
+	    pendingTimestamp = -1;
+	}
+    }
+}
@@ -0,0 +1,129 @@
+package net.ibbaa.phonelog;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Restores the stack traces of a log file written with
+ * {@link net.ibbaa.phonelog.DeduplicatingLogFormatter}. Each reference is
+ * replaced by the first line of the referencing Throwable followed by the stack
+ * frames of the full stack trace written before. The markers are removed.
+ * References without a preceding full stack trace are kept.
+ */
+public class LogStackTraceExpander {
+
+    private final static String FRAME_PREFIX = "\tat ";
+    private final static int BUFFER_SIZE = 8192;
+
+    /**
+     * Constructor
+     */
+    public LogStackTraceExpander() {
+
+    }
+
+    /**
+     * Expands the log file
+     * 
+     * @param logFile    the log file
+     * @param outputFile the file to write the expanded log to
+     * @throws IOException if reading or writing fails
+     */
+    public void expand(File logFile, File outputFile) throws IOException {
+	try (InputStream inputStream = new FileInputStream(logFile); OutputStream outputStream = new FileOutputStream(outputFile)) {
+	    expand(inputStream, outputStream);
+	}
+    }
+
+    /**
+     * Expands the log read from the input stream. The streams are not closed.
+     * 
+     * @param inputStream  the stream to read the log from
+     * @param outputStream the stream to write the expanded log to
+     * @throws IOException if reading or writing fails
+     */
+    public void expand(InputStream inputStream, OutputStream outputStream) throws IOException {
+	BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, Charsets.UTF8_CHARSET), BUFFER_SIZE);
+	Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, Charsets.UTF8_CHARSET), BUFFER_SIZE);
+	Map<String, List<String>> frames = new HashMap<>();
+	String marker = null;
+	List<String> block = new ArrayList<>();
+	String line;
+	while ((line = reader.readLine()) != null) {
+	    boolean isMarker = line.startsWith(DeduplicatingLogFormatter.STACK_TRACE_MARKER) || line.startsWith(DeduplicatingLogFormatter.STACK_TRACE_REFERENCE_MARKER);
+	    if (marker != null && (isMarker || LogFileEntryParser.isEntryStart(line))) {
+		writeBlock(writer, marker, block, frames);
+		marker = null;
+		block.clear();
+	    }
+	    if (isMarker) {
+		marker = line;
+	    } else if (marker != null) {
+		block.add(line);
+	    } else {
+		writeLine(writer, line);
+	    }
+	}
+	if (marker != null) {
+	    writeBlock(writer, marker, block, frames);
+	}
+	writer.flush();
+    }
+
+    private void writeBlock(Writer writer, String marker, List<String> block, Map<String, List<String>> frames) throws IOException {
+	int frameStart = getFrameStart(block);
+	int end = block.size();
+	while (end > frameStart && block.get(end - 1).isEmpty()) {
+	    end--;
+	}
+	if (marker.startsWith(DeduplicatingLogFormatter.STACK_TRACE_REFERENCE_MARKER)) {
+	    List<String> referencedFrames = frames.get(marker.substring(DeduplicatingLogFormatter.STACK_TRACE_REFERENCE_MARKER.length()));
+	    if (referencedFrames == null) {
+		writeLine(writer, marker);
+	    }
+	    for (String line : block.subList(0, frameStart)) {
+		writeLine(writer, line);
+	    }
+	    if (referencedFrames != null) {
+		for (String line : referencedFrames) {
+		    writeLine(writer, line);
+		}
+	    }
+	    for (String line : block.subList(frameStart, block.size())) {
+		writeLine(writer, line);
+	    }
+	    return;
+	}
+	frames.put(marker.substring(DeduplicatingLogFormatter.STACK_TRACE_MARKER.length()), new ArrayList<>(block.subList(frameStart, end)));
+	for (String line : block) {
+	    writeLine(writer, line);
+	}
+    }
+
+    private int getFrameStart(List<String> block) {
+	for (int ii = 0; ii < block.size(); ii++) {
+	    if (block.get(ii).startsWith(FRAME_PREFIX) || block.get(ii).isEmpty()) {
+		return ii;
+	    }
+	}
+	return block.size();
+    }
+
+    private void writeLine(Writer writer, String line) throws IOException {
+	writer.write(line);
+	writer.write(System.lineSeparator());
+    }
+}
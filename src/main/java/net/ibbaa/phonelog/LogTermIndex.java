@@ -0,0 +1,265 @@
+package net.ibbaa.phonelog;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inverted index of the tokens of the log entries in an archive to the offsets
+ * of the entries, written next to the archive by
+ * {@link net.ibbaa.phonelog.Housekeeper} with the extension 'tidx' appended.
+ * The terms are sorted and stored in blocks, a small directory of the first
+ * term of each block is used to read only the block containing a term.
+ */
+public class LogTermIndex {
+
+    /**
+     * The extension of term index files
+     */
+    public final static String TERM_INDEX_FILE_EXTENSION = "tidx";
+
+    final static byte[] HEADER = new byte[] { 'P', 'T', 'I', 'X', 1 };
+    final static int BLOCK_SIZE = 64;
+    final static int ENTRY_ID_SHIFT = 40;
+    final static long OFFSET_MASK = (1L << ENTRY_ID_SHIFT) - 1;
+
+    private final static int FOOTER_SIZE = 8;
+
+    private final File indexFile;
+    private final List<String> entryNames;
+    private final long recordsOffset;
+    private final long directoryOffset;
+    private final String[] blockTerms;
+    private final long[] blockOffsets;
+
+    /**
+     * Constructor
+     * 
+     * @param indexFile the index file
+     * @throws IOException if the file is not a valid term index
+     */
+    public LogTermIndex(File indexFile) throws IOException {
+	this.indexFile = indexFile;
+	try (RandomAccessFile file = new RandomAccessFile(indexFile, "r")) {
+	    if (file.length() < HEADER.length + FOOTER_SIZE) {
+		throw new IOException("Invalid term index");
+	    }
+	    file.seek(file.length() - FOOTER_SIZE);
+	    this.directoryOffset = file.readLong();
+	    if (directoryOffset < HEADER.length || directoryOffset > file.length() - FOOTER_SIZE) {
+		throw new IOException("Invalid term index");
+	    }
+	    byte[] directory = new byte[(int) (file.length() - FOOTER_SIZE - directoryOffset)];
+	    file.seek(directoryOffset);
+	    file.readFully(directory);
+	    InputStream directoryStream = new ByteArrayInputStream(directory);
+	    int blockCount = (int) readVarLong(directoryStream);
+	    this.blockTerms = new String[blockCount];
+	    this.blockOffsets = new long[blockCount];
+	    for (int ii = 0; ii < blockCount; ii++) {
+		blockTerms[ii] = readString(directoryStream);
+		blockOffsets[ii] = readVarLong(directoryStream);
+	    }
+	}
+	try (InputStream inputStream = new BufferedInputStream(new FileInputStream(indexFile))) {
+	    for (byte headerByte : HEADER) {
+		if (inputStream.read() != headerByte) {
+		    throw new IOException("Invalid term index");
+		}
+	    }
+	    long position = HEADER.length;
+	    int entryCount = (int) readVarLong(inputStream);
+	    position += getVarLongSize(entryCount);
+	    List<String> names = new ArrayList<>();
+	    for (int ii = 0; ii < entryCount; ii++) {
+		String name = readString(inputStream);
+		position += getStringSize(name);
+		names.add(name);
+	    }
+	    this.entryNames = Collections.unmodifiableList(names);
+	    this.recordsOffset = position;
+	}
+    }
+
+    /**
+     * Returns the name of the term index file for the archive
+     * 
+     * @param archiveFileName the archive file name
+     * @return the term index file name
+     */
+    public static String getIndexFileName(String archiveFileName) {
+	return archiveFileName + "." + TERM_INDEX_FILE_EXTENSION;
+    }
+
+    /**
+     * Returns the names of the indexed archive entries
+     * 
+     * @return the entry names
+     */
+    public List<String> getEntryNames() {
+	return entryNames;
+    }
+
+    /**
+     * Returns the offsets of the log entries containing the term for each
+     * archive entry. The term is normalized like the tokens.
+     * 
+     * @param term the term
+     * @return the offsets per archive entry name, empty if the term is not
+     *         contained in the archive
+     * @throws IOException if reading fails
+     */
+    public Map<String, long[]> findPostings(String term) throws IOException {
+	Map<String, long[]> result = new LinkedHashMap<>();
+	String normalizedTerm = LogTokenizer.normalize(term);
+	int block = findBlock(normalizedTerm);
+	if (block < 0) {
+	    return result;
+	}
+	long blockEnd = block + 1 < blockOffsets.length ? blockOffsets[block + 1] : directoryOffset;
+	byte[] data = new byte[(int) (blockEnd - blockOffsets[block])];
+	try (RandomAccessFile file = new RandomAccessFile(indexFile, "r")) {
+	    file.seek(blockOffsets[block]);
+	    file.readFully(data);
+	}
+	InputStream blockStream = new ByteArrayInputStream(data);
+	while (blockStream.available() > 0) {
+	    String currentTerm = readString(blockStream);
+	    long[] postings = readPostings(blockStream);
+	    int compare = currentTerm.compareTo(normalizedTerm);
+	    if (compare == 0) {
+		return toOffsets(postings);
+	    }
+	    if (compare > 0) {
+		break;
+	    }
+	}
+	return result;
+    }
+
+    long getRecordsOffset() {
+	return recordsOffset;
+    }
+
+    long getDirectoryOffset() {
+	return directoryOffset;
+    }
+
+    private Map<String, long[]> toOffsets(long[] postings) {
+	Map<String, long[]> result = new LinkedHashMap<>();
+	int start = 0;
+	while (start < postings.length) {
+	    int entryId = (int) (postings[start] >>> ENTRY_ID_SHIFT);
+	    int end = start;
+	    while (end < postings.length && (int) (postings[end] >>> ENTRY_ID_SHIFT) == entryId) {
+		end++;
+	    }
+	    long[] offsets = new long[end - start];
+	    for (int ii = start; ii < end; ii++) {
+		offsets[ii - start] = postings[ii] & OFFSET_MASK;
+	    }
+	    if (entryId < entryNames.size()) {
+		result.put(entryNames.get(entryId), offsets);
+	    }
+	    start = end;
+	}
+	return result;
+    }
+
+    private int findBlock(String term) {
+	int index = Arrays.binarySearch(blockTerms, term);
+	if (index >= 0) {
+	    return index;
+	}
+	return -index - 2;
+    }
+
+    static long[] readPostings(InputStream inputStream) throws IOException {
+	int count = (int) readVarLong(inputStream);
+	long[] postings = new long[count];
+	long last = 0;
+	for (int ii = 0; ii < count; ii++) {
+	    last += readVarLong(inputStream);
+	    postings[ii] = last;
+	}
+	return postings;
+    }
+
+    static void writePostings(OutputStream outputStream, long[] postings, int count) throws IOException {
+	writeVarLong(outputStream, count);
+	long last = 0;
+	for (int ii = 0; ii < count; ii++) {
+	    writeVarLong(outputStream, postings[ii] - last);
+	    last = postings[ii];
+	}
+    }
+
+    static void writeString(OutputStream outputStream, String value) throws IOException {
+	byte[] data = value.getBytes(Charsets.UTF8_CHARSET);
+	writeVarLong(outputStream, data.length);
+	outputStream.write(data);
+    }
+
+    static String readString(InputStream inputStream) throws IOException {
+	int length = (int) readVarLong(inputStream);
+	byte[] data = new byte[length];
+	int offset = 0;
+	while (offset < length) {
+	    int read = inputStream.read(data, offset, length - offset);
+	    if (read < 0) {
+		throw new EOFException();
+	    }
+	    offset += read;
+	}
+	return new String(data, Charsets.UTF8_CHARSET);
+    }
+
+    static void writeVarLong(OutputStream outputStream, long value) throws IOException {
+	while ((value & ~0x7FL) != 0) {
+	    outputStream.write((int) ((value & 0x7F) | 0x80));
+	    value >>>= 7;
+	}
+	outputStream.write((int) value);
+    }
+
+    static long readVarLong(InputStream inputStream) throws IOException {
+	long value = 0;
+	for (int shift = 0; shift < 64; shift += 7) {
+	    int data = inputStream.read();
+	    if (data < 0) {
+		throw new EOFException();
+	    }
+	    value |= (long) (data & 0x7F) << shift;
+	    if ((data & 0x80) == 0) {
+		return value;
+	    }
+	}
+	throw new IOException("Invalid variable length integer");
+    }
+
+    private static int getVarLongSize(long value) {
+	int size = 1;
+	while ((value & ~0x7FL) != 0) {
+	    value >>>= 7;
+	    size++;
+	}
+	return size;
+    }
+
+    private static int getStringSize(String value) {
+	int length = value.getBytes(Charsets.UTF8_CHARSET).length;
+	return getVarLongSize(length) + length;
+    }
+}
@@ -0,0 +1,457 @@
+package net.ibbaa.phonelog;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Builds the {@link net.ibbaa.phonelog.LogTermIndex} of an archive. The
+ * postings are collected in memory up to the memory budget, then they are
+ * written as a sorted run to a temporary file. At the end, all runs are merged
+ * into the index file. The postings of a term are streamed from the runs one
+ * by one, so the merge does not hold the postings of a term in memory. If an
+ * index for the archive already exists, only the archive entries not contained
+ * in the index are read and merged with it.
+ */
+public class LogTermIndexBuilder {
+
+    private final static int BUFFER_SIZE = 8192;
+    private final static int TERM_OVERHEAD = 96;
+    private final static int INITIAL_POSTINGS_SIZE = 4;
+    private final static String TEMPORARY_FILE_EXTENSION = "tmp";
+
+    private final long memoryBudget;
+
+    /**
+     * Constructor
+     * 
+     * @param memoryBudget the approximate memory in bytes used for postings
+     *                     before they are written to a temporary file
+     */
+    public LogTermIndexBuilder(long memoryBudget) {
+	this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * Builds or updates the term index of the archive. Archive entries with a
+     * name consisting of another entry name and an additional extension are
+     * sidecar files and are not indexed.
+     * 
+     * @param zipFile   the archive
+     * @param indexFile the index file
+     * @return <code>true</code> if the index was written successfully
+     */
+    public boolean build(File zipFile, File indexFile) {
+	List<File> runFiles = new ArrayList<>();
+	File temporaryFile = new File(indexFile.getParentFile(), indexFile.getName() + "." + TEMPORARY_FILE_EXTENSION);
+	try {
+	    LogTermIndex existingIndex = null;
+	    if (indexFile.exists()) {
+		try {
+		    existingIndex = new LogTermIndex(indexFile);
+		} catch (IOException exc) {
+		    existingIndex = null;
+		}
+	    }
+	    List<String> entryNames = existingIndex == null ? new ArrayList<>() : new ArrayList<>(existingIndex.getEntryNames());
+	    PostingCollector collector = new PostingCollector();
+	    try (ZipFile zip = new ZipFile(zipFile)) {
+		List<String> newEntryNames = getLogEntryNames(zip, entryNames);
+		if (newEntryNames.isEmpty() && existingIndex != null) {
+		    return true;
+		}
+		for (String name : newEntryNames) {
+		    int entryId = entryNames.size();
+		    entryNames.add(name);
+		    indexEntry(zip, name, entryId, collector, indexFile, runFiles);
+		}
+	    }
+	    List<TermRun> runs = new ArrayList<>();
+	    try {
+		if (existingIndex != null) {
+		    runs.add(new StreamTermRun(openIndexRecords(indexFile, existingIndex), existingIndex.getDirectoryOffset() - existingIndex.getRecordsOffset(), runs.size()));
+		}
+		for (File runFile : runFiles) {
+		    runs.add(new StreamTermRun(new BufferedInputStream(new FileInputStream(runFile), BUFFER_SIZE), runFile.length(), runs.size()));
+		}
+		runs.add(new MemoryTermRun(collector, runs.size()));
+		writeIndex(temporaryFile, entryNames, runs);
+	    } finally {
+		for (TermRun run : runs) {
+		    run.close();
+		}
+	    }
+	    if (indexFile.exists() && !indexFile.delete()) {
+		return false;
+	    }
+	    return temporaryFile.renameTo(indexFile);
+	} catch (Exception exc) {
+	    return false;
+	} finally {
+	    for (File runFile : runFiles) {
+		runFile.delete();
+	    }
+	    temporaryFile.delete();
+	}
+    }
+
+    static List<String> getLogEntryNames(ZipFile zip, List<String> indexedNames) {
+	Set<String> allNames = new HashSet<>();
+	List<String> names = new ArrayList<>();
+	Enumeration<? extends ZipEntry> entries = zip.entries();
+	while (entries.hasMoreElements()) {
+	    ZipEntry entry = entries.nextElement();
+	    if (!entry.isDirectory()) {
+		allNames.add(entry.getName());
+		names.add(entry.getName());
+	    }
+	}
+	Set<String> indexed = new HashSet<>(indexedNames);
+	LogFileManager fileManager = new LogFileManager();
+	List<String> logEntryNames = new ArrayList<>();
+	for (String name : names) {
+	    if (!indexed.contains(name) && !allNames.contains(fileManager.getFileNameWithoutExtension(name))) {
+		logEntryNames.add(name);
+	    }
+	}
+	return logEntryNames;
+    }
+
+    private void indexEntry(ZipFile zip, String name, int entryId, PostingCollector collector, File indexFile, List<File> runFiles) throws IOException {
+	try (ILogDecoder decoder = LogFileReader.createDecoder(zip.getInputStream(zip.getEntry(name)), name)) {
+	    long entryBase = (long) entryId << LogTermIndex.ENTRY_ID_SHIFT;
+	    while (true) {
+		LogFileEntry entry;
+		try {
+		    entry = decoder.readEntry();
+		} catch (EOFException exc) {
+		    entry = null;
+		}
+		if (entry == null) {
+		    break;
+		}
+		long posting = entryBase | (decoder.getEntryOffset() & LogTermIndex.OFFSET_MASK);
+		LogTokenizer.tokenize(entry, term -> collector.add(term, posting));
+		if (collector.getMemory() >= memoryBudget) {
+		    File runFile = new File(indexFile.getParentFile(), indexFile.getName() + "." + TEMPORARY_FILE_EXTENSION + runFiles.size());
+		    runFiles.add(runFile);
+		    writeRun(runFile, collector);
+		    collector.clear();
+		}
+	    }
+	}
+    }
+
+    private InputStream openIndexRecords(File indexFile, LogTermIndex index) throws IOException {
+	InputStream inputStream = new BufferedInputStream(new FileInputStream(indexFile), BUFFER_SIZE);
+	long remaining = index.getRecordsOffset();
+	while (remaining > 0) {
+	    long skipped = inputStream.skip(remaining);
+	    if (skipped <= 0) {
+		inputStream.close();
+		throw new EOFException();
+	    }
+	    remaining -= skipped;
+	}
+	return inputStream;
+    }
+
+    private void writeRun(File runFile, PostingCollector collector) throws IOException {
+	try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(runFile), BUFFER_SIZE)) {
+	    for (String term : collector.getSortedTerms()) {
+		PostingList postings = collector.getPostings(term);
+		LogTermIndex.writeString(outputStream, term);
+		LogTermIndex.writePostings(outputStream, postings.postings, postings.size);
+	    }
+	}
+    }
+
+    private void writeIndex(File file, List<String> entryNames, List<TermRun> runs) throws IOException {
+	List<String> blockTerms = new ArrayList<>();
+	List<Long> blockOffsets = new ArrayList<>();
+	try (DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE))) {
+	    outputStream.write(LogTermIndex.HEADER);
+	    LogTermIndex.writeVarLong(outputStream, entryNames.size());
+	    for (String name : entryNames) {
+		LogTermIndex.writeString(outputStream, name);
+	    }
+	    PriorityQueue<TermRun> queue = new PriorityQueue<>();
+	    for (TermRun run : runs) {
+		if (run.next()) {
+		    queue.add(run);
+		}
+	    }
+	    int termCount = 0;
+	    List<TermRun> termRuns = new ArrayList<>();
+	    while (!queue.isEmpty()) {
+		String term = queue.peek().getTerm();
+		int size = 0;
+		while (!queue.isEmpty() && queue.peek().getTerm().equals(term)) {
+		    TermRun run = queue.poll();
+		    size += run.getPostingsSize();
+		    termRuns.add(run);
+		}
+		if (termCount % LogTermIndex.BLOCK_SIZE == 0) {
+		    blockTerms.add(term);
+		    blockOffsets.add((long) outputStream.size());
+		}
+		LogTermIndex.writeString(outputStream, term);
+		LogTermIndex.writeVarLong(outputStream, size);
+		long last = 0;
+		for (TermRun run : termRuns) {
+		    for (int ii = run.getPostingsSize(); ii > 0; ii--) {
+			long posting = run.nextPosting();
+			LogTermIndex.writeVarLong(outputStream, posting - last);
+			last = posting;
+		    }
+		    if (run.next()) {
+			queue.add(run);
+		    }
+		}
+		termRuns.clear();
+		termCount++;
+	    }
+	    long directoryOffset = outputStream.size();
+	    LogTermIndex.writeVarLong(outputStream, blockTerms.size());
+	    for (int ii = 0; ii < blockTerms.size(); ii++) {
+		LogTermIndex.writeString(outputStream, blockTerms.get(ii));
+		LogTermIndex.writeVarLong(outputStream, blockOffsets.get(ii));
+	    }
+	    outputStream.writeLong(directoryOffset);
+	}
+    }
+
+    private static class PostingList {
+
+	private long[] postings;
+	private int size;
+
+	private PostingList() {
+	    this.postings = new long[INITIAL_POSTINGS_SIZE];
+	    this.size = 0;
+	}
+    }
+
+    private static class PostingCollector {
+
+	private final Map<String, PostingList> postings;
+	private long memory;
+
+	private PostingCollector() {
+	    this.postings = new HashMap<>();
+	    this.memory = 0;
+	}
+
+	private void add(String term, long posting) {
+	    PostingList list = postings.get(term);
+	    if (list == null) {
+		list = new PostingList();
+		postings.put(term, list);
+		memory += TERM_OVERHEAD + 2L * term.length() + 8L * list.postings.length;
+	    }
+	    if (list.size > 0 && list.postings[list.size - 1] == posting) {
+		return;
+	    }
+	    if (list.size == list.postings.length) {
+		memory += 8L * list.postings.length;
+		list.postings = Arrays.copyOf(list.postings, list.postings.length * 2);
+	    }
+	    list.postings[list.size++] = posting;
+	}
+
+	private String[] getSortedTerms() {
+	    String[] terms = postings.keySet().toArray(new String[0]);
+	    Arrays.sort(terms);
+	    return terms;
+	}
+
+	private PostingList getPostings(String term) {
+	    return postings.get(term);
+	}
+
+	private long getMemory() {
+	    return memory;
+	}
+
+	private void clear() {
+	    postings.clear();
+	    memory = 0;
+	}
+    }
+
+    private static abstract class TermRun implements Comparable<TermRun> {
+
+	private final int order;
+
+	private TermRun(int order) {
+	    this.order = order;
+	}
+
+	abstract boolean next() throws IOException;
+
+	abstract String getTerm();
+
+	abstract int getPostingsSize();
+
+	abstract long nextPosting() throws IOException;
+
+	void close() {
+	    // Do nothing
+	}
+
+	@Override
+	public int compareTo(TermRun other) {
+	    int result = getTerm().compareTo(other.getTerm());
+	    return result != 0 ? result : Integer.compare(order, other.order);
+	}
+    }
+
+    private static class StreamTermRun extends TermRun {
+
+	private final CountingInputStream inputStream;
+	private final long length;
+	private String term;
+	private int postingsSize;
+	private long lastPosting;
+
+	private StreamTermRun(InputStream inputStream, long length, int order) {
+	    super(order);
+	    this.inputStream = new CountingInputStream(inputStream);
+	    this.length = length;
+	}
+
+	@Override
+	boolean next() throws IOException {
+	    if (inputStream.getCount() >= length) {
+		return false;
+	    }
+	    term = LogTermIndex.readString(inputStream);
+	    postingsSize = (int) LogTermIndex.readVarLong(inputStream);
+	    lastPosting = 0;
+	    return true;
+	}
+
+	@Override
+	String getTerm() {
+	    return term;
+	}
+
+	@Override
+	int getPostingsSize() {
+	    return postingsSize;
+	}
+
+	@Override
+	long nextPosting() throws IOException {
+	    lastPosting += LogTermIndex.readVarLong(inputStream);
+	    return lastPosting;
+	}
+
+	@Override
+	void close() {
+	    try {
+		inputStream.close();
+	    } catch (IOException exc) {
+		// Do nothing
+	    }
+	}
+    }
+
+    private static class MemoryTermRun extends TermRun {
+
+	private final PostingCollector collector;
+	private final String[] terms;
+	private int index;
+	private PostingList postings;
+	private int postingIndex;
+
+	private MemoryTermRun(PostingCollector collector, int order) {
+	    super(order);
+	    this.collector = collector;
+	    this.terms = collector.getSortedTerms();
+	    this.index = -1;
+	}
+
+	@Override
+	boolean next() {
+	    index++;
+	    if (index >= terms.length) {
+		return false;
+	    }
+	    postings = collector.getPostings(terms[index]);
+	    postingIndex = 0;
+	    return true;
+	}
+
+	@Override
+	String getTerm() {
+	    return terms[index];
+	}
+
+	@Override
+	int getPostingsSize() {
+	    return postings.size;
+	}
+
+	@Override
+	long nextPosting() {
+	    return postings.postings[postingIndex++];
+	}
+    }
+
+    private static class CountingInputStream extends InputStream {
+
+	private final InputStream inputStream;
+	private long count;
+
+	private CountingInputStream(InputStream inputStream) {
+	    this.inputStream = inputStream;
+	    this.count = 0;
+	}
+
+	@Override
+	public int read() throws IOException {
+	    int data = inputStream.read();
+	    if (data >= 0) {
+		count++;
+	    }
+	    return data;
+	}
+
+	@Override
+	public int read(byte[] data, int offset, int length) throws IOException {
+	    int read = inputStream.read(data, offset, length);
+	    if (read > 0) {
+		count += read;
+	    }
+	    return read;
+	}
+
+	@Override
+	public void close() throws IOException {
+	    inputStream.close();
+	}
+
+	private long getCount() {
+	    return count;
+	}
+    }
+}
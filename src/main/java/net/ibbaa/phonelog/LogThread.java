@@ -0,0 +1,88 @@
+package net.ibbaa.phonelog;
+
+/**
+ * Identity of the thread that created a log entry. The token of the current
+ * thread is cached per thread and only replaced when the thread name changes,
+ * so entries of the same thread share one name. The UTF-8 encoded
+ * name is created once per token and reused by formatters writing bytes.
+ */
+public class LogThread {
+
+    private final static ThreadLocal<LogThread> CURRENT_THREAD = new ThreadLocal<>();
+
+    private final long id;
+    private final String name;
+    private byte[] nameBytes;
+
+    /**
+     * Constructor
+     * 
+     * @param id   the thread id, -1 if unknown
+     * @param name the thread name
+     */
+    public LogThread(long id, String name) {
+	this.id = id;
+	this.name = name;
+	this.nameBytes = null;
+    }
+
+    /**
+     * Returns the token of the current thread
+     * 
+     * @return the token
+     */
+    public static LogThread current() {
+	Thread thread = Thread.currentThread();
+	String threadName = thread.getName();
+	LogThread current = CURRENT_THREAD.get();
+	if (current == null || (current.name != threadName && !current.name.equals(threadName))) {
+	    current = new LogThread(thread.getId(), threadName);
+	    CURRENT_THREAD.set(current);
+	}
+	return current;
+    }
+
+    /**
+     * Returns the thread id
+     * 
+     * @return the thread id, -1 if unknown
+     */
+    public long getId() {
+	return id;
+    }
+
+    /**
+     * Returns the thread name
+     * 
+     * @return the thread name
+     */
+    public String getName() {
+	return name;
+    }
+
+    /**
+     * Returns the UTF-8 encoded thread name. The returned array must not be
+     * modified.
+     * 
+     * @return the encoded thread name, <code>null</code> if the name is
+     *         <code>null</code>
+     */
+    public byte[] getNameBytes() {
+	byte[] bytes = nameBytes;
+	if (bytes == null && name != null) {
+	    bytes = name.getBytes(Charsets.UTF8_CHARSET);
+	    nameBytes = bytes;
+	}
+	return bytes;
+    }
+
+    /**
+     * toString() implementation
+     * 
+     * @return formatted string
+     */
+    @Override
+    public String toString() {
+	return "LogThread{" + "id=" + id + ", name='" + name + '\'' + '}';
+    }
+}
@@ -0,0 +1,111 @@
+package net.ibbaa.phonelog;
+
+import java.util.function.Consumer;
+
+/**
+ * Splits log entries into lower case tokens for indexing. Tokens consist of
+ * letters, digits and the characters '_', '-', '.' and '$', so error ids and
+ * class names are kept as one token. For tokens containing a '.', the part
+ * after the last '.' (e.g. the simple class name) is an additional token.
+ */
+public class LogTokenizer {
+
+    private final static int MIN_TOKEN_LENGTH = 2;
+    private final static int MAX_TOKEN_LENGTH = 64;
+
+    /**
+     * Constructor
+     */
+    public LogTokenizer() {
+
+    }
+
+    /**
+     * Passes the tokens of the tag, the thread, the message and the stack trace
+     * of the entry to the consumer. Tokens may be passed more than once.
+     * 
+     * @param entry    the entry
+     * @param consumer the consumer
+     */
+    public static void tokenize(LogFileEntry entry, Consumer<String> consumer) {
+	tokenize(entry.getTag(), consumer);
+	tokenize(entry.getThread(), consumer);
+	tokenize(entry.getMessage(), consumer);
+	if (entry.getThrowable() != null) {
+	    tokenize(new DefaultLogFormatter().exceptionToString(entry.getThrowable()), consumer);
+	}
+    }
+
+    /**
+     * Passes the tokens of the text to the consumer. Tokens may be passed more
+     * than once.
+     * 
+     * @param text     the text, may be <code>null</code>
+     * @param consumer the consumer
+     */
+    public static void tokenize(String text, Consumer<String> consumer) {
+	if (text == null) {
+	    return;
+	}
+	int length = text.length();
+	int index = 0;
+	while (index < length) {
+	    while (index < length && !isTokenChar(text.charAt(index))) {
+		index++;
+	    }
+	    int start = index;
+	    while (index < length && isTokenChar(text.charAt(index))) {
+		index++;
+	    }
+	    int end = index;
+	    while (start < end && isSeparatorChar(text.charAt(start))) {
+		start++;
+	    }
+	    while (end > start && isSeparatorChar(text.charAt(end - 1))) {
+		end--;
+	    }
+	    acceptToken(text, start, end, consumer);
+	    int lastDot = text.lastIndexOf('.', end - 1);
+	    if (lastDot > start) {
+		acceptToken(text, lastDot + 1, end, consumer);
+	    }
+	}
+    }
+
+    /**
+     * Normalizes a search term like the tokens
+     * 
+     * @param term the term
+     * @return the normalized term
+     */
+    public static String normalize(String term) {
+	if (term == null) {
+	    return null;
+	}
+	return toLowerCase(term.trim(), 0, term.trim().length());
+    }
+
+    private static void acceptToken(String text, int start, int end, Consumer<String> consumer) {
+	int length = end - start;
+	if (length < MIN_TOKEN_LENGTH || length > MAX_TOKEN_LENGTH) {
+	    return;
+	}
+	consumer.accept(toLowerCase(text, start, end));
+    }
+
+    private static String toLowerCase(String text, int start, int end) {
+	char[] token = new char[end - start];
+	for (int ii = start; ii < end; ii++) {
+	    token[ii - start] = Character.toLowerCase(text.charAt(ii));
+	}
+	return new String(token);
+    }
+
+    private static boolean isTokenChar(char character) {
+	return Character.isLetterOrDigit(character) || character == '_' || character == '$' || isSeparatorChar(character);
+    }
+
+    private static boolean isSeparatorChar(char character) {
+	return character == '.' || character == '-';
+    }
+}
@@ -0,0 +1,149 @@
+package net.ibbaa.phonelog;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Streaming decoder for log files written with
+ * {@link net.ibbaa.phonelog.DefaultLogFormatter}. The stream is read line by
+ * line, a stack trace is appended to the message of the entry.
+ */
+public class TextLogDecoder implements ILogDecoder {
+
+    private final static int BUFFER_SIZE = 8192;
+
+    private final InputStream inputStream;
+    private final LogFileEntryParser parser;
+    private final byte[] buffer;
+    private int bufferPosition;
+    private int bufferLength;
+    private byte[] line;
+    private boolean endOfStream;
+    private long position;
+    private long lineOffset;
+
+    /**
+     * Constructor
+     * 
+     * @param inputStream the stream to decode
+     */
+    public TextLogDecoder(InputStream inputStream) {
+	this.inputStream = inputStream;
+	this.parser = new LogFileEntryParser();
+	this.buffer = new byte[BUFFER_SIZE];
+	this.bufferPosition = 0;
+	this.bufferLength = 0;
+	this.line = new byte[BUFFER_SIZE];
+	this.endOfStream = false;
+	this.position = 0;
+	this.lineOffset = 0;
+    }
+
+    /**
+     * Reads the next entry
+     * 
+     * @return the entry or <code>null</code> at the end of the stream
+     * @throws IOException if reading fails
+     */
+    @Override
+    public LogFileEntry readEntry() throws IOException {
+	String currentLine;
+	while ((currentLine = readLine()) != null) {
+	    LogFileEntry entry = parser.parseLine(currentLine, lineOffset);
+	    if (entry != null) {
+		return entry;
+	    }
+	}
+	return parser.flush();
+    }
+
+    /**
+     * Returns the offset of the last entry returned by {@link #readEntry()}
+     * 
+     * @return the offset
+     */
+    @Override
+    public long getEntryOffset() {
+	return parser.getEntryOffset();
+    }
+
+    /**
+     * Skips forward to the entry starting at the offset, the next call of
+     * {@link #readEntry()} returns this entry. Offsets before the current
+     * position are ignored.
+     * 
+     * @param offset the offset of the entry
+     * @throws IOException if skipping fails
+     */
+    public void skipTo(long offset) throws IOException {
+	if (offset <= position || parser.getPendingOffset() == offset || endOfStream) {
+	    return;
+	}
+	parser.discard();
+	long remaining = offset - position;
+	int buffered = (int) Math.min(remaining, bufferLength - bufferPosition);
+	bufferPosition += buffered;
+	position += buffered;
+	remaining -= buffered;
+	while (remaining > 0) {
+	    long skipped = inputStream.skip(remaining);
+	    if (skipped <= 0) {
+		break;
+	    }
+	    position += skipped;
+	    remaining -= skipped;
+	}
+    }
+
+    /**
+     * Closes the underlying stream
+     * 
+     * @throws IOException if closing fails
+     */
+    @Override
+    public void close() throws IOException {
+	inputStream.close();
+    }
+
+    private String readLine() throws IOException {
+	if (endOfStream) {
+	    return null;
+	}
+	int lineLength = 0;
+	lineOffset = position;
+	while (true) {
+	    if (bufferPosition >= bufferLength) {
+		bufferLength = inputStream.read(buffer, 0, buffer.length);
+		bufferPosition = 0;
+		if (bufferLength < 0) {
+		    endOfStream = true;
+		    return lineLength > 0 ? decodeLine(lineLength) : null;
+		}
+	    }
+	    int start = bufferPosition;
+	    while (bufferPosition < bufferLength && buffer[bufferPosition] != '\n') {
+		bufferPosition++;
+	    }
+	    int length = bufferPosition - start;
+	    if (lineLength + length > line.length) {
+		line = Arrays.copyOf(line, Math.max(line.length * 2, lineLength + length));
+	    }
+	    System.arraycopy(buffer, start, line, lineLength, length);
+	    lineLength += length;
+	    position += length;
+	    if (bufferPosition < bufferLength) {
+		bufferPosition++;
+		position++;
+		return decodeLine(lineLength);
+	    }
+	}
+    }
+
+    private String decodeLine(int lineLength) {
+	if (lineLength > 0 && line[lineLength - 1] == '\r') {
+	    lineLength--;
+	}
+	return new String(line, 0, lineLength, Charsets.UTF8_CHARSET);
+    }
+}
@@ -0,0 +1,144 @@
+package net.ibbaa.phonelog;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Renders a Throwable with its stack frames, suppressed Throwables and causes
+ * directly into a {@link java.lang.StringBuilder}. Without limits the output is
+ * the same as {@link java.lang.Throwable#printStackTrace()}, i.e. frames in
+ * common with the enclosing Throwable are elided. The number of frames written
+ * per Throwable can be limited and consecutive frames of classes matching one
+ * of the folded package prefixes, e.g. framework or reflection frames, can be
+ * replaced by a single line.
+ */
+public class ThrowableRenderer {
+
+    private final static int DEFAULT_MAX_DEPTH = -1;
+
+    private final static String CAUSE_CAPTION = "Caused by: ";
+    private final static String SUPPRESSED_CAPTION = "Suppressed: ";
+
+    private final int maxDepth;
+    private final List<String> foldedPackages;
+
+    /**
+     * Constructor. No frames are limited or folded.
+     */
+    public ThrowableRenderer() {
+	this(DEFAULT_MAX_DEPTH, null);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param maxDepth       the max number of frames written per Throwable. The
+     *                       remaining frames are replaced by a line with their
+     *                       number. Default is -1, i.e. no limit.
+     * @param foldedPackages the package prefixes of classes whose consecutive
+     *                       frames are folded to one line, e.g.
+     *                       <code>java.lang.reflect.</code>. Default is
+     *                       <code>null</code>, i.e. no folding.
+     */
+    public ThrowableRenderer(int maxDepth, List<String> foldedPackages) {
+	this.maxDepth = maxDepth;
+	this.foldedPackages = foldedPackages == null ? Collections.emptyList() : new ArrayList<>(foldedPackages);
+    }
+
+    /**
+     * Renders the Throwable
+     * 
+     * @param exc     the Throwable
+     * @param builder the builder to append to
+     */
+    public void render(Throwable exc, StringBuilder builder) {
+	Set<Throwable> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+	visited.add(exc);
+	builder.append(exc).append(System.lineSeparator());
+	StackTraceElement[] trace = exc.getStackTrace();
+	appendFrames(trace, trace.length - 1, "", builder);
+	renderEnclosed(exc, trace, "", visited, builder);
+    }
+
+    /**
+     * Renders the Throwable
+     * 
+     * @param exc the Throwable
+     * @return the Throwable as string
+     */
+    public String render(Throwable exc) {
+	StringBuilder builder = new StringBuilder();
+	render(exc, builder);
+	return builder.toString();
+    }
+
+    private void renderEnclosed(Throwable exc, StackTraceElement[] trace, String prefix, Set<Throwable> visited, StringBuilder builder) {
+	for (Throwable suppressed : exc.getSuppressed()) {
+	    renderEnclosed(suppressed, trace, SUPPRESSED_CAPTION, prefix + "\t", visited, builder);
+	}
+	Throwable cause = exc.getCause();
+	if (cause != null) {
+	    renderEnclosed(cause, trace, CAUSE_CAPTION, prefix, visited, builder);
+	}
+    }
+
+    private void renderEnclosed(Throwable exc, StackTraceElement[] enclosingTrace, String caption, String prefix, Set<Throwable> visited, StringBuilder builder) {
+	if (!visited.add(exc)) {
+	    builder.append(prefix).append(caption).append("[CIRCULAR REFERENCE: ").append(exc).append(']').append(System.lineSeparator());
+	    return;
+	}
+	StackTraceElement[] trace = exc.getStackTrace();
+	int last = trace.length - 1;
+	int enclosingLast = enclosingTrace.length - 1;
+	while (last >= 0 && enclosingLast >= 0 && trace[last].equals(enclosingTrace[enclosingLast])) {
+	    last--;
+	    enclosingLast--;
+	}
+	int framesInCommon = trace.length - 1 - last;
+	builder.append(prefix).append(caption).append(exc).append(System.lineSeparator());
+	appendFrames(trace, last, prefix, builder);
+	if (framesInCommon != 0) {
+	    builder.append(prefix).append("\t... ").append(framesInCommon).append(" more").append(System.lineSeparator());
+	}
+	renderEnclosed(exc, trace, prefix, visited, builder);
+    }
+
+    private void appendFrames(StackTraceElement[] trace, int last, String prefix, StringBuilder builder) {
+	int written = 0;
+	int folded = 0;
+	for (int ii = 0; ii <= last; ii++) {
+	    if (isFolded(trace[ii])) {
+		folded++;
+		continue;
+	    }
+	    appendSkipped(folded, " folded", prefix, builder);
+	    folded = 0;
+	    if (maxDepth >= 0 && written >= maxDepth) {
+		appendSkipped(last - ii + 1, " omitted", prefix, builder);
+		return;
+	    }
+	    builder.append(prefix).append("\tat ").append(trace[ii]).append(System.lineSeparator());
+	    written++;
+	}
+	appendSkipped(folded, " folded", prefix, builder);
+    }
+
+    private void appendSkipped(int count, String reason, String prefix, StringBuilder builder) {
+	if (count > 0) {
+	    builder.append(prefix).append("\t... ").append(count).append(count == 1 ? " frame" : " frames").append(reason).append(System.lineSeparator());
+	}
+    }
+
+    private boolean isFolded(StackTraceElement element) {
+	String className = element.getClassName();
+	for (String foldedPackage : foldedPackages) {
+	    if (className.startsWith(foldedPackage)) {
+		return true;
+	    }
+	}
+	return false;
+    }
+}
@@ -10,6 +10,7 @@ import android.content.Context;
 import android.net.Uri;
 import androidx.documentfile.provider.DocumentFile;
 import net.ibbaa.phonelog.LogFileManager;
+import net.ibbaa.phonelog.LogMetrics;
 
 /**
  * Utility class for housekeeping using Android document file API.
@@ -71,6 +72,7 @@ public class DocumentFileHousekeeper implements Runnable {
 		filesToArchiveList = Arrays.asList(filesToArchive);
 	    }
 	    if (filesToArchiveList.size() >= archiveFileCount) {
+		LogMetrics.getInstance().increment(LogMetrics.ARCHIVE_RUNS);
 		LogFileManager logFileManager = new LogFileManager();
 		DocumentFileManager documentFileManager = new DocumentFileManager();
 		String zipFileName = logFileManager.getFileNameWithoutExtension(baseFileName) + "." + ZIP_FILE_EXTENSION;
@@ -95,7 +97,7 @@ public class DocumentFileHousekeeper implements Runnable {
 		}
 	    }
 	} catch (Exception exc) {
-	    // Do nothing
+	    LogMetrics.getInstance().increment(LogMetrics.IO_ERRORS);
 	} finally {
 	    housekeepingLock.unlock();
 	}
@@ -8,6 +8,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
 
 import android.content.Context;
@@ -18,9 +19,13 @@ import net.ibbaa.phonelog.Charsets;
 import net.ibbaa.phonelog.DefaultLogFormatter;
 import net.ibbaa.phonelog.ILogFormatter;
 import net.ibbaa.phonelog.ILogger;
+import net.ibbaa.phonelog.ISegmentLogFormatter;
+import net.ibbaa.phonelog.LogClock;
 import net.ibbaa.phonelog.LogFileEntry;
 import net.ibbaa.phonelog.LogFileManager;
 import net.ibbaa.phonelog.LogLevel;
+import net.ibbaa.phonelog.LogMetrics;
+import net.ibbaa.phonelog.LogThread;
 
 /**
  * {@link net.ibbaa.phonelog.ILogger} implemenation that writes logs to a file
@@ -38,6 +43,11 @@ public class DocumentFileLogger implements ILogger {
     private final static String UNKNOWN_MIME_TYPE = "unknown/unknown";
 
     private final static ReentrantLock loggerLock = new ReentrantLock();
+    private final static AtomicLong entriesAccepted = LogMetrics.getInstance().getCounterValue(LogMetrics.ENTRIES_ACCEPTED);
+    private final static AtomicLong entriesFiltered = LogMetrics.getInstance().getCounterValue(LogMetrics.ENTRIES_FILTERED);
+    private final static AtomicLong entriesDropped = LogMetrics.getInstance().getCounterValue(LogMetrics.ENTRIES_DROPPED);
+    private final static AtomicLong queueDepth = LogMetrics.getInstance().getCounterValue(LogMetrics.QUEUE_DEPTH);
+    private final static AtomicLong bytesWritten = LogMetrics.getInstance().getCounterValue(LogMetrics.BYTES_WRITTEN);
 
     private final Context context;
 
@@ -50,9 +60,11 @@ public class DocumentFileLogger implements ILogger {
     private final ILogFormatter logFormatter;
     private final ILogger delegateLog;
 
-    private final LinkedBlockingQueue<LogFileEntry> logQueue;
+    private final LinkedBlockingQueue<QueuedEntry> logQueue;
     private final ExecutorService logExecutor;
 
+    private boolean segmentStarted;
+
     /**
      * Constructor
      * 
@@ -314,9 +326,13 @@ public class DocumentFileLogger implements ILogger {
 	this.logDirectory = logDirectory;
 	this.logFileName = logFileName;
 	this.logFormatter = logFormatter;
+	if (logFormatter instanceof ISegmentLogFormatter) {
+	    ((ISegmentLogFormatter) logFormatter).attach(this);
+	}
 	this.delegateLog = delegateLog;
 	this.logQueue = new LinkedBlockingQueue<>();
 	this.logExecutor = Executors.newSingleThreadExecutor();
+	this.segmentStarted = false;
     }
 
     /**
@@ -332,19 +348,22 @@ public class DocumentFileLogger implements ILogger {
 	if (delegateLog != null) {
 	    delegateLog.log(tag, message, throwable, level);
 	}
-	if (level == null || level.getLevel() < maxLevel.getLevel()) {
-	    return;
-	}
-	if (message == null) {
+	if (level == null || level.getLevel() < maxLevel.getLevel() || message == null) {
+	    entriesFiltered.incrementAndGet();
 	    return;
 	}
 	try {
-	    LogFileEntry logEntry = new LogFileEntry(System.currentTimeMillis(), Thread.currentThread().getName(), level, tag, message, throwable);
-	    boolean putSuccess = logQueue.offer(logEntry, LOG_QUEUE_PUT_TIMEOUT, TimeUnit.MILLISECONDS);
+	    LogFileEntry logEntry = new LogFileEntry(LogThread.current(), LogClock.getInstance().currentTimeMillis(), level, tag, message, throwable, null);
+	    boolean putSuccess = logQueue.offer(new QueuedEntry(logEntry, System.nanoTime()), LOG_QUEUE_PUT_TIMEOUT, TimeUnit.MILLISECONDS);
 	    if (putSuccess) {
+		entriesAccepted.incrementAndGet();
+		queueDepth.incrementAndGet();
 		logExecutor.execute(this::doLog);
+	    } else {
+		entriesDropped.incrementAndGet();
 	    }
 	} catch (InterruptedException exc) {
+	    entriesDropped.incrementAndGet();
 	    Thread.currentThread().interrupt();
 	}
     }
@@ -352,8 +371,13 @@ public class DocumentFileLogger implements ILogger {
     private void doLog() {
 	OutputStream logStream = null;
 	ParcelFileDescriptor logFileDescriptor = null;
+	LogMetrics metrics = LogMetrics.getInstance();
+	long batchStart = System.nanoTime();
+	boolean batchStarted = false;
 	try {
 	    loggerLock.lock();
+	    batchStart = System.nanoTime();
+	    batchStarted = true;
 	    String normalizedLogFileName = normalizeFileName(this.logFileName);
 	    DocumentFile documentLogDirectory = DocumentFile.fromTreeUri(getContext(), Uri.parse(logDirectory));
 	    if (documentLogDirectory == null) {
@@ -363,21 +387,31 @@ public class DocumentFileLogger implements ILogger {
 	    long fileSize = documentLogFile.length();
 	    logFileDescriptor = getLogFileDescriptor(documentLogFile);
 	    logStream = initializeLogStream(logFileDescriptor);
+	    startSegment(logStream);
 	    DocumentFileManager fileManager = new DocumentFileManager();
-	    LogFileEntry entry;
-	    while ((entry = logQueue.poll()) != null) {
+	    QueuedEntry queuedEntry;
+	    while ((queuedEntry = logQueue.poll()) != null) {
+		LogFileEntry entry = queuedEntry.entry;
+		queueDepth.decrementAndGet();
 		byte[] message = logFormatter.formatLogFileEntry(entry, Charsets.UTF8_CHARSET);
 		logStream.write(message);
+		bytesWritten.addAndGet(message.length);
+		metrics.record(LogMetrics.ENQUEUE_TO_DISK_TIME, System.nanoTime() - queuedEntry.enqueueTime);
 		fileSize += message.length;
 		if (fileSize >= maxFileSize) {
+		    long rotationStart = System.nanoTime();
 		    closeLogStream(logFileDescriptor, logStream);
-		    String newFileName = fileManager.getValidFileName(documentLogDirectory, normalizedLogFileName, System.currentTimeMillis());
+		    String newFileName = fileManager.getValidFileName(documentLogDirectory, normalizedLogFileName, LogClock.getInstance().currentTimeMillis());
 		    if (newFileName != null) {
 			if (documentLogFile.renameTo(newFileName)) {
 			    documentLogFile = getLogFile(documentLogDirectory, normalizedLogFileName);
 			    fileSize = documentLogFile.length();
 			    logFileDescriptor = getLogFileDescriptor(documentLogFile);
 			    logStream = initializeLogStream(logFileDescriptor);
+			    segmentStarted = false;
+			    startSegment(logStream);
+			    metrics.increment(LogMetrics.ROTATIONS);
+			    metrics.record(LogMetrics.ROTATION_TIME, System.nanoTime() - rotationStart);
 			    if (archiveFileCount > 0) {
 				DocumentFileHousekeeper housekeeper = new DocumentFileHousekeeper(getContext(), logDirectory, normalizedLogFileName, archiveFileCount, deleteFileCount, this::shouldBeArchived);
 				Thread housekeeperThread = new Thread(housekeeper);
@@ -390,13 +424,27 @@ public class DocumentFileLogger implements ILogger {
 		}
 	    }
 	} catch (Exception exc) {
-	    // Do nothing
+	    segmentStarted = false;
+	    metrics.increment(LogMetrics.IO_ERRORS);
 	} finally {
 	    closeLogStream(logFileDescriptor, logStream);
+	    if (batchStarted) {
+		metrics.record(LogMetrics.BATCH_WRITE_TIME, System.nanoTime() - batchStart);
+	    }
 	    loggerLock.unlock();
 	}
     }
 
+    private void startSegment(OutputStream logStream) throws IOException {
+	if (segmentStarted) {
+	    return;
+	}
+	if (logFormatter instanceof ISegmentLogFormatter) {
+	    logStream.write(((ISegmentLogFormatter) logFormatter).startSegment());
+	}
+	segmentStarted = true;
+    }
+
     private boolean shouldBeArchived(String name) {
 	if (logFileName.equals(name)) {
 	    return false;
@@ -459,4 +507,15 @@ public class DocumentFileLogger implements ILogger {
     private Context getContext() {
 	return context;
     }
+
+    private static class QueuedEntry {
+
+	private final LogFileEntry entry;
+	private final long enqueueTime;
+
+	private QueuedEntry(LogFileEntry entry, long enqueueTime) {
+	    this.entry = entry;
+	    this.enqueueTime = enqueueTime;
+	}
+    }
 }
@@ -0,0 +1,42 @@
+package net.ibbaa.phonelog;
+
+import java.lang.management.ThreadMXBean;
+
+public class AllocatedMemory {
+
+    private AllocatedMemory() {
+    }
+
+    public static boolean isSupported(ThreadMXBean threadBean) {
+	try {
+	    return SunThreadMXBean.enable(threadBean);
+	} catch (LinkageError exc) {
+	    return false;
+	}
+    }
+
+    public static long getAllocatedBytes(ThreadMXBean threadBean, long threadId) {
+	return SunThreadMXBean.getAllocatedBytes(threadBean, threadId);
+    }
+
+    private static class SunThreadMXBean {
+
+	private static boolean enable(ThreadMXBean threadBean) {
+	    if (!(threadBean instanceof com.sun.management.ThreadMXBean)) {
+		return false;
+	    }
+	    com.sun.management.ThreadMXBean sunThreadBean = (com.sun.management.ThreadMXBean) threadBean;
+	    if (!sunThreadBean.isThreadAllocatedMemorySupported()) {
+		return false;
+	    }
+	    if (!sunThreadBean.isThreadAllocatedMemoryEnabled()) {
+		sunThreadBean.setThreadAllocatedMemoryEnabled(true);
+	    }
+	    return true;
+	}
+
+	private static long getAllocatedBytes(ThreadMXBean threadBean, long threadId) {
+	    return ((com.sun.management.ThreadMXBean) threadBean).getThreadAllocatedBytes(threadId);
+	}
+    }
+}
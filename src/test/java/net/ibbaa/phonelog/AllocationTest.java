@@ -0,0 +1,104 @@
+package net.ibbaa.phonelog;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class AllocationTest {
+
+    private final static int WARMUP_CALLS = 20000;
+    private final static int MEASURED_CALLS = 10000;
+    private final static long DISABLED_LEVEL_BUDGET = 16;
+    private final static long ENABLED_LEVEL_BUDGET = 256;
+    private final static long FORMAT_BUDGET = 4096;
+
+    private LogFileManager logFileManager;
+    private ThreadMXBean threadBean;
+
+    @BeforeEach
+    public void beforeEachTestMethod() {
+	logFileManager = new LogFileManager();
+	logFileManager.delete(getTestLogFileFolder());
+	threadBean = ManagementFactory.getThreadMXBean();
+	assumeTrue(AllocatedMemory.isSupported(threadBean));
+	Log.initialize(null);
+    }
+
+    @AfterEach
+    public void afterEachTestMethod() throws Exception {
+	for (int ii = 0; ii < 600 && LogMetrics.getInstance().getCounter(LogMetrics.QUEUE_DEPTH) > 0; ii++) {
+	    Thread.sleep(50);
+	}
+    }
+
+    @Test
+    public void testLogDisabledLevel() {
+	Log.initialize(new FileLogger(LogLevel.ERROR, getTestLogFileFolder().getAbsolutePath()));
+	assertBudget(DISABLED_LEVEL_BUDGET, measure(() -> Log.d("tag", "message")));
+	Throwable throwable = new IllegalStateException();
+	assertBudget(DISABLED_LEVEL_BUDGET, measure(() -> Log.d("tag", "message", throwable)));
+	Log.initialize(null);
+    }
+
+    @Test
+    public void testLogEnabledLevel() {
+	Log.initialize(new FileLogger(LogLevel.DEBUG, getTestLogFileFolder().getAbsolutePath()));
+	assertBudget(ENABLED_LEVEL_BUDGET, measure(() -> Log.d("tag", "message")));
+	assertBudget(ENABLED_LEVEL_BUDGET, measure(() -> Log.e("tag", "message")));
+	Log.initialize(null);
+    }
+
+    @Test
+    public void testLogThrowable() {
+	Log.initialize(new FileLogger(LogLevel.DEBUG, getTestLogFileFolder().getAbsolutePath()));
+	Throwable throwable = new IllegalStateException();
+	assertBudget(ENABLED_LEVEL_BUDGET, measure(() -> Log.e("tag", "message", throwable)));
+	Log.initialize(null);
+    }
+
+    @Test
+    public void testFileLogger() {
+	FileLogger logger = new FileLogger(LogLevel.INFO, getTestLogFileFolder().getAbsolutePath());
+	assertBudget(DISABLED_LEVEL_BUDGET, measure(() -> logger.log("tag", "message", null, LogLevel.DEBUG)));
+	assertBudget(ENABLED_LEVEL_BUDGET, measure(() -> logger.log("tag", "message", null, LogLevel.INFO)));
+    }
+
+    @Test
+    public void testDefaultLogFormatter() {
+	DefaultLogFormatter formatter = new DefaultLogFormatter();
+	LogFileEntry entry = new LogFileEntry(System.currentTimeMillis(), "thread", LogLevel.DEBUG, "tag", "message", null);
+	assertBudget(FORMAT_BUDGET, measure(() -> formatter.formatLogFileEntry(entry, Charsets.UTF8_CHARSET)));
+    }
+
+    private void assertBudget(long budget, long allocatedBytes) {
+	assertTrue(allocatedBytes <= budget, "Allocated " + allocatedBytes + " bytes per call, budget is " + budget);
+    }
+
+    private long measure(Runnable call) {
+	for (int ii = 0; ii < WARMUP_CALLS; ii++) {
+	    call.run();
+	}
+	long threadId = Thread.currentThread().getId();
+	long start = AllocatedMemory.getAllocatedBytes(threadBean, threadId);
+	for (int ii = 0; ii < MEASURED_CALLS; ii++) {
+	    call.run();
+	}
+	return (AllocatedMemory.getAllocatedBytes(threadBean, threadId) - start) / MEASURED_CALLS;
+    }
+
+    private File getTestLogFileFolder() {
+	File dir = new File(System.getProperty("java.io.tmpdir"));
+	File logDir = new File(dir, "allocationdir");
+	if (!logDir.exists()) {
+	    assertTrue(logDir.mkdirs());
+	}
+	return logDir;
+    }
+}
@@ -0,0 +1,76 @@
+package net.ibbaa.phonelog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+
+public class AsyncLoggerTest {
+
+    @Test
+    public void testLogOrder() throws Exception {
+	MockLogger mockLogger = new MockLogger();
+	AsyncLogger logger = new AsyncLogger(mockLogger);
+	List<Thread> threads = new ArrayList<>();
+	for (int ii = 0; ii < 4; ii++) {
+	    Thread thread = new Thread(() -> {
+		for (int jj = 0; jj < 1000; jj++) {
+		    logger.log("tag", String.valueOf(jj), null, LogLevel.DEBUG);
+		}
+	    }, "thread" + ii);
+	    threads.add(thread);
+	    thread.start();
+	}
+	for (Thread thread : threads) {
+	    thread.join();
+	}
+	for (int ii = 0; ii < 500 && logger.getSink().getDeliveredCount() < 4000; ii++) {
+	    Thread.sleep(10);
+	}
+	assertEquals(4000, mockLogger.numberLogEntries());
+	Map<String, Integer> lastMessages = new HashMap<>();
+	for (int ii = 0; ii < 4000; ii++) {
+	    LogFileEntry entry = mockLogger.getEntry(ii);
+	    int message = Integer.parseInt(entry.getMessage());
+	    assertEquals(lastMessages.getOrDefault(entry.getThread(), -1) + 1, message);
+	    lastMessages.put(entry.getThread(), message);
+	}
+	assertEquals(4, lastMessages.size());
+	assertEquals(0, logger.getSink().getDroppedCount());
+    }
+
+    @Test
+    public void testSlowLogger() throws Exception {
+	CountDownLatch latch = new CountDownLatch(1);
+	MockLogger slowLogger = new MockLogger() {
+	    @Override
+	    public void log(LogFileEntry entry) {
+		try {
+		    latch.await();
+		} catch (InterruptedException exc) {
+		    Thread.currentThread().interrupt();
+		}
+		super.log(entry);
+	    }
+	};
+	AsyncLogger logger = new AsyncLogger(slowLogger);
+	long start = System.currentTimeMillis();
+	for (int ii = 0; ii < 100; ii++) {
+	    logger.log("tag", "message" + ii, null, LogLevel.DEBUG);
+	}
+	assertTrue(System.currentTimeMillis() - start < 500);
+	assertEquals(0, slowLogger.numberLogEntries());
+	latch.countDown();
+	for (int ii = 0; ii < 200 && logger.getSink().getDeliveredCount() < 100; ii++) {
+	    Thread.sleep(10);
+	}
+	assertEquals(100, slowLogger.numberLogEntries());
+	assertEquals("message99", slowLogger.getEntry(99).getMessage());
+    }
+}
@@ -0,0 +1,129 @@
+package net.ibbaa.phonelog;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class BinaryLogFormatterTest {
+
+    private BinaryLogFormatter binaryLogFormatter;
+
+    @BeforeEach
+    public void beforeEachTestMethod() {
+	binaryLogFormatter = new BinaryLogFormatter();
+    }
+
+    @Test
+    public void testEncodeDecode() throws Exception {
+	ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+	outputStream.write(binaryLogFormatter.startSegment());
+	outputStream.write(binaryLogFormatter.formatLogFileEntry(getTestEntry(getTestTimestamp(), "thread", LogLevel.DEBUG, "tag", "message1", null), Charsets.UTF8_CHARSET));
+	outputStream.write(binaryLogFormatter.formatLogFileEntry(getTestEntry(getTestTimestamp() - 5, "thread", LogLevel.ERROR, "tag", "message2", null), Charsets.UTF8_CHARSET));
+	outputStream.write(binaryLogFormatter.formatLogFileEntry(getTestEntry(getTestTimestamp() + 100, null, LogLevel.VERBOSE, null, "äöü", null), Charsets.UTF8_CHARSET));
+	byte[] data = outputStream.toByteArray();
+	assertTrue(BinaryLogDecoder.isBinaryLog(data, data.length));
+	BinaryLogDecoder decoder = new BinaryLogDecoder(new ByteArrayInputStream(data));
+	assertLogEntryEquals(decoder.readEntry(), getTestTimestamp(), "thread", LogLevel.DEBUG, "tag", "message1");
+	assertLogEntryEquals(decoder.readEntry(), getTestTimestamp() - 5, "thread", LogLevel.ERROR, "tag", "message2");
+	assertLogEntryEquals(decoder.readEntry(), getTestTimestamp() + 100, null, LogLevel.VERBOSE, null, "äöü");
+	assertNull(decoder.readEntry());
+	decoder.close();
+    }
+
+    @Test
+    public void testDictionary() {
+	binaryLogFormatter.startSegment();
+	byte[] first = binaryLogFormatter.formatLogFileEntry(getTestEntry(getTestTimestamp(), "thread", LogLevel.DEBUG, "tag", "message", null), Charsets.UTF8_CHARSET);
+	byte[] second = binaryLogFormatter.formatLogFileEntry(getTestEntry(getTestTimestamp(), "thread", LogLevel.DEBUG, "tag", "message", null), Charsets.UTF8_CHARSET);
+	assertTrue(second.length < first.length);
+	binaryLogFormatter.startSegment();
+	byte[] third = binaryLogFormatter.formatLogFileEntry(getTestEntry(getTestTimestamp(), "thread", LogLevel.DEBUG, "tag", "message", null), Charsets.UTF8_CHARSET);
+	assertArrayEquals(first, third);
+    }
+
+    @Test
+    public void testSegmentReset() throws Exception {
+	ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+	outputStream.write(binaryLogFormatter.startSegment());
+	outputStream.write(binaryLogFormatter.formatLogFileEntry(getTestEntry(getTestTimestamp(), "thread1", LogLevel.DEBUG, "tag1", "message1", null), Charsets.UTF8_CHARSET));
+	BinaryLogFormatter otherFormatter = new BinaryLogFormatter();
+	outputStream.write(otherFormatter.startSegment());
+	outputStream.write(otherFormatter.formatLogFileEntry(getTestEntry(getTestTimestamp() + 1, "thread2", LogLevel.INFO, "tag2", "message2", null), Charsets.UTF8_CHARSET));
+	BinaryLogDecoder decoder = new BinaryLogDecoder(new ByteArrayInputStream(outputStream.toByteArray()));
+	assertLogEntryEquals(decoder.readEntry(), getTestTimestamp(), "thread1", LogLevel.DEBUG, "tag1", "message1");
+	assertLogEntryEquals(decoder.readEntry(), getTestTimestamp() + 1, "thread2", LogLevel.INFO, "tag2", "message2");
+	assertNull(decoder.readEntry());
+	decoder.close();
+    }
+
+    @Test
+    public void testTruncated() throws Exception {
+	ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+	outputStream.write(binaryLogFormatter.startSegment());
+	outputStream.write(binaryLogFormatter.formatLogFileEntry(getTestEntry(getTestTimestamp(), "thread", LogLevel.DEBUG, "tag", "message1", null), Charsets.UTF8_CHARSET));
+	outputStream.write(binaryLogFormatter.formatLogFileEntry(getTestEntry(getTestTimestamp(), "thread", LogLevel.DEBUG, "tag", "message2", null), Charsets.UTF8_CHARSET));
+	byte[] data = outputStream.toByteArray();
+	BinaryLogDecoder decoder = new BinaryLogDecoder(new ByteArrayInputStream(Arrays.copyOf(data, data.length - 3)));
+	assertLogEntryEquals(decoder.readEntry(), getTestTimestamp(), "thread", LogLevel.DEBUG, "tag", "message1");
+	assertNull(decoder.readEntry());
+	decoder.close();
+    }
+
+    @Test
+    public void testInvalid() {
+	byte[] data = "2020-01-01 00:00:00.000 DEBUG tag: message".getBytes(Charsets.UTF8_CHARSET);
+	assertFalse(BinaryLogDecoder.isBinaryLog(data, data.length));
+	BinaryLogDecoder decoder = new BinaryLogDecoder(new ByteArrayInputStream(data));
+	assertThrows(IOException.class, decoder::readEntry);
+    }
+
+    @Test
+    public void testDecodeToText() throws Exception {
+	DefaultLogFormatter defaultLogFormatter = new DefaultLogFormatter();
+	LogFileEntry entry1 = getTestEntry(getTestTimestamp(), "thread", LogLevel.DEBUG, "tag", "message1", null);
+	LogFileEntry entry2 = getTestEntry(getTestTimestamp(), "thread", LogLevel.ERROR, "tag", "message2", new IllegalArgumentException(new NullPointerException()));
+	ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+	outputStream.write(binaryLogFormatter.startSegment());
+	outputStream.write(binaryLogFormatter.formatLogFileEntry(entry1, Charsets.UTF8_CHARSET));
+	outputStream.write(binaryLogFormatter.formatLogFileEntry(entry2, Charsets.UTF8_CHARSET));
+	BinaryLogDecoder decoder = new BinaryLogDecoder(new ByteArrayInputStream(outputStream.toByteArray()));
+	ByteArrayOutputStream textStream = new ByteArrayOutputStream();
+	decoder.decodeToText(textStream, Charsets.UTF8_CHARSET);
+	decoder.close();
+	String expected = defaultLogFormatter.formatLogFileEntry(entry1) + defaultLogFormatter.formatLogFileEntry(entry2);
+	assertEquals(expected, new String(textStream.toByteArray(), Charsets.UTF8_CHARSET));
+	assertEquals(defaultLogFormatter.formatLogFileEntry(entry1), binaryLogFormatter.formatLogFileEntry(entry1));
+    }
+
+    private void assertLogEntryEquals(LogFileEntry logEntry, long timestamp, String thread, LogLevel level, String tag, String message) {
+	assertEquals(timestamp, logEntry.getTimestamp());
+	assertEquals(thread, logEntry.getThread());
+	assertEquals(level, logEntry.getLevel());
+	assertEquals(tag, logEntry.getTag());
+	assertEquals(message, logEntry.getMessage());
+	assertNull(logEntry.getThrowable());
+    }
+
+    private long getTestTimestamp() {
+	Calendar calendar = new GregorianCalendar(1985, Calendar.DECEMBER, 24, 1, 1, 1);
+	calendar.set(Calendar.MILLISECOND, 999);
+	return calendar.getTimeInMillis();
+    }
+
+    private LogFileEntry getTestEntry(long timestamp, String thread, LogLevel level, String tag, String message, Throwable exc) {
+	return new LogFileEntry(timestamp, thread, level, tag, message, exc);
+    }
+}
@@ -0,0 +1,106 @@
+package net.ibbaa.phonelog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+
+public class CompositeLoggerTest {
+
+    @Test
+    public void testLog() throws Exception {
+	MockLogger mockLogger1 = new MockLogger();
+	MockLogger mockLogger2 = new MockLogger();
+	CompositeLogger logger = new CompositeLogger(mockLogger1, mockLogger2);
+	logger.log("tag", "message1", null, LogLevel.DEBUG);
+	logger.log(new LogFileEntry(1000, "thread", LogLevel.ERROR, "tag", "message2", null));
+	waitForDelivered(logger.getSinks().get(0), 2);
+	waitForDelivered(logger.getSinks().get(1), 2);
+	assertEquals(2, mockLogger1.numberLogEntries());
+	assertEquals(2, mockLogger2.numberLogEntries());
+	assertEquals(Thread.currentThread().getName(), mockLogger1.getEntry(0).getThread());
+	assertEquals(1000, mockLogger2.getEntry(1).getTimestamp());
+	assertEquals(1000, logger.getSinks().get(1).getLastDeliveredTimestamp());
+    }
+
+    @Test
+    public void testSlowSink() throws Exception {
+	CountDownLatch latch = new CountDownLatch(1);
+	MockLogger slowLogger = new MockLogger() {
+	    @Override
+	    public void log(LogFileEntry entry) {
+		try {
+		    latch.await();
+		} catch (InterruptedException exc) {
+		    Thread.currentThread().interrupt();
+		}
+		super.log(entry);
+	    }
+	};
+	MockLogger fastLogger = new MockLogger();
+	LogSink slowSink = new LogSink(slowLogger, 2, LogOverflowPolicy.DROP_NEWEST);
+	LogSink fastSink = new LogSink(fastLogger);
+	CompositeLogger logger = new CompositeLogger(slowSink, fastSink);
+	logger.log("tag", "message0", null, LogLevel.DEBUG);
+	for (int ii = 0; ii < 100 && slowSink.getQueuedCount() > 0; ii++) {
+	    Thread.sleep(10);
+	}
+	for (int ii = 1; ii < 10; ii++) {
+	    logger.log("tag", "message" + ii, null, LogLevel.DEBUG);
+	}
+	waitForDelivered(fastSink, 10);
+	assertEquals(10, fastLogger.numberLogEntries());
+	assertEquals(0, fastSink.getDroppedCount());
+	assertEquals(2, slowSink.getQueuedCount());
+	assertEquals(7, slowSink.getDroppedCount());
+	Thread.sleep(20);
+	assertTrue(slowSink.getLag() > 0);
+	latch.countDown();
+	waitForDelivered(slowSink, 3);
+	assertEquals(3, slowLogger.numberLogEntries());
+	assertEquals("message0", slowLogger.getEntry(0).getMessage());
+	assertEquals("message1", slowLogger.getEntry(1).getMessage());
+	assertEquals("message2", slowLogger.getEntry(2).getMessage());
+	assertEquals(0, slowSink.getLag());
+    }
+
+    @Test
+    public void testDropOldest() throws Exception {
+	CountDownLatch latch = new CountDownLatch(1);
+	MockLogger slowLogger = new MockLogger() {
+	    @Override
+	    public void log(LogFileEntry entry) {
+		try {
+		    latch.await();
+		} catch (InterruptedException exc) {
+		    Thread.currentThread().interrupt();
+		}
+		super.log(entry);
+	    }
+	};
+	LogSink slowSink = new LogSink(slowLogger, 2, LogOverflowPolicy.DROP_OLDEST);
+	CompositeLogger logger = new CompositeLogger(slowSink);
+	logger.log("tag", "message0", null, LogLevel.DEBUG);
+	for (int ii = 0; ii < 100 && slowSink.getQueuedCount() > 0; ii++) {
+	    Thread.sleep(10);
+	}
+	for (int ii = 1; ii < 10; ii++) {
+	    logger.log("tag", "message" + ii, null, LogLevel.DEBUG);
+	}
+	assertEquals(7, slowSink.getDroppedCount());
+	latch.countDown();
+	waitForDelivered(slowSink, 3);
+	assertEquals("message0", slowLogger.getEntry(0).getMessage());
+	assertEquals("message8", slowLogger.getEntry(1).getMessage());
+	assertEquals("message9", slowLogger.getEntry(2).getMessage());
+    }
+
+    private void waitForDelivered(LogSink sink, int count) throws InterruptedException {
+	for (int ii = 0; ii < 200 && sink.getDeliveredCount() < count; ii++) {
+	    Thread.sleep(10);
+	}
+	assertEquals(count, sink.getDeliveredCount());
+    }
+}
@@ -0,0 +1,66 @@
+package net.ibbaa.phonelog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ContextBufferingLoggerTest {
+
+    private MockLogger mockLogger;
+
+    @BeforeEach
+    public void beforeEachTestMethod() {
+	mockLogger = new MockLogger();
+    }
+
+    @Test
+    public void testBufferAndTrigger() {
+	ContextBufferingLogger logger = new ContextBufferingLogger(mockLogger, 3, 60000);
+	logger.log(new LogFileEntry(System.currentTimeMillis(), "thread1", LogLevel.DEBUG, "tag", "message1", null));
+	logger.log(new LogFileEntry(System.currentTimeMillis(), "thread1", LogLevel.VERBOSE, "tag", "message2", null));
+	logger.log(new LogFileEntry(System.currentTimeMillis(), "thread1", LogLevel.DEBUG, "tag", "message3", null));
+	logger.log(new LogFileEntry(System.currentTimeMillis(), "thread1", LogLevel.DEBUG, "tag", "message4", null));
+	logger.log(new LogFileEntry(System.currentTimeMillis(), "thread2", LogLevel.DEBUG, "tag", "message5", null));
+	assertFalse(mockLogger.wasLogCalled());
+	assertEquals(4, logger.getBufferedEntryCount());
+	logger.log(new LogFileEntry(System.currentTimeMillis(), "thread1", LogLevel.INFO, "tag", "message6", null));
+	assertEquals(1, mockLogger.numberLogEntries());
+	assertEquals("message6", mockLogger.getEntry(0).getMessage());
+	logger.log(new LogFileEntry(System.currentTimeMillis(), "thread1", LogLevel.ERROR, "tag", "message7", null));
+	assertEquals(5, mockLogger.numberLogEntries());
+	assertEquals("message2", mockLogger.getEntry(1).getMessage());
+	assertEquals("message3", mockLogger.getEntry(2).getMessage());
+	assertEquals("message4", mockLogger.getEntry(3).getMessage());
+	assertEquals("message7", mockLogger.getEntry(4).getMessage());
+	assertEquals(1, logger.getBufferedEntryCount());
+    }
+
+    @Test
+    public void testBufferByTag() {
+	ContextBufferingLogger logger = new ContextBufferingLogger(mockLogger, 200, 60000, LogLevel.INFO, LogLevel.WARN, true);
+	logger.log("tag1", "message1", null, LogLevel.INFO);
+	logger.log("tag2", "message2", null, LogLevel.DEBUG);
+	logger.log("tag1", "message3", null, LogLevel.WARN);
+	assertEquals(2, mockLogger.numberLogEntries());
+	assertEquals("message1", mockLogger.getEntry(0).getMessage());
+	assertEquals(Thread.currentThread().getName(), mockLogger.getEntry(0).getThread());
+	assertEquals("message3", mockLogger.getEntry(1).getMessage());
+	assertEquals(1, logger.getBufferedEntryCount());
+    }
+
+    @Test
+    public void testExpiry() {
+	ContextBufferingLogger logger = new ContextBufferingLogger(mockLogger, 200, 1000);
+	long now = System.currentTimeMillis();
+	logger.log(new LogFileEntry(now - 5000, "thread", LogLevel.DEBUG, "tag", "message1", null));
+	logger.log(new LogFileEntry(now, "thread", LogLevel.DEBUG, "tag", "message2", null));
+	logger.log(new LogFileEntry(now, "thread", LogLevel.ERROR, "tag", "message3", null));
+	assertEquals(2, mockLogger.numberLogEntries());
+	assertEquals("message2", mockLogger.getEntry(0).getMessage());
+	assertEquals(now, mockLogger.getEntry(0).getTimestamp());
+	logger.log(new LogFileEntry(now - 5000, "thread", LogLevel.DEBUG, "tag", "message4", null));
+	assertEquals(0, logger.getBufferedEntryCount());
+    }
+}
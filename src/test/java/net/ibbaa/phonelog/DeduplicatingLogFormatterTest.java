@@ -0,0 +1,103 @@
+package net.ibbaa.phonelog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class DeduplicatingLogFormatterTest {
+
+    private DeduplicatingLogFormatter logFormatter;
+
+    @BeforeEach
+    public void beforeEachTestMethod() {
+	logFormatter = new DeduplicatingLogFormatter(2);
+    }
+
+    @Test
+    public void testFingerprint() {
+	Throwable[] exceptions = createExceptions("message1", "message2");
+	Throwable exc1 = exceptions[0];
+	Throwable exc2 = exceptions[1];
+	Throwable exc3 = new IllegalStateException("message1");
+	assertEquals(DeduplicatingLogFormatter.getFingerprint(exc1), DeduplicatingLogFormatter.getFingerprint(exc2));
+	assertNotEquals(DeduplicatingLogFormatter.getFingerprint(exc1), DeduplicatingLogFormatter.getFingerprint(exc3));
+	assertTrue(DeduplicatingLogFormatter.getFingerprint(exc1).startsWith("java.lang.IllegalStateException@"));
+	Throwable exc4 = new IllegalArgumentException("cause");
+	exc4.initCause(exc1);
+	assertNotEquals(DeduplicatingLogFormatter.getFingerprint(exc4), DeduplicatingLogFormatter.getFingerprint(new IllegalArgumentException("cause")));
+    }
+
+    @Test
+    public void testDeduplicate() {
+	Throwable[] exceptions = createExceptions("message1", "message2", "message3");
+	String fingerprint = DeduplicatingLogFormatter.getFingerprint(exceptions[0]);
+	String message1 = logFormatter.formatLogFileEntry(createEntry(exceptions[0]));
+	String message2 = logFormatter.formatLogFileEntry(createEntry(exceptions[1]));
+	assertTrue(message1.contains(DeduplicatingLogFormatter.STACK_TRACE_MARKER + fingerprint + System.lineSeparator() + "java.lang.IllegalStateException: message1" + System.lineSeparator() + "\tat "));
+	assertTrue(message2.endsWith(DeduplicatingLogFormatter.STACK_TRACE_REFERENCE_MARKER + fingerprint + System.lineSeparator() + "java.lang.IllegalStateException: message2" + System.lineSeparator() + System.lineSeparator()));
+	assertFalse(message2.contains("\tat "));
+	logFormatter.startSegment();
+	assertTrue(logFormatter.formatLogFileEntry(createEntry(exceptions[2])).contains(DeduplicatingLogFormatter.STACK_TRACE_MARKER));
+    }
+
+    @Test
+    public void testCacheBounded() {
+	Throwable exc1 = new IllegalStateException("message");
+	Throwable exc2 = new IllegalStateException();
+	Throwable exc3 = new IllegalArgumentException();
+	logFormatter.formatLogFileEntry(createEntry(exc1));
+	logFormatter.formatLogFileEntry(createEntry(exc2));
+	logFormatter.formatLogFileEntry(createEntry(exc3));
+	assertTrue(logFormatter.formatLogFileEntry(createEntry(exc1)).contains(DeduplicatingLogFormatter.STACK_TRACE_MARKER));
+	assertTrue(logFormatter.formatLogFileEntry(createEntry(exc3)).contains(DeduplicatingLogFormatter.STACK_TRACE_REFERENCE_MARKER));
+    }
+
+    @Test
+    public void testExpand() throws Exception {
+	DefaultLogFormatter defaultFormatter = new DefaultLogFormatter();
+	StringBuilder expected = new StringBuilder();
+	StringBuilder deduplicated = new StringBuilder();
+	Throwable[] exceptions = createExceptions("message0", "message1", "message2", "message3", "message4");
+	exceptions[2] = new IllegalArgumentException("other");
+	for (int ii = 0; ii < 5; ii++) {
+	    Throwable exc = exceptions[ii];
+	    LogFileEntry entry = createEntry(exc);
+	    expected.append(defaultFormatter.formatLogFileEntry(entry));
+	    deduplicated.append(logFormatter.formatLogFileEntry(entry));
+	    entry = new LogFileEntry(1, "thread", LogLevel.INFO, "tag", "no exception", null);
+	    expected.append(defaultFormatter.formatLogFileEntry(entry));
+	    deduplicated.append(logFormatter.formatLogFileEntry(entry));
+	}
+	assertTrue(deduplicated.length() < expected.length());
+	ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+	new LogStackTraceExpander().expand(new ByteArrayInputStream(deduplicated.toString().getBytes(Charsets.UTF8_CHARSET)), outputStream);
+	assertEquals(expected.toString(), new String(outputStream.toByteArray(), Charsets.UTF8_CHARSET));
+    }
+
+    @Test
+    public void testExpandUnknownReference() throws Exception {
+	String log = "1985-12-24 01:01:01.999 [thread] ERROR tag: message" + System.lineSeparator() + DeduplicatingLogFormatter.STACK_TRACE_REFERENCE_MARKER + "unknown" + System.lineSeparator() + "java.lang.IllegalStateException" + System.lineSeparator() + System.lineSeparator();
+	ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+	new LogStackTraceExpander().expand(new ByteArrayInputStream(log.getBytes(Charsets.UTF8_CHARSET)), outputStream);
+	assertEquals(log, new String(outputStream.toByteArray(), Charsets.UTF8_CHARSET));
+    }
+
+    private Throwable[] createExceptions(String... messages) {
+	Throwable[] exceptions = new Throwable[messages.length];
+	for (int ii = 0; ii < messages.length; ii++) {
+	    exceptions[ii] = new IllegalStateException(messages[ii]);
+	}
+	return exceptions;
+    }
+
+    private LogFileEntry createEntry(Throwable exc) {
+	return new LogFileEntry(1, "thread", LogLevel.ERROR, "tag", "message", exc);
+    }
+}
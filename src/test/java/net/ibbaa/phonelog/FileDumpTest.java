@@ -0,0 +1,205 @@
+package net.ibbaa.phonelog;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class FileDumpTest {
+
+    private LogFileManager logFileManager;
+
+    @BeforeEach
+    public void beforeEachTestMethod() {
+	logFileManager = new LogFileManager();
+	logFileManager.delete(getTestDumpFolder());
+    }
+
+    @Test
+    public void testDump() throws Exception {
+	File dumpDir = getTestDumpFolder();
+	FileDump fileDump = new FileDump(dumpDir.getAbsolutePath(), 0, -1, "txt", "No entries.");
+	long dumps = LogMetrics.getInstance().getHistogram(LogMetrics.DUMP_TIME).getCount();
+	fileDump.dump("tag", "message", "dump", () -> Arrays.asList("line1", "line2"));
+	waitForDumps(dumps + 1);
+	List<File> files = getDumpFiles(dumpDir, "dump");
+	assertEquals(1, files.size());
+	String content = readFile(files.get(0));
+	assertTrue(content.contains("DEBUG tag: message"));
+	assertTrue(content.endsWith("line1" + System.lineSeparator() + "line2" + System.lineSeparator()));
+    }
+
+    @Test
+    public void testDumpCoalesced() throws Exception {
+	File dumpDir = getTestDumpFolder();
+	FileDump fileDump = new FileDump(dumpDir.getAbsolutePath(), 0, -1, "txt", "No entries.");
+	LogMetrics metrics = LogMetrics.getInstance();
+	long dumps = metrics.getHistogram(LogMetrics.DUMP_TIME).getCount();
+	long queued = metrics.getHistogram(LogMetrics.DUMP_QUEUE_TIME).getCount();
+	long coalesced = metrics.getCounter(LogMetrics.DUMPS_COALESCED);
+	CountDownLatch started = new CountDownLatch(1);
+	CountDownLatch release = new CountDownLatch(1);
+	fileDump.dump(null, null, "block", () -> {
+	    started.countDown();
+	    try {
+		release.await(10, TimeUnit.SECONDS);
+	    } catch (InterruptedException exc) {
+		Thread.currentThread().interrupt();
+	    }
+	    return Collections.singletonList("blocked");
+	});
+	assertTrue(started.await(10, TimeUnit.SECONDS));
+	for (int ii = 0; ii < 10; ii++) {
+	    String line = "latest" + ii;
+	    fileDump.dump(null, null, "coalesced", () -> Collections.singletonList(line));
+	}
+	fileDump.dump(null, null, "other", () -> Collections.singletonList("other"));
+	assertEquals(coalesced + 9, metrics.getCounter(LogMetrics.DUMPS_COALESCED));
+	release.countDown();
+	waitForDumps(dumps + 3);
+	assertEquals(queued + 3, metrics.getHistogram(LogMetrics.DUMP_QUEUE_TIME).getCount());
+	List<File> files = getDumpFiles(dumpDir, "coalesced");
+	assertEquals(1, files.size());
+	assertEquals("latest9" + System.lineSeparator(), readFile(files.get(0)));
+	assertEquals(1, getDumpFiles(dumpDir, "block").size());
+	assertEquals(1, getDumpFiles(dumpDir, "other").size());
+    }
+
+    @Test
+    public void testDumpCoalescedOtherInstance() throws Exception {
+	File dumpDir = getTestDumpFolder();
+	FileDump fileDump = new FileDump(dumpDir.getAbsolutePath(), 0, -1, "txt", "No entries.");
+	FileDump otherFileDump = new FileDump(dumpDir.getAbsolutePath(), 0, -1, "txt", "Nothing.");
+	long dumps = LogMetrics.getInstance().getHistogram(LogMetrics.DUMP_TIME).getCount();
+	CountDownLatch started = new CountDownLatch(1);
+	CountDownLatch release = new CountDownLatch(1);
+	fileDump.dump(null, null, "block", () -> {
+	    started.countDown();
+	    try {
+		release.await(10, TimeUnit.SECONDS);
+	    } catch (InterruptedException exc) {
+		Thread.currentThread().interrupt();
+	    }
+	    return Collections.singletonList("blocked");
+	});
+	assertTrue(started.await(10, TimeUnit.SECONDS));
+	fileDump.dump(null, null, "coalesced", () -> Collections.emptyList());
+	otherFileDump.dump(null, null, "coalesced", () -> Collections.emptyList());
+	release.countDown();
+	waitForDumps(dumps + 2);
+	List<File> files = getDumpFiles(dumpDir, "coalesced");
+	assertEquals(1, files.size());
+	assertEquals("Nothing." + System.lineSeparator(), readFile(files.get(0)));
+    }
+
+    @Test
+    public void testStreamingDump() throws Exception {
+	File dumpDir = getTestDumpFolder();
+	FileDump fileDump = new FileDump(dumpDir.getAbsolutePath(), 0, -1, "txt", "No entries.");
+	long dumps = LogMetrics.getInstance().getHistogram(LogMetrics.DUMP_TIME).getCount();
+	fileDump.dump(null, null, null, (IStreamingDumpSource) consumer -> {
+	    consumer.accept(null);
+	    for (int ii = 0; ii < 100000; ii++) {
+		consumer.accept(ii);
+	    }
+	});
+	fileDump.dump("tag", "message", "empty", (IStreamingDumpSource) consumer -> {
+	});
+	fileDump.dump(null, null, null, (IStreamingDumpSource) consumer -> {
+	});
+	waitForDumps(dumps + 3);
+	List<File> files = getDumpFiles(dumpDir, "integer");
+	assertEquals(1, files.size());
+	StringBuilder expected = new StringBuilder();
+	for (int ii = 0; ii < 100000; ii++) {
+	    expected.append(ii).append(System.lineSeparator());
+	}
+	assertEquals(expected.toString(), readFile(files.get(0)));
+	files = getDumpFiles(dumpDir, "empty");
+	assertEquals(1, files.size());
+	String content = readFile(files.get(0));
+	assertTrue(content.contains("DEBUG tag: message"));
+	assertTrue(content.endsWith("No entries." + System.lineSeparator()));
+	assertEquals(2, dumpDir.listFiles().length);
+    }
+
+    @Test
+    public void testStreamingDumpSourceAsList() {
+	IStreamingDumpSource source = consumer -> {
+	    consumer.accept("a");
+	    consumer.accept("b");
+	};
+	assertEquals(Arrays.asList("a", "b"), source.objectsToDump());
+    }
+
+    @Test
+    public void testDumpFileWriter() throws Exception {
+	File file = new File(getTestDumpFolder(), "writer.txt");
+	StringBuilder expected = new StringBuilder();
+	try (DumpFileWriter writer = new DumpFileWriter(file)) {
+	    for (int ii = 0; ii < 5000; ii++) {
+		String line = "line" + ii + " äöü€😀";
+		writer.writeLine(line);
+		expected.append(line).append(System.lineSeparator());
+	    }
+	    writer.write("end\ud800");
+	    expected.append("end\ud800");
+	}
+	assertArrayEquals(expected.toString().getBytes(Charsets.UTF8_CHARSET), readBytes(file));
+    }
+
+    private void waitForDumps(long count) throws InterruptedException {
+	LogLatencyHistogram histogram = LogMetrics.getInstance().getHistogram(LogMetrics.DUMP_TIME);
+	long deadline = System.currentTimeMillis() + 10000;
+	while (histogram.getCount() < count && System.currentTimeMillis() < deadline) {
+	    Thread.sleep(10);
+	}
+	assertTrue(histogram.getCount() >= count);
+    }
+
+    private List<File> getDumpFiles(File dumpDir, String baseFileName) {
+	List<File> files = new ArrayList<>();
+	for (File file : dumpDir.listFiles()) {
+	    if (file.getName().startsWith(baseFileName)) {
+		files.add(file);
+	    }
+	}
+	return files;
+    }
+
+    private String readFile(File file) throws Exception {
+	return new String(readBytes(file), Charsets.UTF8_CHARSET);
+    }
+
+    private byte[] readBytes(File file) throws Exception {
+	try (InputStream inputStream = new FileInputStream(file)) {
+	    byte[] data = new byte[(int) file.length()];
+	    int read = 0;
+	    while (read < data.length) {
+		read += inputStream.read(data, read, data.length - read);
+	    }
+	    return data;
+	}
+    }
+
+    private File getTestDumpFolder() {
+	File dir = new File(System.getProperty("java.io.tmpdir"));
+	File dumpDir = new File(dir, "dumpdir");
+	if (!dumpDir.exists()) {
+	    assertTrue(dumpDir.mkdirs());
+	}
+	return dumpDir;
+    }
+}
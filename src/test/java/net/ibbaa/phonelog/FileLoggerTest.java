@@ -0,0 +1,354 @@
+package net.ibbaa.phonelog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+public class FileLoggerTest {
+
+    private LogFileManager logFileManager;
+    private File logDir;
+
+    @BeforeEach
+    public void beforeEachTestMethod(TestInfo testInfo) {
+	logFileManager = new LogFileManager();
+	logDir = getTestLogFileFolder(testInfo.getTestMethod().get().getName());
+    }
+
+    @Test
+    public void testLog() throws Exception {
+	FileLogger logger = new FileLogger(logDir.getAbsolutePath());
+	logger.log("tag", "message1", null, LogLevel.DEBUG);
+	logger.log("tag", "message2", null, LogLevel.VERBOSE);
+	logger.log("tag", "message3", null, LogLevel.ERROR);
+	File logFile = new File(logDir, "app.log");
+	String content = waitForContent(logFile, "message3", false);
+	assertTrue(content.contains("DEBUG tag: message1"));
+	assertFalse(content.contains("message2"));
+	assertTrue(content.contains("ERROR tag: message3"));
+    }
+
+    @Test
+    public void testCompressedLog() throws Exception {
+	FileLogger logger = new FileLogger(LogLevel.DEBUG, 1024 * 1024, 50, -1, -1, true, logDir.getAbsolutePath(), "test.log", new DefaultLogFormatter(), null);
+	logger.log("tag", "message1", null, LogLevel.DEBUG);
+	File logFile = new File(logDir, "test.log.gz");
+	waitForContent(logFile, "message1", true);
+	logger.log("tag", "message2", null, LogLevel.INFO);
+	String content = waitForContent(logFile, "message2", true);
+	assertTrue(content.contains("DEBUG tag: message1"));
+	assertTrue(content.contains("INFO tag: message2"));
+	assertFalse(new File(logDir, "test.log").exists());
+    }
+
+    @Test
+    public void testCompressedLogRotation() throws Exception {
+	FileLogger logger = new FileLogger(LogLevel.DEBUG, 1000, -1, -1, -1, true, logDir.getAbsolutePath(), "test.log", new DefaultLogFormatter(), null);
+	Random random = new Random(1);
+	for (int ii = 0; ii < 10; ii++) {
+	    StringBuilder data = new StringBuilder();
+	    for (int jj = 0; jj < 10000; jj++) {
+		data.append((char) ('a' + random.nextInt(26)));
+	    }
+	    logger.log("tag", "message" + ii + " " + data, null, LogLevel.DEBUG);
+	}
+	String content = "";
+	for (int ii = 0; ii < 100 && !containsMessages(content, 10); ii++) {
+	    Thread.sleep(50);
+	    content = getDirectoryContent(logDir);
+	}
+	assertTrue(containsMessages(content, 10));
+	File[] files = logDir.listFiles();
+	assertTrue(files.length > 1);
+	for (File file : files) {
+	    assertTrue(file.getName().startsWith("test.log"));
+	    assertTrue(file.getName().endsWith(".gz"));
+	}
+    }
+
+    @Test
+    public void testCompressedLogOneMemberForBatches() throws Exception {
+	FileLogger logger = new FileLogger(LogLevel.DEBUG, 1024 * 1024, 50, -1, -1, true, logDir.getAbsolutePath(), "test.log", new DefaultLogFormatter(), null);
+	for (int ii = 0; ii < 10; ii++) {
+	    logger.log("tag", "message" + ii, null, LogLevel.DEBUG);
+	    assertEquals(ii + 1, waitForEntries("test.log", ii + 1));
+	}
+	byte[] data = getFileBytes(new File(logDir, "test.log.gz"));
+	assertEquals(1, countGzipHeaders(data));
+	FileLogger restartedLogger = new FileLogger(LogLevel.DEBUG, 1024 * 1024, 50, -1, -1, true, logDir.getAbsolutePath(), "test.log", new DefaultLogFormatter(), null);
+	restartedLogger.log("tag", "restarted", null, LogLevel.DEBUG);
+	assertEquals(11, waitForEntries("test.log", 11));
+	assertEquals(2, logDir.listFiles().length);
+	assertTrue(getFileContent(new File(logDir, "test.log.gz"), true).contains("restarted"));
+    }
+
+    @Test
+    public void testBinaryLog() throws Exception {
+	FileLogger logger = new FileLogger(LogLevel.DEBUG, 1024 * 1024, 50, -1, logDir.getAbsolutePath(), "test.log", new BinaryLogFormatter(), null);
+	logger.log("tag", "message1", null, LogLevel.DEBUG);
+	logger.log("tag", "message2", null, LogLevel.INFO);
+	File logFile = new File(logDir, "test.log");
+	String content = "";
+	for (int ii = 0; ii < 100 && !content.contains("message2"); ii++) {
+	    Thread.sleep(50);
+	    if (logFile.exists()) {
+		BinaryLogDecoder decoder = new BinaryLogDecoder(new FileInputStream(logFile));
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		decoder.decodeToText(outputStream, Charsets.UTF8_CHARSET);
+		decoder.close();
+		content = new String(outputStream.toByteArray(), Charsets.UTF8_CHARSET);
+	    }
+	}
+	assertTrue(content.contains("DEBUG tag: message1"));
+	assertTrue(content.contains("INFO tag: message2"));
+    }
+
+    @Test
+    public void testSharedSegmentFormatter() {
+	BinaryLogFormatter formatter = new BinaryLogFormatter();
+	new FileLogger(LogLevel.DEBUG, 1024 * 1024, 50, -1, logDir.getAbsolutePath(), "test1.log", formatter, null);
+	assertThrows(IllegalArgumentException.class, () -> new FileLogger(LogLevel.DEBUG, 1024 * 1024, 50, -1, logDir.getAbsolutePath(), "test2.log", formatter, null));
+    }
+
+    @Test
+    public void testIndex() throws Exception {
+	FileLogger logger = new FileLogger(LogLevel.DEBUG, 1024 * 1024, 50, -1, -1, false, 100, logDir.getAbsolutePath(), "test.log", new DefaultLogFormatter(), null);
+	for (int ii = 0; ii < 20; ii++) {
+	    logger.log("tag", "message" + ii, null, LogLevel.DEBUG);
+	}
+	assertEquals(20, waitForEntries("test.log", 20));
+	File logFile = new File(logDir, "test.log");
+	LogFileIndex index = waitForIndex(new File(logDir, "test.log.idx"));
+	assertTrue(index.size() > 1);
+	assertEquals(0, index.findOffset(Long.MIN_VALUE));
+	long offset = index.findOffset(Long.MAX_VALUE);
+	assertTrue(offset > 0);
+	InputStream inputStream = new FileInputStream(logFile);
+	inputStream.skip(offset);
+	TextLogDecoder decoder = new TextLogDecoder(inputStream);
+	LogFileEntry entry = decoder.readEntry();
+	decoder.close();
+	assertTrue(entry.getMessage().startsWith("message"));
+    }
+
+    @Test
+    public void testCompressedBinaryIndex() throws Exception {
+	FileLogger logger = new FileLogger(LogLevel.DEBUG, 1024 * 1024, 50, -1, -1, true, 100, logDir.getAbsolutePath(), "test.log", new BinaryLogFormatter(), null);
+	for (int ii = 0; ii < 20; ii++) {
+	    logger.log("tag", "message" + ii, null, LogLevel.DEBUG);
+	}
+	assertEquals(20, waitForEntries("test.log", 20));
+	LogFileIndex index = waitForIndex(new File(logDir, "test.log.gz.idx"));
+	assertTrue(index.size() > 1);
+	long offset = index.findOffset(Long.MAX_VALUE);
+	assertTrue(offset > 0);
+	InputStream inputStream = new FileInputStream(new File(logDir, "test.log.gz"));
+	inputStream.skip(offset);
+	BinaryLogDecoder decoder = new BinaryLogDecoder(new GZIPInputStream(inputStream));
+	LogFileEntry entry = decoder.readEntry();
+	decoder.close();
+	assertEquals("tag", entry.getTag());
+	assertTrue(entry.getMessage().startsWith("message"));
+    }
+
+    @Test
+    public void testBloomFilter() throws Exception {
+	File existingFile = new File(logDir, "test.log");
+	FileOutputStream outputStream = new FileOutputStream(existingFile);
+	outputStream.write(new DefaultLogFormatter().formatLogFileEntry(new LogFileEntry(System.currentTimeMillis(), "thread", LogLevel.DEBUG, "tag", "existing", null), Charsets.UTF8_CHARSET));
+	outputStream.close();
+	FileLogger logger = new FileLogger(LogLevel.DEBUG, 100, -1, -1, -1, false, -1, -1, 1024, logDir.getAbsolutePath(), "test.log", new DefaultLogFormatter(), null);
+	for (int ii = 0; ii < 10; ii++) {
+	    logger.log("tag", "message" + ii + " ERR-" + ii, null, LogLevel.DEBUG);
+	}
+	assertEquals(11, waitForEntries("test.log", 11));
+	int filteredFiles = 0;
+	for (File file : logDir.listFiles()) {
+	    if (file.getName().equals("test.log") || !file.getName().endsWith(".log")) {
+		continue;
+	    }
+	    File filterFile = new File(logDir, LogBloomFilter.getFilterFileName(file.getName()));
+	    TextLogDecoder decoder = new TextLogDecoder(new FileInputStream(file));
+	    List<String> messages = new ArrayList<>();
+	    LogFileEntry entry;
+	    while ((entry = decoder.readEntry()) != null) {
+		messages.add(entry.getMessage());
+	    }
+	    decoder.close();
+	    if (messages.contains("existing")) {
+		assertFalse(filterFile.exists());
+		continue;
+	    }
+	    InputStream inputStream = new FileInputStream(filterFile);
+	    LogBloomFilter filter = new LogBloomFilter(inputStream);
+	    inputStream.close();
+	    for (String message : messages) {
+		assertTrue(filter.mightContain(LogTokenizer.normalize(message.split(" ")[1])));
+		assertTrue(filter.mightContain("tag"));
+	    }
+	    filteredFiles++;
+	}
+	assertTrue(filteredFiles > 0);
+    }
+
+    @Test
+    public void testMetrics() throws Exception {
+	LogMetrics metrics = LogMetrics.getInstance();
+	long accepted = metrics.getCounter(LogMetrics.ENTRIES_ACCEPTED);
+	long filtered = metrics.getCounter(LogMetrics.ENTRIES_FILTERED);
+	long bytesWritten = metrics.getCounter(LogMetrics.BYTES_WRITTEN);
+	long rotations = metrics.getCounter(LogMetrics.ROTATIONS);
+	long batches = metrics.getHistogram(LogMetrics.BATCH_WRITE_TIME).getCount();
+	long enqueueToDisk = metrics.getHistogram(LogMetrics.ENQUEUE_TO_DISK_TIME).getCount();
+	FileLogger logger = new FileLogger(LogLevel.DEBUG, 10, 0, -1, -1, false, logDir.getAbsolutePath(), "test.log", new DefaultLogFormatter(), null);
+	for (int ii = 0; ii < 10; ii++) {
+	    logger.log("tag", "message" + ii, null, LogLevel.DEBUG);
+	}
+	logger.log("tag", "message", null, LogLevel.VERBOSE);
+	for (int ii = 0; ii < 100 && metrics.getCounter(LogMetrics.ROTATIONS) - rotations < 10; ii++) {
+	    Thread.sleep(50);
+	}
+	assertTrue(metrics.getCounter(LogMetrics.ENTRIES_ACCEPTED) - accepted >= 10);
+	assertTrue(metrics.getCounter(LogMetrics.ENTRIES_FILTERED) - filtered >= 1);
+	assertTrue(metrics.getCounter(LogMetrics.BYTES_WRITTEN) - bytesWritten >= 10 * "DEBUG tag: message0".length());
+	assertTrue(metrics.getCounter(LogMetrics.ROTATIONS) - rotations >= 10);
+	assertTrue(metrics.getHistogram(LogMetrics.BATCH_WRITE_TIME).getCount() > batches);
+	assertTrue(metrics.getHistogram(LogMetrics.ENQUEUE_TO_DISK_TIME).getCount() - enqueueToDisk >= 10);
+	assertTrue(metrics.getHistogram(LogMetrics.ROTATION_TIME).getCount() >= 10);
+    }
+
+    private int waitForEntries(String logFileName, int expected) throws Exception {
+	int count = 0;
+	for (int ii = 0; ii < 100 && count < expected; ii++) {
+	    Thread.sleep(50);
+	    count = 0;
+	    LogFileReader reader = new LogFileReader(logDir.getAbsolutePath(), logFileName, null);
+	    try {
+		while (reader.readEntry() != null) {
+		    count++;
+		}
+	    } catch (IOException exc) {
+		// Incomplete gzip member, try again
+	    }
+	    reader.close();
+	}
+	return count;
+    }
+
+    private LogFileIndex waitForIndex(File indexFile) throws Exception {
+	LogFileIndex index = null;
+	for (int ii = 0; ii < 100 && (index == null || index.findOffset(Long.MAX_VALUE) == 0); ii++) {
+	    Thread.sleep(50);
+	    if (indexFile.exists()) {
+		InputStream inputStream = new FileInputStream(indexFile);
+		index = new LogFileIndex(inputStream);
+		inputStream.close();
+	    }
+	}
+	return index;
+    }
+
+    private String waitForContent(File file, String expected, boolean compressed) throws Exception {
+	String content = "";
+	for (int ii = 0; ii < 100; ii++) {
+	    if (file.exists()) {
+		content = getFileContent(file, compressed);
+		if (content.contains(expected)) {
+		    return content;
+		}
+	    }
+	    Thread.sleep(50);
+	}
+	assertEquals(expected, content);
+	return content;
+    }
+
+    private boolean containsMessages(String content, int count) {
+	for (int ii = 0; ii < count; ii++) {
+	    if (!content.contains("DEBUG tag: message" + ii)) {
+		return false;
+	    }
+	}
+	return true;
+    }
+
+    private String getDirectoryContent(File dir) throws Exception {
+	StringBuilder content = new StringBuilder();
+	for (File file : dir.listFiles()) {
+	    if (file.exists()) {
+		content.append(getFileContent(file, true));
+	    }
+	}
+	return content.toString();
+    }
+
+    private File getTestLogFileFolder(String name) {
+	File dir = new File(System.getProperty("java.io.tmpdir"));
+	File logDir = new File(new File(dir, "fileloggerdir"), name);
+	logFileManager.delete(logDir);
+	if (!logDir.exists()) {
+	    assertTrue(logDir.mkdirs());
+	}
+	return logDir;
+    }
+
+    private int countGzipHeaders(byte[] data) {
+	int count = 0;
+	for (int ii = 0; ii + 2 < data.length; ii++) {
+	    if (data[ii] == 0x1f && data[ii + 1] == (byte) 0x8b && data[ii + 2] == 8) {
+		count++;
+	    }
+	}
+	return count;
+    }
+
+    private byte[] getFileBytes(File file) throws Exception {
+	try (InputStream inputStream = new FileInputStream(file)) {
+	    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+	    byte[] buffer = new byte[1024];
+	    int read;
+	    while ((read = inputStream.read(buffer)) >= 0) {
+		outputStream.write(buffer, 0, read);
+	    }
+	    return outputStream.toByteArray();
+	}
+    }
+
+    private String getFileContent(File file, boolean compressed) throws Exception {
+	ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+	InputStream inputStream = null;
+	try {
+	    inputStream = new FileInputStream(file);
+	    if (compressed) {
+		inputStream = new GZIPInputStream(inputStream);
+	    }
+	    byte[] buffer = new byte[50];
+	    int read;
+	    while ((read = inputStream.read(buffer, 0, 50)) >= 0) {
+		outputStream.write(buffer, 0, read);
+	    }
+	} catch (Exception exc) {
+	    // Truncated gzip member or rotated file, content up to here is valid
+	}
+	if (inputStream != null) {
+	    inputStream.close();
+	}
+	return new String(outputStream.toByteArray(), Charsets.UTF8_CHARSET);
+    }
+}
@@ -0,0 +1,67 @@
+package net.ibbaa.phonelog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class FileLoggingHandlerTest {
+
+    private MockLogger mockLogger;
+    private FileLoggingHandler handler;
+
+    @BeforeEach
+    public void beforeEachTestMethod() {
+	mockLogger = new MockLogger();
+	handler = new FileLoggingHandler(mockLogger);
+    }
+
+    @Test
+    public void testPublish() {
+	LogRecord record = new LogRecord(Level.WARNING, "message {0}");
+	record.setLoggerName("logger");
+	record.setParameters(new Object[] { "param" });
+	record.setThrown(new NullPointerException());
+	handler.publish(record);
+	LogFileEntry entry = mockLogger.getEntry(0);
+	assertEquals(record.getMillis(), entry.getTimestamp());
+	assertEquals(Thread.currentThread().getName(), entry.getThread());
+	assertEquals(LogLevel.WARN, entry.getLevel());
+	assertEquals("logger", entry.getTag());
+	assertEquals("message param", entry.getMessage());
+	assertTrue(entry.getThrowable() instanceof NullPointerException);
+    }
+
+    @Test
+    public void testLevels() {
+	handler.publish(new LogRecord(Level.FINEST, "message"));
+	handler.publish(new LogRecord(Level.FINER, "message"));
+	handler.publish(new LogRecord(Level.FINE, "message"));
+	handler.publish(new LogRecord(Level.CONFIG, "message"));
+	handler.publish(new LogRecord(Level.INFO, "message"));
+	handler.publish(new LogRecord(Level.WARNING, "message"));
+	handler.publish(new LogRecord(Level.SEVERE, "message"));
+	assertEquals(LogLevel.VERBOSE, mockLogger.getEntry(0).getLevel());
+	assertEquals(LogLevel.VERBOSE, mockLogger.getEntry(1).getLevel());
+	assertEquals(LogLevel.DEBUG, mockLogger.getEntry(2).getLevel());
+	assertEquals(LogLevel.DEBUG, mockLogger.getEntry(3).getLevel());
+	assertEquals(LogLevel.INFO, mockLogger.getEntry(4).getLevel());
+	assertEquals(LogLevel.WARN, mockLogger.getEntry(5).getLevel());
+	assertEquals(LogLevel.ERROR, mockLogger.getEntry(6).getLevel());
+	assertNull(mockLogger.getEntry(6).getThrowable());
+    }
+
+    @Test
+    public void testHandlerLevel() {
+	handler.setLevel(Level.WARNING);
+	handler.publish(new LogRecord(Level.INFO, "message"));
+	assertEquals(0, mockLogger.numberLogEntries());
+	handler.publish(new LogRecord(Level.WARNING, "message"));
+	assertEquals(1, mockLogger.numberLogEntries());
+    }
+}
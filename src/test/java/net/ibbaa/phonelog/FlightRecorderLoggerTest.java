@@ -0,0 +1,109 @@
+package net.ibbaa.phonelog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class FlightRecorderLoggerTest {
+
+    private MockLogger mockLogger;
+
+    @BeforeEach
+    public void beforeEachTestMethod() {
+	mockLogger = new MockLogger();
+	new LogFileManager().delete(getTestLogFileFolder());
+    }
+
+    @Test
+    public void testRecord() {
+	FlightRecorderLogger logger = new FlightRecorderLogger(1024, null, mockLogger, null);
+	for (int ii = 0; ii < 100; ii++) {
+	    logger.log("tag", "message" + ii + " ä€😀", null, LogLevel.VERBOSE);
+	}
+	List<LogFileEntry> entries = logger.getEntries();
+	assertTrue(entries.size() > 10);
+	assertTrue(entries.size() < 100);
+	for (int ii = 0; ii < entries.size(); ii++) {
+	    LogFileEntry entry = entries.get(ii);
+	    assertEquals("message" + (100 - entries.size() + ii) + " ä€😀", entry.getMessage());
+	    assertEquals("tag", entry.getTag());
+	    assertEquals(LogLevel.VERBOSE, entry.getLevel());
+	    assertEquals(Thread.currentThread().getName(), entry.getThread());
+	}
+	assertEquals(entries.size(), logger.getEntries().size());
+	assertFalse(mockLogger.wasLogCalled());
+    }
+
+    @Test
+    public void testTrigger() throws Exception {
+	MockLogger delegateLogger = new MockLogger();
+	FlightRecorderLogger logger = new FlightRecorderLogger(1024 * 1024, LogLevel.ERROR, mockLogger, delegateLogger);
+	logger.log(new LogFileEntry(1000, "thread", LogLevel.VERBOSE, "tag", "message1", null));
+	logger.log("tag", "message2", null, LogLevel.DEBUG);
+	assertFalse(mockLogger.wasLogCalled());
+	assertEquals(2, delegateLogger.numberLogEntries());
+	logger.log("tag", "message3", new IllegalStateException(), LogLevel.ERROR);
+	for (int ii = 0; ii < 100 && mockLogger.numberLogEntries() < 3; ii++) {
+	    Thread.sleep(10);
+	}
+	assertEquals(3, mockLogger.numberLogEntries());
+	assertEquals(1000, mockLogger.getEntry(0).getTimestamp());
+	assertEquals(-1, mockLogger.getEntry(0).getSequence());
+	assertEquals("thread", mockLogger.getEntry(0).getThread());
+	assertEquals("message2", mockLogger.getEntry(1).getMessage());
+	assertEquals(LogLevel.ERROR, mockLogger.getEntry(2).getLevel());
+	assertTrue(mockLogger.getEntry(2).getMessage().startsWith("message3" + System.lineSeparator() + "java.lang.IllegalStateException"));
+	assertTrue(logger.getEntries().isEmpty());
+    }
+
+    @Test
+    public void testSequence() {
+	FlightRecorderLogger logger = new FlightRecorderLogger(1024 * 1024, null, null, null);
+	LogFileEntry entry = new LogFileEntry(LogThread.current(), 1000, LogLevel.DEBUG, "tag", "message1", null, null);
+	logger.log(entry);
+	logger.log("tag", "message2", null, LogLevel.DEBUG);
+	List<LogFileEntry> entries = logger.getEntries();
+	assertEquals(entry.getSequence(), entries.get(0).getSequence());
+	assertTrue(entries.get(1).getSequence() > entry.getSequence());
+    }
+
+    @Test
+    public void testPersistToFile() throws Exception {
+	FlightRecorderLogger logger = new FlightRecorderLogger(1024 * 1024, null, null, null);
+	logger.log("tag", "message1", null, LogLevel.DEBUG);
+	logger.log("tag", "message2", null, LogLevel.ERROR);
+	File file = new File(getTestLogFileFolder(), "flight.log");
+	assertTrue(logger.persist(file));
+	assertTrue(logger.getEntries().isEmpty());
+	BinaryLogDecoder decoder = new BinaryLogDecoder(new FileInputStream(file));
+	assertEquals("message1", decoder.readEntry().getMessage());
+	assertEquals("message2", decoder.readEntry().getMessage());
+	decoder.close();
+    }
+
+    @Test
+    public void testDump() {
+	FlightRecorderLogger logger = new FlightRecorderLogger(mockLogger);
+	logger.log("tag", "message1", null, LogLevel.DEBUG);
+	List<?> objects = logger.objectsToDump();
+	assertEquals(1, objects.size());
+	assertTrue(objects.get(0).toString().endsWith("DEBUG tag: message1"));
+	assertTrue(logger.objectsToDump().isEmpty());
+    }
+
+    private File getTestLogFileFolder() {
+	File dir = new File(System.getProperty("java.io.tmpdir"));
+	File logDir = new File(dir, "flightrecorderdir");
+	if (!logDir.exists()) {
+	    assertTrue(logDir.mkdirs());
+	}
+	return logDir;
+    }
+}
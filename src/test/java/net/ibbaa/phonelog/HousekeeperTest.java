@@ -11,9 +11,11 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -137,6 +139,130 @@ public class HousekeeperTest {
 	assertFalse(oldest.exists());
     }
 
+    @Test
+    public void testAppendToArchive() throws Exception {
+	File logDir = getTestLogFileFolder();
+	Housekeeper housekeeper = new Housekeeper(logDir.getAbsolutePath(), "test.txt", 2, -1, 1024, (File dir, String name) -> name.endsWith("txt"));
+	createTestFile(logDir, "test1.txt", "Test1Text");
+	createTestFile(logDir, "test2.txt", "Test2Text");
+	housekeeper.doHousekeepingNow();
+	File[] files = logDir.listFiles();
+	assertEquals(1, files.length);
+	File zipFile = getFile(files, "test", "zip");
+	assertNotNull(zipFile);
+	createTestFile(logDir, "test3.txt", "Test3Text");
+	createTestFile(logDir, "test4.txt", "Test4Text");
+	housekeeper.doHousekeepingNow();
+	files = logDir.listFiles();
+	assertEquals(1, files.length);
+	assertEquals(zipFile.getName(), files[0].getName());
+	ZipFile zip = new ZipFile(zipFile);
+	assertEquals(4, zip.size());
+	assertNotNull(zip.getEntry("test1.txt"));
+	assertNotNull(zip.getEntry("test4.txt"));
+	zip.close();
+    }
+
+    @Test
+    public void testAppendToArchiveLimitExceeded() throws Exception {
+	File logDir = getTestLogFileFolder();
+	Housekeeper housekeeper = new Housekeeper(logDir.getAbsolutePath(), "test.txt", 2, -1, 10, (File dir, String name) -> name.endsWith("txt"));
+	createTestFile(logDir, "test1.txt", "Test1Text");
+	createTestFile(logDir, "test2.txt", "Test2Text");
+	housekeeper.doHousekeepingNow();
+	assertEquals(1, logDir.listFiles().length);
+	createTestFile(logDir, "test3.txt", "Test3Text");
+	createTestFile(logDir, "test4.txt", "Test4Text");
+	housekeeper.doHousekeepingNow();
+	File[] files = logDir.listFiles();
+	assertEquals(2, files.length);
+	assertTrue(files[0].getName().endsWith("zip"));
+	assertTrue(files[1].getName().endsWith("zip"));
+    }
+
+    @Test
+    public void testSidecarFilesArchived() throws Exception {
+	File logDir = getTestLogFileFolder();
+	Housekeeper housekeeper = new Housekeeper(logDir.getAbsolutePath(), "test.txt", 2, -1, (File dir, String name) -> name.endsWith("txt"));
+	createTestFile(logDir, "test1.txt", "Test1Text");
+	createTestFile(logDir, "test1.txt.idx", "Test1Index");
+	createTestFile(logDir, "test2.txt", "Test2Text");
+	createTestFile(logDir, "test.txt.idx", "TestIndex");
+	housekeeper.doHousekeepingNow();
+	File[] files = logDir.listFiles();
+	assertEquals(2, files.length);
+	assertTrue(containsFile(files, "test.txt", "idx"));
+	ZipFile zip = new ZipFile(getFile(files, "test", "zip"));
+	assertEquals(3, zip.size());
+	assertNotNull(zip.getEntry("test1.txt.idx"));
+	zip.close();
+    }
+
+    @Test
+    public void testTermIndexBuilt() throws Exception {
+	File logDir = getTestLogFileFolder();
+	Housekeeper housekeeper = new Housekeeper(logDir.getAbsolutePath(), "test.txt", 2, 2, -1, 1024 * 1024, (File dir, String name) -> name.endsWith("txt"));
+	createTestFile(logDir, "test1.txt", "1985-12-24 01:01:01.999 DEBUG tag: Test1Text");
+	createTestFile(logDir, "test2.txt", "1985-12-24 01:01:01.999 DEBUG tag: Test2Text");
+	housekeeper.doHousekeepingNow();
+	File[] files = logDir.listFiles();
+	assertEquals(2, files.length);
+	File zipFile = getFile(files, "test", "zip");
+	LogTermIndex index = new LogTermIndex(new File(logDir, LogTermIndex.getIndexFileName(zipFile.getName())));
+	assertEquals(1, index.findPostings("test2text").size());
+	assertTrue(zipFile.setLastModified(System.currentTimeMillis() - 10000));
+	createTestFile(logDir, "test3.txt", "Test3Text");
+	createTestFile(logDir, "test4.txt", "Test4Text");
+	housekeeper.doHousekeepingNow();
+	files = logDir.listFiles();
+	assertEquals(2, files.length);
+	assertFalse(zipFile.exists());
+	assertFalse(new File(logDir, LogTermIndex.getIndexFileName(zipFile.getName())).exists());
+    }
+
+    @Test
+    public void testBloomFilterBuilt() throws Exception {
+	File logDir = getTestLogFileFolder();
+	Housekeeper housekeeper = new Housekeeper(logDir.getAbsolutePath(), "test.txt", 2, 2, -1, -1, 1024, (File dir, String name) -> name.endsWith("txt"));
+	createTestFile(logDir, "test1.txt", "1985-12-24 01:01:01.999 DEBUG tag: Test1Text");
+	createTestFile(logDir, "test2.txt", "1985-12-24 01:01:01.999 DEBUG tag: Test2Text");
+	housekeeper.doHousekeepingNow();
+	File[] files = logDir.listFiles();
+	assertEquals(2, files.length);
+	File zipFile = getFile(files, "test", "zip");
+	LogArchiveBloomFilter filter = new LogArchiveBloomFilter(new File(logDir, LogBloomFilter.getFilterFileName(zipFile.getName())));
+	assertEquals(2, filter.getEntryNames().size());
+	assertTrue(filter.mightContainAll("test2.txt", Collections.singletonList("test2text")));
+	assertTrue(zipFile.setLastModified(System.currentTimeMillis() - 10000));
+	createTestFile(logDir, "test3.txt", "Test3Text");
+	createTestFile(logDir, "test4.txt", "Test4Text");
+	housekeeper.doHousekeepingNow();
+	files = logDir.listFiles();
+	assertEquals(2, files.length);
+	assertFalse(zipFile.exists());
+	assertFalse(new File(logDir, LogBloomFilter.getFilterFileName(zipFile.getName())).exists());
+    }
+
+    @Test
+    public void testForeignFilesSurviveArchiveDeletion() throws Exception {
+	File logDir = getTestLogFileFolder();
+	Housekeeper housekeeper = new Housekeeper(logDir.getAbsolutePath(), "test.txt", 2, 2, -1, 1024 * 1024, (File dir, String name) -> name.endsWith("txt"));
+	createTestFile(logDir, "test1.txt", "1985-12-24 01:01:01.999 DEBUG tag: Test1Text");
+	createTestFile(logDir, "test2.txt", "1985-12-24 01:01:01.999 DEBUG tag: Test2Text");
+	housekeeper.doHousekeepingNow();
+	File zipFile = getFile(logDir.listFiles(), "test", "zip");
+	assertTrue(zipFile.setLastModified(System.currentTimeMillis() - 10000));
+	File foreignFile1 = createTestFile(logDir, "x.zip.bak", "Backup");
+	File foreignFile2 = createTestFile(logDir, "backup.zip.part", "Part");
+	createTestFile(logDir, "test3.txt", "Test3Text");
+	createTestFile(logDir, "test4.txt", "Test4Text");
+	housekeeper.doHousekeepingNow();
+	assertFalse(zipFile.exists());
+	assertFalse(new File(logDir, LogTermIndex.getIndexFileName(zipFile.getName())).exists());
+	assertTrue(foreignFile1.exists());
+	assertTrue(foreignFile2.exists());
+    }
+
     private File getTestLogFileFolder() {
 	File dir = new File(System.getProperty("java.io.tmpdir"));
 	File logDir = new File(dir, "logdir");
@@ -7,6 +7,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import java.util.logging.Handler;
 import java.util.logging.Level;
 import java.util.logging.LogRecord;
+import java.util.logging.Logger;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -108,13 +109,28 @@ public class JavaSystemLoggerTest {
 	assertNull(record.getThrown());
     }
 
+    @Test
+    public void testHandlerAddedOnce() {
+	for (int ii = 0; ii < 10; ii++) {
+	    systemLogger.log("handler", "message", null, LogLevel.DEBUG);
+	}
+	assertEquals(10, handler.getPublishCount());
+	assertEquals(1, Logger.getLogger("handler").getHandlers().length);
+	JavaSystemLogger otherLogger = new JavaSystemLogger(handler, null, LogLevel.VERBOSE);
+	otherLogger.log("handler", "message", null, LogLevel.DEBUG);
+	assertEquals(11, handler.getPublishCount());
+	assertEquals(1, Logger.getLogger("handler").getHandlers().length);
+    }
+
     private class TestHandler extends Handler {
 
 	private LogRecord lastRecord;
+	private int publishCount;
 
 	@Override
 	public void publish(LogRecord record) {
 	    lastRecord = record;
+	    publishCount++;
 	}
 
 	@Override
@@ -130,5 +146,9 @@ public class JavaSystemLoggerTest {
 	public LogRecord getLastRecord() {
 	    return lastRecord;
 	}
+
+	public int getPublishCount() {
+	    return publishCount;
+	}
     }
 }
@@ -0,0 +1,71 @@
+package net.ibbaa.phonelog;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class JsonLinesLogFormatterTest {
+
+    private JsonLinesLogFormatter logFormatter;
+
+    @BeforeEach
+    public void beforeEachTestMethod() {
+	logFormatter = new JsonLinesLogFormatter();
+    }
+
+    @Test
+    public void testFormatLogFileEntry() {
+	LogFileEntry entry = new LogFileEntry(new LogThread(1, "thread"), -1234567890123L, LogLevel.DEBUG, "tag", "message", null, null);
+	String message = logFormatter.formatLogFileEntry(entry);
+	assertEquals("{\"timestamp\":-1234567890123,\"sequence\":" + entry.getSequence() + ",\"thread\":\"thread\",\"level\":\"DEBUG\",\"tag\":\"tag\",\"message\":\"message\"}\n", message);
+	assertArrayEquals(message.getBytes(StandardCharsets.UTF_8), logFormatter.formatLogFileEntry(entry, StandardCharsets.UTF_8));
+	entry = new LogFileEntry(0, null, LogLevel.ERROR, null, "message", null);
+	assertEquals("{\"timestamp\":0,\"thread\":null,\"level\":\"ERROR\",\"tag\":null,\"message\":\"message\"}\n", logFormatter.formatLogFileEntry(entry));
+    }
+
+    @Test
+    public void testEscape() {
+	LogFileEntry entry = new LogFileEntry(1, "thread", LogLevel.INFO, "tag", "a\"b\\c\nd\te\u0001 ä€😀", null);
+	String message = logFormatter.formatLogFileEntry(entry);
+	assertEquals("{\"timestamp\":1,\"thread\":\"thread\",\"level\":\"INFO\",\"tag\":\"tag\",\"message\":\"a\\\"b\\\\c\\nd\\te\\u0001 ä€😀\"}\n", message);
+	assertArrayEquals(message.getBytes(StandardCharsets.UTF_8), logFormatter.formatLogFileEntry(entry, StandardCharsets.UTF_8));
+	assertArrayEquals(message.getBytes(StandardCharsets.UTF_16), logFormatter.formatLogFileEntry(entry, StandardCharsets.UTF_16));
+    }
+
+    @Test
+    public void testException() {
+	LogFileEntry entry = new LogFileEntry(1, "thread", LogLevel.ERROR, "tag", "message", new IllegalStateException("error"));
+	String message = logFormatter.formatLogFileEntry(entry);
+	assertTrue(message.contains(",\"exception\":\"java.lang.IllegalStateException: error"));
+	assertEquals(message.length() - 1, message.indexOf('\n'));
+    }
+
+    @Test
+    public void testFields() {
+	LogFields fields = new LogFields(1).add("user", "name").add("count", 42).add("ratio", 0.5).add("ok", true).add("nan", Double.NaN).add("none", (String) null);
+	assertEquals(6, fields.size());
+	assertEquals(LogFields.TYPE_LONG, fields.getType(1));
+	assertEquals(42L, fields.getValue(1));
+	assertEquals(0.5, fields.getDouble(2));
+	assertTrue(fields.getBoolean(3));
+	LogFileEntry entry = new LogFileEntry(1, "thread", LogLevel.INFO, "tag", "message", null, fields);
+	assertEquals(fields, entry.getFields());
+	String message = logFormatter.formatLogFileEntry(entry);
+	assertTrue(message.endsWith(",\"fields\":{\"user\":\"name\",\"count\":42,\"ratio\":0.5,\"ok\":true,\"nan\":null,\"none\":null}}\n"));
+    }
+
+    @Test
+    public void testLogWithFields() {
+	MockLogger mockLogger = new MockLogger();
+	Log.initialize(mockLogger);
+	Log.log(LogLevel.WARN, "tag", "message", null, new LogFields().add("id", 1));
+	Log.initialize(null);
+	assertEquals(LogLevel.WARN, mockLogger.getEntry(0).getLevel());
+	assertEquals(1, mockLogger.getEntry(0).getFields().getLong(0));
+    }
+}
@@ -0,0 +1,118 @@
+package net.ibbaa.phonelog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.GregorianCalendar;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class LogBloomFilterTest {
+
+    private LogFileManager logFileManager;
+    private DefaultLogFormatter defaultLogFormatter;
+
+    @BeforeEach
+    public void beforeEachTestMethod() {
+	logFileManager = new LogFileManager();
+	defaultLogFormatter = new DefaultLogFormatter();
+	logFileManager.delete(getTestLogFileFolder());
+    }
+
+    @Test
+    public void testFilter() throws Exception {
+	LogBloomFilter filter = new LogBloomFilter(1024);
+	assertEquals(1024, filter.getSize());
+	for (int ii = 0; ii < 500; ii++) {
+	    filter.add("token" + ii);
+	}
+	ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+	filter.write(outputStream);
+	LogBloomFilter readFilter = new LogBloomFilter(new ByteArrayInputStream(outputStream.toByteArray()));
+	int falsePositives = 0;
+	for (int ii = 0; ii < 500; ii++) {
+	    assertTrue(filter.mightContain("token" + ii));
+	    assertTrue(readFilter.mightContain("token" + ii));
+	    if (readFilter.mightContain("other" + ii)) {
+		falsePositives++;
+	    }
+	}
+	assertTrue(falsePositives < 25);
+	assertTrue(readFilter.mightContainAll(Arrays.asList("token1", "token2")));
+	assertFalse(new LogBloomFilter(1024).mightContain("token1"));
+    }
+
+    @Test
+    public void testBuildArchive() throws Exception {
+	File logDir = getTestLogFileFolder();
+	File file1 = createTestLogFile(logDir, "app_1.log", getTestEntry(0, "tag", "message1 ERR-1234"));
+	LogBloomFilter sidecarFilter = new LogBloomFilter(64);
+	sidecarFilter.add("sidecar");
+	File filter1 = new File(logDir, LogBloomFilter.getFilterFileName(file1.getName()));
+	FileOutputStream outputStream = new FileOutputStream(filter1);
+	sidecarFilter.write(outputStream);
+	outputStream.close();
+	File file2 = createTestLogFile(logDir, "app_2.log", new LogFileEntry(getTestTimestamp() + 1, "thread", LogLevel.ERROR, "other", "message2 ERR-5678", new IllegalStateException()));
+	File zipFile = new File(logDir, "app.zip");
+	logFileManager.zipFiles(Arrays.asList(file1, filter1, file2), zipFile);
+	File filterFile = new File(logDir, LogBloomFilter.getFilterFileName(zipFile.getName()));
+	assertTrue(new LogBloomFilterBuilder(1024).build(zipFile, filterFile));
+	LogArchiveBloomFilter archiveFilter = new LogArchiveBloomFilter(filterFile);
+	assertEquals(Arrays.asList("app_1.log", "app_2.log"), archiveFilter.getEntryNames());
+	assertEquals(64, archiveFilter.getFilter("app_1.log").getSize());
+	assertTrue(archiveFilter.mightContainAll("app_1.log", Collections.singletonList("sidecar")));
+	assertFalse(archiveFilter.mightContainAll("app_1.log", Collections.singletonList("err-1234")));
+	assertTrue(archiveFilter.mightContainAll("app_2.log", Arrays.asList("err-5678", "other", "thread", "illegalstateexception")));
+	assertFalse(archiveFilter.mightContainAll("app_2.log", Collections.singletonList("err-1234")));
+	assertTrue(archiveFilter.mightContainAll("app_3.log", Collections.singletonList("err-1234")));
+	assertTrue(archiveFilter.mightContainAll(Collections.singletonList("sidecar")));
+	assertFalse(archiveFilter.mightContainAll(Collections.singletonList("err-1234")));
+	File file3 = createTestLogFile(logDir, "app_3.log", getTestEntry(3, "tag", "message3 ERR-1234"));
+	assertTrue(logFileManager.appendFilesToZip(Arrays.asList(file3), zipFile));
+	assertTrue(new LogBloomFilterBuilder(1024).build(zipFile, filterFile));
+	archiveFilter = new LogArchiveBloomFilter(filterFile);
+	assertEquals(Arrays.asList("app_1.log", "app_2.log", "app_3.log"), archiveFilter.getEntryNames());
+	assertTrue(archiveFilter.mightContainAll("app_1.log", Collections.singletonList("sidecar")));
+	assertTrue(archiveFilter.mightContainAll(Collections.singletonList("err-1234")));
+	assertFalse(new File(logDir, filterFile.getName() + ".tmp").exists());
+    }
+
+    private File createTestLogFile(File dir, String name, LogFileEntry... entries) throws Exception {
+	File file = new File(dir, name);
+	FileOutputStream outputStream = new FileOutputStream(file);
+	for (LogFileEntry entry : entries) {
+	    outputStream.write(defaultLogFormatter.formatLogFileEntry(entry, Charsets.UTF8_CHARSET));
+	}
+	outputStream.flush();
+	outputStream.close();
+	return file;
+    }
+
+    private File getTestLogFileFolder() {
+	File dir = new File(System.getProperty("java.io.tmpdir"));
+	File logDir = new File(dir, "bloomfilterdir");
+	if (!logDir.exists()) {
+	    assertTrue(logDir.mkdirs());
+	}
+	return logDir;
+    }
+
+    private long getTestTimestamp() {
+	Calendar calendar = new GregorianCalendar(1985, Calendar.DECEMBER, 24, 1, 1, 1);
+	calendar.set(Calendar.MILLISECOND, 999);
+	return calendar.getTimeInMillis();
+    }
+
+    private LogFileEntry getTestEntry(long offset, String tag, String message) {
+	return new LogFileEntry(getTestTimestamp() + offset, "thread", LogLevel.DEBUG, tag, message, null);
+    }
+}
@@ -0,0 +1,79 @@
+package net.ibbaa.phonelog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class LogClockTest {
+
+    private MockLogger mockLogger;
+
+    @BeforeEach
+    public void beforeEachTestMethod() {
+	mockLogger = new MockLogger();
+	Log.initialize(mockLogger);
+    }
+
+    @AfterEach
+    public void afterEachTestMethod() {
+	Log.initialize(null);
+	LogClock.getInstance().setClock(null);
+    }
+
+    @Test
+    public void testControllableClock() {
+	AtomicLong time = new AtomicLong(1000);
+	LogClock.getInstance().setClock(time::get);
+	assertEquals(1000, LogClock.getInstance().currentTimeMillis());
+	Log.log(LogLevel.INFO, "tag", "message1", null, null);
+	time.set(2000);
+	Log.log(LogLevel.INFO, "tag", "message2", null, null);
+	assertEquals(1000, mockLogger.getEntry(0).getTimestamp());
+	assertEquals(2000, mockLogger.getEntry(1).getTimestamp());
+	LogClock.getInstance().setClock(null);
+	long now = System.currentTimeMillis();
+	assertTrue(Math.abs(LogClock.getInstance().currentTimeMillis() - now) < 1000);
+    }
+
+    @Test
+    public void testSequence() {
+	LogClock.getInstance().setClock(() -> 1000);
+	for (int ii = 0; ii < 100; ii++) {
+	    Log.log(LogLevel.INFO, "tag", "message" + ii, null, null);
+	}
+	for (int ii = 1; ii < 100; ii++) {
+	    assertEquals(mockLogger.getEntry(ii - 1).getTimestamp(), mockLogger.getEntry(ii).getTimestamp());
+	    assertTrue(mockLogger.getEntry(ii - 1).getSequence() < mockLogger.getEntry(ii).getSequence());
+	}
+	long sequence = LogClock.getInstance().nextSequence();
+	assertTrue(sequence > mockLogger.getEntry(99).getSequence());
+    }
+
+    @Test
+    public void testCoarseLogClock() throws Exception {
+	CoarseLogClock closedClock;
+	try (CoarseLogClock clock = new CoarseLogClock(5)) {
+	    assertEquals(5, clock.getResolution());
+	    long start = clock.currentTimeMillis();
+	    assertTrue(Math.abs(start - System.currentTimeMillis()) < 1000);
+	    long deadline = System.currentTimeMillis() + 5000;
+	    while (clock.currentTimeMillis() == start && System.currentTimeMillis() < deadline) {
+		Thread.sleep(10);
+	    }
+	    assertTrue(clock.currentTimeMillis() > start);
+	    LogClock.getInstance().setClock(clock);
+	    long time = clock.currentTimeMillis();
+	    assertTrue(LogClock.getInstance().currentTimeMillis() >= time);
+	    closedClock = clock;
+	}
+	Thread.sleep(50);
+	long time = closedClock.currentTimeMillis();
+	Thread.sleep(50);
+	assertEquals(time, closedClock.currentTimeMillis());
+    }
+}
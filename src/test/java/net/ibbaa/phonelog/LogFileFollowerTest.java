@@ -0,0 +1,162 @@
+package net.ibbaa.phonelog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.GregorianCalendar;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class LogFileFollowerTest {
+
+    private LogFileManager logFileManager;
+    private DefaultLogFormatter defaultLogFormatter;
+
+    @BeforeEach
+    public void beforeEachTestMethod() {
+	logFileManager = new LogFileManager();
+	defaultLogFormatter = new DefaultLogFormatter();
+	logFileManager.delete(getTestLogFileFolder());
+    }
+
+    @Test
+    public void testFollow() throws Exception {
+	File logDir = getTestLogFileFolder();
+	File logFile = new File(logDir, "app.log");
+	appendToFile(logFile, format(getTestEntry(0, "message1")));
+	LogFileFollower follower = new LogFileFollower(logDir.getAbsolutePath());
+	assertNull(follower.readEntry(50));
+	appendToFile(logFile, format(getTestEntry(1, "message2")));
+	assertEquals("message2", follower.readEntry(1000).getMessage());
+	String entry = format(getTestEntry(2, "message3 " + "x"));
+	appendToFile(logFile, entry.substring(0, 30));
+	assertNull(follower.readEntry(50));
+	appendToFile(logFile, entry.substring(30) + "continued" + System.lineSeparator());
+	LogFileEntry logEntry = follower.readEntry(1000);
+	assertEquals(getTestTimestamp() + 2, logEntry.getTimestamp());
+	assertEquals("message3 x" + System.lineSeparator() + "continued", logEntry.getMessage());
+	follower.close();
+	assertNull(follower.readEntry(1000));
+    }
+
+    @Test
+    public void testFollowFromStart() throws Exception {
+	File logDir = getTestLogFileFolder();
+	File logFile = new File(logDir, "app.log");
+	LogFileFollower follower = new LogFileFollower(logDir.getAbsolutePath(), "app.log", false);
+	assertNull(follower.readEntry(50));
+	appendToFile(logFile, format(getTestEntry(0, "message1")));
+	assertEquals("message1", follower.readEntry(1000).getMessage());
+	follower.close();
+	follower = new LogFileFollower(logDir.getAbsolutePath(), "app.log", true);
+	assertEquals("message1", follower.readEntry(1000).getMessage());
+	follower.close();
+    }
+
+    @Test
+    public void testFollowRotation() throws Exception {
+	File logDir = getTestLogFileFolder();
+	File logFile = new File(logDir, "app.log");
+	appendToFile(logFile, format(getTestEntry(0, "message1")));
+	LogFileFollower follower = new LogFileFollower(logDir.getAbsolutePath(), "app.log", true);
+	assertEquals("message1", follower.readEntry(1000).getMessage());
+	appendToFile(logFile, format(getTestEntry(1, "message2")));
+	assertTrue(logFile.renameTo(new File(logDir, "app_1.log")));
+	appendToFile(logFile, format(getTestEntry(2, "message3")));
+	assertEquals("message2", follower.readEntry(1000).getMessage());
+	assertEquals("message3", follower.readEntry(1000).getMessage());
+	assertNull(follower.readEntry(50));
+	follower.close();
+    }
+
+    @Test
+    public void testFollowConcurrentAppends() throws Exception {
+	File logDir = getTestLogFileFolder();
+	File logFile = new File(logDir, "app.log");
+	appendToFile(logFile, format(getTestEntry(0, "message0")));
+	LogFileFollower follower = new LogFileFollower(logDir.getAbsolutePath(), "app.log", true);
+	Thread writer = new Thread(() -> {
+	    try {
+		for (int ii = 1; ii < 200; ii++) {
+		    appendToFile(logFile, format(getTestEntry(ii, "message" + ii)));
+		}
+	    } catch (Exception exc) {
+		// Do nothing
+	    }
+	});
+	writer.start();
+	for (int ii = 0; ii < 200; ii++) {
+	    assertEquals("message" + ii, follower.readEntry(1000).getMessage());
+	}
+	writer.join();
+	assertNull(follower.readEntry(50));
+	follower.close();
+    }
+
+    @Test
+    public void testFollowFileLogger() throws Exception {
+	File logDir = getTestLogFileFolder();
+	LogFileFollower follower = new LogFileFollower(logDir.getAbsolutePath(), "test.log", true, 1, 20);
+	FileLogger logger = new FileLogger(LogLevel.DEBUG, 200, -1, -1, logDir.getAbsolutePath(), "test.log", new DefaultLogFormatter(), null);
+	List<String> messages = Collections.synchronizedList(new ArrayList<>());
+	Thread followerThread = new Thread(() -> {
+	    try {
+		follower.follow(entry -> messages.add(entry.getMessage()));
+	    } catch (Exception exc) {
+		// Do nothing
+	    }
+	});
+	followerThread.start();
+	for (int ii = 0; ii < 50; ii++) {
+	    logger.log("tag", "message" + ii, null, LogLevel.DEBUG);
+	    Thread.sleep(2);
+	}
+	for (int ii = 0; ii < 100 && messages.size() < 50; ii++) {
+	    Thread.sleep(50);
+	}
+	follower.close();
+	followerThread.join(5000);
+	assertTrue(logDir.listFiles().length > 1);
+	assertEquals(50, messages.size());
+	for (int ii = 0; ii < 50; ii++) {
+	    assertEquals("message" + ii, messages.get(ii));
+	}
+    }
+
+    private void appendToFile(File file, String data) throws Exception {
+	FileOutputStream outputStream = new FileOutputStream(file, true);
+	outputStream.write(data.getBytes(Charsets.UTF8_CHARSET));
+	outputStream.close();
+    }
+
+    private String format(LogFileEntry entry) {
+	return defaultLogFormatter.formatLogFileEntry(entry);
+    }
+
+    private File getTestLogFileFolder() {
+	File dir = new File(System.getProperty("java.io.tmpdir"));
+	File logDir = new File(dir, "followerdir");
+	if (!logDir.exists()) {
+	    assertTrue(logDir.mkdirs());
+	}
+	return logDir;
+    }
+
+    private long getTestTimestamp() {
+	Calendar calendar = new GregorianCalendar(1985, Calendar.DECEMBER, 24, 1, 1, 1);
+	calendar.set(Calendar.MILLISECOND, 999);
+	return calendar.getTimeInMillis();
+    }
+
+    private LogFileEntry getTestEntry(long offset, String message) {
+	return new LogFileEntry(getTestTimestamp() + offset, "thread", LogLevel.DEBUG, "tag", message, null);
+    }
+}
@@ -16,8 +16,10 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.GregorianCalendar;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -152,6 +154,14 @@ public class LogFileManagerTest {
 	assertEquals("1985.12.24_01_01_01.999", logFileManager.getTimestampSuffix(getTestTimestamp()));
     }
 
+    @Test
+    public void testGetTimestampFromFileName() {
+	assertNull(logFileManager.getTimestampFromFileName(null));
+	assertNull(logFileManager.getTimestampFromFileName("app.log"));
+	assertEquals(getTestTimestamp(), logFileManager.getTimestampFromFileName("app_1985.12.24_01_01_01.999.log"));
+	assertEquals(getTestTimestamp(), logFileManager.getTimestampFromFileName("app.log_1985.12.24_01_01_01.999_(1).gz"));
+    }
+
     @Test
     public void testZipFiles() throws Exception {
 	File logDir = getTestLogFileFolder();
@@ -190,6 +200,76 @@ public class LogFileManagerTest {
 	zipInputStream.close();
     }
 
+    @Test
+    public void testZipFilesCompressedFileStored() throws Exception {
+	File logDir = getTestLogFileFolder();
+	File file1 = createTestFile(logDir, "test1.txt", "Test1Text");
+	File file2 = createTestFile(logDir, "test2.txt.gz", "Test2Text");
+	File zipFile = new File(logDir, "test.zip");
+	logFileManager.zipFiles(Arrays.asList(file1, file2), zipFile);
+	File file3 = createTestFile(logDir, "test3.txt.gz", "Test3Text");
+	assertTrue(logFileManager.appendFilesToZip(Arrays.asList(file3), zipFile));
+	ZipFile zip = new ZipFile(zipFile);
+	assertEquals(ZipEntry.DEFLATED, zip.getEntry("test1.txt").getMethod());
+	assertEquals(ZipEntry.STORED, zip.getEntry("test2.txt.gz").getMethod());
+	assertEquals(ZipEntry.STORED, zip.getEntry("test3.txt.gz").getMethod());
+	assertArrayEquals("Test2Text".getBytes(Charsets.UTF8_CHARSET), getZipEntryContent(zip, "test2.txt.gz"));
+	assertArrayEquals("Test3Text".getBytes(Charsets.UTF8_CHARSET), getZipEntryContent(zip, "test3.txt.gz"));
+	zip.close();
+    }
+
+    @Test
+    public void testAppendFilesToZip() throws Exception {
+	File logDir = getTestLogFileFolder();
+	File file1 = createTestFile(logDir, "test1.txt", "Test1Text");
+	File file2 = createTestFile(logDir, "test2.txt", "Test2Text");
+	File zipFile = new File(logDir, "test.zip");
+	assertFalse(logFileManager.appendFilesToZip(Arrays.asList(file1, file2), zipFile));
+	assertTrue(file1.exists());
+	assertTrue(file2.exists());
+	logFileManager.zipFiles(Arrays.asList(file1, file2), zipFile);
+	File file3 = createTestFile(logDir, "test3.txt", "Test3Text");
+	File file4 = createTestFile(logDir, "test4.txt", "Test4Text");
+	File file5 = new File(logDir, "test5.txt");
+	assertTrue(logFileManager.appendFilesToZip(Arrays.asList(file3, file4, file5), zipFile));
+	File[] files = logDir.listFiles();
+	assertEquals(1, files.length);
+	assertEquals("test.zip", files[0].getName());
+	ZipInputStream zipInputStream = new ZipInputStream(new FileInputStream(zipFile));
+	ZipEntry entry1 = zipInputStream.getNextEntry();
+	byte[] content1 = getZipEntryContent(zipInputStream);
+	ZipEntry entry2 = zipInputStream.getNextEntry();
+	byte[] content2 = getZipEntryContent(zipInputStream);
+	ZipEntry entry3 = zipInputStream.getNextEntry();
+	byte[] content3 = getZipEntryContent(zipInputStream);
+	ZipEntry entry4 = zipInputStream.getNextEntry();
+	byte[] content4 = getZipEntryContent(zipInputStream);
+	assertNull(zipInputStream.getNextEntry());
+	assertEquals("test1.txt", entry1.getName());
+	assertEquals("test2.txt", entry2.getName());
+	assertEquals("test3.txt", entry3.getName());
+	assertEquals("test4.txt", entry4.getName());
+	assertArrayEquals("Test1Text".getBytes(Charsets.UTF8_CHARSET), content1);
+	assertArrayEquals("Test2Text".getBytes(Charsets.UTF8_CHARSET), content2);
+	assertArrayEquals("Test3Text".getBytes(Charsets.UTF8_CHARSET), content3);
+	assertArrayEquals("Test4Text".getBytes(Charsets.UTF8_CHARSET), content4);
+	zipInputStream.close();
+	ZipFile zip = new ZipFile(zipFile);
+	assertEquals(4, zip.size());
+	assertArrayEquals("Test4Text".getBytes(Charsets.UTF8_CHARSET), getZipEntryContent(zip, "test4.txt"));
+	zip.close();
+    }
+
+    @Test
+    public void testAppendFilesToZipInvalidZip() throws Exception {
+	File logDir = getTestLogFileFolder();
+	File file1 = createTestFile(logDir, "test1.txt", "Test1Text");
+	File zipFile = createTestFile(logDir, "test.zip", "NoZip");
+	assertFalse(logFileManager.appendFilesToZip(Arrays.asList(file1), zipFile));
+	assertTrue(file1.exists());
+	assertEquals("NoZip", getFileContent(zipFile));
+    }
+
     @Test
     public void testWriteListToFile() throws Exception {
 	String nl = System.lineSeparator();
@@ -207,6 +287,27 @@ public class LogFileManagerTest {
 	assertEquals("header" + nl + "Test" + nl + "3" + nl + "12345" + nl, fileContent);
     }
 
+    @Test
+    public void testWriteLargeListToFile() throws Exception {
+	String nl = System.lineSeparator();
+	File logDir = getTestLogFileFolder();
+	List<Object> data = new ArrayList<>();
+	StringBuilder expected = new StringBuilder("header" + nl);
+	for (int ii = 0; ii < 100000; ii++) {
+	    if (ii % 1000 == 0) {
+		data.add(null);
+	    }
+	    String line = "Test" + ii + " äöü€😀";
+	    data.add(line);
+	    expected.append(line).append(nl);
+	}
+	File file = new File(logDir, "test.txt");
+	logFileManager.writeListToFile("header", null, data, file);
+	assertEquals(expected.toString(), getFileContent(file));
+	logFileManager.writeListToFile(null, null, new LinkedList<>(data), file);
+	assertEquals(expected.substring(("header" + nl).length()), getFileContent(file));
+    }
+
     @Test
     public void testWriteListToFileEmpty() throws Exception {
 	String nl = System.lineSeparator();
@@ -274,6 +375,18 @@ public class LogFileManagerTest {
 	return outputStream.toByteArray();
     }
 
+    private byte[] getZipEntryContent(ZipFile zipFile, String name) throws Exception {
+	ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+	InputStream inputStream = zipFile.getInputStream(zipFile.getEntry(name));
+	byte[] buffer = new byte[20];
+	int read;
+	while ((read = inputStream.read(buffer, 0, 20)) >= 0) {
+	    outputStream.write(buffer, 0, read);
+	}
+	inputStream.close();
+	return outputStream.toByteArray();
+    }
+
     private long getTestTimestamp() {
 	Calendar calendar = new GregorianCalendar(1985, Calendar.DECEMBER, 24, 1, 1, 1);
 	calendar.set(Calendar.MILLISECOND, 999);
@@ -0,0 +1,288 @@
+package net.ibbaa.phonelog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class LogFileReaderTest {
+
+    private LogFileManager logFileManager;
+    private DefaultLogFormatter defaultLogFormatter;
+
+    @BeforeEach
+    public void beforeEachTestMethod() {
+	logFileManager = new LogFileManager();
+	defaultLogFormatter = new DefaultLogFormatter();
+	logFileManager.delete(getTestLogFileFolder());
+    }
+
+    @Test
+    public void testReadInTimeOrder() throws Exception {
+	File logDir = getTestLogFileFolder();
+	long timestamp = getTestTimestamp();
+	File archived = createTestLogFile(logDir, logFileManager.suffixFileName("app.log", logFileManager.getTimestampSuffix(timestamp + 10)), getTestEntry(timestamp, LogLevel.DEBUG, "tag", "message1"), getTestEntry(timestamp + 5, LogLevel.DEBUG, "tag", "message2"));
+	logFileManager.zipFiles(Arrays.asList(archived), new File(logDir, logFileManager.suffixFileName("app.zip", logFileManager.getTimestampSuffix(timestamp + 15))));
+	archived.delete();
+	createTestLogFile(logDir, logFileManager.suffixFileName("app.log", logFileManager.getTimestampSuffix(timestamp + 30)), getTestEntry(timestamp + 20, LogLevel.INFO, "tag", "message4"));
+	createTestLogFile(logDir, logFileManager.suffixFileName("app.log", logFileManager.getTimestampSuffix(timestamp + 20)), getTestEntry(timestamp + 12, LogLevel.INFO, "tag", "message3"));
+	createTestLogFile(logDir, "app.log", getTestEntry(timestamp + 40, LogLevel.ERROR, "tag", "message5"));
+	createTestLogFile(logDir, "other.log", getTestEntry(timestamp + 50, LogLevel.ERROR, "tag", "other"));
+	LogFileReader reader = new LogFileReader(logDir.getAbsolutePath());
+	assertLogEntryEquals(reader.readEntry(), timestamp, LogLevel.DEBUG, "tag", "message1");
+	assertLogEntryEquals(reader.readEntry(), timestamp + 5, LogLevel.DEBUG, "tag", "message2");
+	assertLogEntryEquals(reader.readEntry(), timestamp + 12, LogLevel.INFO, "tag", "message3");
+	assertLogEntryEquals(reader.readEntry(), timestamp + 20, LogLevel.INFO, "tag", "message4");
+	assertLogEntryEquals(reader.readEntry(), timestamp + 40, LogLevel.ERROR, "tag", "message5");
+	assertNull(reader.readEntry());
+	reader.close();
+    }
+
+    @Test
+    public void testQuery() throws Exception {
+	File logDir = getTestLogFileFolder();
+	long timestamp = getTestTimestamp();
+	createTestLogFile(logDir, logFileManager.suffixFileName("app.log", logFileManager.getTimestampSuffix(timestamp + 10)), getTestEntry(timestamp, LogLevel.DEBUG, "tag1", "message1"), getTestEntry(timestamp + 5, LogLevel.ERROR, "tag2", "message2"));
+	createTestLogFile(logDir, "app.log", getTestEntry(timestamp + 20, LogLevel.INFO, "tag1", "message3 id=42"), getTestEntry(timestamp + 30, LogLevel.WARN, "tag1", "message4"));
+	LogFileReader reader = new LogFileReader(logDir.getAbsolutePath(), new LogFileQuery(LogLevel.INFO, null, Long.MIN_VALUE, Long.MAX_VALUE, null));
+	assertEquals("message2", reader.readEntry().getMessage());
+	assertEquals("message3 id=42", reader.readEntry().getMessage());
+	assertEquals("message4", reader.readEntry().getMessage());
+	assertNull(reader.readEntry());
+	reader.close();
+	reader = new LogFileReader(logDir.getAbsolutePath(), new LogFileQuery(null, "tag1", Long.MIN_VALUE, Long.MAX_VALUE, "id=42"));
+	assertEquals("message3 id=42", reader.readEntry().getMessage());
+	assertNull(reader.readEntry());
+	reader.close();
+	reader = new LogFileReader(logDir.getAbsolutePath(), new LogFileQuery(timestamp + 5, timestamp + 20));
+	assertEquals("message2", reader.readEntry().getMessage());
+	assertEquals("message3 id=42", reader.readEntry().getMessage());
+	assertNull(reader.readEntry());
+	reader.close();
+	reader = new LogFileReader(logDir.getAbsolutePath(), "other.log", null);
+	assertNull(reader.readEntry());
+	reader.close();
+    }
+
+    @Test
+    public void testReadCompressedAndBinary() throws Exception {
+	File logDir = getTestLogFileFolder();
+	long timestamp = getTestTimestamp();
+	File compressedFile = new File(logDir, logFileManager.suffixFileName("test.log.gz", logFileManager.getTimestampSuffix(timestamp + 10)));
+	OutputStream outputStream = new GZIPOutputStream(new FileOutputStream(compressedFile));
+	outputStream.write(defaultLogFormatter.formatLogFileEntry(getTestEntry(timestamp, LogLevel.DEBUG, "tag", "message1"), Charsets.UTF8_CHARSET));
+	outputStream.close();
+	BinaryLogFormatter binaryLogFormatter = new BinaryLogFormatter();
+	outputStream = new FileOutputStream(new File(logDir, "test.log"));
+	outputStream.write(binaryLogFormatter.startSegment());
+	outputStream.write(binaryLogFormatter.formatLogFileEntry(getTestEntry(timestamp + 20, LogLevel.INFO, "tag", "message2"), Charsets.UTF8_CHARSET));
+	outputStream.close();
+	LogFileReader reader = new LogFileReader(logDir.getAbsolutePath(), "test.log", null);
+	assertLogEntryEquals(reader.readEntry(), timestamp, LogLevel.DEBUG, "tag", "message1");
+	assertLogEntryEquals(reader.readEntry(), timestamp + 20, LogLevel.INFO, "tag", "message2");
+	assertNull(reader.readEntry());
+	reader.close();
+    }
+
+    @Test
+    public void testReadThrowable() throws Exception {
+	File logDir = getTestLogFileFolder();
+	long timestamp = getTestTimestamp();
+	Exception exc = new IllegalStateException("failure");
+	createTestLogFile(logDir, "app.log", new LogFileEntry(timestamp, "thread", LogLevel.ERROR, "tag", "message1", exc), new LogFileEntry(timestamp + 1, null, LogLevel.INFO, null, "message2: value", null));
+	LogFileReader reader = new LogFileReader(logDir.getAbsolutePath());
+	LogFileEntry entry = reader.readEntry();
+	assertEquals("thread", entry.getThread());
+	assertEquals("message1" + System.lineSeparator() + defaultLogFormatter.exceptionToString(exc), entry.getMessage());
+	assertLogEntryEquals(reader.readEntry(), timestamp + 1, LogLevel.INFO, null, "message2: value");
+	assertNull(reader.readEntry());
+	reader.close();
+    }
+
+    @Test
+    public void testReadWithIndex() throws Exception {
+	File logDir = getTestLogFileFolder();
+	long timestamp = getTestTimestamp();
+	LogFileEntry entry1 = getTestEntry(timestamp, LogLevel.DEBUG, "tag", "message1");
+	LogFileEntry entry2 = getTestEntry(timestamp + 10, LogLevel.DEBUG, "tag", "message2");
+	LogFileEntry entry3 = getTestEntry(timestamp + 20, LogLevel.DEBUG, "tag", "message3");
+	createTestLogFile(logDir, "app.log", entry1, entry2, entry3);
+	long offset = defaultLogFormatter.formatLogFileEntry(entry1, Charsets.UTF8_CHARSET).length + defaultLogFormatter.formatLogFileEntry(entry2, Charsets.UTF8_CHARSET).length;
+	FileOutputStream outputStream = new FileOutputStream(new File(logDir, "app.log.idx"));
+	outputStream.write(LogFileIndex.createRecord(timestamp, 0));
+	outputStream.write(LogFileIndex.createRecord(timestamp + 5, offset));
+	outputStream.close();
+	LogFileReader reader = new LogFileReader(logDir.getAbsolutePath(), new LogFileQuery(timestamp + 1, Long.MAX_VALUE));
+	assertEquals("message2", reader.readEntry().getMessage());
+	reader.close();
+	reader = new LogFileReader(logDir.getAbsolutePath(), new LogFileQuery(timestamp + 6, Long.MAX_VALUE));
+	assertEquals("message3", reader.readEntry().getMessage());
+	assertNull(reader.readEntry());
+	reader.close();
+    }
+
+    @Test
+    public void testReadWithIndexReplayedEntries() throws Exception {
+	File logDir = getTestLogFileFolder();
+	long timestamp = getTestTimestamp();
+	char[] padding = new char[100];
+	Arrays.fill(padding, 'x');
+	FileLogger logger = new FileLogger(LogLevel.DEBUG, 1024 * 1024, -1, -1, -1, false, 100, logDir.getAbsolutePath(), "app.log", defaultLogFormatter, null);
+	for (int ii = 0; ii < 10; ii++) {
+	    logger.log(getTestEntry(timestamp + ii, LogLevel.DEBUG, "tag", "message" + ii + " " + new String(padding)));
+	}
+	for (int ii = 0; ii < 20; ii++) {
+	    logger.log(getTestEntry(timestamp + ii % 5, LogLevel.DEBUG, "tag", "replay" + ii + " " + new String(padding)));
+	}
+	File indexFile = new File(logDir, "app.log.idx");
+	for (int ii = 0; ii < 100 && indexFile.length() < 30 * 16; ii++) {
+	    Thread.sleep(50);
+	}
+	assertEquals(30 * 16, indexFile.length());
+	LogFileReader reader = new LogFileReader(logDir.getAbsolutePath(), new LogFileQuery(timestamp + 5, Long.MAX_VALUE));
+	for (int ii = 5; ii < 10; ii++) {
+	    LogFileEntry entry = reader.readEntry();
+	    assertEquals(timestamp + ii, entry.getTimestamp());
+	    assertTrue(entry.getMessage().startsWith("message" + ii + " "));
+	}
+	assertNull(reader.readEntry());
+	reader.close();
+    }
+
+    @Test
+    public void testReadWithTermIndex() throws Exception {
+	File logDir = getTestLogFileFolder();
+	long timestamp = getTestTimestamp();
+	File file1 = createTestLogFile(logDir, logFileManager.suffixFileName("app.log", logFileManager.getTimestampSuffix(timestamp + 10)), getTestEntry(timestamp, LogLevel.DEBUG, "tag", "message1"), getTestEntry(timestamp + 5, LogLevel.DEBUG, "tag", "message2 ERR-42"), getTestEntry(timestamp + 6, LogLevel.DEBUG, "tag", "message3 err-42x"));
+	File file2 = createTestLogFile(logDir, logFileManager.suffixFileName("app.log", logFileManager.getTimestampSuffix(timestamp + 20)), getTestEntry(timestamp + 15, LogLevel.DEBUG, "tag", "message4"));
+	File zipFile = new File(logDir, "app_archive.zip");
+	logFileManager.zipFiles(Arrays.asList(file1, file2), zipFile);
+	assertTrue(new LogTermIndexBuilder(1024).build(zipFile, new File(logDir, LogTermIndex.getIndexFileName(zipFile.getName()))));
+	createTestLogFile(logDir, "app.log", getTestEntry(timestamp + 30, LogLevel.DEBUG, "tag", "message5 err-42"));
+	LogFileReader reader = new LogFileReader(logDir.getAbsolutePath(), new LogFileQuery(null, null, Long.MIN_VALUE, Long.MAX_VALUE, null, "ERR-42"));
+	assertEquals("message2 ERR-42", reader.readEntry().getMessage());
+	assertEquals("message5 err-42", reader.readEntry().getMessage());
+	assertNull(reader.readEntry());
+	reader.close();
+    }
+
+    @Test
+    public void testReadWithTermIndexOffsets() throws Exception {
+	File logDir = getTestLogFileFolder();
+	long timestamp = getTestTimestamp();
+	File file = createTestLogFile(logDir, logFileManager.suffixFileName("app.log", logFileManager.getTimestampSuffix(timestamp + 10)), getTestEntry(timestamp, LogLevel.DEBUG, "tag", "message1 ERR-42"), getTestEntry(timestamp + 1, LogLevel.DEBUG, "tag", "message2"), getTestEntry(timestamp + 2, LogLevel.DEBUG, "tag", "message3 ERR-42"), getTestEntry(timestamp + 3, LogLevel.DEBUG, "tag", "message4 ERR-42"), getTestEntry(timestamp + 4, LogLevel.DEBUG, "tag", "message5"));
+	File zipFile = new File(logDir, "app_archive.zip");
+	logFileManager.zipFiles(Arrays.asList(file), zipFile);
+	assertTrue(new LogTermIndexBuilder(1024).build(zipFile, new File(logDir, LogTermIndex.getIndexFileName(zipFile.getName()))));
+	LogFileReader reader = new LogFileReader(logDir.getAbsolutePath(), new LogFileQuery(null, null, Long.MIN_VALUE, Long.MAX_VALUE, null, "ERR-42"));
+	assertEquals("message1 ERR-42", reader.readEntry().getMessage());
+	assertEquals("message3 ERR-42", reader.readEntry().getMessage());
+	assertEquals("message4 ERR-42", reader.readEntry().getMessage());
+	assertNull(reader.readEntry());
+	reader.close();
+    }
+
+    @Test
+    public void testReadWithBloomFilter() throws Exception {
+	File logDir = getTestLogFileFolder();
+	long timestamp = getTestTimestamp();
+	File filteredFile = createTestLogFile(logDir, logFileManager.suffixFileName("app.log", logFileManager.getTimestampSuffix(timestamp + 10)), getTestEntry(timestamp, LogLevel.DEBUG, "tag", "message1 ERR-7"));
+	createTestFilter(new File(logDir, LogBloomFilter.getFilterFileName(filteredFile.getName())));
+	createTestLogFile(logDir, logFileManager.suffixFileName("app.log", logFileManager.getTimestampSuffix(timestamp + 20)), getTestEntry(timestamp + 15, LogLevel.DEBUG, "tag", "message2 ERR-7"));
+	File archivedFile1 = createTestLogFile(logDir, logFileManager.suffixFileName("app.log", logFileManager.getTimestampSuffix(timestamp + 30)), getTestEntry(timestamp + 25, LogLevel.DEBUG, "tag", "message3 ERR-7"));
+	File archivedFilter1 = createTestFilter(new File(logDir, LogBloomFilter.getFilterFileName(archivedFile1.getName())));
+	File zipFile1 = new File(logDir, "app_archive1.zip");
+	logFileManager.zipFiles(Arrays.asList(archivedFile1, archivedFilter1), zipFile1);
+	assertTrue(new LogBloomFilterBuilder(1024).build(zipFile1, new File(logDir, LogBloomFilter.getFilterFileName(zipFile1.getName()))));
+	File archivedFile2 = createTestLogFile(logDir, logFileManager.suffixFileName("app.log", logFileManager.getTimestampSuffix(timestamp + 40)), getTestEntry(timestamp + 35, LogLevel.DEBUG, "tag", "message4 ERR-7"));
+	File zipFile2 = new File(logDir, "app_archive2.zip");
+	logFileManager.zipFiles(Arrays.asList(archivedFile2), zipFile2);
+	assertTrue(new LogBloomFilterBuilder(1024).build(zipFile2, new File(logDir, LogBloomFilter.getFilterFileName(zipFile2.getName()))));
+	LogFileReader reader = new LogFileReader(logDir.getAbsolutePath(), new LogFileQuery(null, null, Long.MIN_VALUE, Long.MAX_VALUE, null, "err-7"));
+	assertEquals("message2 ERR-7", reader.readEntry().getMessage());
+	assertEquals("message4 ERR-7", reader.readEntry().getMessage());
+	assertNull(reader.readEntry());
+	reader.close();
+	reader = new LogFileReader(logDir.getAbsolutePath(), new LogFileQuery(null, "tag", Long.MIN_VALUE, Long.MAX_VALUE, null));
+	assertEquals("message2 ERR-7", reader.readEntry().getMessage());
+	assertEquals("message4 ERR-7", reader.readEntry().getMessage());
+	assertNull(reader.readEntry());
+	reader.close();
+	reader = new LogFileReader(logDir.getAbsolutePath());
+	int count = 0;
+	while (reader.readEntry() != null) {
+	    count++;
+	}
+	reader.close();
+	assertEquals(4, count);
+    }
+
+    @Test
+    public void testParser() {
+	LogFileEntryParser parser = new LogFileEntryParser();
+	assertNull(parser.parseLine("garbage"));
+	assertNull(parser.parseLine("1985-12-24 01:01:01.999 [main] DEBUG tag: message"));
+	assertNull(parser.parseLine("continued"));
+	LogFileEntry entry = parser.parseLine("1985-12-24 01:01:02.000 WARN: other");
+	assertLogEntryEquals(entry, getTestTimestamp(), LogLevel.DEBUG, "tag", "message" + System.lineSeparator() + "continued");
+	assertEquals("main", entry.getThread());
+	assertLogEntryEquals(parser.flush(), getTestTimestamp() + 1, LogLevel.WARN, null, "other");
+	assertNull(parser.flush());
+    }
+
+    private File createTestFilter(File file) throws Exception {
+	FileOutputStream outputStream = new FileOutputStream(file);
+	new LogBloomFilter(64).write(outputStream);
+	outputStream.close();
+	return file;
+    }
+
+    private File createTestLogFile(File dir, String name, LogFileEntry... entries) throws Exception {
+	File file = new File(dir, name);
+	FileOutputStream outputStream = new FileOutputStream(file);
+	for (LogFileEntry entry : entries) {
+	    outputStream.write(defaultLogFormatter.formatLogFileEntry(entry, Charsets.UTF8_CHARSET));
+	}
+	outputStream.flush();
+	outputStream.close();
+	return file;
+    }
+
+    private void assertLogEntryEquals(LogFileEntry logEntry, long timestamp, LogLevel level, String tag, String message) {
+	assertTrue(logEntry != null);
+	assertEquals(timestamp, logEntry.getTimestamp());
+	assertEquals(level, logEntry.getLevel());
+	assertEquals(tag, logEntry.getTag());
+	assertEquals(message, logEntry.getMessage());
+	assertNull(logEntry.getThrowable());
+    }
+
+    private File getTestLogFileFolder() {
+	File dir = new File(System.getProperty("java.io.tmpdir"));
+	File logDir = new File(dir, "logreaderdir");
+	if (!logDir.exists()) {
+	    assertTrue(logDir.mkdirs());
+	}
+	return logDir;
+    }
+
+    private long getTestTimestamp() {
+	Calendar calendar = new GregorianCalendar(1985, Calendar.DECEMBER, 24, 1, 1, 1);
+	calendar.set(Calendar.MILLISECOND, 999);
+	return calendar.getTimeInMillis();
+    }
+
+    private LogFileEntry getTestEntry(long timestamp, LogLevel level, String tag, String message) {
+	return new LogFileEntry(timestamp, "thread", level, tag, message, null);
+    }
+}
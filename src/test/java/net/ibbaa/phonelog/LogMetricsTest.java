@@ -0,0 +1,62 @@
+package net.ibbaa.phonelog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.Test;
+
+public class LogMetricsTest {
+
+    @Test
+    public void testHistogram() {
+	LogLatencyHistogram histogram = new LogLatencyHistogram();
+	assertEquals(0, histogram.getPercentile(50));
+	for (int ii = 1; ii <= 100; ii++) {
+	    histogram.record(ii * 1000);
+	}
+	histogram.record(-1);
+	assertEquals(101, histogram.getCount());
+	assertEquals(5050000, histogram.getSum());
+	assertEquals(100000, histogram.getMax());
+	assertEquals(50000, histogram.getMean());
+	long median = histogram.getPercentile(50);
+	assertTrue(median >= 50000 && median < 100000);
+	assertEquals(100000, histogram.getPercentile(100));
+	histogram.reset();
+	assertEquals(0, histogram.getCount());
+	assertEquals(0, histogram.getMax());
+    }
+
+    @Test
+    public void testCounters() {
+	LogMetrics metrics = LogMetrics.getInstance();
+	long value = metrics.getCounter(LogMetrics.IO_ERRORS);
+	metrics.increment(LogMetrics.IO_ERRORS);
+	metrics.add(LogMetrics.IO_ERRORS, 2);
+	metrics.increment("unknown");
+	assertEquals(value + 3, metrics.getCounter(LogMetrics.IO_ERRORS));
+	assertEquals(value + 3, metrics.getCounters().get(LogMetrics.IO_ERRORS));
+	assertEquals(0, metrics.getCounter("unknown"));
+    }
+
+    @Test
+    public void testJmx() throws Exception {
+	assertTrue(LogMetricsJmx.register());
+	assertTrue(LogMetricsJmx.register());
+	MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+	ObjectName name = new ObjectName(LogMetricsJmx.OBJECT_NAME);
+	LogMetrics metrics = LogMetrics.getInstance();
+	metrics.record(LogMetrics.ROTATION_TIME, 1000);
+	assertEquals(metrics.getCounter(LogMetrics.ROTATIONS), server.getAttribute(name, LogMetrics.ROTATIONS));
+	assertEquals(metrics.getHistogram(LogMetrics.ROTATION_TIME).getCount(), server.getAttribute(name, LogMetrics.ROTATION_TIME + "Count"));
+	assertEquals(metrics.getHistogram(LogMetrics.ROTATION_TIME).getMax(), server.getAttribute(name, LogMetrics.ROTATION_TIME + "Max"));
+	assertEquals(10 + 5 * 5, server.getMBeanInfo(name).getAttributes().length);
+	LogMetricsJmx.unregister();
+	assertTrue(!server.isRegistered(name));
+    }
+}
@@ -0,0 +1,141 @@
+package net.ibbaa.phonelog;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class LogTermIndexTest {
+
+    private LogFileManager logFileManager;
+    private DefaultLogFormatter defaultLogFormatter;
+
+    @BeforeEach
+    public void beforeEachTestMethod() {
+	logFileManager = new LogFileManager();
+	defaultLogFormatter = new DefaultLogFormatter();
+	logFileManager.delete(getTestLogFileFolder());
+    }
+
+    @Test
+    public void testTokenize() {
+	List<String> tokens = new ArrayList<>();
+	LogTokenizer.tokenize("Request ERR-1234 failed: java.lang.IllegalStateException, id=a.", tokens::add);
+	assertEquals(Arrays.asList("request", "err-1234", "failed", "java.lang.illegalstateexception", "illegalstateexception", "id"), tokens);
+	assertEquals("err-1234", LogTokenizer.normalize(" ERR-1234 "));
+    }
+
+    @Test
+    public void testBuildAndFind() throws Exception {
+	File logDir = getTestLogFileFolder();
+	File zipFile = createTestArchive(logDir);
+	File indexFile = new File(logDir, LogTermIndex.getIndexFileName(zipFile.getName()));
+	assertTrue(new LogTermIndexBuilder(1024 * 1024).build(zipFile, indexFile));
+	LogTermIndex index = new LogTermIndex(indexFile);
+	assertEquals(Arrays.asList("app_1.log", "app_2.log"), index.getEntryNames());
+	Map<String, long[]> postings = index.findPostings("ERR-1234");
+	assertEquals(2, postings.size());
+	long offset = defaultLogFormatter.formatLogFileEntry(getTestEntry(0, "tag", "message1 ok"), Charsets.UTF8_CHARSET).length;
+	assertArrayEquals(new long[] { offset }, postings.get("app_1.log"));
+	assertArrayEquals(new long[] { 0 }, postings.get("app_2.log"));
+	postings = index.findPostings("illegalstateexception");
+	assertEquals(1, postings.size());
+	assertArrayEquals(new long[] { 0 }, postings.get("app_2.log"));
+	assertEquals(2, index.findPostings("tag").size());
+	assertTrue(index.findPostings("missing").isEmpty());
+	assertTrue(index.findPostings("aaa").isEmpty());
+	assertTrue(index.findPostings("zzz").isEmpty());
+    }
+
+    @Test
+    public void testBuildWithSpilling() throws Exception {
+	File logDir = getTestLogFileFolder();
+	File zipFile = createTestArchive(logDir);
+	File indexFile = new File(logDir, "memory.tidx");
+	File spilledIndexFile = new File(logDir, "spilled.tidx");
+	assertTrue(new LogTermIndexBuilder(1024 * 1024).build(zipFile, indexFile));
+	assertTrue(new LogTermIndexBuilder(1).build(zipFile, spilledIndexFile));
+	LogTermIndex index = new LogTermIndex(indexFile);
+	LogTermIndex spilledIndex = new LogTermIndex(spilledIndexFile);
+	for (String term : Arrays.asList("err-1234", "tag", "message1", "message2", "ok", "thread", "illegalstateexception")) {
+	    Map<String, long[]> postings = index.findPostings(term);
+	    Map<String, long[]> spilledPostings = spilledIndex.findPostings(term);
+	    assertEquals(postings.keySet(), spilledPostings.keySet());
+	    for (String name : postings.keySet()) {
+		assertArrayEquals(postings.get(name), spilledPostings.get(name));
+	    }
+	}
+	assertEquals(3, logDir.listFiles().length);
+    }
+
+    @Test
+    public void testBuildAppended() throws Exception {
+	File logDir = getTestLogFileFolder();
+	File zipFile = createTestArchive(logDir);
+	File indexFile = new File(logDir, LogTermIndex.getIndexFileName(zipFile.getName()));
+	assertTrue(new LogTermIndexBuilder(1024 * 1024).build(zipFile, indexFile));
+	File file = createTestLogFile(logDir, "app_3.log", getTestEntry(3, "other", "message4 ERR-1234"));
+	assertTrue(logFileManager.appendFilesToZip(Arrays.asList(file), zipFile));
+	assertTrue(new LogTermIndexBuilder(1).build(zipFile, indexFile));
+	LogTermIndex index = new LogTermIndex(indexFile);
+	assertEquals(Arrays.asList("app_1.log", "app_2.log", "app_3.log"), index.getEntryNames());
+	assertEquals(3, index.findPostings("err-1234").size());
+	assertEquals(1, index.findPostings("other").size());
+	assertArrayEquals(new long[] { 0 }, index.findPostings("message4").get("app_3.log"));
+	assertFalse(new File(logDir, indexFile.getName() + ".tmp").exists());
+    }
+
+    private File createTestArchive(File logDir) throws Exception {
+	File file1 = createTestLogFile(logDir, "app_1.log", getTestEntry(0, "tag", "message1 ok"), getTestEntry(1, "tag", "message2 ERR-1234"));
+	File index1 = new File(logDir, "app_1.log.idx");
+	FileOutputStream outputStream = new FileOutputStream(index1);
+	outputStream.write(LogFileIndex.createRecord(getTestTimestamp(), 0));
+	outputStream.close();
+	File file2 = createTestLogFile(logDir, "app_2.log", new LogFileEntry(getTestTimestamp() + 2, "thread", LogLevel.ERROR, "tag", "message3 ERR-1234", new IllegalStateException()));
+	File zipFile = new File(logDir, "app.zip");
+	logFileManager.zipFiles(Arrays.asList(file1, index1, file2), zipFile);
+	return zipFile;
+    }
+
+    private File createTestLogFile(File dir, String name, LogFileEntry... entries) throws Exception {
+	File file = new File(dir, name);
+	FileOutputStream outputStream = new FileOutputStream(file);
+	for (LogFileEntry entry : entries) {
+	    outputStream.write(defaultLogFormatter.formatLogFileEntry(entry, Charsets.UTF8_CHARSET));
+	}
+	outputStream.flush();
+	outputStream.close();
+	return file;
+    }
+
+    private File getTestLogFileFolder() {
+	File dir = new File(System.getProperty("java.io.tmpdir"));
+	File logDir = new File(dir, "termindexdir");
+	if (!logDir.exists()) {
+	    assertTrue(logDir.mkdirs());
+	}
+	return logDir;
+    }
+
+    private long getTestTimestamp() {
+	Calendar calendar = new GregorianCalendar(1985, Calendar.DECEMBER, 24, 1, 1, 1);
+	calendar.set(Calendar.MILLISECOND, 999);
+	return calendar.getTimeInMillis();
+    }
+
+    private LogFileEntry getTestEntry(long offset, String tag, String message) {
+	return new LogFileEntry(getTestTimestamp() + offset, "thread", LogLevel.DEBUG, tag, message, null);
+    }
+}
@@ -0,0 +1,81 @@
+package net.ibbaa.phonelog;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+public class LogThreadTest {
+
+    @Test
+    public void testCurrentCached() {
+	LogThread thread = LogThread.current();
+	assertSame(thread, LogThread.current());
+	assertEquals(Thread.currentThread().getName(), thread.getName());
+	assertEquals(Thread.currentThread().getId(), thread.getId());
+	assertSame(thread.getNameBytes(), LogThread.current().getNameBytes());
+    }
+
+    @Test
+    public void testCurrentNameChanged() {
+	String name = Thread.currentThread().getName();
+	try {
+	    LogThread thread = LogThread.current();
+	    Thread.currentThread().setName("changed");
+	    LogThread changedThread = LogThread.current();
+	    assertNotSame(thread, changedThread);
+	    assertEquals("changed", changedThread.getName());
+	    assertEquals(thread.getId(), changedThread.getId());
+	    assertSame(changedThread, LogThread.current());
+	} finally {
+	    Thread.currentThread().setName(name);
+	}
+    }
+
+    @Test
+    public void testCurrentOtherThread() throws Exception {
+	AtomicReference<LogThread> otherThread = new AtomicReference<>();
+	Thread thread = new Thread(() -> otherThread.set(LogThread.current()), "other");
+	thread.start();
+	thread.join();
+	assertEquals("other", otherThread.get().getName());
+	assertEquals(thread.getId(), otherThread.get().getId());
+	assertNotEquals(LogThread.current().getId(), otherThread.get().getId());
+    }
+
+    @Test
+    public void testNameBytes() {
+	LogThread thread = new LogThread(-1, "äöü");
+	assertArrayEquals("äöü".getBytes(Charsets.UTF8_CHARSET), thread.getNameBytes());
+	assertSame(thread.getNameBytes(), thread.getNameBytes());
+	assertNull(new LogThread(-1, null).getNameBytes());
+    }
+
+    @Test
+    public void testLogFileEntry() {
+	LogFileEntry entry1 = new LogFileEntry(LogThread.current(), 1, LogLevel.DEBUG, "tag", "message1", null, null);
+	LogFileEntry entry2 = new LogFileEntry(LogThread.current(), 2, LogLevel.DEBUG, "tag", "message2", null, null);
+	assertSame(entry1.getThread(), entry2.getThread());
+	assertSame(entry1.getLogThread(), entry2.getLogThread());
+	LogFileEntry entry3 = new LogFileEntry(3, "thread", LogLevel.DEBUG, "tag", "message3", null);
+	assertEquals("thread", entry3.getThread());
+	assertEquals(-1, entry3.getLogThread().getId());
+	assertNull(new LogFileEntry(4, null, LogLevel.DEBUG, "tag", "message4", null).getLogThread());
+    }
+
+    @Test
+    public void testJsonLinesLogFormatterThreadName() {
+	JsonLinesLogFormatter formatter = new JsonLinesLogFormatter();
+	String line = formatter.formatLogFileEntry(new LogFileEntry(new LogThread(1, "pool-1-thread-äöü"), 0, LogLevel.INFO, null, "message", null, null));
+	assertTrue(line.contains("\"thread\":\"pool-1-thread-äöü\""));
+	line = formatter.formatLogFileEntry(new LogFileEntry(new LogThread(1, "a\"b\n"), 0, LogLevel.INFO, null, "message", null, null));
+	assertTrue(line.contains("\"thread\":\"a\\\"b\\n\""));
+    }
+}
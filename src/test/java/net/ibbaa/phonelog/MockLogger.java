@@ -1,6 +1,7 @@
 package net.ibbaa.phonelog;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class MockLogger implements ILogger {
@@ -8,7 +9,7 @@ public class MockLogger implements ILogger {
     private final List<LogFileEntry> logEntries;
 
     public MockLogger() {
-	logEntries = new ArrayList<>();
+	logEntries = Collections.synchronizedList(new ArrayList<>());
     }
 
     @Override
@@ -17,6 +18,11 @@ public class MockLogger implements ILogger {
 	logEntries.add(logEntry);
     }
 
+    @Override
+    public void log(LogFileEntry entry) {
+	logEntries.add(entry);
+    }
+
     public void reset() {
 	logEntries.clear();
     }
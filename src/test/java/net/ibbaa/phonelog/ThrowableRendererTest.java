@@ -0,0 +1,88 @@
+package net.ibbaa.phonelog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+public class ThrowableRendererTest {
+
+    @Test
+    public void testRenderSameAsPrintStackTrace() {
+	ThrowableRenderer renderer = new ThrowableRenderer();
+	IllegalStateException exc = new IllegalStateException("outer", new IllegalArgumentException("inner", new NullPointerException()));
+	exc.addSuppressed(new UnsupportedOperationException("suppressed"));
+	assertEquals(printStackTrace(exc), renderer.render(exc));
+	StringBuilder builder = new StringBuilder("prefix");
+	renderer.render(exc, builder);
+	assertEquals("prefix" + printStackTrace(exc), builder.toString());
+    }
+
+    @Test
+    public void testRenderCircularReference() {
+	IllegalStateException outer = new IllegalStateException("outer");
+	IllegalArgumentException inner = new IllegalArgumentException("inner", outer);
+	outer.initCause(inner);
+	String rendered = new ThrowableRenderer().render(outer);
+	assertTrue(rendered.startsWith(outer + System.lineSeparator()));
+	assertTrue(rendered.contains("Caused by: " + inner + System.lineSeparator()));
+	assertTrue(rendered.endsWith("Caused by: [CIRCULAR REFERENCE: " + outer + "]" + System.lineSeparator()));
+    }
+
+    @Test
+    public void testRenderMaxDepth() {
+	ThrowableRenderer renderer = new ThrowableRenderer(2, null);
+	Exception exc = createException(new StackTraceElement("a.A", "a", "A.java", 1), new StackTraceElement("b.B", "b", "B.java", 2), new StackTraceElement("c.C", "c", "C.java", 3), new StackTraceElement("d.D", "d", "D.java", 4));
+	String expected = exc + System.lineSeparator() + "\tat a.A.a(A.java:1)" + System.lineSeparator() + "\tat b.B.b(B.java:2)" + System.lineSeparator() + "\t... 2 frames omitted" + System.lineSeparator();
+	assertEquals(expected, renderer.render(exc));
+	renderer = new ThrowableRenderer(0, null);
+	assertEquals(exc + System.lineSeparator() + "\t... 4 frames omitted" + System.lineSeparator(), renderer.render(exc));
+    }
+
+    @Test
+    public void testRenderFolded() {
+	ThrowableRenderer renderer = new ThrowableRenderer(-1, Arrays.asList("java.lang.reflect.", "sun.reflect."));
+	Exception exc = createException(new StackTraceElement("a.A", "a", "A.java", 1), new StackTraceElement("sun.reflect.NativeMethodAccessorImpl", "invoke", "NativeMethodAccessorImpl.java", 2), new StackTraceElement("java.lang.reflect.Method", "invoke", "Method.java", 3), new StackTraceElement("b.B", "b", "B.java", 4), new StackTraceElement("java.lang.reflect.Method", "invoke", "Method.java", 5));
+	String expected = exc + System.lineSeparator() + "\tat a.A.a(A.java:1)" + System.lineSeparator() + "\t... 2 frames folded" + System.lineSeparator() + "\tat b.B.b(B.java:4)" + System.lineSeparator() + "\t... 1 frame folded" + System.lineSeparator();
+	assertEquals(expected, renderer.render(exc));
+	renderer = new ThrowableRenderer(1, Arrays.asList("java.lang.reflect.", "sun.reflect."));
+	expected = exc + System.lineSeparator() + "\tat a.A.a(A.java:1)" + System.lineSeparator() + "\t... 2 frames folded" + System.lineSeparator() + "\t... 2 frames omitted" + System.lineSeparator();
+	assertEquals(expected, renderer.render(exc));
+    }
+
+    @Test
+    public void testRenderCommonFramesElided() {
+	StackTraceElement common = new StackTraceElement("c.C", "c", "C.java", 3);
+	Exception cause = createException(new StackTraceElement("b.B", "b", "B.java", 2), common);
+	Exception exc = createException(new StackTraceElement("a.A", "a", "A.java", 1), common);
+	exc.initCause(cause);
+	String rendered = new ThrowableRenderer(-1, Arrays.asList("c.")).render(exc);
+	assertTrue(rendered.contains("Caused by: " + cause + System.lineSeparator() + "\tat b.B.b(B.java:2)" + System.lineSeparator() + "\t... 1 more" + System.lineSeparator()));
+	assertFalse(rendered.contains("c.C.c"));
+    }
+
+    @Test
+    public void testDefaultLogFormatterUsesRenderer() {
+	DefaultLogFormatter formatter = new DefaultLogFormatter(new ThrowableRenderer(0, null));
+	Exception exc = createException(new StackTraceElement("a.A", "a", "A.java", 1));
+	String message = formatter.formatLogFileEntry(new LogFileEntry(1, "thread", LogLevel.ERROR, "tag", "message", exc));
+	assertTrue(message.endsWith("message" + System.lineSeparator() + exc + System.lineSeparator() + "\t... 1 frame omitted" + System.lineSeparator() + System.lineSeparator()));
+    }
+
+    private Exception createException(StackTraceElement... trace) {
+	Exception exc = new Exception("test");
+	exc.setStackTrace(trace);
+	return exc;
+    }
+
+    private String printStackTrace(Throwable exc) {
+	StringWriter stringWriter = new StringWriter();
+	exc.printStackTrace(new PrintWriter(stringWriter));
+	return stringWriter.toString();
+    }
+}